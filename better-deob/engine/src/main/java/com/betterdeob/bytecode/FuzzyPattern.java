@@ -0,0 +1,143 @@
+package com.betterdeob.bytecode;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An {@link OpcodeRegex} matched up to a number of opcode edits (insertions, deletions,
+ * substitutions) around the anchor, for fieldPatternFuzzy signals.
+ *
+ * The anchor must match exactly; the BEFORE and AFTER halves may together take at most
+ * {@code distance} edits. Each half is matched with the bit-parallel shift-and recurrence of
+ * Wu and Manber: the pattern's token positions are bits of one long, and every opcode read
+ * updates one state word per allowed error with a few shifts and ANDs against a per-symbol
+ * mask. A half of m tokens reads at most m + distance opcodes, so a fuzzy pattern costs about
+ * as much per field access as one exact DFA walk.
+ *
+ * Only plain token sequences can be matched this way: no alternation, repetition or operand
+ * constraints. Sources are keyed as {@code "~D PATTERN"} (see {@link #key}) so a fuzzy pattern
+ * never collides with the exact pattern of the same text inside one {@link PatternSet}.
+ */
+public final class FuzzyPattern {
+    public static final int MAX_DISTANCE = 8;
+
+    private final String source;
+    private final int distance;
+    private final BitSet anchor;
+    private final Half before;
+    private final Half after;
+
+    private FuzzyPattern(String source, int distance, BitSet anchor, Half before, Half after) {
+        this.source = source;
+        this.distance = distance;
+        this.anchor = anchor;
+        this.before = before;
+        this.after = after;
+    }
+
+    /** The PatternSet source of {@code pattern} matched within {@code distance} edits. */
+    public static String key(String pattern, int distance) {
+        return "~" + distance + " " + pattern.trim();
+    }
+
+    public static boolean isKey(String source) {
+        return source != null && source.startsWith("~");
+    }
+
+    /** Parses a {@link #key}; throws IllegalArgumentException like {@link OpcodeRegex#parse}. */
+    public static FuzzyPattern parse(String source) {
+        String src = source.trim();
+        int sp = src.indexOf(' ');
+        if (!isKey(src) || sp < 0) throw new IllegalArgumentException("not a fuzzy pattern key: " + src);
+        int distance;
+        try {
+            distance = Integer.parseInt(src.substring(1, sp));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad edit distance in: " + src);
+        }
+        if (distance < 0 || distance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("edit distance must be 0.." + MAX_DISTANCE + " in: " + src);
+        }
+        OpcodeRegex r = OpcodeRegex.parse(src.substring(sp + 1));
+        if (r.hasOperands()) throw new IllegalArgumentException("fuzzy patterns take no operand constraints: " + src);
+        return new FuzzyPattern(src, distance, r.anchor().symbols(), Half.of(r.before(), src), Half.of(r.after(), src));
+    }
+
+    public String source() { return source; }
+    public int distance() { return distance; }
+    BitSet anchor() { return anchor; }
+
+    /** One scratch buffer per {@link PatternSet.Matcher}; sized for {@link #MAX_DISTANCE}. */
+    static long[] scratch() { return new long[MAX_DISTANCE + 1]; }
+
+    /**
+     * True if the pattern matches with {@code ops[idx]} as anchor within the allowed edits.
+     * Outside the method reads as NONOP, same as the exact DFAs.
+     */
+    boolean matches(int[] ops, int idx, long[] r) {
+        if (!anchor.get(ops[idx])) return false;
+        int a = after.distance(ops, idx + 1, 1, distance, r);
+        if (a > distance) return false;
+        return before.distance(ops, idx - 1, -1, distance - a, r) <= distance - a;
+    }
+
+    /** One side of the anchor as shift-and masks: bit j+1 of {@code masks[sym]} is set if token j accepts sym. */
+    private record Half(long[] masks, int length) {
+        static Half of(OpcodeRegex.Node n, String src) {
+            List<OpcodeRegex.Node> items = (n instanceof OpcodeRegex.Seq s) ? s.items() : List.of(n);
+            long[] masks = new long[OpcodeRegex.ALPHABET];
+            int j = 0;
+            for (OpcodeRegex.Node item : items) {
+                if (!(item instanceof OpcodeRegex.Tok t)) {
+                    throw new IllegalArgumentException("fuzzy patterns take plain tokens only (no alternation or repetition): " + src);
+                }
+                BitSet syms = t.symbols();
+                for (int sym = syms.nextSetBit(0); sym >= 0; sym = syms.nextSetBit(sym + 1)) masks[sym] |= 1L << (j + 1);
+                j++;
+            }
+            return new Half(masks, j);
+        }
+
+        /**
+         * Fewest edits turning this half into a prefix of the opcodes read from {@code start} in
+         * direction {@code dir}, or {@code k + 1} if that takes more than {@code k}.
+         *
+         * r[d] holds the pattern positions reachable with d edits (bit 0 = nothing consumed yet).
+         * Per opcode: match shifts r[d] through the symbol mask, insertion keeps the old r[d-1],
+         * substitution shifts the old r[d-1], deletion shifts the new r[d-1].
+         */
+        int distance(int[] ops, int start, int dir, int k, long[] r) {
+            int m = length;
+            if (m == 0) return 0;
+            long all = (1L << (m + 1)) - 1;
+            long accept = 1L << m;
+
+            int best = k + 1;
+            for (int d = 0; d <= k; d++) {
+                r[d] = ((1L << (d + 1)) - 1) & all;   // d leading tokens deleted
+                if (best > k && (r[d] & accept) != 0) best = d;
+            }
+            for (int step = 0, pos = start; step < m + k && best > 0; step++, pos += dir) {
+                int sym = (pos >= 0 && pos < ops.length) ? ops[pos] : OpcodeRegex.NONOP;
+                long b = masks[sym];
+                long prevOld = r[0];
+                long prevNew = (prevOld << 1) & b;
+                r[0] = prevNew;
+                long live = prevNew;
+                for (int d = 1; d < best; d++) {
+                    long old = r[d];
+                    long cur = (((old << 1) & b) | prevOld | (prevOld << 1) | (prevNew << 1)) & all;
+                    r[d] = cur;
+                    live |= cur;
+                    prevOld = old;
+                    prevNew = cur;
+                }
+                for (int d = 0; d < best; d++) {
+                    if ((r[d] & accept) != 0) { best = d; break; }
+                }
+                if (live == 0) break;
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.betterdeob.bytecode;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.List;
+
+/**
+ * Interned operand ids of one method's opcode stream, computed lazily per operand key.
+ *
+ * Each key lives in its own namespace of the {@link SymbolTable} (see {@link #symbol}), so an
+ * operand check is a single int comparison once the method's column has been built.
+ */
+public final class InsnOperands {
+    public static final int OWNER = 0;
+    public static final int NAME = 1;
+    public static final int DESC = 2;
+    public static final int STR = 3;
+    public static final int NUM = 4;
+    static final int KEYS = 5;
+
+    private static final String[] PREFIX = {"o:", "n:", "d:", "s:", "#:"};
+    private static final String[] KEY_NAMES = {"owner", "name", "desc", "str", "num"};
+
+    private final List<AbstractInsnNode> insns;
+    private final SymbolTable symbols;
+    private final int[][] ids = new int[KEYS][];
+
+    public InsnOperands(List<AbstractInsnNode> insns, SymbolTable symbols) {
+        this.insns = insns;
+        this.symbols = symbols;
+    }
+
+    /** Operand id of the instruction at {@code pos} for {@code key}, or -1 (no operand / outside the method). */
+    public int id(int key, int pos) {
+        if (pos < 0 || pos >= insns.size()) return -1;
+        int[] col = ids[key];
+        if (col == null) {
+            col = new int[insns.size()];
+            for (int i = 0; i < col.length; i++) col[i] = symbols.find(symbol(key, insns.get(i)));
+            ids[key] = col;
+        }
+        return col[pos];
+    }
+
+    /** Key index for a predicate name such as "owner", or -1. */
+    static int key(String name) {
+        for (int k = 0; k < KEYS; k++) if (KEY_NAMES[k].equals(name)) return k;
+        return -1;
+    }
+
+    static String keyName(int key) { return KEY_NAMES[key]; }
+
+    /** Namespaced symbol of a predicate value as written in a pattern; null if the value is malformed. */
+    static String predicateSymbol(int key, String value) {
+        if (key != NUM) return PREFIX[key] + value;
+        Number n = parseNumber(value);
+        return (n == null) ? null : PREFIX[NUM] + canonical(n);
+    }
+
+    /** Namespaced operand symbol of an instruction, or null if it has no such operand. */
+    public static String symbol(int key, AbstractInsnNode insn) {
+        String v = switch (insn) {
+            case FieldInsnNode f -> switch (key) {
+                case OWNER -> f.owner;
+                case NAME -> f.name;
+                case DESC -> f.desc;
+                default -> null;
+            };
+            case MethodInsnNode m -> switch (key) {
+                case OWNER -> m.owner;
+                case NAME -> m.name;
+                case DESC -> m.desc;
+                default -> null;
+            };
+            // NEW/CHECKCAST/INSTANCEOF/ANEWARRAY hold an internal name; compare it as a descriptor
+            // like LDC class constants and resolved @Target references.
+            case TypeInsnNode t -> (key == DESC) ? Type.getObjectType(t.desc).getDescriptor() : null;
+            case LdcInsnNode ldc -> switch (key) {
+                case STR -> (ldc.cst instanceof String s) ? s : null;
+                case NUM -> (ldc.cst instanceof Number n) ? canonical(n) : null;
+                case DESC -> (ldc.cst instanceof Type t) ? t.getDescriptor() : null;
+                default -> null;
+            };
+            case IntInsnNode i -> (key == NUM && i.getOpcode() != Opcodes.NEWARRAY) ? Integer.toString(i.operand) : null;
+            case InsnNode i -> (key == NUM && i.getOpcode() >= Opcodes.ICONST_M1 && i.getOpcode() <= Opcodes.ICONST_5)
+                    ? Integer.toString(i.getOpcode() - Opcodes.ICONST_0) : null;
+            default -> null;
+        };
+        return (v == null) ? null : PREFIX[key] + v;
+    }
+
+    /** Canonical text of a numeric constant: integral values in decimal, floating values via toString. */
+    public static String canonical(Number n) {
+        if (n instanceof Float f) return Float.toString(f);
+        if (n instanceof Double d) return Double.toString(d);
+        return Long.toString(n.longValue());
+    }
+
+    /**
+     * Parses a decimal, 0x-hex (up to 8 digits read as a signed 32-bit int, like the IMUL signals)
+     * or floating-point literal; null if malformed.
+     */
+    public static Number parseNumber(String s) {
+        if (s == null || s.isBlank()) return null;
+        String t = s.trim().toLowerCase();
+        try {
+            if (t.startsWith("0x") || t.startsWith("-0x")) {
+                boolean neg = t.startsWith("-");
+                String hex = t.substring(neg ? 3 : 2);
+                long v = Long.parseUnsignedLong(hex, 16);
+                if (hex.length() <= 8) v = (int) v;
+                return neg ? -v : v;
+            }
+            if (t.contains(".") || t.contains("e")) return Double.parseDouble(t);
+            return Long.parseLong(t);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.betterdeob.bytecode;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+import org.objectweb.asm.tree.analysis.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decoder / encoder multipliers of int field accesses, found by constant propagation over a
+ * method's frames instead of a fixed opcode window.
+ *
+ * An ASM {@link Analyzer} runs with an interpreter that tags int values with the constant they
+ * hold, the own-class field read they came from, or the constant they were multiplied by. Tags
+ * survive stores, loads and DUPs, so {@code getfield x; istore 3; ...; iload 3; ldc C; imul}
+ * and {@code ldc C; iload 1; imul; dup_x1; putfield x} both yield C. A read's multiplier is
+ * the constant of the first IMUL taking the read value (in instruction order); a write's is
+ * the constant factor of the stored value. Values merged from paths that disagree lose their
+ * tags, so a site only gets a multiplier every path agrees on.
+ *
+ * Only methods with an IMUL within {@value #NEAR} instructions of an access to an int field of
+ * the own class are analysed ({@link #applies}); obfuscated methods nearly all have some IMUL
+ * and some field access, so requiring both anywhere would analyse almost everything. A
+ * multiplier that reaches its IMUL through a longer detour of stores and loads is therefore not
+ * found. Long fields are not covered: multipliers are int-valued throughout the feature records
+ * and reports.
+ */
+public final class MultiplierFlow {
+    /** Opcodes (labels, frames and line numbers not counted) between an IMUL and the field access. */
+    static final int NEAR = 8;
+
+    private MultiplierFlow() {}
+
+    /** True if {@code mn} of class {@code owner} has an IMUL within {@value #NEAR} opcodes of an own-class int field access. */
+    public static boolean applies(String owner, MethodNode mn) {
+        if (mn.instructions == null) return false;
+        int lastImul = Integer.MIN_VALUE / 2, lastField = Integer.MIN_VALUE / 2;
+        int i = 0;
+        for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() < 0) continue;
+            if (insn.getOpcode() == Opcodes.IMUL) {
+                if (i - lastField <= NEAR) return true;
+                lastImul = i;
+            } else if (insn instanceof FieldInsnNode f && isOwnInt(owner, f)) {
+                if (i - lastImul <= NEAR) return true;
+                lastField = i;
+            }
+            i++;
+        }
+        return false;
+    }
+
+    /**
+     * Multiplier per own-class int field access of {@code mn} (GET* and PUT* instructions), only
+     * for sites that have one. Null if the analyzer rejects the method (e.g. inconsistent stack
+     * heights in broken bytecode); callers then fall back to a local heuristic.
+     */
+    public static Map<FieldInsnNode, Integer> analyze(String owner, MethodNode mn) {
+        Frame<BasicValue>[] frames;
+        try {
+            frames = new Analyzer<>(new Tagger(owner)).analyze(owner, mn);
+        } catch (AnalyzerException e) {
+            return null;
+        }
+        AbstractInsnNode[] insns = mn.instructions.toArray();
+        Map<FieldInsnNode, Integer> out = new HashMap<>();
+        for (int i = 0; i < frames.length; i++) {
+            Frame<BasicValue> f = frames[i];
+            if (f == null) continue;   // unreachable
+            AbstractInsnNode insn = insns[i];
+            int op = insn.getOpcode();
+            if (op == Opcodes.IMUL) {
+                Tag a = tag(f.getStack(f.getStackSize() - 2));
+                Tag b = tag(f.getStack(f.getStackSize() - 1));
+                if (a.read != null && b.constant != null) out.putIfAbsent(a.read, b.constant);
+                if (b.read != null && a.constant != null) out.putIfAbsent(b.read, a.constant);
+            } else if ((op == Opcodes.PUTFIELD || op == Opcodes.PUTSTATIC) && isOwnInt(owner, (FieldInsnNode) insn)) {
+                Tag v = tag(f.getStack(f.getStackSize() - 1));
+                if (v.factor != null) out.put((FieldInsnNode) insn, v.factor);
+            }
+        }
+        return out;
+    }
+
+    private static boolean isOwnInt(String owner, FieldInsnNode f) {
+        return "I".equals(f.desc) && owner.equals(f.owner);
+    }
+
+    private static Tag tag(BasicValue v) {
+        return (v instanceof Tag t) ? t : Tag.NONE;
+    }
+
+    /**
+     * A value with what is known about it. {@code constant}: the int it holds; {@code read}: the
+     * own-class field access it was loaded by; {@code factor}: the constant it is a product of.
+     */
+    private static final class Tag extends BasicValue {
+        static final Tag NONE = new Tag(Type.INT_TYPE, null, null, null);
+
+        final Integer constant;
+        final FieldInsnNode read;
+        final Integer factor;
+
+        Tag(Type type, Integer constant, FieldInsnNode read, Integer factor) {
+            super(type);
+            this.constant = constant;
+            this.read = read;
+            this.factor = factor;
+        }
+
+        // Strict: BasicValue.equals only compares types, which would hide a lost tag from the
+        // analyzer's fixpoint check.
+        @Override public boolean equals(Object o) {
+            return o instanceof Tag t && Objects.equals(getType(), t.getType())
+                    && Objects.equals(constant, t.constant) && read == t.read && Objects.equals(factor, t.factor);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(getType(), constant, System.identityHashCode(read), factor);
+        }
+    }
+
+    /** BasicInterpreter whose values are all {@link Tag}s (or UNINITIALIZED / null for void). */
+    private static final class Tagger extends BasicInterpreter {
+        private final String owner;
+
+        Tagger(String owner) {
+            super(Opcodes.ASM9);
+            this.owner = owner;
+        }
+
+        private static BasicValue plain(BasicValue v) {
+            return (v == null || v == BasicValue.UNINITIALIZED_VALUE || v instanceof Tag) ? v
+                    : new Tag(v.getType(), null, null, null);
+        }
+
+        @Override public BasicValue newValue(Type type) {
+            return plain(super.newValue(type));
+        }
+
+        @Override public BasicValue newOperation(AbstractInsnNode insn) throws AnalyzerException {
+            int op = insn.getOpcode();
+            if (op >= Opcodes.ICONST_M1 && op <= Opcodes.ICONST_5) {
+                return new Tag(Type.INT_TYPE, op - Opcodes.ICONST_0, null, null);
+            }
+            if (op == Opcodes.BIPUSH || op == Opcodes.SIPUSH) {
+                return new Tag(Type.INT_TYPE, ((IntInsnNode) insn).operand, null, null);
+            }
+            if (insn instanceof LdcInsnNode ldc && ldc.cst instanceof Integer c) {
+                return new Tag(Type.INT_TYPE, c, null, null);
+            }
+            if (op == Opcodes.GETSTATIC && isOwnInt(owner, (FieldInsnNode) insn)) {
+                return new Tag(Type.INT_TYPE, null, (FieldInsnNode) insn, null);
+            }
+            return plain(super.newOperation(insn));
+        }
+
+        @Override public BasicValue copyOperation(AbstractInsnNode insn, BasicValue value) throws AnalyzerException {
+            return plain(super.copyOperation(insn, value));
+        }
+
+        @Override public BasicValue unaryOperation(AbstractInsnNode insn, BasicValue value) throws AnalyzerException {
+            if (insn.getOpcode() == Opcodes.GETFIELD && isOwnInt(owner, (FieldInsnNode) insn)) {
+                return new Tag(Type.INT_TYPE, null, (FieldInsnNode) insn, null);
+            }
+            return plain(super.unaryOperation(insn, value));
+        }
+
+        @Override public BasicValue binaryOperation(AbstractInsnNode insn, BasicValue v1, BasicValue v2) throws AnalyzerException {
+            if (insn.getOpcode() == Opcodes.IMUL) {
+                Integer a = tag(v1).constant, b = tag(v2).constant;
+                if (a != null && b != null) return new Tag(Type.INT_TYPE, a * b, null, null);
+                if (a != null || b != null) return new Tag(Type.INT_TYPE, null, null, (a != null) ? a : b);
+            }
+            return plain(super.binaryOperation(insn, v1, v2));
+        }
+
+        @Override public BasicValue ternaryOperation(AbstractInsnNode insn, BasicValue v1, BasicValue v2, BasicValue v3) throws AnalyzerException {
+            return plain(super.ternaryOperation(insn, v1, v2, v3));
+        }
+
+        @Override public BasicValue naryOperation(AbstractInsnNode insn, List<? extends BasicValue> values) throws AnalyzerException {
+            return plain(super.naryOperation(insn, values));
+        }
+
+        @Override public BasicValue merge(BasicValue a, BasicValue b) {
+            if (a == b || (a instanceof Tag && a.equals(b))) return a;
+            if (a == BasicValue.UNINITIALIZED_VALUE || b == BasicValue.UNINITIALIZED_VALUE
+                    || !Objects.equals(a.getType(), b.getType())) {
+                return BasicValue.UNINITIALIZED_VALUE;
+            }
+            // Keep what both paths agree on.
+            Tag ta = tag(a), tb = tag(b);
+            Tag merged = new Tag(a.getType(),
+                    Objects.equals(ta.constant, tb.constant) ? ta.constant : null,
+                    (ta.read == tb.read) ? ta.read : null,
+                    Objects.equals(ta.factor, tb.factor) ? ta.factor : null);
+            return merged.equals(a) ? a : merged;
+        }
+    }
+}
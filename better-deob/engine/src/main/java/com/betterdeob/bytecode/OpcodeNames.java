@@ -0,0 +1,32 @@
+package com.betterdeob.bytecode;
+
+import org.objectweb.asm.util.Printer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class OpcodeNames {
+    private OpcodeNames() {}
+
+    private static final Map<String, Integer> BY_NAME = new HashMap<>();
+    static {
+        String[] ops = Printer.OPCODES;
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] != null && !ops[i].isEmpty()) BY_NAME.put(ops[i], i);
+        }
+    }
+
+    public static String name(int opcode) {
+        if (opcode < 0) return "NONOP";
+        String[] ops = Printer.OPCODES;
+        if (opcode >= ops.length) return "OP_" + opcode;
+        String n = ops[opcode];
+        return (n == null) ? ("OP_" + opcode) : n;
+    }
+
+    /** Reverse lookup of {@link #name(int)}; returns -1 for unknown names. */
+    public static int opcode(String name) {
+        Integer op = BY_NAME.get(name);
+        return (op == null) ? -1 : op;
+    }
+}
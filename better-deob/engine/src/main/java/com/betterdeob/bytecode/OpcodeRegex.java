@@ -0,0 +1,489 @@
+package com.betterdeob.bytecode;
+
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Variable-length opcode pattern anchored on a field access.
+ *
+ * Syntax (whitespace separates tokens):
+ * - OPCODE            a single opcode by name, e.g. GETFIELD
+ * - *                 any single token (including NONOP padding)
+ * - [A B ...]         any listed opcode or opcode class, "[^ ...]" negates
+ * - (a b|c)           alternation of sub-sequences
+ * - x?  x{n}  x{n,m}  optional / bounded repetition (unbounded repetition is not supported)
+ * - @x                marks the anchor token (the field access itself)
+ * - x<key=value,...>  operand constraints on a single token, keys:
+ *                     owner, name, desc (field/method/type operands), str, num (constants).
+ *                     Values may be double-quoted; "@Target" inside owner/desc refers to an
+ *                     already-mapped class (resolved with {@link #resolveTargets}).
+ *
+ * Opcode classes: LOAD, STORE, CONST, ICONST, FIELD, GET, PUT, INVOKE, ARITH, JUMP,
+ * RETURN, DUP, ARRAYLOAD, ARRAYSTORE.
+ *
+ * Without "@" the first top-level field opcode is the anchor. A legacy pattern of exactly
+ * {@code 7} plain tokens is anchored on its third token, same as the old fixed window.
+ *
+ * A parsed pattern is split at the anchor into a BEFORE part (stored reversed, read backward
+ * from the anchor) and an AFTER part; both are compiled into {@link PatternSet} DFAs.
+ * The DFAs only see opcodes; operand constraints are checked afterwards by {@link #verify},
+ * comparing interned ids from {@link InsnOperands}.
+ */
+public final class OpcodeRegex {
+    /** Symbol used for positions outside the method body. */
+    public static final int NONOP = 256;
+    public static final int ALPHABET = NONOP + 1;
+
+    static final int MAX_REPEAT = 16;
+    static final int MAX_SPAN = 32;
+
+    private static final int LEGACY_LEN = 7;
+    private static final int LEGACY_ANCHOR = 2;
+
+    private static final Pattern TARGET_REF = Pattern.compile("(owner|desc)=\"?[^,>\"]*@");
+    private static final Pattern REF_VALUE = Pattern.compile("(owner|desc)=(\"?)([^,>\"]*)");
+    private static final Pattern REF_NAME = Pattern.compile("@([A-Za-z_$][A-Za-z0-9_$]*)");
+
+    private static final Map<String, BitSet> CLASSES = new HashMap<>();
+    static {
+        CLASSES.put("LOAD", range(Opcodes.ILOAD, Opcodes.ALOAD));
+        CLASSES.put("STORE", range(Opcodes.ISTORE, Opcodes.ASTORE));
+        CLASSES.put("CONST", range(Opcodes.ACONST_NULL, Opcodes.LDC));
+        BitSet iconst = range(Opcodes.ICONST_M1, Opcodes.ICONST_5);
+        iconst.set(Opcodes.BIPUSH);
+        iconst.set(Opcodes.SIPUSH);
+        iconst.set(Opcodes.LDC);
+        CLASSES.put("ICONST", iconst);
+        CLASSES.put("FIELD", range(Opcodes.GETSTATIC, Opcodes.PUTFIELD));
+        BitSet get = new BitSet();
+        get.set(Opcodes.GETSTATIC);
+        get.set(Opcodes.GETFIELD);
+        CLASSES.put("GET", get);
+        BitSet put = new BitSet();
+        put.set(Opcodes.PUTSTATIC);
+        put.set(Opcodes.PUTFIELD);
+        CLASSES.put("PUT", put);
+        CLASSES.put("INVOKE", range(Opcodes.INVOKEVIRTUAL, Opcodes.INVOKEDYNAMIC));
+        CLASSES.put("ARITH", range(Opcodes.IADD, Opcodes.LXOR));
+        BitSet jump = range(Opcodes.IFEQ, Opcodes.GOTO);
+        jump.set(Opcodes.IFNULL);
+        jump.set(Opcodes.IFNONNULL);
+        CLASSES.put("JUMP", jump);
+        CLASSES.put("RETURN", range(Opcodes.IRETURN, Opcodes.RETURN));
+        CLASSES.put("DUP", range(Opcodes.DUP, Opcodes.DUP2_X2));
+        CLASSES.put("ARRAYLOAD", range(Opcodes.IALOAD, Opcodes.SALOAD));
+        CLASSES.put("ARRAYSTORE", range(Opcodes.IASTORE, Opcodes.SASTORE));
+    }
+
+    sealed interface Node permits Tok, Seq, Alt, Rep {}
+    record Tok(BitSet symbols, List<Operand> operands) implements Node {
+        Tok(BitSet symbols) { this(symbols, List.of()); }
+    }
+    /** Operand constraint; {@code id} is the interned value, -1 if it never occurs in the jar. */
+    record Operand(int key, String value, int id) {}
+    record Seq(List<Node> items) implements Node {}
+    record Alt(List<Node> branches) implements Node {}
+    record Rep(Node body, int min, int max) implements Node {}
+
+    private final String source;
+    private final Node before;
+    private final Tok anchor;
+    private final Node after;
+    private final boolean hasOperands;
+
+    private OpcodeRegex(String source, Node before, Tok anchor, Node after, boolean hasOperands) {
+        this.source = source;
+        this.before = before;
+        this.anchor = anchor;
+        this.after = after;
+        this.hasOperands = hasOperands;
+    }
+
+    public String source() { return source; }
+    Node before() { return before; }
+    Tok anchor() { return anchor; }
+    Node after() { return after; }
+    boolean hasOperands() { return hasOperands; }
+
+    /** Parses for validation only; operand constraints are not bound to any symbol table. */
+    public static OpcodeRegex parse(String pattern) {
+        return parse(pattern, null);
+    }
+
+    /** Parses and binds operand constraint values to ids of {@code symbols} (interning them). */
+    public static OpcodeRegex parse(String pattern, SymbolTable symbols) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("pattern is blank");
+        }
+        String src = pattern.trim();
+        if (hasTargetRefs(src)) throw new IllegalArgumentException("unresolved @Target reference in: " + src);
+        Parser p = new Parser(src, symbols);
+        List<Node> items = new ArrayList<>();
+        List<Integer> marked = new ArrayList<>();
+        p.parseTopLevel(items, marked);
+
+        int anchorIdx;
+        if (marked.size() > 1) throw new IllegalArgumentException("more than one @anchor in: " + src);
+        if (marked.size() == 1) {
+            anchorIdx = marked.get(0);
+        } else if (items.size() == LEGACY_LEN && items.stream().allMatch(n -> n instanceof Tok)) {
+            anchorIdx = LEGACY_ANCHOR;
+        } else {
+            anchorIdx = -1;
+            BitSet fieldOps = CLASSES.get("FIELD");
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) instanceof Tok t && isSubset(t.symbols(), fieldOps)) { anchorIdx = i; break; }
+            }
+            if (anchorIdx < 0) throw new IllegalArgumentException("no field-access anchor in: " + src);
+        }
+        if (!(items.get(anchorIdx) instanceof Tok anchorTok)) {
+            throw new IllegalArgumentException("anchor must be a single token in: " + src);
+        }
+
+        Node before = reverse(new Seq(List.copyOf(items.subList(0, anchorIdx))));
+        Node after = new Seq(List.copyOf(items.subList(anchorIdx + 1, items.size())));
+        if (maxLen(before) > MAX_SPAN || maxLen(after) > MAX_SPAN) {
+            throw new IllegalArgumentException("pattern spans more than " + MAX_SPAN + " tokens on one side: " + src);
+        }
+        return new OpcodeRegex(src, before, anchorTok, after, p.sawOperands);
+    }
+
+    /** True if an operand constraint refers to a mapped target ("owner=@Player"). */
+    public static boolean hasTargetRefs(String pattern) {
+        return pattern != null && TARGET_REF.matcher(pattern).find();
+    }
+
+    /**
+     * Substitutes "@Target" references in owner/desc constraints with obfuscated names
+     * ({@code owner=@Player -> owner=abc}, {@code desc=(@Player)V -> desc=(Labc;)V}).
+     * Returns null if any referenced target is not mapped.
+     */
+    public static String resolveTargets(String pattern, Function<String, String> classMapping) {
+        if (!hasTargetRefs(pattern)) return pattern;
+        Matcher m = REF_VALUE.matcher(pattern);
+        StringBuilder out = new StringBuilder();
+        while (m.find()) {
+            boolean desc = "desc".equals(m.group(1));
+            Matcher r = REF_NAME.matcher(m.group(3));
+            StringBuilder value = new StringBuilder();
+            while (r.find()) {
+                String obf = classMapping.apply(r.group(1));
+                if (obf == null) return null;
+                r.appendReplacement(value, Matcher.quoteReplacement(desc ? "L" + obf + ";" : obf));
+            }
+            r.appendTail(value);
+            m.appendReplacement(out, Matcher.quoteReplacement(m.group(1) + "=" + m.group(2) + value));
+        }
+        m.appendTail(out);
+        return out.toString();
+    }
+
+    /**
+     * Re-checks a DFA hit including operand constraints. {@code ops}/{@code operands} describe
+     * the method and {@code idx} is the anchor position; outside the method reads as NONOP.
+     */
+    boolean verify(int[] ops, InsnOperands operands, int idx) {
+        if (!tokenMatches(anchor, ops, operands, idx)) return false;
+        return !walk(before, ops, operands, idx - 1, -1, single(0)).isEmpty()
+                && !walk(after, ops, operands, idx + 1, 1, single(0)).isEmpty();
+    }
+
+    /** Set of step counts reachable after consuming {@code n}, starting from each count in {@code ks}. */
+    private static BitSet walk(Node n, int[] ops, InsnOperands operands, int start, int dir, BitSet ks) {
+        if (ks.isEmpty()) return ks;
+        return switch (n) {
+            case Tok t -> {
+                BitSet out = new BitSet();
+                for (int k = ks.nextSetBit(0); k >= 0; k = ks.nextSetBit(k + 1)) {
+                    if (tokenMatches(t, ops, operands, start + dir * k)) out.set(k + 1);
+                }
+                yield out;
+            }
+            case Seq s -> {
+                BitSet cur = ks;
+                for (Node item : s.items()) cur = walk(item, ops, operands, start, dir, cur);
+                yield cur;
+            }
+            case Alt a -> {
+                BitSet out = new BitSet();
+                for (Node b : a.branches()) out.or(walk(b, ops, operands, start, dir, ks));
+                yield out;
+            }
+            case Rep r -> {
+                BitSet cur = ks;
+                for (int i = 0; i < r.min(); i++) cur = walk(r.body(), ops, operands, start, dir, cur);
+                BitSet out = (BitSet) cur.clone();
+                for (int i = r.min(); i < r.max() && !cur.isEmpty(); i++) {
+                    cur = walk(r.body(), ops, operands, start, dir, cur);
+                    out.or(cur);
+                }
+                yield out;
+            }
+        };
+    }
+
+    private static boolean tokenMatches(Tok t, int[] ops, InsnOperands operands, int pos) {
+        boolean inside = pos >= 0 && pos < ops.length;
+        if (!t.symbols().get(inside ? ops[pos] : NONOP)) return false;
+        for (Operand o : t.operands()) {
+            if (o.id() < 0 || operands == null || operands.id(o.key(), pos) != o.id()) return false;
+        }
+        return true;
+    }
+
+    private static BitSet single(int k) {
+        BitSet b = new BitSet();
+        b.set(k);
+        return b;
+    }
+
+    /** Collects every token symbol set used by the pattern (for alphabet partitioning). */
+    void collectTokens(List<BitSet> out) {
+        out.add(anchor.symbols());
+        collect(before, out);
+        collect(after, out);
+    }
+
+    private static void collect(Node n, List<BitSet> out) {
+        switch (n) {
+            case Tok t -> out.add(t.symbols());
+            case Seq s -> s.items().forEach(i -> collect(i, out));
+            case Alt a -> a.branches().forEach(b -> collect(b, out));
+            case Rep r -> collect(r.body(), out);
+        }
+    }
+
+    private static Node reverse(Node n) {
+        return switch (n) {
+            case Tok t -> t;
+            case Seq s -> {
+                List<Node> rev = new ArrayList<>(s.items().size());
+                for (int i = s.items().size() - 1; i >= 0; i--) rev.add(reverse(s.items().get(i)));
+                yield new Seq(rev);
+            }
+            case Alt a -> new Alt(a.branches().stream().map(OpcodeRegex::reverse).toList());
+            case Rep r -> new Rep(reverse(r.body()), r.min(), r.max());
+        };
+    }
+
+    private static int maxLen(Node n) {
+        return switch (n) {
+            case Tok t -> 1;
+            case Seq s -> s.items().stream().mapToInt(OpcodeRegex::maxLen).sum();
+            case Alt a -> a.branches().stream().mapToInt(OpcodeRegex::maxLen).max().orElse(0);
+            case Rep r -> maxLen(r.body()) * r.max();
+        };
+    }
+
+    private static boolean isSubset(BitSet a, BitSet b) {
+        BitSet c = (BitSet) a.clone();
+        c.andNot(b);
+        return !a.isEmpty() && c.isEmpty();
+    }
+
+    private static BitSet range(int fromInclusive, int toInclusive) {
+        BitSet b = new BitSet(ALPHABET);
+        b.set(fromInclusive, toInclusive + 1);
+        return b;
+    }
+
+    @Override public String toString() { return source; }
+
+    private static final class Parser {
+        private final String s;
+        private final SymbolTable symbols;
+        private int pos;
+        boolean sawOperands;
+
+        Parser(String s, SymbolTable symbols) {
+            this.s = s;
+            this.symbols = symbols;
+        }
+
+        void parseTopLevel(List<Node> items, List<Integer> marked) {
+            while (true) {
+                skipWs();
+                if (eof()) break;
+                if (peek() == '|' || peek() == ')') throw error("unexpected '" + peek() + "' (wrap alternatives in parentheses)");
+                boolean anchor = false;
+                if (peek() == '@') { anchor = true; pos++; }
+                Node item = parseItem();
+                if (anchor) {
+                    if (!(item instanceof Tok)) throw error("@ must prefix a single unquantified token");
+                    marked.add(items.size());
+                }
+                items.add(item);
+            }
+            if (items.isEmpty()) throw error("empty pattern");
+        }
+
+        private Node parseAlt() {
+            List<Node> branches = new ArrayList<>();
+            branches.add(parseSeq());
+            while (!eof() && peek() == '|') {
+                pos++;
+                branches.add(parseSeq());
+            }
+            return (branches.size() == 1) ? branches.get(0) : new Alt(branches);
+        }
+
+        private Node parseSeq() {
+            List<Node> items = new ArrayList<>();
+            while (true) {
+                skipWs();
+                if (eof() || peek() == '|' || peek() == ')') break;
+                if (peek() == '@') throw error("@anchor is only allowed at the top level");
+                items.add(parseItem());
+            }
+            return (items.size() == 1) ? items.get(0) : new Seq(items);
+        }
+
+        private Node parseItem() {
+            Node atom = parseAtom();
+            if (!eof() && peek() == '<') {
+                if (!(atom instanceof Tok tok)) throw error("operand constraints need a single token");
+                pos++;
+                atom = new Tok(tok.symbols(), parseOperands());
+                sawOperands = true;
+            }
+            while (!eof()) {
+                char c = peek();
+                if (c == '?') {
+                    pos++;
+                    atom = new Rep(atom, 0, 1);
+                } else if (c == '{') {
+                    pos++;
+                    int min = readInt();
+                    int max = min;
+                    if (!eof() && peek() == ',') {
+                        pos++;
+                        if (!eof() && peek() == '}') throw error("unbounded repetition is not supported");
+                        max = readInt();
+                    }
+                    expect('}');
+                    if (max < min || max > MAX_REPEAT) throw error("repetition bounds must satisfy 0 <= n <= m <= " + MAX_REPEAT);
+                    atom = new Rep(atom, min, max);
+                } else {
+                    break;
+                }
+            }
+            return atom;
+        }
+
+        private Node parseAtom() {
+            skipWs();
+            if (eof()) throw error("unexpected end of pattern");
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Node inner = parseAlt();
+                skipWs();
+                expect(')');
+                return inner;
+            }
+            if (c == '[') {
+                pos++;
+                boolean negate = false;
+                if (!eof() && peek() == '^') { negate = true; pos++; }
+                BitSet set = new BitSet(ALPHABET);
+                while (true) {
+                    skipWs();
+                    if (eof()) throw error("unterminated [");
+                    if (peek() == ']') { pos++; break; }
+                    set.or(resolve(readName()));
+                }
+                if (negate) set.flip(0, ALPHABET);
+                if (set.isEmpty()) throw error("empty opcode set");
+                return new Tok(set);
+            }
+            if (c == '*') {
+                pos++;
+                BitSet any = new BitSet(ALPHABET);
+                any.set(0, ALPHABET);
+                return new Tok(any);
+            }
+            return new Tok(resolve(readName()));
+        }
+
+        private List<Operand> parseOperands() {
+            List<Operand> out = new ArrayList<>();
+            while (true) {
+                skipWs();
+                String keyName = readName().toLowerCase(Locale.ROOT);
+                int key = InsnOperands.key(keyName);
+                if (key < 0) throw error("unknown operand key '" + keyName + "'");
+                skipWs();
+                expect('=');
+                String value = readValue();
+                String symbol = InsnOperands.predicateSymbol(key, value);
+                if (symbol == null) throw error("malformed " + keyName + " value '" + value + "'");
+                out.add(new Operand(key, value, (symbols == null) ? -1 : symbols.intern(symbol)));
+                skipWs();
+                if (eof()) throw error("unterminated <");
+                if (peek() == '>') { pos++; return List.copyOf(out); }
+                expect(',');
+            }
+        }
+
+        private String readValue() {
+            skipWs();
+            StringBuilder sb = new StringBuilder();
+            if (!eof() && peek() == '"') {
+                pos++;
+                while (true) {
+                    if (eof()) throw error("unterminated string");
+                    char c = s.charAt(pos++);
+                    if (c == '"') break;
+                    if (c == '\\' && !eof()) c = s.charAt(pos++);
+                    sb.append(c);
+                }
+                return sb.toString();
+            }
+            while (!eof() && peek() != ',' && peek() != '>') sb.append(s.charAt(pos++));
+            String v = sb.toString().trim();
+            if (v.isEmpty()) throw error("empty operand value");
+            return v;
+        }
+
+        private BitSet resolve(String name) {
+            BitSet b = new BitSet(ALPHABET);
+            if ("NONOP".equals(name)) { b.set(NONOP); return b; }
+            int op = OpcodeNames.opcode(name);
+            if (op >= 0) { b.set(op); return b; }
+            BitSet cls = CLASSES.get(name);
+            if (cls != null) return (BitSet) cls.clone();
+            throw error("unknown opcode or class '" + name + "'");
+        }
+
+        private String readName() {
+            int start = pos;
+            while (!eof() && (Character.isLetterOrDigit(peek()) || peek() == '_')) pos++;
+            if (start == pos) throw error("expected opcode name");
+            return s.substring(start, pos).toUpperCase(Locale.ROOT);
+        }
+
+        private int readInt() {
+            int start = pos;
+            while (!eof() && Character.isDigit(peek())) pos++;
+            if (start == pos) throw error("expected number");
+            return Integer.parseInt(s.substring(start, pos));
+        }
+
+        private void expect(char c) {
+            if (eof() || peek() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private void skipWs() { while (!eof() && Character.isWhitespace(peek())) pos++; }
+        private boolean eof() { return pos >= s.length(); }
+        private char peek() { return s.charAt(pos); }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException(msg + " at column " + (pos + 1) + " in: " + s);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.betterdeob.bytecode;
+
+import com.betterdeob.bytecode.OpcodeRegex.*;
+
+import java.util.*;
+
+/**
+ * Multi-pattern DFA over symbol classes, built by subset construction from a Thompson NFA.
+ *
+ * Each pattern contributes one part (its BEFORE or AFTER half). Patterns only use bounded
+ * repetition, so the automaton is acyclic and every run stops after at most
+ * {@link OpcodeRegex#MAX_SPAN} steps.
+ */
+final class PatternDfa {
+    static final int DEAD = -1;
+    private static final int MAX_STATES = 1 << 16;
+
+    private final int numClasses;
+    private final int[] next;        // state * numClasses + class -> state
+    private final long[][] accepts;  // per state: pattern ids accepted on entering it (null = none)
+
+    private PatternDfa(int numClasses, int[] next, long[][] accepts) {
+        this.numClasses = numClasses;
+        this.next = next;
+        this.accepts = accepts;
+    }
+
+    /**
+     * Runs from {@code from} in direction {@code step} (+1/-1) and ORs the ids of every pattern
+     * whose part matched a prefix of the stream into {@code out}. Positions outside the stream
+     * read as NONOP.
+     */
+    void run(int[] ops, int from, int step, int[] classOf, long[] out) {
+        int state = 0;
+        or(out, accepts[0]);
+        int nonop = classOf[OpcodeRegex.NONOP];
+        for (int i = from; ; i += step) {
+            int cls = (i >= 0 && i < ops.length) ? classOf[ops[i]] : nonop;
+            state = next[state * numClasses + cls];
+            if (state == DEAD) return;
+            or(out, accepts[state]);
+        }
+    }
+
+    int stateCount() { return accepts.length; }
+
+    private static void or(long[] out, long[] bits) {
+        if (bits == null) return;
+        for (int w = 0; w < bits.length; w++) out[w] |= bits[w];
+    }
+
+    static PatternDfa build(List<Node> parts, int[] classRepresentative, int words) {
+        Nfa nfa = new Nfa();
+        int start = nfa.newState();
+        for (int id = 0; id < parts.size(); id++) {
+            int s = nfa.newState();
+            nfa.eps(start, s);
+            int end = nfa.build(parts.get(id), s);
+            nfa.accept(end, id);
+        }
+
+        int numClasses = classRepresentative.length;
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        List<long[]> acc = new ArrayList<>();
+        int[] table = new int[64 * numClasses];
+
+        BitSet init = nfa.closure(single(start));
+        ids.put(init, 0);
+        states.add(init);
+        acc.add(nfa.accepts(init, words));
+
+        for (int d = 0; d < states.size(); d++) {
+            BitSet cur = states.get(d);
+            if ((d + 1) * numClasses > table.length) table = Arrays.copyOf(table, table.length * 2);
+            for (int c = 0; c < numClasses; c++) {
+                BitSet moved = nfa.move(cur, classRepresentative[c]);
+                int target = DEAD;
+                if (!moved.isEmpty()) {
+                    BitSet closed = nfa.closure(moved);
+                    Integer known = ids.get(closed);
+                    if (known == null) {
+                        if (states.size() >= MAX_STATES) {
+                            throw new IllegalStateException("pattern DFA exceeds " + MAX_STATES + " states");
+                        }
+                        known = states.size();
+                        ids.put(closed, known);
+                        states.add(closed);
+                        acc.add(nfa.accepts(closed, words));
+                    }
+                    target = known;
+                }
+                table[d * numClasses + c] = target;
+            }
+        }
+
+        return new PatternDfa(numClasses, Arrays.copyOf(table, states.size() * numClasses), acc.toArray(new long[0][]));
+    }
+
+    private static BitSet single(int i) {
+        BitSet b = new BitSet();
+        b.set(i);
+        return b;
+    }
+
+    /** Thompson NFA; every state has at most one symbol edge plus epsilon edges. */
+    private static final class Nfa {
+        private final List<BitSet> symbols = new ArrayList<>();
+        private final List<Integer> symbolTarget = new ArrayList<>();
+        private final List<List<Integer>> eps = new ArrayList<>();
+        private final Map<Integer, Integer> acceptId = new HashMap<>();
+
+        int newState() {
+            symbols.add(null);
+            symbolTarget.add(-1);
+            eps.add(new ArrayList<>(2));
+            return symbols.size() - 1;
+        }
+
+        void eps(int from, int to) { eps.get(from).add(to); }
+        void accept(int state, int id) { acceptId.put(state, id); }
+
+        /** Emits states for {@code n} starting at {@code from}; returns the end state. */
+        int build(Node n, int from) {
+            switch (n) {
+                case Tok t -> {
+                    int to = newState();
+                    symbols.set(from, t.symbols());
+                    symbolTarget.set(from, to);
+                    return to;
+                }
+                case Seq s -> {
+                    int cur = from;
+                    for (Node item : s.items()) {
+                        int next = newState();
+                        eps(cur, next);
+                        cur = build(item, next);
+                    }
+                    return cur;
+                }
+                case Alt a -> {
+                    int join = newState();
+                    for (Node b : a.branches()) {
+                        int s = newState();
+                        eps(from, s);
+                        eps(build(b, s), join);
+                    }
+                    return join;
+                }
+                case Rep r -> {
+                    int cur = from;
+                    for (int i = 0; i < r.min(); i++) {
+                        int next = newState();
+                        eps(cur, next);
+                        cur = build(r.body(), next);
+                    }
+                    int join = newState();
+                    eps(cur, join);
+                    for (int i = r.min(); i < r.max(); i++) {
+                        int next = newState();
+                        eps(cur, next);
+                        cur = build(r.body(), next);
+                        eps(cur, join);
+                    }
+                    return join;
+                }
+            }
+        }
+
+        BitSet closure(BitSet set) {
+            BitSet out = (BitSet) set.clone();
+            Deque<Integer> work = new ArrayDeque<>();
+            set.stream().forEach(work::push);
+            while (!work.isEmpty()) {
+                int s = work.pop();
+                for (int t : eps.get(s)) {
+                    if (!out.get(t)) { out.set(t); work.push(t); }
+                }
+            }
+            return out;
+        }
+
+        BitSet move(BitSet set, int symbol) {
+            BitSet out = new BitSet();
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                BitSet sym = symbols.get(s);
+                if (sym != null && sym.get(symbol)) out.set(symbolTarget.get(s));
+            }
+            return out;
+        }
+
+        long[] accepts(BitSet set, int words) {
+            long[] out = null;
+            for (var e : acceptId.entrySet()) {
+                if (!set.get(e.getKey())) continue;
+                if (out == null) out = new long[words];
+                out[e.getValue() >>> 6] |= 1L << e.getValue();
+            }
+            return out;
+        }
+    }
+}
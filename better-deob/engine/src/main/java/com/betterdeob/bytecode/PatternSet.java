@@ -0,0 +1,192 @@
+package com.betterdeob.bytecode;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * A compiled set of {@link OpcodeRegex} patterns evaluated together at field access sites.
+ *
+ * All BEFORE halves share one DFA (run backward from the anchor) and all AFTER halves share
+ * another (run forward), so one site costs two short DFA walks no matter how many patterns
+ * the rule set declares. A pattern matches when both halves accept and the anchor opcode fits.
+ * Patterns with operand constraints are then re-verified against interned operand ids.
+ *
+ * {@link FuzzyPattern} sources ({@code "~D PATTERN"}) get ids after the exact patterns and are
+ * matched bit-parallel at each site whose opcode fits their anchor, so their hits land in the
+ * same id bitset and per-feature hit maps as exact ones.
+ */
+public final class PatternSet {
+    private static final PatternSet EMPTY = compile(List.of(), new SymbolTable());
+
+    private final List<OpcodeRegex> patterns;
+    private final List<FuzzyPattern> fuzzy;
+    private final SymbolTable symbols;
+    private final Map<String, Integer> ids;
+    private final int[] classOf;
+    private final PatternDfa before;
+    private final PatternDfa after;
+    private final long[][] anchorMask;
+    private final long[] needsVerify;
+    private final int words;
+
+    private PatternSet(List<OpcodeRegex> patterns, List<FuzzyPattern> fuzzy, SymbolTable symbols, int[] classOf,
+                       PatternDfa before, PatternDfa after, long[][] anchorMask) {
+        this.patterns = patterns;
+        this.fuzzy = fuzzy;
+        this.symbols = symbols;
+        this.ids = new HashMap<>();
+        for (int i = 0; i < patterns.size(); i++) ids.put(patterns.get(i).source(), i);
+        for (int i = 0; i < fuzzy.size(); i++) ids.put(fuzzy.get(i).source(), patterns.size() + i);
+        this.classOf = classOf;
+        this.before = before;
+        this.after = after;
+        this.anchorMask = anchorMask;
+        this.words = Math.max(1, (size() + 63) >>> 6);
+        this.needsVerify = new long[words];
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).hasOperands()) needsVerify[i >>> 6] |= 1L << i;
+        }
+    }
+
+    public static PatternSet empty() { return EMPTY; }
+
+    /** Same as {@link #compile(Collection, SymbolTable, PrintStream)}, reporting to stderr. */
+    public static PatternSet compile(Collection<String> sources, SymbolTable symbols) {
+        return compile(sources, symbols, System.err);
+    }
+
+    /**
+     * Compiles every distinct pattern source. Invalid sources are reported on {@code log} and
+     * left out of the set, so signals using them fall back to legacy window matching
+     * (fuzzy signals then never match).
+     * Operand constraint values are interned into {@code symbols}.
+     */
+    public static PatternSet compile(Collection<String> sources, SymbolTable symbols, PrintStream log) {
+        List<OpcodeRegex> ok = new ArrayList<>();
+        List<FuzzyPattern> fuzzy = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String src : sources) {
+            if (src == null || !seen.add(src.trim())) continue;
+            try {
+                if (FuzzyPattern.isKey(src)) fuzzy.add(FuzzyPattern.parse(src));
+                else ok.add(OpcodeRegex.parse(src, symbols));
+            } catch (IllegalArgumentException ex) {
+                log.println("Ignoring invalid fieldPattern: " + ex.getMessage());
+            }
+        }
+
+        // Partition the alphabet into classes of symbols no token can tell apart.
+        List<BitSet> tokens = new ArrayList<>();
+        for (OpcodeRegex r : ok) r.collectTokens(tokens);
+        int[] classOf = new int[OpcodeRegex.ALPHABET];
+        Map<BitSet, Integer> signatures = new HashMap<>();
+        List<Integer> reps = new ArrayList<>();
+        for (int sym = 0; sym < OpcodeRegex.ALPHABET; sym++) {
+            BitSet sig = new BitSet(tokens.size());
+            for (int t = 0; t < tokens.size(); t++) if (tokens.get(t).get(sym)) sig.set(t);
+            Integer cls = signatures.get(sig);
+            if (cls == null) {
+                cls = reps.size();
+                signatures.put(sig, cls);
+                reps.add(sym);
+            }
+            classOf[sym] = cls;
+        }
+        int[] rep = reps.stream().mapToInt(Integer::intValue).toArray();
+
+        int words = Math.max(1, (ok.size() + fuzzy.size() + 63) >>> 6);
+        PatternDfa before = PatternDfa.build(ok.stream().map(OpcodeRegex::before).toList(), rep, words);
+        PatternDfa after = PatternDfa.build(ok.stream().map(OpcodeRegex::after).toList(), rep, words);
+
+        long[][] anchorMask = new long[OpcodeRegex.ALPHABET][words];
+        for (int id = 0; id < ok.size(); id++) {
+            BitSet a = ok.get(id).anchor().symbols();
+            for (int sym = a.nextSetBit(0); sym >= 0; sym = a.nextSetBit(sym + 1)) {
+                anchorMask[sym][id >>> 6] |= 1L << id;
+            }
+        }
+        for (int i = 0; i < fuzzy.size(); i++) {
+            int id = ok.size() + i;
+            BitSet a = fuzzy.get(i).anchor();
+            for (int sym = a.nextSetBit(0); sym >= 0; sym = a.nextSetBit(sym + 1)) {
+                anchorMask[sym][id >>> 6] |= 1L << id;
+            }
+        }
+        return new PatternSet(List.copyOf(ok), List.copyOf(fuzzy), symbols, classOf, before, after, anchorMask);
+    }
+
+    /** Id of a compiled pattern source, or -1 if it is not part of this set. */
+    public int idOf(String source) {
+        if (source == null) return -1;
+        return ids.getOrDefault(source.trim(), -1);
+    }
+
+    public String source(int id) {
+        return (id < patterns.size()) ? patterns.get(id).source() : fuzzy.get(id - patterns.size()).source();
+    }
+    public SymbolTable symbols() { return symbols; }
+    public boolean hasOperandPatterns() { return !isZero(needsVerify); }
+    public int size() { return patterns.size() + fuzzy.size(); }
+    public int fuzzySize() { return fuzzy.size(); }
+    public boolean isEmpty() { return size() == 0; }
+    public int dfaStates() { return before.stateCount() + after.stateCount(); }
+
+    /** Not thread-safe; create one per worker. */
+    public Matcher matcher() { return new Matcher(); }
+
+    public final class Matcher {
+        private final long[] fwd = new long[words];
+        private final long[] back = new long[words];
+        private final long[] edits = FuzzyPattern.scratch();
+
+        public long[] match(int[] ops, int idx) {
+            return match(ops, null, idx);
+        }
+
+        /**
+         * Returns the ids of all patterns matching with {@code ops[idx]} as anchor, as a bitset
+         * that stays valid until the next call. Without {@code operands}, patterns with operand
+         * constraints never match.
+         */
+        public long[] match(int[] ops, InsnOperands operands, int idx) {
+            Arrays.fill(fwd, 0L);
+            Arrays.fill(back, 0L);
+            long[] mask = anchorMask[ops[idx]];
+            if (isZero(mask)) return fwd;
+            after.run(ops, idx + 1, 1, classOf, fwd);
+            before.run(ops, idx - 1, -1, classOf, back);
+            for (int w = 0; w < words; w++) fwd[w] &= back[w] & mask[w];
+
+            for (int w = 0; w < words; w++) {
+                long pending = fwd[w] & needsVerify[w];
+                while (pending != 0) {
+                    int id = (w << 6) + Long.numberOfTrailingZeros(pending);
+                    pending &= pending - 1;
+                    if (operands == null || !patterns.get(id).verify(ops, operands, idx)) fwd[w] &= ~(1L << id);
+                }
+            }
+
+            for (int id = nextId(mask, patterns.size()); id >= 0; id = nextId(mask, id + 1)) {
+                if (fuzzy.get(id - patterns.size()).matches(ops, idx, edits)) fwd[id >>> 6] |= 1L << id;
+            }
+            return fwd;
+        }
+    }
+
+    private static boolean isZero(long[] bits) {
+        for (long b : bits) if (b != 0) return false;
+        return true;
+    }
+
+    /** Iterates set bits of a {@link Matcher#match} result. */
+    public static int nextId(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.betterdeob.bytecode;
+
+import java.util.regex.Pattern;
+
+/**
+ * A fieldPattern signal value: {@code "DESC|PATTERN"} or just {@code "PATTERN"}.
+ *
+ * Since "|" is also the alternation operator, the prefix before the first "|" is only taken
+ * as the descriptor when it is a well-formed JVM field descriptor.
+ */
+public record PatternValue(String desc, String pattern) {
+    private static final Pattern FIELD_DESC = Pattern.compile("\\[*([BCDFIJSZ]|L[^;\\s()|]+;)");
+
+    public static PatternValue parse(String value) {
+        if (value == null) return new PatternValue(null, "");
+        int pipe = value.indexOf('|');
+        if (pipe > 0) {
+            String head = value.substring(0, pipe).trim();
+            if (FIELD_DESC.matcher(head).matches()) {
+                return new PatternValue(head, value.substring(pipe + 1).trim());
+            }
+        }
+        return new PatternValue(null, value.trim());
+    }
+}
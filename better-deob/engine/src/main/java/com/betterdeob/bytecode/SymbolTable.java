@@ -0,0 +1,43 @@
+package com.betterdeob.bytecode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe string interner handing out dense int ids.
+ *
+ * Lookups are lock-free; only the first intern of a new value takes the lock.
+ */
+public final class SymbolTable {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        synchronized (values) {
+            id = ids.get(value);
+            if (id != null) return id;
+            int next = values.size();
+            values.add(value);
+            ids.put(value, next);
+            return next;
+        }
+    }
+
+    /** Id of an already interned value, or -1. */
+    public int find(String value) {
+        if (value == null) return -1;
+        Integer id = ids.get(value);
+        return (id == null) ? -1 : id;
+    }
+
+    public String value(int id) {
+        synchronized (values) {
+            return values.get(id);
+        }
+    }
+
+    public int size() { return ids.size(); }
+}
@@ -0,0 +1,40 @@
+package com.betterdeob.core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+
+/** Housekeeping shared by the on-disk caches (feature index snapshots, score memos). */
+public final class CacheFiles {
+    /** Files each cache keeps unless the caller asks for more, e.g. one per jar of a batch. */
+    public static final int KEEP = 4;
+
+    private CacheFiles() {}
+
+    /**
+     * Deletes all but the {@code keep} most recently modified files in {@code dir} matching
+     * {@code glob}. Files that disappear meanwhile (pruned by a concurrent job) are skipped.
+     */
+    public static void prune(Path dir, String glob, int keep) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, glob)) {
+            for (Path p : ds) files.add(p);
+        }
+        if (files.size() <= keep) return;
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path p : files) {
+            try {
+                modified.put(p, Files.getLastModifiedTime(p).toMillis());
+            } catch (NoSuchFileException e) {
+                // already gone
+            }
+        }
+        files.retainAll(modified.keySet());
+        if (files.size() <= keep) return;
+        files.sort(Comparator.comparing((Path p) -> modified.get(p)).reversed());
+        for (Path p : files.subList(keep, files.size())) Files.deleteIfExists(p);
+    }
+}
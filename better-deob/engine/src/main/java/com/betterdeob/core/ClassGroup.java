@@ -0,0 +1,94 @@
+package com.betterdeob.core;
+
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The classes of one jar.
+ *
+ * Classes may be added as headers only (read with {@code SKIP_CODE}, method bodies empty) with
+ * their class file kept aside; {@link #withCode} parses the full class on first use and
+ * replaces the header. {@link #get} and {@link #all} return whatever is held, so code that reads
+ * instructions goes through {@link #withCode}.
+ *
+ * While a pass streams classes into the group ({@link #startLoading} .. {@link #finishLoading}),
+ * other threads may only read it through {@link #forEachAdded} and {@link #awaitLoaded}.
+ */
+public final class ClassGroup {
+    private final Map<String, ClassNode> classes = new LinkedHashMap<>();
+    private final List<String> added = new ArrayList<>();
+    private final Map<String, byte[]> withoutCode = new ConcurrentHashMap<>();
+    private boolean loading;
+
+    public synchronized void add(ClassNode cn) {
+        if (classes.put(cn.name, cn) == null) added.add(cn.name);
+        withoutCode.remove(cn.name);
+        if (loading) notifyAll();
+    }
+
+    /** Adds a class read without method bodies; {@code classFile} is parsed again by {@link #withCode}. */
+    public synchronized void addHeader(ClassNode header, byte[] classFile) {
+        add(header);
+        withoutCode.put(header.name, classFile);
+    }
+
+    public ClassNode get(String name) { return classes.get(name); }
+    public Collection<ClassNode> all() { return classes.values(); }
+    public Set<String> names() { return classes.keySet(); }
+    public int size() { return classes.size(); }
+
+    /** The class with its method bodies, parsed from the kept class file the first time; null if unknown. */
+    public ClassNode withCode(String name) {
+        byte[] classFile = withoutCode.get(name);
+        if (classFile == null) {
+            synchronized (this) { return classes.get(name); }
+        }
+        ClassNode cn = JarLoader.readClass(classFile);
+        synchronized (this) {
+            if (withoutCode.remove(name) == null) return classes.get(name);   // parsed concurrently
+            classes.put(name, cn);
+            return cn;
+        }
+    }
+
+    /** Size of the kept class file of a header-only class, -1 if the class has its code. */
+    public int classFileSize(String name) {
+        byte[] classFile = withoutCode.get(name);
+        return (classFile == null) ? -1 : classFile.length;
+    }
+
+    /** Classes still held as headers only. */
+    public int withoutCode() { return withoutCode.size(); }
+
+    public synchronized void startLoading() { loading = true; }
+
+    public synchronized void finishLoading() {
+        loading = false;
+        notifyAll();
+    }
+
+    public synchronized boolean isLoading() { return loading; }
+
+    public synchronized void awaitLoaded() throws InterruptedException {
+        while (loading) wait();
+    }
+
+    /**
+     * Calls {@code action} for every class in the order added, including classes added while
+     * this runs, and returns once the group is loaded and all of them were passed.
+     */
+    public void forEachAdded(Consumer<ClassNode> action) throws InterruptedException {
+        for (int i = 0; ; i++) {
+            ClassNode cn;
+            synchronized (this) {
+                while (i >= added.size() && loading) wait();
+                if (i >= added.size()) return;
+                cn = classes.get(added.get(i));
+            }
+            action.accept(cn);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.betterdeob.core;
+
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.match.RuleProfiler;
+import com.betterdeob.match.ScoreMemo;
+import com.betterdeob.match.SignalTrace;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.RuleSet;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public final class DeobContext {
+    /** A --shadow-rules set, identified on the same FeatureIndex and diffed against the primary mappings. */
+    public record Shadow(Path path, RuleSet rules) {}
+
+    private final Path outDir;
+    private final RuleSet rules;
+    private Path inputJar;
+    private Path hooksDir;
+    private PrintStream log;
+    private Scheduler scheduler;
+    private int threads = Math.max(1, Scheduler.availableCpus() - 1);
+
+    private FeatureIndex featureIndex;
+    private MappingReport report = new MappingReport();
+    private RunMetrics metrics = new RunMetrics();
+    private RuleProfiler ruleProfiler;
+    private SignalTrace signalTrace;
+    private Path featureCacheDir;
+    private String featureIndexKey;
+    private Path scoreMemoDir;
+    private ScoreMemo scoreMemo;
+    private int cacheKeep = CacheFiles.KEEP;
+    private List<Shadow> shadowRules = List.of();
+    private boolean fullExtraction;
+
+    public DeobContext(Path outDir, RuleSet rules) {
+        this.outDir = outDir;
+        this.rules = rules;
+    }
+
+    public Path outDir() { return outDir; }
+    public RuleSet rules() { return rules; }
+    public Path inputJar() { return inputJar; }
+    public void setInputJar(Path inputJar) { this.inputJar = inputJar; }
+
+    /** Where hooks.json is published; defaults to the output directory. */
+    public Path hooksDir() { return (hooksDir != null) ? hooksDir : outDir; }
+    public void setHooksDir(Path hooksDir) { this.hooksDir = hooksDir; }
+
+    /** Where passes print progress; System.out (looked up on use) unless set. */
+    public PrintStream log() { return (log != null) ? log : System.out; }
+    public void setLog(PrintStream log) { this.log = log; }
+
+    public int threads() { return threads; }
+    public void setThreads(int threads) { this.threads = Math.max(1, threads); }
+
+    /**
+     * Pool for every parallel pass. Callers running several jobs share one; if none was set, one
+     * with {@link #threads} workers is created on first use (daemon workers that retire when idle).
+     */
+    public synchronized Scheduler scheduler() {
+        if (scheduler == null) scheduler = new Scheduler(threads);
+        return scheduler;
+    }
+    public void setScheduler(Scheduler scheduler) { this.scheduler = scheduler; }
+
+    /**
+     * Analyse the code of every class, not only the candidates of the rules; needed by consumers
+     * of the whole index such as the signal miner. Off by default.
+     */
+    public boolean fullExtraction() { return fullExtraction; }
+    public void setFullExtraction(boolean fullExtraction) { this.fullExtraction = fullExtraction; }
+
+    /** Set before ExtractFeaturesPass by callers that already hold the index for this jar. */
+    public FeatureIndex featureIndex() { return featureIndex; }
+    public void setFeatureIndex(FeatureIndex featureIndex) { this.featureIndex = featureIndex; }
+
+    public MappingReport report() { return report; }
+    public void setReport(MappingReport report) { this.report = report; }
+
+    public RunMetrics metrics() { return metrics; }
+    public void setMetrics(RunMetrics metrics) { this.metrics = metrics; }
+
+    /** Null unless --profile-rules was given. */
+    public RuleProfiler ruleProfiler() { return ruleProfiler; }
+    public void setRuleProfiler(RuleProfiler ruleProfiler) { this.ruleProfiler = ruleProfiler; }
+
+    /** Null except under the explain command. */
+    public SignalTrace signalTrace() { return signalTrace; }
+    public void setSignalTrace(SignalTrace signalTrace) { this.signalTrace = signalTrace; }
+
+    /** Where FeatureIndex snapshots are cached per jar; null disables the cache. */
+    public Path featureCacheDir() { return featureCacheDir; }
+    public void setFeatureCacheDir(Path featureCacheDir) { this.featureCacheDir = featureCacheDir; }
+
+    /**
+     * Identity of the current FeatureIndex (jar + fieldPatterns); null unless a cache or memo needs
+     * it. ExtractFeaturesPass derives it from {@link #inputJar} unless it was set beforehand.
+     */
+    public String featureIndexKey() { return featureIndexKey; }
+    public void setFeatureIndexKey(String featureIndexKey) { this.featureIndexKey = featureIndexKey; }
+
+    /** Where per-rule scoring results are memoized; null disables memoization. */
+    public Path scoreMemoDir() { return scoreMemoDir; }
+    public void setScoreMemoDir(Path scoreMemoDir) { this.scoreMemoDir = scoreMemoDir; }
+
+    /** Snapshots and memo files the caches keep per directory; a batch keeps one per jar. */
+    public int cacheKeep() { return cacheKeep; }
+    public void setCacheKeep(int cacheKeep) { this.cacheKeep = Math.max(1, cacheKeep); }
+
+    /** Opened by IdentifyPass when memoization is on (and rule profiling off), saved by ReportPass. */
+    public ScoreMemo scoreMemo() { return scoreMemo; }
+    public void setScoreMemo(ScoreMemo scoreMemo) { this.scoreMemo = scoreMemo; }
+
+    /** Extra rule sets for ShadowPass; their fieldPatterns are compiled into the shared index too. */
+    public List<Shadow> shadowRules() { return shadowRules; }
+    public void setShadowRules(List<Shadow> shadowRules) { this.shadowRules = List.copyOf(shadowRules); }
+}
@@ -0,0 +1,111 @@
+package com.betterdeob.core;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+
+public final class JarLoader {
+    private JarLoader() {}
+
+    public static ClassGroup load(Path jarPath) throws Exception {
+        ClassGroup group = read(jarPath);
+        System.out.println("Loaded classes: " + group.size());
+        return group;
+    }
+
+    /** Same as {@link #load} without the progress line. */
+    public static ClassGroup read(Path jarPath) throws IOException {
+        ClassGroup group = new ClassGroup();
+        read(jarPath, group);
+        return group;
+    }
+
+    /** Adds the jar's classes to {@code group} one by one as they are parsed. */
+    public static void read(Path jarPath, ClassGroup group) throws IOException {
+        read(jarPath, group, true);
+    }
+
+    /**
+     * Same as {@link #read(Path, ClassGroup)}; without {@code code} only class headers are parsed
+     * and the class files are kept in the group for {@link ClassGroup#withCode}.
+     */
+    public static void read(Path jarPath, ClassGroup group, boolean code) throws IOException {
+        try (JarFile jar = new JarFile(jarPath.toFile())) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry e = entries.nextElement();
+                if (!e.getName().endsWith(".class")) continue;
+
+                try (InputStream in = jar.getInputStream(e)) {
+                    add(group, in, code);
+                }
+            }
+        }
+    }
+
+    /** Loads a jar held in memory (the buffer's remaining bytes; its position is left unchanged). */
+    public static ClassGroup read(ByteBuffer jar) throws IOException {
+        ClassGroup group = new ClassGroup();
+        read(jar, group);
+        return group;
+    }
+
+    /** Same as {@link #read(Path, ClassGroup)} for a jar held in memory. */
+    public static void read(ByteBuffer jar, ClassGroup group) throws IOException {
+        read(jar, group, true);
+    }
+
+    /** Same as {@link #read(Path, ClassGroup, boolean)} for a jar held in memory. */
+    public static void read(ByteBuffer jar, ClassGroup group, boolean code) throws IOException {
+        ByteBuffer b = jar.duplicate();
+        byte[] bytes;
+        int off = 0;
+        if (b.hasArray()) {
+            bytes = b.array();
+            off = b.arrayOffset() + b.position();
+        } else {
+            bytes = new byte[b.remaining()];
+            b.get(bytes);
+        }
+        try (JarInputStream in = new JarInputStream(new ByteArrayInputStream(bytes, off, jar.remaining()))) {
+            for (JarEntry e = in.getNextJarEntry(); e != null; e = in.getNextJarEntry()) {
+                if (e.getName().endsWith(".class")) add(group, in, code);
+            }
+        }
+    }
+
+    private static void add(ClassGroup group, InputStream in, boolean code) throws IOException {
+        if (code) {
+            group.add(readClass(in));
+            return;
+        }
+        byte[] classFile = in.readAllBytes();
+        ClassNode header = new ClassNode();
+        new ClassReader(classFile).accept(header, ClassReader.SKIP_CODE);
+        group.addHeader(header, classFile);
+    }
+
+    private static ClassNode readClass(InputStream in) throws IOException {
+        return readClass(new ClassReader(in));
+    }
+
+    static ClassNode readClass(byte[] classFile) {
+        return readClass(new ClassReader(classFile));
+    }
+
+    private static ClassNode readClass(ClassReader cr) {
+        ClassNode cn = new ClassNode();
+        // Keep debug info; skip frames for speed. Add SKIP_DEBUG if you want smaller memory.
+        cr.accept(cn, ClassReader.SKIP_FRAMES);
+        return cn;
+    }
+}
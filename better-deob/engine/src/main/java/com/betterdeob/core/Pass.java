@@ -0,0 +1,35 @@
+package com.betterdeob.core;
+
+import java.util.Set;
+
+/**
+ * One stage of a {@link Pipeline}.
+ *
+ * A pass declares the artifacts it reads and produces; the pipeline derives the order from them
+ * and runs passes that do not depend on each other concurrently. A pass that declares neither
+ * inputs nor outputs is a barrier: it runs alone, after every pass added before it.
+ */
+public interface Pass {
+    /** The group's classes; filled by LoadJarPass, rewritten by transforms. */
+    String CLASSES = "classes";
+    /** {@link DeobContext#featureIndex()}. */
+    String FEATURES = "features";
+    String CLASS_MAPPINGS = "classMappings";
+    /** Field mappings and multipliers of {@link DeobContext#report()}. */
+    String FIELD_MAPPINGS = "fieldMappings";
+    /** Mapping files, hooks.json and summary.json in the output directories. */
+    String HOOKS = "hooks";
+    String SHADOW_DIFF = "shadowDiff";
+
+    String name();
+    void run(ClassGroup group, DeobContext ctx) throws Exception;
+
+    default Set<String> inputs() { return Set.of(); }
+    default Set<String> outputs() { return Set.of(); }
+
+    /**
+     * Inputs this pass consumes while their producer is still running; it then starts as soon as
+     * the producer has. Only {@link #CLASSES} can be streamed, read with {@link ClassGroup#forEachAdded}.
+     */
+    default Set<String> streamedInputs() { return Set.of(); }
+}
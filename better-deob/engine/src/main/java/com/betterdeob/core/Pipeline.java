@@ -0,0 +1,201 @@
+package com.betterdeob.core;
+
+import com.betterdeob.jfr.PassEvent;
+
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs passes as a dependency graph derived from their {@link Pass#inputs()} and
+ * {@link Pass#outputs()}: a pass starts as soon as the passes it depends on are done, so
+ * independent passes (Shadow and Report) run concurrently, each on its own thread.
+ *
+ * A pass depends on the last pass added before it that produces one of its inputs, and on earlier
+ * passes that read or produce one of its outputs. For a {@link Pass#streamedInputs() streamed}
+ * input it only waits until the producer has started; the group is then open for
+ * {@link ClassGroup#forEachAdded} while the producer runs, so extraction starts on the first
+ * class read from the jar.
+ *
+ * After the run the critical path is printed and stored in the metrics: from the pass that
+ * finished last, back through the dependency each pass finished waiting on, with the time each
+ * pass added after it. Only passes on that path bound the wall time.
+ */
+public final class Pipeline {
+    private final List<Pass> passes = new ArrayList<>();
+
+    public Pipeline add(Pass p) { passes.add(p); return this; }
+
+    public void run(ClassGroup group, DeobContext ctx) throws Exception {
+        int n = passes.size();
+        List<Set<Integer>> after = new ArrayList<>();       // must be done first
+        List<Set<Integer>> streamFrom = new ArrayList<>();  // must have started
+        boolean[] opensGroup = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Pass p = passes.get(i);
+            Set<Integer> done = new TreeSet<>();
+            Set<Integer> started = new TreeSet<>();
+            for (int j = 0; j < i; j++) {
+                Pass q = passes.get(j);
+                if (barrier(p) || barrier(q) || overlap(q.outputs(), p.outputs()) || overlap(q.inputs(), p.outputs())) done.add(j);
+            }
+            for (String input : p.inputs()) {
+                int j = lastProducer(input, i);
+                if (j < 0) continue;   // provided by the caller
+                if (input.equals(Pass.CLASSES) && p.streamedInputs().contains(input)) started.add(j);
+                else done.add(j);
+            }
+            started.removeAll(done);
+            for (int j : started) opensGroup[j] = true;
+            after.add(done);
+            streamFrom.add(started);
+        }
+
+        long origin = System.nanoTime();
+        long[] start = new long[n];
+        long[] end = new long[n];
+        boolean[] begun = new boolean[n];
+        boolean[] finished = new boolean[n];
+        ExecutorService threads = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "better-deob-pass");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Integer> completions = new ExecutorCompletionService<>(threads);
+        Throwable failure = null;
+        try {
+            int running = 0;
+            while (true) {
+                for (int i = 0; i < n && failure == null; i++) {
+                    if (begun[i] || !all(after.get(i), finished) || !all(streamFrom.get(i), begun)) continue;
+                    begun[i] = true;
+                    running++;
+                    int idx = i;
+                    if (opensGroup[idx]) group.startLoading();
+                    completions.submit(() -> {
+                        try {
+                            long[] span = runPass(passes.get(idx), group, ctx);
+                            start[idx] = span[0] - origin;
+                            end[idx] = span[1] - origin;
+                        } finally {
+                            if (opensGroup[idx]) group.finishLoading();
+                        }
+                        return idx;
+                    });
+                }
+                if (running == 0) break;
+                Future<Integer> f = completions.take();
+                running--;
+                try {
+                    finished[f.get()] = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                }
+            }
+        } finally {
+            threads.shutdown();
+        }
+        if (failure instanceof Exception e) throw e;
+        if (failure instanceof Error e) throw e;
+
+        List<RunMetrics.PathStep> path = criticalPath(start, end, after, streamFrom);
+        ctx.metrics().setCriticalPath(path);
+        if (!path.isEmpty()) {
+            long pathNanos = 0, passNanos = 0;
+            StringBuilder sb = new StringBuilder();
+            for (RunMetrics.PathStep s : path) {
+                if (sb.length() > 0) sb.append(" -> ");
+                sb.append(s.phase()).append(' ').append(s.nanos() / 1_000_000).append("ms");
+                pathNanos += s.nanos();
+            }
+            for (int i = 0; i < n; i++) passNanos += end[i] - start[i];
+            ctx.log().println(String.format(Locale.ROOT, "Critical path %dms: %s (pass time %dms, wall %dms)",
+                    pathNanos / 1_000_000, sb, passNanos / 1_000_000, (System.nanoTime() - origin) / 1_000_000));
+        }
+    }
+
+    /** Runs one pass; returns the nanoTime span of its body. */
+    private long[] runPass(Pass p, ClassGroup group, DeobContext ctx) throws Exception {
+        ctx.log().println("== Pass: " + p.name());
+        PassEvent event = new PassEvent();
+        event.begin();
+        long[] span = new long[2];
+        ctx.metrics().measure(p.name(), () -> {
+            Scheduler scheduler = ctx.scheduler();
+            Scheduler.Account account = new Scheduler.Account();
+            Scheduler.Account outer = scheduler.charge(account);
+            span[0] = System.nanoTime();
+            try {
+                p.run(group, ctx);
+            } finally {
+                span[1] = System.nanoTime();
+                scheduler.charge(outer);
+            }
+            recordUtilization(ctx, account.usage(), span[1] - span[0]);
+            return null;
+        });
+        if (event.shouldCommit()) {
+            event.pass = p.name();
+            event.classes = group.size();
+            event.commit();
+        }
+        RunMetrics.PhaseMetrics m = ctx.metrics().phase(p.name());
+        Long util = m.counters().get("utilizationPct");
+        ctx.log().println("   Done " + p.name() + " in " + m.wallNanos() / 1_000_000 + "ms"
+                + (util != null ? " (" + m.counters().get("workers") + " workers, utilization " + util + "%)" : ""));
+        return span;
+    }
+
+    /** Walks back from the pass that finished last through the dependency each pass waited on longest. */
+    private List<RunMetrics.PathStep> criticalPath(long[] start, long[] end, List<Set<Integer>> after, List<Set<Integer>> streamFrom) {
+        LinkedList<RunMetrics.PathStep> path = new LinkedList<>();
+        int p = -1;
+        for (int i = 0; i < passes.size(); i++) if (p < 0 || end[i] > end[p]) p = i;
+        while (p >= 0) {
+            int waitedOn = -1;
+            for (Set<Integer> deps : List.of(after.get(p), streamFrom.get(p))) {
+                for (int j : deps) if (waitedOn < 0 || end[j] > end[waitedOn]) waitedOn = j;
+            }
+            long from = (waitedOn < 0) ? start[p] : Math.max(start[p], end[waitedOn]);
+            path.addFirst(new RunMetrics.PathStep(passes.get(p).name(), end[p] - from));
+            p = waitedOn;
+        }
+        return path;
+    }
+
+    private int lastProducer(String artifact, int before) {
+        for (int j = before - 1; j >= 0; j--) {
+            if (passes.get(j).outputs().contains(artifact)) return j;
+        }
+        return -1;
+    }
+
+    private static boolean barrier(Pass p) {
+        return p.inputs().isEmpty() && p.outputs().isEmpty();
+    }
+
+    private static boolean overlap(Set<String> a, Set<String> b) {
+        for (String s : a) if (b.contains(s)) return true;
+        return false;
+    }
+
+    private static boolean all(Set<Integer> passes, boolean[] state) {
+        for (int i : passes) if (!state[i]) return false;
+        return true;
+    }
+
+    /** Scheduler work charged to one pass; utilization = worker busy time / (pass wall time * workers). */
+    private static void recordUtilization(DeobContext ctx, Scheduler.Usage used, long wallNanos) {
+        if (used.chunks() == 0) return;
+        int workers = ctx.scheduler().parallelism();
+        ctx.metrics().count("workers", workers);
+        ctx.metrics().count("scheduledItems", used.items());
+        ctx.metrics().count("scheduledChunks", used.chunks());
+        ctx.metrics().count("workerBusyMs", used.busyNanos() / 1_000_000);
+        ctx.metrics().count("utilizationPct", Math.round(100.0 * used.busyNanos() / Math.max(1, wallNanos * workers)));
+    }
+}
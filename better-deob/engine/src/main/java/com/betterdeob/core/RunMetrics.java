@@ -0,0 +1,143 @@
+package com.betterdeob.core;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+
+/**
+ * Per-phase resource usage and domain counters for one run.
+ *
+ * Each {@link #measure} records wall time (nanoTime), process CPU time, bytes allocated by all
+ * threads (including short-lived worker pools), GC count/time and peak heap of that phase.
+ * Code running inside a phase adds domain counters with {@link #count}; a counter goes to the
+ * phase measured on the calling thread, or from other threads to the phase started last.
+ * Phases may overlap (passes the {@link Pipeline} runs concurrently); each then reports the
+ * process-wide CPU, allocation and GC of its whole interval. Heap peaks can only be reset for the
+ * whole JVM, so a phase that overlapped another reports no peak heap (-1); {@link #peakHeapBytes}
+ * is the peak over the run. Runs sharing a JVM concurrently (batch) still see each other's heap.
+ */
+public final class RunMetrics {
+    public record PhaseMetrics(String name, long wallNanos, long cpuNanos, long allocatedBytes,
+                               long gcCount, long gcMillis, long peakHeapBytes, Map<String, Long> counters) {}
+
+    /** One pass on the critical path and the time it added to the run. */
+    public record PathStep(String phase, long nanos) {}
+
+    @FunctionalInterface
+    public interface Body<T> { T run() throws Exception; }
+
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final List<PhaseMetrics> phases = new ArrayList<>();
+    private final ThreadLocal<Map<String, Long>> measuring = new ThreadLocal<>();
+    private final List<boolean[]> running = new ArrayList<>();   // per phase in progress: overlapped another
+    private long peakHeapBytes;
+    private Map<String, Long> latest = new LinkedHashMap<>();
+    private List<PathStep> criticalPath = List.of();
+    private boolean success;
+
+    public synchronized void count(String counter, long value) {
+        Map<String, Long> counters = measuring.get();
+        (counters != null ? counters : latest).merge(counter, value, Long::sum);
+    }
+
+    public <T> T measure(String phase, Body<T> body) throws Exception {
+        List<MemoryPoolMXBean> heap = heapPools();
+        boolean[] overlapped = {false};
+        Map<String, Long> counters = new LinkedHashMap<>();
+        Map<String, Long> outer = measuring.get();
+        measuring.set(counters);
+        synchronized (this) {
+            latest = counters;
+            if (running.isEmpty()) {
+                heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+            } else {
+                for (boolean[] r : running) r[0] = true;
+                overlapped[0] = true;
+            }
+            running.add(overlapped);
+        }
+
+        long cpu0 = processCpuNanos();
+        long alloc0 = allocatedBytes();
+        long[] gc0 = gcTotals();
+        long t0 = System.nanoTime();
+        try {
+            return body.run();
+        } finally {
+            measuring.set(outer);
+            long wall = System.nanoTime() - t0;
+            long[] gc1 = gcTotals();
+            long peak = 0;
+            for (MemoryPoolMXBean p : heap) peak += p.getPeakUsage().getUsed();
+            synchronized (this) {
+                running.remove(overlapped);
+                // Peaks are only reset while no phase runs, so every peak is read before the next reset.
+                peakHeapBytes = Math.max(peakHeapBytes, peak);
+                phases.add(new PhaseMetrics(phase, wall, delta(cpu0, processCpuNanos()), delta(alloc0, allocatedBytes()),
+                        gc1[0] - gc0[0], gc1[1] - gc0[1], overlapped[0] ? -1 : peak, Map.copyOf(counters)));
+            }
+        }
+    }
+
+    public synchronized List<PhaseMetrics> phases() { return List.copyOf(phases); }
+
+    /** Peak heap usage over all phases measured so far. */
+    public synchronized long peakHeapBytes() { return peakHeapBytes; }
+    public synchronized PhaseMetrics last() { return phases.isEmpty() ? null : phases.get(phases.size() - 1); }
+
+    /** The phase named {@code name} that finished last, or null. */
+    public synchronized PhaseMetrics phase(String name) {
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            if (phases.get(i).name().equals(name)) return phases.get(i);
+        }
+        return null;
+    }
+
+    /** Set by {@link Pipeline}; empty when no pipeline ran. */
+    public synchronized List<PathStep> criticalPath() { return criticalPath; }
+    public synchronized void setCriticalPath(List<PathStep> criticalPath) { this.criticalPath = List.copyOf(criticalPath); }
+
+    public long startedAtMillis() { return startedAtMillis; }
+    public long elapsedNanos() { return System.nanoTime() - startNanos; }
+
+    public boolean success() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    private static long delta(long before, long after) {
+        return (before < 0 || after < 0) ? -1 : after - before;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> out = new ArrayList<>();
+        for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (p.getType() == MemoryType.HEAP) out.add(p);
+        }
+        return out;
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported()) {
+            return t.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static long[] gcTotals() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+}
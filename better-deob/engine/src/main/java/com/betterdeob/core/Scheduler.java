@@ -0,0 +1,253 @@
+package com.betterdeob.core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Work-stealing pool shared by every parallel pass of a run (or of a batch / an engine).
+ *
+ * {@link #forEach} sorts the items by estimated cost, largest first, and packs them into chunks
+ * of about {@code total / (parallelism * CHUNKS_PER_WORKER)}: expensive items (the giant client
+ * class) get a chunk of their own and start first, small ones share chunks so they do not pay a
+ * task each. The chunks are forked largest first onto the deque of the forking worker, which
+ * runs the largest one itself; idle workers steal from the old end of the deque, so they take
+ * the next largest chunks while the forking worker pops the small ones from the new end.
+ *
+ * Every chunk adds its run time to a busy counter, and to the {@link Account} that was
+ * {@link #charge charged} on the thread that submitted it; chunks charge the same account for
+ * work they submit in turn. {@link Pipeline} opens an account per pass and turns it into the
+ * pass's utilization (busy time / (pass wall time * parallelism)), so passes running side by
+ * side, or runs sharing one scheduler, each report only their own work.
+ */
+public final class Scheduler implements AutoCloseable {
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    /** Cumulative work done on a scheduler or charged to an {@link Account}. */
+    public record Usage(long items, long chunks, long busyNanos) {}
+
+    @FunctionalInterface
+    public interface Work<T> { void run(T item) throws Exception; }
+
+    /** Work done on behalf of one caller, e.g. a pass. */
+    public static final class Account {
+        private final LongAdder items = new LongAdder();
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        public Usage usage() {
+            return new Usage(items.sum(), chunks.sum(), busyNanos.sum());
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final ThreadLocal<Account> charged = new ThreadLocal<>();
+
+    public Scheduler(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("better-deob-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    public int parallelism() { return pool.getParallelism(); }
+
+    /** The underlying pool, for code that forks its own tasks or parallel streams inside it. */
+    public ForkJoinPool pool() { return pool; }
+
+    /** Work done on this scheduler so far, by every caller. */
+    public Usage usage() {
+        return new Usage(items.sum(), chunks.sum(), busyNanos.sum());
+    }
+
+    /**
+     * Charges work submitted from the calling thread to {@code account} (null: to none) and
+     * returns the account charged before, to be restored when the caller is done.
+     */
+    public Account charge(Account account) {
+        Account before = charged.get();
+        if (account == null) charged.remove();
+        else charged.set(account);
+        return before;
+    }
+
+    /**
+     * Runs {@code work} on every item and waits for all of them. The first exception thrown by
+     * an item is rethrown once the running chunks are done; items not started by then are skipped.
+     */
+    public <T> void forEach(Collection<T> all, ToLongFunction<T> cost, Work<T> work) throws Exception {
+        if (all.isEmpty()) return;
+        record Costed<T>(T item, long cost) {}
+        List<Costed<T>> sorted = new ArrayList<>(all.size());
+        long total = 0;
+        for (T t : all) {
+            long c = Math.max(1, cost.applyAsLong(t));
+            sorted.add(new Costed<>(t, c));
+            total += c;
+        }
+        sorted.sort(Comparator.comparingLong((Costed<T> c) -> c.cost).reversed());
+
+        long target = Math.max(1, total / ((long) parallelism() * CHUNKS_PER_WORKER));
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Account account = charged.get();
+        List<Chunk<T>> tasks = new ArrayList<>();
+        List<T> open = new ArrayList<>();
+        long openCost = 0;
+        for (Costed<T> c : sorted) {
+            open.add(c.item);
+            openCost += c.cost;
+            if (openCost >= target) {
+                tasks.add(new Chunk<>(open, work, failure, account));
+                open = new ArrayList<>();
+                openCost = 0;
+            }
+        }
+        if (!open.isEmpty()) tasks.add(new Chunk<>(open, work, failure, account));
+
+        count(account, all.size(), tasks.size());
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() {
+                // Not invokeAll: it forks the last task first, which would put the smallest chunks
+                // at the old end of the deque where thieves steal.
+                for (int i = 1; i < tasks.size(); i++) tasks.get(i).fork();
+                tasks.get(0).invoke();
+                for (int i = tasks.size() - 1; i >= 1; i--) tasks.get(i).join();
+            }
+        });
+        Exception e = failure.get();
+        if (e != null) throw e;
+    }
+
+    /**
+     * For items that arrive one at a time (classes while the jar is read): each {@link Feed#add}
+     * starts its item right away, so there is no cost ordering or batching.
+     */
+    public <T> Feed<T> feed(Work<T> work) {
+        return new Feed<>(work);
+    }
+
+    public final class Feed<T> {
+        private final Work<T> work;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final List<ForkJoinTask<?>> started = new ArrayList<>();
+
+        private Feed(Work<T> work) { this.work = work; }
+
+        public synchronized void add(T item) {
+            Account account = charged.get();
+            count(account, 1, 1);
+            started.add(pool.submit(new Chunk<>(List.of(item), work, failure, account)));
+        }
+
+        /** Waits for every added item; rethrows the first exception like {@link #forEach}. */
+        public void finish() throws Exception {
+            List<ForkJoinTask<?>> all;
+            synchronized (this) { all = List.copyOf(started); }
+            for (ForkJoinTask<?> t : all) t.join();
+            Exception e = failure.get();
+            if (e != null) throw e;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class Chunk<T> extends RecursiveAction {
+        private final List<T> items;
+        private final Work<T> work;
+        private final AtomicReference<Exception> failure;
+        private final Account account;
+
+        Chunk(List<T> items, Work<T> work, AtomicReference<Exception> failure, Account account) {
+            this.items = items;
+            this.work = work;
+            this.failure = failure;
+            this.account = account;
+        }
+
+        @Override protected void compute() {
+            Account outer = charge(account);
+            long t0 = System.nanoTime();
+            try {
+                for (T item : items) {
+                    if (failure.get() != null) return;
+                    work.run(item);
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                long busy = System.nanoTime() - t0;
+                busyNanos.add(busy);
+                if (account != null) account.busyNanos.add(busy);
+                charge(outer);
+            }
+        }
+    }
+
+    private void count(Account account, long submittedItems, long submittedChunks) {
+        items.add(submittedItems);
+        chunks.add(submittedChunks);
+        if (account != null) {
+            account.items.add(submittedItems);
+            account.chunks.add(submittedChunks);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * CPUs this process may use: the JVM's count, capped by a cgroup CPU quota rounded down (the
+     * JVM rounds up, so a 1.5 CPU container would otherwise run two busy workers and be
+     * throttled). At least 1.
+     */
+    public static int availableCpus() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        double quota = cgroupCpuQuota();
+        if (quota > 0) cpus = Math.min(cpus, (int) Math.floor(quota));
+        return Math.max(1, cpus);
+    }
+
+    /** CPU quota in CPUs from cgroup v2 cpu.max or v1 cfs_quota_us / cfs_period_us; -1 if unlimited or unknown. */
+    static double cgroupCpuQuota() {
+        return cgroupCpuQuota(Path.of("/sys/fs/cgroup"));
+    }
+
+    /** Same as {@link #cgroupCpuQuota()} for the cgroup filesystem mounted at {@code root}. */
+    static double cgroupCpuQuota(Path root) {
+        try {
+            Path v2 = root.resolve("cpu.max");
+            if (Files.isReadable(v2)) {
+                String[] f = Files.readString(v2).trim().split("\\s+");
+                return "max".equals(f[0]) ? -1 : Double.parseDouble(f[0]) / Double.parseDouble(f[1]);
+            }
+            for (String dir : List.of("cpu", "cpu,cpuacct")) {
+                Path q = root.resolve(dir).resolve("cpu.cfs_quota_us");
+                Path p = root.resolve(dir).resolve("cpu.cfs_period_us");
+                if (Files.isReadable(q) && Files.isReadable(p)) {
+                    long quota = Long.parseLong(Files.readString(q).trim());
+                    long period = Long.parseLong(Files.readString(p).trim());
+                    return (quota <= 0 || period <= 0) ? -1 : (double) quota / period;
+                }
+            }
+        } catch (Exception e) {
+            // unreadable or unexpected format: no limit known
+        }
+        return -1;
+    }
+}
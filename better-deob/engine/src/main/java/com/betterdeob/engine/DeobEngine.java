@@ -0,0 +1,135 @@
+package com.betterdeob.engine;
+
+import com.betterdeob.core.*;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.features.FeatureIndexCache;
+import com.betterdeob.passes.ExtractFeaturesPass;
+import com.betterdeob.passes.IdentifyFieldsPass;
+import com.betterdeob.passes.IdentifyPass;
+import com.betterdeob.passes.LoadJarPass;
+import com.betterdeob.passes.NormalizePass;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.RuleLoader;
+import com.betterdeob.rules.RuleSet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process entry point for services that generate hooks: identifies the classes, fields and
+ * multipliers of a jar and returns the {@link MappingReport} instead of writing files.
+ *
+ * An engine is created once per rule set and reused for many jars. It owns the work-stealing
+ * {@link Scheduler} shared by its passes and concurrent calls, and keeps the FeatureIndex of
+ * the last few jars in memory, keyed like {@link FeatureIndexCache}, so identifying the same
+ * revision again only scores and solves.
+ * Feature cache and score memo directories can be added for reuse across processes. Calls may
+ * run concurrently. Pass progress and warnings are discarded unless a log stream is set.
+ * Configure the engine before the first call and close it when done.
+ *
+ * <pre>{@code
+ * try (DeobEngine engine = DeobEngine.load(Path.of("osrs-rules.yaml"), 4)) {
+ *     MappingReport r = engine.identify(Path.of("gamepack.jar"));
+ *     r.fieldMappings().get("Client.gameState");
+ * }
+ * }</pre>
+ */
+public final class DeobEngine implements AutoCloseable {
+    public static final int DEFAULT_CACHED_INDEXES = 2;
+
+    private final RuleSet rules;
+    private final Set<String> patternSources;
+    private final FeatureIndex.Extras extras;
+    private final int threads;
+    private final Scheduler scheduler;
+    private final Map<String, FeatureIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);   // LRU
+
+    private int cachedIndexes = DEFAULT_CACHED_INDEXES;
+    private Path featureCacheDir;
+    private Path scoreMemoDir;
+    private PrintStream log = new PrintStream(OutputStream.nullOutputStream());
+
+    public DeobEngine(RuleSet rules, int threads) {
+        this.rules = rules;
+        this.patternSources = rules.fieldPatternSources();
+        this.extras = new FeatureIndex.Extras(rules.usesLiteralSignals(), rules.usesCoAccessSignals());
+        this.threads = Math.max(1, threads);
+        this.scheduler = new Scheduler(this.threads);
+    }
+
+    /** An engine for the rules YAML at {@code rulesYaml}. */
+    public static DeobEngine load(Path rulesYaml, int threads) throws Exception {
+        return new DeobEngine(RuleLoader.load(rulesYaml), threads);
+    }
+
+    public RuleSet rules() { return rules; }
+
+    /** FeatureIndexes kept in memory (least recently used dropped first); 0 disables. */
+    public void setCachedIndexes(int cachedIndexes) { this.cachedIndexes = Math.max(0, cachedIndexes); }
+
+    /** Same as --feature-cache; null (default) keeps indexes in memory only. */
+    public void setFeatureCacheDir(Path featureCacheDir) { this.featureCacheDir = featureCacheDir; }
+
+    /** Same as --score-memo; null (default) disables memoization. */
+    public void setScoreMemoDir(Path scoreMemoDir) { this.scoreMemoDir = scoreMemoDir; }
+
+    /** Where pass progress and warnings (ignored caches, invalid patterns) go; discarded by default. */
+    public void setLog(PrintStream log) { this.log = log; }
+
+    public MappingReport identify(Path jar) throws Exception {
+        return identify(new LoadJarPass(jar), jar, FeatureIndexCache.key(jar, patternSources, extras));
+    }
+
+    /** Identifies a jar held in memory (the buffer's remaining bytes; its position is left unchanged). */
+    public MappingReport identify(ByteBuffer jar) throws Exception {
+        return identify(new LoadJarPass(jar), null, FeatureIndexCache.key(jar, patternSources, extras));
+    }
+
+    private MappingReport identify(LoadJarPass load, Path jar, String key) throws Exception {
+        DeobContext ctx = new DeobContext(null, rules);
+        ctx.setInputJar(jar);
+        ctx.setThreads(threads);
+        ctx.setScheduler(scheduler);
+        ctx.setLog(log);
+        ctx.setFeatureCacheDir(featureCacheDir);
+        ctx.setScoreMemoDir(scoreMemoDir);
+        ctx.setFeatureIndexKey(key);
+        ctx.setFeatureIndex(cached(key));
+        new Pipeline()
+                .add(load)
+                .add(new NormalizePass())
+                .add(new ExtractFeaturesPass())
+                .add(new IdentifyPass())
+                .add(new IdentifyFieldsPass())
+                .run(new ClassGroup(), ctx);
+        if (ctx.scoreMemo() != null) ctx.scoreMemo().save();
+        remember(key, ctx.featureIndex());
+        return ctx.report();
+    }
+
+    private synchronized FeatureIndex cached(String key) {
+        return indexes.get(key);
+    }
+
+    private synchronized void remember(String key, FeatureIndex idx) {
+        indexes.put(key, idx);
+        for (Iterator<FeatureIndex> it = indexes.values().iterator(); indexes.size() > cachedIndexes; ) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.close();
+        synchronized (this) {
+            indexes.clear();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.betterdeob.features;
 
-import com.betterdeob.bytecode.OpcodeNames;
+import com.betterdeob.bytecode.PatternSet;
 import org.objectweb.asm.tree.*;
 
 import java.util.*;
@@ -11,7 +11,8 @@ import java.util.*;
  * High-precision matching is achieved by combining multiple independent signals:
  * - structure (field/method descriptor counts, inheritance, interfaces)
  * - literals (string hash)
- * - bytecode context patterns around field accesses (by field descriptor)
+ * - bytecode context patterns around field accesses (by field descriptor), both as
+ *   legacy fixed windows and as hit counts of the compiled fieldPattern set
  * - bytecode "style" fingerprint (opcode 3-gram hash)
  */
 public record ClassFeatures(
@@ -27,7 +28,8 @@ public record ClassFeatures(
         int totalLdcNumbers,
         long stringLiteralHash64,
         long opcode3GramHash64,
-        Map<String, Map<String, Integer>> fieldUsagePatternsByDesc
+        Map<String, Map<String, Integer>> fieldUsagePatternsByDesc,
+        Map<String, Map<Integer, Integer>> patternHitsByDesc
 ) {
     // Pattern window: 2 opcodes BEFORE field insn + FIELD opcode + next 4 opcodes AFTER (fixed 7 tokens).
     public static final int FIELD_WINDOW_BEFORE = 2;
@@ -35,6 +37,27 @@ public record ClassFeatures(
     public static final int FIELD_WINDOW_LEN    = 1 + FIELD_WINDOW_BEFORE + FIELD_WINDOW_AFTER;
 
     public static ClassFeatures extract(ClassNode cn) {
+        return extract(cn, List.of());
+    }
+
+    /**
+     * @param fields features of the fields declared in {@code cn}; their compiled pattern hits
+     *               are summed per descriptor (both scan the same declared-field access sites)
+     */
+    public static ClassFeatures extract(ClassNode cn, List<FieldFeatures> fields) {
+        return extract(cn, fields, MethodSummary.of(cn, PatternSet.empty(), null));
+    }
+
+    /**
+     * Structural features only (supertypes, access, descriptor counts); code features stay
+     * empty. Enough for rule constraints, and all a header read with SKIP_CODE provides.
+     */
+    public static ClassFeatures header(ClassNode cn) {
+        return extract(cn, List.of(), Collections.nCopies(cn.methods.size(), null));
+    }
+
+    /** @param summaries one per method of {@code cn} (null for methods without code) */
+    public static ClassFeatures extract(ClassNode cn, List<FieldFeatures> fields, List<MethodSummary> summaries) {
         Map<String, Integer> fieldDescCounts = new HashMap<>();
         for (FieldNode fn : cn.fields) fieldDescCounts.merge(fn.desc, 1, Integer::sum);
 
@@ -50,50 +73,29 @@ public record ClassFeatures(
 
         Map<String, Map<String, Integer>> patternsByDesc = new HashMap<>();
 
-        for (MethodNode mn : cn.methods) {
-            methodDescCounts.merge(mn.desc, 1, Integer::sum);
-            if (mn.instructions == null) continue;
-
-            // Build a linear opcode list (skipping non-op nodes) for n-grams + for BEFORE lookup
-            List<AbstractInsnNode> opNodes = new ArrayList<>();
-            List<Integer> opcodes = new ArrayList<>();
-            for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
-                int op = insn.getOpcode();
-                if (op >= 0) {
-                    opNodes.add(insn);
-                    opcodes.add(op);
-                }
-
-                if (insn instanceof LdcInsnNode ldc) {
-                    Object c = ldc.cst;
-                    if (c instanceof String s) {
-                        ldcStrings++;
-                        strHash = fnv1a64(strHash, s);
-                    } else if (c instanceof Number) {
-                        ldcNumbers++;
-                    }
-                }
-            }
+        for (int m = 0; m < cn.methods.size(); m++) {
+            methodDescCounts.merge(cn.methods.get(m).desc, 1, Integer::sum);
+            MethodSummary ms = summaries.get(m);
+            if (ms == null) continue;
+
+            for (String s : ms.ldcStrings()) strHash = fnv1a64(strHash, s);
+            ldcStrings += ms.ldcStrings().size();
+            ldcNumbers += ms.ldcNumbers();
 
             // opcode 3-gram fingerprint
-            for (int i = 0; i + 2 < opcodes.size(); i++) {
-                int a = opcodes.get(i), b = opcodes.get(i + 1), c = opcodes.get(i + 2);
-                gramHash = fnv1a64(gramHash, a);
-                gramHash = fnv1a64(gramHash, b);
-                gramHash = fnv1a64(gramHash, c);
+            int[] opcodes = ms.opcodes();
+            for (int i = 0; i + 2 < opcodes.length; i++) {
+                gramHash = fnv1a64(gramHash, opcodes[i]);
+                gramHash = fnv1a64(gramHash, opcodes[i + 1]);
+                gramHash = fnv1a64(gramHash, opcodes[i + 2]);
             }
 
             // Field usage patterns (declared fields only)
-            for (int i = 0; i < opNodes.size(); i++) {
-                AbstractInsnNode insn = opNodes.get(i);
-                if (!(insn instanceof FieldInsnNode fin)) continue;
-                if (!cn.name.equals(fin.owner)) continue;
-                if (!declaredFields.contains(fin.name + ":" + fin.desc)) continue;
-
-                String pat = buildFieldWindow(opNodes, i);
+            for (MethodSummary.Access a : ms.accesses()) {
+                if (!declaredFields.contains(a.member())) continue;
                 patternsByDesc
-                        .computeIfAbsent(fin.desc, k -> new HashMap<>())
-                        .merge(pat, 1, Integer::sum);
+                        .computeIfAbsent(a.desc(), k -> new HashMap<>())
+                        .merge(a.window(), 1, Integer::sum);
             }
         }
 
@@ -102,6 +104,15 @@ public record ClassFeatures(
         Map<String, Map<String, Integer>> frozen = new HashMap<>();
         for (var e : patternsByDesc.entrySet()) frozen.put(e.getKey(), Map.copyOf(e.getValue()));
 
+        Map<String, Map<Integer, Integer>> hitsByDesc = new HashMap<>();
+        for (FieldFeatures ff : fields) {
+            if (ff.patternHits().isEmpty()) continue;
+            Map<Integer, Integer> m = hitsByDesc.computeIfAbsent(ff.desc(), k -> new HashMap<>());
+            ff.patternHits().forEach((id, n) -> m.merge(id, n, Integer::sum));
+        }
+        Map<String, Map<Integer, Integer>> frozenHits = new HashMap<>();
+        for (var e : hitsByDesc.entrySet()) frozenHits.put(e.getKey(), Map.copyOf(e.getValue()));
+
         return new ClassFeatures(
                 cn.name,
                 cn.superName,
@@ -115,32 +126,11 @@ public record ClassFeatures(
                 ldcNumbers,
                 strHash,
                 gramHash,
-                Map.copyOf(frozen)
+                Map.copyOf(frozen),
+                Map.copyOf(frozenHits)
         );
     }
 
-    private static String buildFieldWindow(List<AbstractInsnNode> opNodes, int fieldIndex) {
-        List<String> toks = new ArrayList<>(FIELD_WINDOW_LEN);
-
-        // BEFORE padding
-        for (int j = fieldIndex - FIELD_WINDOW_BEFORE; j < fieldIndex; j++) {
-            if (j < 0) toks.add("NONOP");
-            else toks.add(OpcodeNames.name(opNodes.get(j).getOpcode()));
-        }
-
-        // FIELD opcode
-        toks.add(OpcodeNames.name(opNodes.get(fieldIndex).getOpcode()));
-
-        // AFTER padding
-        int afterStart = fieldIndex + 1;
-        for (int j = afterStart; j < afterStart + FIELD_WINDOW_AFTER; j++) {
-            if (j >= opNodes.size()) toks.add("NONOP");
-            else toks.add(OpcodeNames.name(opNodes.get(j).getOpcode()));
-        }
-
-        return String.join(" ", toks);
-    }
-
     private static long fnv1a64(long seed, String s) {
         long h = seed;
         for (int i = 0; i < s.length(); i++) {
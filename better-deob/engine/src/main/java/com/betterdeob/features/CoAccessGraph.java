@@ -0,0 +1,163 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.SymbolTable;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+/**
+ * Weighted graph of fields accessed together: an edge between two fields counts the methods
+ * (anywhere in the jar) that read or write both, e.g. an x/y pair or an animation id and frame.
+ *
+ * Nodes are "owner.name:desc" keys of fields declared in the jar, interned in the index's
+ * {@link SymbolTable}; accesses through a subclass resolve to the declaring class. Each method
+ * contributes its sorted set of distinct field ids, produced per class in parallel
+ * ({@link #scan}) and aggregated into edges by {@link #merge}. The result is stored in
+ * compressed sparse rows (sorted node ids, per-node sorted neighbours and weights), so
+ * {@link #weight} is two binary searches.
+ *
+ * Methods touching more than {@link #MAX_FIELDS_PER_METHOD} fields (static initialisers,
+ * serializers) are left out: they relate everything to everything and would add a quadratic
+ * number of meaningless edges.
+ */
+public final class CoAccessGraph {
+    public static final int MAX_FIELDS_PER_METHOD = 48;
+
+    private final SymbolTable symbols;
+    private final int[] nodes;     // sorted symbol ids
+    private final int[] offsets;   // nodes.length + 1 row starts into adj/weights
+    private final int[] adj;       // neighbour symbol ids, sorted per row
+    private final int[] weights;
+
+    private CoAccessGraph(SymbolTable symbols, int[] nodes, int[] offsets, int[] adj, int[] weights) {
+        this.symbols = symbols;
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.adj = adj;
+        this.weights = weights;
+    }
+
+    public static CoAccessGraph empty(SymbolTable symbols) {
+        return new CoAccessGraph(symbols, new int[0], new int[1], new int[0], new int[0]);
+    }
+
+    /** Number of methods accessing both fields ("owner.name:desc" keys); 0 if either is unknown. */
+    public int weight(String fieldKey, String otherKey) {
+        int a = symbols.find(symbol(fieldKey));
+        int b = symbols.find(symbol(otherKey));
+        if (a < 0 || b < 0) return 0;
+        int row = Arrays.binarySearch(nodes, a);
+        if (row < 0) return 0;
+        int i = Arrays.binarySearch(adj, offsets[row], offsets[row + 1], b);
+        return (i < 0) ? 0 : weights[i];
+    }
+
+    /** Number of fields co-accessed with {@code fieldKey}. */
+    public int degree(String fieldKey) {
+        int a = symbols.find(symbol(fieldKey));
+        int row = (a < 0) ? -1 : Arrays.binarySearch(nodes, a);
+        return (row < 0) ? 0 : offsets[row + 1] - offsets[row];
+    }
+
+    public int nodeCount() { return nodes.length; }
+    public int edgeCount() { return adj.length / 2; }
+
+    /** Raw arrays for {@link FeatureIndexCache}. */
+    int[] nodes() { return nodes; }
+    int[] offsets() { return offsets; }
+    int[] adj() { return adj; }
+    int[] weights() { return weights; }
+
+    static CoAccessGraph restore(SymbolTable symbols, int[] nodes, int[] offsets, int[] adj, int[] weights) {
+        return new CoAccessGraph(symbols, nodes, offsets, adj, weights);
+    }
+
+    private static String symbol(String fieldKey) {
+        return "f:" + fieldKey;
+    }
+
+    /** Per-class method field sets, produced in parallel and merged by {@link #merge}. */
+    public static final class Partial {
+        private final List<int[]> methods = new ArrayList<>();
+    }
+
+    /**
+     * @param summaries one per method of {@code cn} (null for methods without code)
+     * @param classes   all classes of the jar by name, to resolve inherited field accesses
+     */
+    public static Partial scan(ClassNode cn, List<MethodSummary> summaries, Map<String, ClassNode> classes, SymbolTable symbols) {
+        Partial part = new Partial();
+        Map<String, String> resolved = new HashMap<>();
+        Set<Integer> ids = new TreeSet<>();
+        for (MethodSummary ms : summaries) {
+            if (ms == null) continue;
+            ids.clear();
+            for (String ref : ms.fieldRefs()) {
+                int dot = ref.indexOf('.');
+                String owner = (dot == 0) ? cn.name : ref.substring(0, dot);   // MethodSummary.SELF
+                String member = ref.substring(dot + 1);
+                String declaring = resolved.computeIfAbsent(owner + "." + member, k -> declaringClass(owner, member, classes));
+                if (declaring.isEmpty()) continue;
+                ids.add(symbols.intern(symbol(declaring + "." + member)));
+            }
+            if (ids.size() < 2 || ids.size() > MAX_FIELDS_PER_METHOD) continue;
+            part.methods.add(ids.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return part;
+    }
+
+    /** Declaring class of {@code member} seen through {@code owner}, or "" if not declared in the jar. */
+    private static String declaringClass(String owner, String member, Map<String, ClassNode> classes) {
+        for (String c = owner; c != null; ) {
+            ClassNode cn = classes.get(c);
+            if (cn == null) return "";
+            for (FieldNode fn : cn.fields) if (member.equals(fn.name + ":" + fn.desc)) return c;
+            c = cn.superName;
+        }
+        return "";
+    }
+
+    public static CoAccessGraph merge(SymbolTable symbols, Collection<Partial> parts) {
+        // Every co-accessed pair in both directions as (from << 32 | to); sorting groups equal
+        // pairs, so run lengths are the weights and runs of one "from" are the CSR rows.
+        long size = 0;
+        for (Partial p : parts) for (int[] ids : p.methods) size += (long) ids.length * (ids.length - 1);
+        long[] pairs = new long[Math.toIntExact(size)];
+        int n = 0;
+        for (Partial p : parts) {
+            for (int[] ids : p.methods) {
+                for (int i = 0; i < ids.length; i++) {
+                    for (int j = i + 1; j < ids.length; j++) {
+                        pairs[n++] = ((long) ids[i] << 32) | ids[j];
+                        pairs[n++] = ((long) ids[j] << 32) | ids[i];
+                    }
+                }
+            }
+        }
+        Arrays.sort(pairs);
+
+        int edges = 0, nodeCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) edges++;
+            if (i == 0 || (pairs[i] >>> 32) != (pairs[i - 1] >>> 32)) nodeCount++;
+        }
+        int[] nodes = new int[nodeCount];
+        int[] offsets = new int[nodeCount + 1];
+        int[] adj = new int[edges];
+        int[] w = new int[edges];
+        int e = -1, row = -1;
+        for (int i = 0; i < n; i++) {
+            int from = (int) (pairs[i] >>> 32);
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                adj[++e] = (int) pairs[i];
+                if (row < 0 || nodes[row] != from) {
+                    nodes[++row] = from;
+                    offsets[row] = e;
+                }
+            }
+            w[e]++;
+        }
+        offsets[nodeCount] = edges;
+        return new CoAccessGraph(symbols, nodes, offsets, adj, w);
+    }
+}
@@ -0,0 +1,386 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.core.Scheduler;
+import com.betterdeob.jfr.ClassExtractionEvent;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+public final class FeatureIndex {
+    /** Decides from a class's header features which classes need their code analysed. */
+    @FunctionalInterface
+    public interface Demand {
+        Demand ALL = (header, hierarchy) -> true;
+
+        boolean needs(ClassFeatures header, HierarchyIndex hierarchy);
+
+        /**
+         * Whether the class may be needed, decided without the hierarchy; must be true whenever
+         * {@link #needs} is. Classes read while the jar is still loading are analysed on this.
+         */
+        default boolean mayNeed(ClassFeatures header) { return true; }
+
+        /** Classes named by {@code names}, whatever the hierarchy. */
+        static Demand named(Predicate<String> names) {
+            return new Demand() {
+                @Override public boolean needs(ClassFeatures header, HierarchyIndex hierarchy) { return names.test(header.name()); }
+                @Override public boolean mayNeed(ClassFeatures header) { return names.test(header.name()); }
+            };
+        }
+
+        default Demand or(Demand other) {
+            Demand self = this;
+            return new Demand() {
+                @Override public boolean needs(ClassFeatures header, HierarchyIndex hierarchy) {
+                    return self.needs(header, hierarchy) || other.needs(header, hierarchy);
+                }
+                @Override public boolean mayNeed(ClassFeatures header) { return self.mayNeed(header) || other.mayNeed(header); }
+            };
+        }
+    }
+
+    /**
+     * Jar-wide indexes built on top of the per-class features. They cost a pass over every
+     * analysed method and a merge, so a build leaves out the ones no rule reads.
+     *
+     * @param literals the {@link LiteralIndex} (ldcStringEq, ldcStringContains, constEq signals)
+     * @param coAccess the {@link CoAccessGraph} (coAccessWith signals)
+     */
+    public record Extras(boolean literals, boolean coAccess) {
+        public static final Extras ALL = new Extras(true, true);
+        public static final Extras NONE = new Extras(false, false);
+
+        /** True if everything {@code needed} is built. */
+        public boolean covers(Extras needed) {
+            return (literals || !needed.literals) && (coAccess || !needed.coAccess);
+        }
+    }
+
+    private final Map<String, ClassFeatures> classFeatures;
+    private final Map<String, List<FieldFeatures>> fieldFeaturesByOwner;
+    private final PatternSet patterns;
+    private final LiteralIndex literals;
+    private final HierarchyIndex hierarchy;
+    private final CoAccessGraph coAccess;
+    private final int methodBodies;
+    private final int distinctBodies;
+    private final Set<String> analyzed;   // null: every class
+    private final Extras extras;
+
+    private FeatureIndex(Map<String, ClassFeatures> classFeatures, Map<String, List<FieldFeatures>> fieldFeaturesByOwner,
+                         PatternSet patterns, LiteralIndex literals, HierarchyIndex hierarchy, CoAccessGraph coAccess,
+                         int methodBodies, int distinctBodies, Set<String> analyzed, Extras extras) {
+        this.classFeatures = classFeatures;
+        this.fieldFeaturesByOwner = fieldFeaturesByOwner;
+        this.patterns = patterns;
+        this.literals = literals;
+        this.hierarchy = hierarchy;
+        this.coAccess = coAccess;
+        this.methodBodies = methodBodies;
+        this.distinctBodies = distinctBodies;
+        this.analyzed = analyzed;
+        this.extras = extras;
+    }
+
+    public ClassFeatures of(String internalName) { return classFeatures.get(internalName); }
+    public ClassFeatures of(ClassNode cn) { return classFeatures.get(cn.name); }
+
+    public List<FieldFeatures> fieldsOf(String ownerInternalName) {
+        return fieldFeaturesByOwner.getOrDefault(ownerInternalName, List.of());
+    }
+
+    /** The fieldPattern set whose ids key {@link FieldFeatures#patternHits()}. */
+    public PatternSet patterns() { return patterns; }
+
+    /** Interned operand values; pattern operand constraints compare against these ids. */
+    public SymbolTable symbols() { return patterns.symbols(); }
+
+    /** String literal / numeric constant -> classes, methods and field sites using it; empty unless built with {@link Extras#literals}. */
+    public LiteralIndex literals() { return literals; }
+
+    /** The jar-wide indexes this index was built with. */
+    public Extras extras() { return extras; }
+
+    /** Supertype / subtype closures of the jar's classes. */
+    public HierarchyIndex hierarchy() { return hierarchy; }
+
+    /** Fields accessed together in the same methods, weighted by method count; empty unless built with {@link Extras#coAccess}. */
+    public CoAccessGraph coAccess() { return coAccess; }
+
+    public int size() { return classFeatures.size(); }
+
+    /** Methods with code scanned when the index was built. */
+    public int methodBodies() { return methodBodies; }
+
+    /** Distinct bodies among them; the rest reused the summary of an identical method. */
+    public int distinctBodies() { return distinctBodies; }
+
+    /**
+     * Whether the class's code was analysed. Classes that were not have header features only
+     * (empty code features, no field features and no literal or co-access entries).
+     */
+    public boolean analyzed(String internalName) {
+        return analyzed == null ? classFeatures.containsKey(internalName) : analyzed.contains(internalName);
+    }
+
+    /** Number of classes whose code was analysed. */
+    public int analyzedCount() { return analyzed == null ? classFeatures.size() : analyzed.size(); }
+
+    /** True if every class was analysed, as needed by jar-wide consumers such as the signal miner. */
+    public boolean complete() { return analyzed == null; }
+
+    /** Classes {@code demand} needs whose code this index did not analyse. */
+    public Set<String> missing(Demand demand) {
+        if (analyzed == null) return Set.of();
+        Set<String> out = new TreeSet<>();
+        for (ClassFeatures cf : classFeatures.values()) {
+            if (!analyzed.contains(cf.name()) && demand.needs(cf, hierarchy)) out.add(cf.name());
+        }
+        return out;
+    }
+
+    /** Names of all indexed classes. */
+    public Set<String> classNames() { return Collections.unmodifiableSet(classFeatures.keySet()); }
+
+    /** Raw maps for {@link FeatureIndexCache}. */
+    Map<String, ClassFeatures> classFeatures() { return classFeatures; }
+    Map<String, List<FieldFeatures>> fieldFeaturesByOwner() { return fieldFeaturesByOwner; }
+    Set<String> analyzedClasses() { return analyzed; }
+
+    /** Reassembles an index from a cached snapshot; {@code patterns} must share the snapshot's symbols. */
+    static FeatureIndex restore(Map<String, ClassFeatures> classFeatures, Map<String, List<FieldFeatures>> fieldFeaturesByOwner,
+                                PatternSet patterns, LiteralIndex literals, HierarchyIndex hierarchy, CoAccessGraph coAccess,
+                                int methodBodies, int distinctBodies, Set<String> analyzed, Extras extras) {
+        return new FeatureIndex(classFeatures, fieldFeaturesByOwner, patterns, literals, hierarchy, coAccess,
+                methodBodies, distinctBodies, analyzed, extras);
+    }
+
+    public static FeatureIndex build(Collection<ClassNode> classes, int threads) {
+        return build(classes, threads, PatternSet.empty());
+    }
+
+    /**
+     * Extracts every class in parallel, with all {@link Extras}. Each method body is summarized
+     * once ({@link MethodSummary}) and byte-identical bodies share one summary, so duplicated
+     * stubs, decoders and small subclasses cost a hash instead of a full scan.
+     */
+    public static FeatureIndex build(Collection<ClassNode> classes, int threads, PatternSet patterns) {
+        try (Scheduler scheduler = new Scheduler(threads)) {
+            return build(classes, scheduler, patterns, Extras.ALL);
+        }
+    }
+
+    /**
+     * Same as {@link #build(Collection, int, PatternSet)} on a shared scheduler, with only
+     * {@code extras}. Classes are weighted by instruction count, so the largest start first and
+     * small ones are batched.
+     */
+    public static FeatureIndex build(Collection<ClassNode> classes, Scheduler scheduler, PatternSet patterns, Extras extras) {
+        Extraction x = new Extraction(patterns, extras);
+        Map<String, ClassNode> byName = byName(classes);
+        run(() -> scheduler.forEach(classes, FeatureIndex::cost, cn -> x.coAccess(cn, x.extract(cn), byName)));
+        return x.finish(classes, HierarchyIndex.build(classes), Map.of(), null);
+    }
+
+    /**
+     * Two-phase build: header features and the hierarchy for every class first, then code
+     * analysis only for the classes {@code demand} needs (candidates of some rule), which
+     * {@link ClassGroup#withCode} parses if they were read as headers. The rest keep header
+     * features; {@link #analyzed} tells them apart.
+     */
+    public static FeatureIndex build(ClassGroup group, Scheduler scheduler, PatternSet patterns, Extras extras, Demand demand) {
+        List<ClassNode> classes = new ArrayList<>(group.all());
+        Map<String, ClassFeatures> headers = new HashMap<>();
+        for (ClassNode cn : classes) headers.put(cn.name, ClassFeatures.header(cn));
+        HierarchyIndex hierarchy = HierarchyIndex.build(classes);
+
+        List<ClassNode> demanded = new ArrayList<>();
+        for (ClassNode cn : classes) if (demand.needs(headers.get(cn.name), hierarchy)) demanded.add(cn);
+
+        Extraction x = new Extraction(patterns, extras);
+        Map<String, ClassNode> byName = byName(classes);
+        run(() -> scheduler.forEach(demanded, cn -> cost(group, cn), cn -> {
+            ClassNode full = group.withCode(cn.name);
+            x.coAccess(full, x.extract(full), byName);
+        }));
+        Set<String> analyzed = null;
+        if (demanded.size() < classes.size()) {
+            analyzed = new HashSet<>();
+            for (ClassNode cn : demanded) analyzed.add(cn.name);
+        }
+        return x.finish(classes, hierarchy, headers, analyzed);
+    }
+
+    /** Builds an index from classes handed over while the jar is still being read. */
+    public static Builder builder(Scheduler scheduler, PatternSet patterns, Extras extras) {
+        return new Builder(null, scheduler, patterns, extras, Demand.ALL);
+    }
+
+    /**
+     * Like {@link #build(ClassGroup, Scheduler, PatternSet, Extras, Demand)}, but for a group
+     * still being read as headers: classes {@link Demand#mayNeed may be needed} are parsed
+     * through {@link ClassGroup#withCode} and analysed as they are added, so analysis overlaps
+     * loading. Some of them may turn out not to be needed once the hierarchy is known; they stay
+     * analysed.
+     */
+    public static Builder builder(ClassGroup group, Scheduler scheduler, PatternSet patterns, Extras extras, Demand demand) {
+        return new Builder(group, scheduler, patterns, extras, demand);
+    }
+
+    /**
+     * Extracts each {@link #add added} class on the scheduler right away, so extraction overlaps
+     * loading. Co-access needs every class to resolve field owners, so {@link #build} scans it
+     * once all classes are in, from the summaries kept per class.
+     */
+    public static final class Builder {
+        private final ClassGroup group;   // null: classes are added with their code
+        private final Scheduler scheduler;
+        private final Demand demand;
+        private final Extraction x;
+        private final Map<String, ClassFeatures> headers = new ConcurrentHashMap<>();
+        private final Map<String, List<MethodSummary>> summaries = new ConcurrentHashMap<>();
+        private final Scheduler.Feed<ClassNode> feed;
+
+        private Builder(ClassGroup group, Scheduler scheduler, PatternSet patterns, Extras extras, Demand demand) {
+            this.group = group;
+            this.scheduler = scheduler;
+            this.demand = demand;
+            this.x = new Extraction(patterns, extras);
+            this.feed = scheduler.feed(this::extract);
+        }
+
+        public void add(ClassNode cn) {
+            if (demand != Demand.ALL) {
+                ClassFeatures header = ClassFeatures.header(cn);
+                headers.put(cn.name, header);
+                if (!demand.mayNeed(header)) return;
+            }
+            feed.add(cn);
+        }
+
+        private void extract(ClassNode cn) {
+            ClassNode full = (group == null) ? cn : group.withCode(cn.name);
+            List<MethodSummary> ms = x.extract(full);
+            if (x.extras.coAccess()) summaries.put(cn.name, ms);
+        }
+
+        /** {@code classes} are the ones added. */
+        public FeatureIndex build(Collection<ClassNode> classes) {
+            run(feed::finish);
+            HierarchyIndex hierarchy = HierarchyIndex.build(classes);
+            Set<String> analyzed = null;
+            if (demand != Demand.ALL) {
+                // mayNeed covers needs, so this only catches a Demand that breaks that contract.
+                List<ClassNode> late = new ArrayList<>();
+                for (ClassNode cn : classes) {
+                    if (!x.clsMap.containsKey(cn.name) && demand.needs(headers.get(cn.name), hierarchy)) late.add(cn);
+                }
+                run(() -> scheduler.forEach(late, cn -> cost(group, cn), this::extract));
+                if (x.clsMap.size() < classes.size()) analyzed = new HashSet<>(x.clsMap.keySet());
+            }
+            if (x.extras.coAccess()) {
+                List<ClassNode> coded = new ArrayList<>();
+                for (ClassNode cn : classes) {
+                    if (summaries.containsKey(cn.name)) coded.add(group == null ? cn : group.withCode(cn.name));
+                }
+                Map<String, ClassNode> byName = byName(classes);
+                run(() -> scheduler.forEach(coded, FeatureIndex::cost, cn -> x.coAccess(cn, summaries.get(cn.name), byName)));
+            }
+            return x.finish(classes, hierarchy, headers, analyzed);
+        }
+    }
+
+    /** Per-class results of one build, merged by {@link #finish}. */
+    private static final class Extraction {
+        final Map<String, ClassFeatures> clsMap = new ConcurrentHashMap<>();
+        final Map<String, List<FieldFeatures>> fldMap = new ConcurrentHashMap<>();
+        final Map<String, LiteralIndex.Partial> litMap = new ConcurrentHashMap<>();
+        final Map<String, CoAccessGraph.Partial> coMap = new ConcurrentHashMap<>();
+        final PatternSet patterns;
+        final SymbolTable symbols;
+        final Extras extras;
+        final MethodSummary.Dedup dedup;
+
+        Extraction(PatternSet patterns, Extras extras) {
+            this.patterns = patterns;
+            this.symbols = patterns.symbols();
+            this.extras = extras;
+            // Literal ids are only interned for the literal index.
+            this.dedup = new MethodSummary.Dedup(patterns, extras.literals() ? symbols : null);
+        }
+
+        /** Everything that needs only the class itself; returns its method summaries. */
+        List<MethodSummary> extract(ClassNode cn) {
+            ClassExtractionEvent event = new ClassExtractionEvent();
+            event.begin();
+            List<MethodSummary> summaries = dedup.of(cn);
+            List<FieldFeatures> fields = FieldFeatures.extractAll(cn, summaries);
+            clsMap.put(cn.name, ClassFeatures.extract(cn, fields, summaries));
+            fldMap.put(cn.name, fields);
+            if (extras.literals()) litMap.put(cn.name, LiteralIndex.scan(cn, summaries));
+            if (event.shouldCommit()) {
+                event.className = cn.name;
+                event.methods = cn.methods.size();
+                event.instructions = cn.methods.stream().mapToInt(m -> m.instructions.size()).sum();
+                event.fields = fields.size();
+                event.commit();
+            }
+            return summaries;
+        }
+
+        void coAccess(ClassNode cn, List<MethodSummary> summaries, Map<String, ClassNode> byName) {
+            if (!extras.coAccess()) return;
+            coMap.put(cn.name, CoAccessGraph.scan(cn, summaries, byName, symbols));
+        }
+
+        /** @param headers features of the classes that were not extracted */
+        FeatureIndex finish(Collection<ClassNode> classes, HierarchyIndex hierarchy, Map<String, ClassFeatures> headers,
+                            Set<String> analyzed) {
+            LiteralIndex literals = extras.literals()
+                    ? LiteralIndex.merge(symbols, new TreeMap<>(litMap).values()) : LiteralIndex.empty(symbols);
+            CoAccessGraph coAccess = extras.coAccess() ? CoAccessGraph.merge(symbols, coMap.values()) : CoAccessGraph.empty(symbols);
+            Map<String, ClassFeatures> cls = new TreeMap<>(clsMap);
+            for (ClassNode cn : classes) if (!cls.containsKey(cn.name)) cls.put(cn.name, headers.get(cn.name));
+            return new FeatureIndex(cls, new TreeMap<>(fldMap), patterns, literals, hierarchy, coAccess,
+                    dedup.methods(), dedup.distinct(), analyzed == null ? null : Set.copyOf(analyzed), extras);
+        }
+    }
+
+    private static Map<String, ClassNode> byName(Collection<ClassNode> classes) {
+        Map<String, ClassNode> byName = new HashMap<>();
+        for (ClassNode cn : classes) byName.put(cn.name, cn);
+        return byName;
+    }
+
+    @FunctionalInterface
+    private interface Step { void run() throws Exception; }
+
+    private static void run(Step step) {
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);   // extraction throws no checked exceptions
+        }
+    }
+
+    /** Header-only classes have no instructions yet; their class file size ranks the giant ones first just as well. */
+    private static long cost(ClassGroup group, ClassNode cn) {
+        int size = group.classFileSize(cn.name);
+        return (size >= 0) ? size : cost(cn);
+    }
+
+    /** Extraction cost estimate: instructions plus one per member. */
+    private static long cost(ClassNode cn) {
+        long n = 1 + cn.fields.size();
+        for (MethodNode mn : cn.methods) n += 1 + ((mn.instructions == null) ? 0 : mn.instructions.size());
+        return n;
+    }
+}
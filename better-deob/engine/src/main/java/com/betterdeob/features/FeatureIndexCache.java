@@ -0,0 +1,410 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import com.betterdeob.core.CacheFiles;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk snapshots of a {@link FeatureIndex}, keyed by the jar's SHA-256, the fieldPattern
+ * sources and the {@link FeatureIndex.Extras} the index was built with.
+ *
+ * A snapshot holds the symbol table, class/field features, literal postings, hierarchy,
+ * co-access graph and, for an index built on demand, the classes whose code was analysed, in a
+ * small gzipped binary format (strings written once, then referenced by id). The pattern set
+ * itself is recompiled on load against the restored symbol table: its operand values were
+ * interned first when the index was built, so they resolve to the same ids and the cached
+ * pattern hit counts stay valid. Maps are restored in their original iteration order, so
+ * tie-breaks downstream behave exactly as on a fresh index. A missing, stale or unreadable
+ * snapshot is a cache miss.
+ */
+public final class FeatureIndexCache {
+    /** Bump whenever the layout below or the feature records change; score memos check it too. */
+    public static final int FORMAT = 8;
+    private static final int MAGIC = 0x42444649; // "BDFI"
+    private static final String PREFIX = "features-";
+    private static final String SUFFIX = ".bin.gz";
+
+    private FeatureIndexCache() {}
+
+    /** Cache key for {@code jar} indexed with {@code patternSources} (in rule order) and {@code extras}. */
+    public static String key(Path jar, Collection<String> patternSources, FeatureIndex.Extras extras) throws IOException {
+        MessageDigest jarSha = sha256();
+        try (InputStream in = new DigestInputStream(new BufferedInputStream(Files.newInputStream(jar)), jarSha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return key(jarSha, patternSources, extras);
+    }
+
+    /** Same as {@link #key(Path, Collection, FeatureIndex.Extras)} for a jar held in memory (the buffer's remaining bytes). */
+    public static String key(ByteBuffer jar, Collection<String> patternSources, FeatureIndex.Extras extras) {
+        MessageDigest jarSha = sha256();
+        jarSha.update(jar.duplicate());
+        return key(jarSha, patternSources, extras);
+    }
+
+    private static String key(MessageDigest jarSha, Collection<String> patternSources, FeatureIndex.Extras extras) {
+        MessageDigest patSha = sha256();
+        patSha.update(("v" + FORMAT + "\n").getBytes(StandardCharsets.UTF_8));
+        patSha.update((extras + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String src : patternSources) patSha.update((src + "\n").getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(jarSha.digest(), 0, 8) + "-" + HexFormat.of().formatHex(patSha.digest(), 0, 6);
+    }
+
+    public static Path file(Path dir, String key) {
+        return dir.resolve(PREFIX + key + SUFFIX);
+    }
+
+    /** The cached index for {@code key}, or null on a miss; why a snapshot was ignored goes to {@code log}. */
+    public static FeatureIndex load(Path dir, String key, Collection<String> patternSources, PrintStream log) {
+        Path file = file(dir, key);
+        if (!Files.isRegularFile(file)) return null;
+        FeatureIndex idx;
+        try (In in = new In(new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16), 1 << 16)))) {
+            idx = read(in, patternSources, log);
+        } catch (IOException | RuntimeException e) {
+            log.println("Ignoring unreadable feature cache " + file + ": " + e);
+            return null;
+        }
+        if (idx == null) {
+            log.println("Ignoring stale feature cache " + file);
+            return null;
+        }
+        try {
+            // Touch so pruning keeps recently used snapshots.
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // read-only cache dir is fine
+        }
+        return idx;
+    }
+
+    /** Writes {@code idx} for {@code key} atomically and prunes all but the {@value CacheFiles#KEEP} newest snapshots. */
+    public static long store(Path dir, String key, FeatureIndex idx) throws IOException {
+        return store(dir, key, idx, CacheFiles.KEEP);
+    }
+
+    /** Same as {@link #store(Path, String, FeatureIndex)}, keeping the {@code keep} newest snapshots. */
+    public static long store(Path dir, String key, FeatureIndex idx, int keep) throws IOException {
+        Files.createDirectories(dir);
+        Path target = file(dir, key);
+        Path tmp = dir.resolve("." + target.getFileName() + ".tmp");
+        try (Out out = new Out(new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16), 1 << 16)))) {
+            write(out, idx);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        CacheFiles.prune(dir, PREFIX + "*" + SUFFIX, keep);
+        return Files.size(target);
+    }
+
+    // ---- layout ----
+
+    private static void write(Out out, FeatureIndex idx) throws IOException {
+        out.d.writeInt(MAGIC);
+        out.d.writeInt(FORMAT);
+
+        SymbolTable symbols = idx.symbols();
+        int symbolCount = symbols.size();
+        out.d.writeInt(symbolCount);
+        for (int i = 0; i < symbolCount; i++) out.str(symbols.value(i));
+
+        Map<String, ClassFeatures> classes = idx.classFeatures();
+        out.d.writeInt(classes.size());
+        for (ClassFeatures cf : classes.values()) {
+            out.str(cf.name());
+            out.str(cf.superName());
+            out.d.writeInt(cf.interfaces().size());
+            for (String i : cf.interfaces()) out.str(i);
+            out.d.writeInt(cf.access());
+            out.strInts(cf.fieldDescCounts());
+            out.strInts(cf.methodDescCounts());
+            out.d.writeInt(cf.totalMethods());
+            out.d.writeInt(cf.totalFields());
+            out.d.writeInt(cf.totalLdcStrings());
+            out.d.writeInt(cf.totalLdcNumbers());
+            out.d.writeLong(cf.stringLiteralHash64());
+            out.d.writeLong(cf.opcode3GramHash64());
+            out.d.writeInt(cf.fieldUsagePatternsByDesc().size());
+            for (var e : cf.fieldUsagePatternsByDesc().entrySet()) {
+                out.str(e.getKey());
+                out.strInts(e.getValue());
+            }
+            out.d.writeInt(cf.patternHitsByDesc().size());
+            for (var e : cf.patternHitsByDesc().entrySet()) {
+                out.str(e.getKey());
+                out.intInts(e.getValue());
+            }
+        }
+
+        Map<String, List<FieldFeatures>> fields = idx.fieldFeaturesByOwner();
+        out.d.writeInt(fields.size());
+        for (var e : fields.entrySet()) {
+            out.str(e.getKey());
+            out.d.writeInt(e.getValue().size());
+            for (FieldFeatures ff : e.getValue()) {
+                out.str(ff.owner());
+                out.str(ff.name());
+                out.str(ff.desc());
+                out.d.writeInt(ff.access());
+                out.d.writeBoolean(ff.isStatic());
+                out.d.writeInt(ff.readCount());
+                out.d.writeInt(ff.writeCount());
+                out.strInts(ff.usagePatterns());
+                out.intInts(ff.imulConstantsReads());
+                out.intInts(ff.imulConstantsWrites());
+                out.intInts(ff.patternHits());
+            }
+        }
+
+        LiteralIndex literals = idx.literals();
+        out.d.writeInt(literals.postings().size());
+        for (var e : literals.postings().entrySet()) {
+            out.d.writeInt(e.getKey());
+            out.strInts(e.getValue().classes());
+            out.strInts(e.getValue().methods());
+            out.strInts(e.getValue().fieldSites());
+        }
+        out.d.writeInt(literals.stringIds().size());
+        for (int id : literals.stringIds()) out.d.writeInt(id);
+        out.d.writeInt(literals.distinctNumbers());
+
+        HierarchyIndex h = idx.hierarchy();
+        Map<String, Integer> ids = h.ids();
+        out.d.writeInt(ids.size());
+        for (var e : ids.entrySet()) {
+            out.str(e.getKey());
+            out.d.writeInt(e.getValue());
+        }
+        for (int id = 0; id < ids.size(); id++) {
+            out.bits(h.superClasses(id));
+            out.bits(h.interfaces(id));
+            out.bits(h.subClasses(id));
+        }
+
+        CoAccessGraph g = idx.coAccess();
+        out.ints(g.nodes());
+        out.ints(g.offsets());
+        out.ints(g.adj());
+        out.ints(g.weights());
+
+        out.d.writeInt(idx.methodBodies());
+        out.d.writeInt(idx.distinctBodies());
+
+        Set<String> analyzed = idx.analyzedClasses();
+        out.d.writeInt(analyzed == null ? -1 : analyzed.size());
+        if (analyzed != null) for (String name : new TreeSet<>(analyzed)) out.str(name);
+
+        out.d.writeBoolean(idx.extras().literals());
+        out.d.writeBoolean(idx.extras().coAccess());
+    }
+
+    /** Null if the snapshot does not line up with {@code patternSources}. */
+    private static FeatureIndex read(In in, Collection<String> patternSources, PrintStream log) throws IOException {
+        if (in.d.readInt() != MAGIC || in.d.readInt() != FORMAT) return null;
+
+        SymbolTable symbols = new SymbolTable();
+        int symbolCount = in.d.readInt();
+        for (int i = 0; i < symbolCount; i++) symbols.intern(in.str());
+        PatternSet patterns = PatternSet.compile(patternSources, symbols, log);
+        // An operand value that was not interned at build time means the ids no longer line up.
+        if (symbols.size() != symbolCount) return null;
+
+        int classCount = in.d.readInt();
+        Map<String, ClassFeatures> classes = new TreeMap<>();
+        for (int c = 0; c < classCount; c++) {
+            String name = in.str();
+            String superName = in.str();
+            int ifaceCount = in.d.readInt();
+            List<String> ifaces = new ArrayList<>(ifaceCount);
+            for (int i = 0; i < ifaceCount; i++) ifaces.add(in.str());
+            int access = in.d.readInt();
+            Map<String, Integer> fieldDescCounts = in.strInts();
+            Map<String, Integer> methodDescCounts = in.strInts();
+            int totalMethods = in.d.readInt();
+            int totalFields = in.d.readInt();
+            int totalLdcStrings = in.d.readInt();
+            int totalLdcNumbers = in.d.readInt();
+            long stringHash = in.d.readLong();
+            long gramHash = in.d.readLong();
+            int usageCount = in.d.readInt();
+            Map<String, Map<String, Integer>> usage = new LinkedHashMap<>();
+            for (int i = 0; i < usageCount; i++) usage.put(in.str(), in.strInts());
+            int hitCount = in.d.readInt();
+            Map<String, Map<Integer, Integer>> hits = new LinkedHashMap<>();
+            for (int i = 0; i < hitCount; i++) hits.put(in.str(), in.intInts());
+            classes.put(name, new ClassFeatures(name, superName, ifaces, access, fieldDescCounts, methodDescCounts,
+                    totalMethods, totalFields, totalLdcStrings, totalLdcNumbers, stringHash, gramHash, usage, hits));
+        }
+
+        int ownerCount = in.d.readInt();
+        Map<String, List<FieldFeatures>> fields = new TreeMap<>();
+        for (int o = 0; o < ownerCount; o++) {
+            String owner = in.str();
+            int n = in.d.readInt();
+            List<FieldFeatures> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(new FieldFeatures(in.str(), in.str(), in.str(), in.d.readInt(), in.d.readBoolean(),
+                        in.d.readInt(), in.d.readInt(), in.strInts(), in.intInts(), in.intInts(), in.intInts()));
+            }
+            fields.put(owner, list);
+        }
+
+        int postingCount = in.d.readInt();
+        Map<Integer, LiteralIndex.Postings> postings = new HashMap<>(postingCount * 2);
+        for (int i = 0; i < postingCount; i++) {
+            postings.put(in.d.readInt(), new LiteralIndex.Postings(in.strInts(), in.strInts(), in.strInts()));
+        }
+        int stringCount = in.d.readInt();
+        List<Integer> stringIds = new ArrayList<>(stringCount);
+        for (int i = 0; i < stringCount; i++) stringIds.add(in.d.readInt());
+        LiteralIndex literals = LiteralIndex.restore(symbols, postings, List.copyOf(stringIds), in.d.readInt());
+
+        int hierarchySize = in.d.readInt();
+        Map<String, Integer> ids = new HashMap<>(hierarchySize * 2);
+        for (int i = 0; i < hierarchySize; i++) ids.put(in.str(), in.d.readInt());
+        BitSet[] supers = new BitSet[hierarchySize];
+        BitSet[] ifaces = new BitSet[hierarchySize];
+        BitSet[] subs = new BitSet[hierarchySize];
+        for (int id = 0; id < hierarchySize; id++) {
+            supers[id] = in.bits();
+            ifaces[id] = in.bits();
+            subs[id] = in.bits();
+        }
+        HierarchyIndex hierarchy = HierarchyIndex.restore(Map.copyOf(ids), supers, ifaces, subs);
+
+        CoAccessGraph coAccess = CoAccessGraph.restore(symbols, in.ints(), in.ints(), in.ints(), in.ints());
+
+        int methodBodies = in.d.readInt();
+        int distinctBodies = in.d.readInt();
+
+        int analyzedCount = in.d.readInt();
+        Set<String> analyzed = null;
+        if (analyzedCount >= 0) {
+            analyzed = new HashSet<>(analyzedCount * 2);
+            for (int i = 0; i < analyzedCount; i++) analyzed.add(in.str());
+            analyzed = Set.copyOf(analyzed);
+        }
+        FeatureIndex.Extras extras = new FeatureIndex.Extras(in.d.readBoolean(), in.d.readBoolean());
+
+        return FeatureIndex.restore(classes, fields, patterns, literals, hierarchy, coAccess, methodBodies, distinctBodies,
+                analyzed, extras);
+    }
+
+    /** Writer with a per-snapshot string table: the first use of a string writes it, later uses its id. */
+    private static final class Out implements Closeable {
+        final DataOutputStream d;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Out(DataOutputStream d) { this.d = d; }
+
+        void str(String s) throws IOException {
+            if (s == null) { d.writeInt(-1); return; }
+            Integer id = strings.get(s);
+            if (id != null) { d.writeInt(id); return; }
+            strings.put(s, strings.size());
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            d.writeInt(-2);
+            d.writeInt(b.length);
+            d.write(b);
+        }
+
+        void strInts(Map<String, Integer> m) throws IOException {
+            d.writeInt(m.size());
+            for (var e : m.entrySet()) {
+                str(e.getKey());
+                d.writeInt(e.getValue());
+            }
+        }
+
+        void intInts(Map<Integer, Integer> m) throws IOException {
+            d.writeInt(m.size());
+            for (var e : m.entrySet()) {
+                d.writeInt(e.getKey());
+                d.writeInt(e.getValue());
+            }
+        }
+
+        void bits(BitSet b) throws IOException {
+            long[] words = b.toLongArray();
+            d.writeInt(words.length);
+            for (long w : words) d.writeLong(w);
+        }
+
+        void ints(int[] a) throws IOException {
+            d.writeInt(a.length);
+            for (int v : a) d.writeInt(v);
+        }
+
+        @Override public void close() throws IOException { d.close(); }
+    }
+
+    private static final class In implements Closeable {
+        final DataInputStream d;
+        private final List<String> strings = new ArrayList<>();
+
+        In(DataInputStream d) { this.d = d; }
+
+        String str() throws IOException {
+            int id = d.readInt();
+            if (id == -1) return null;
+            if (id != -2) return strings.get(id);
+            byte[] b = new byte[d.readInt()];
+            d.readFully(b);
+            String s = new String(b, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        Map<String, Integer> strInts() throws IOException {
+            int n = d.readInt();
+            Map<String, Integer> m = new LinkedHashMap<>(n * 2);
+            for (int i = 0; i < n; i++) m.put(str(), d.readInt());
+            return m;
+        }
+
+        Map<Integer, Integer> intInts() throws IOException {
+            int n = d.readInt();
+            Map<Integer, Integer> m = new LinkedHashMap<>(n * 2);
+            for (int i = 0; i < n; i++) m.put(d.readInt(), d.readInt());
+            return m;
+        }
+
+        BitSet bits() throws IOException {
+            long[] words = new long[d.readInt()];
+            for (int i = 0; i < words.length; i++) words[i] = d.readLong();
+            return BitSet.valueOf(words);
+        }
+
+        int[] ints() throws IOException {
+            int[] a = new int[d.readInt()];
+            for (int i = 0; i < a.length; i++) a[i] = d.readInt();
+            return a;
+        }
+
+        @Override public void close() throws IOException { d.close(); }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
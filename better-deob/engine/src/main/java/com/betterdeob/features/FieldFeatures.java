@@ -0,0 +1,87 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+/**
+ * Features for a single field declared in a class.
+ */
+public record FieldFeatures(
+        String owner,
+        String name,
+        String desc,
+        int access,
+        boolean isStatic,
+        int readCount,
+        int writeCount,
+        Map<String, Integer> usagePatterns,
+        Map<Integer, Integer> imulConstantsReads,
+        Map<Integer, Integer> imulConstantsWrites,
+        Map<Integer, Integer> patternHits
+) {
+    public static List<FieldFeatures> extractAll(ClassNode ownerCn) {
+        return extractAll(ownerCn, PatternSet.empty());
+    }
+
+    /**
+     * @param patterns compiled fieldPattern set; {@code patternHits} counts matches per pattern id
+     */
+    public static List<FieldFeatures> extractAll(ClassNode ownerCn, PatternSet patterns) {
+        return extractAll(ownerCn, MethodSummary.of(ownerCn, patterns, null));
+    }
+
+    /** @param summaries one per method of {@code ownerCn} (null for methods without code) */
+    public static List<FieldFeatures> extractAll(ClassNode ownerCn, List<MethodSummary> summaries) {
+        List<FieldNode> fields = ownerCn.fields;
+
+        class Acc {
+            int reads = 0, writes = 0;
+            Map<String, Integer> patterns = new HashMap<>();
+            Map<Integer, Integer> imulRead = new HashMap<>();
+            Map<Integer, Integer> imulWrite = new HashMap<>();
+            Map<Integer, Integer> patternHits = new HashMap<>();
+        }
+
+        Map<String, Acc> acc = new HashMap<>();
+        for (FieldNode fn : fields) acc.put(fn.name + ":" + fn.desc, new Acc());
+
+        for (MethodSummary ms : summaries) {
+            if (ms == null) continue;
+            for (MethodSummary.Access access : ms.accesses()) {
+                Acc a = acc.get(access.member());
+                if (a == null) continue;
+
+                if (access.read()) a.reads++;
+                if (access.write()) a.writes++;
+                a.patterns.merge(access.window(), 1, Integer::sum);
+                for (int id : access.patternHits()) a.patternHits.merge(id, 1, Integer::sum);
+                if (access.imulConstant() != null) {
+                    (access.read() ? a.imulRead : a.imulWrite).merge(access.imulConstant(), 1, Integer::sum);
+                }
+            }
+        }
+
+        List<FieldFeatures> out = new ArrayList<>();
+        for (FieldNode fn : fields) {
+            String key = fn.name + ":" + fn.desc;
+            Acc a = acc.get(key);
+            out.add(new FieldFeatures(
+                    ownerCn.name,
+                    fn.name,
+                    fn.desc,
+                    fn.access,
+                    (fn.access & Opcodes.ACC_STATIC) != 0,
+                    a.reads,
+                    a.writes,
+                    Map.copyOf(a.patterns),
+                    Map.copyOf(a.imulRead),
+                    Map.copyOf(a.imulWrite),
+                    Map.copyOf(a.patternHits)
+            ));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,124 @@
+package com.betterdeob.features;
+
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.*;
+
+/**
+ * Class hierarchy closures over interned class ids, built once per jar.
+ *
+ * Every class in the jar and every supertype it names (e.g. java/awt/Canvas) gets a dense id.
+ * Per id we keep bitsets of all superclasses, all implemented interfaces (including those of
+ * superclasses and superinterfaces) and all transitive subclasses, so transitive rule
+ * constraints are a single bit test.
+ */
+public final class HierarchyIndex {
+    private final Map<String, Integer> ids;
+    private final BitSet[] superClasses;
+    private final BitSet[] interfaces;
+    private final BitSet[] subClasses;
+
+    private HierarchyIndex(Map<String, Integer> ids, BitSet[] superClasses, BitSet[] interfaces, BitSet[] subClasses) {
+        this.ids = ids;
+        this.superClasses = superClasses;
+        this.interfaces = interfaces;
+        this.subClasses = subClasses;
+    }
+
+    public int id(String internalName) { return ids.getOrDefault(internalName, -1); }
+    public int size() { return ids.size(); }
+
+    /** True if {@code ancestor} appears anywhere in the superclass chain of {@code cls}. */
+    public boolean extendsTransitively(String cls, String ancestor) {
+        int c = id(cls), a = id(ancestor);
+        return c >= 0 && a >= 0 && superClasses[c].get(a);
+    }
+
+    /** True if {@code cls} or any of its supertypes implements {@code iface} (directly or via superinterfaces). */
+    public boolean implementsTransitively(String cls, String iface) {
+        int c = id(cls), i = id(iface);
+        return c >= 0 && i >= 0 && interfaces[c].get(i);
+    }
+
+    /** Number of classes in the jar that extend {@code cls}, directly or transitively. */
+    public int subclassCount(String cls) {
+        int c = id(cls);
+        return (c < 0) ? 0 : subClasses[c].cardinality();
+    }
+
+    /** Raw state for {@link FeatureIndexCache}. */
+    Map<String, Integer> ids() { return ids; }
+    BitSet superClasses(int id) { return superClasses[id]; }
+    BitSet interfaces(int id) { return interfaces[id]; }
+    BitSet subClasses(int id) { return subClasses[id]; }
+
+    static HierarchyIndex restore(Map<String, Integer> ids, BitSet[] superClasses, BitSet[] interfaces, BitSet[] subClasses) {
+        return new HierarchyIndex(ids, superClasses, interfaces, subClasses);
+    }
+
+    public static HierarchyIndex build(Collection<ClassNode> classes) {
+        Map<String, Integer> ids = new HashMap<>();
+        Map<String, ClassNode> byName = new HashMap<>();
+        for (ClassNode cn : classes) {
+            byName.put(cn.name, cn);
+            ids.putIfAbsent(cn.name, ids.size());
+        }
+        for (ClassNode cn : classes) {
+            if (cn.superName != null) ids.putIfAbsent(cn.superName, ids.size());
+            if (cn.interfaces != null) for (String i : cn.interfaces) ids.putIfAbsent(i, ids.size());
+        }
+
+        int n = ids.size();
+        int[] directSuper = new int[n];
+        int[][] directIfaces = new int[n][];
+        Arrays.fill(directSuper, -1);
+        for (var e : ids.entrySet()) {
+            ClassNode cn = byName.get(e.getKey());
+            int id = e.getValue();
+            if (cn == null) { directIfaces[id] = new int[0]; continue; }
+            if (cn.superName != null) directSuper[id] = ids.get(cn.superName);
+            List<String> ifs = (cn.interfaces == null) ? List.of() : cn.interfaces;
+            directIfaces[id] = ifs.stream().mapToInt(ids::get).toArray();
+        }
+
+        BitSet[] supers = new BitSet[n];
+        BitSet[] ifaces = new BitSet[n];
+        for (int id = 0; id < n; id++) close(id, directSuper, directIfaces, supers, ifaces, new BitSet());
+
+        BitSet[] subs = new BitSet[n];
+        for (int id = 0; id < n; id++) subs[id] = new BitSet(n);
+        for (int id = 0; id < n; id++) {
+            BitSet s = supers[id];
+            for (int a = s.nextSetBit(0); a >= 0; a = s.nextSetBit(a + 1)) subs[a].set(id);
+        }
+
+        return new HierarchyIndex(Map.copyOf(ids), supers, ifaces, subs);
+    }
+
+    /** Memoized closure; {@code onStack} guards against malformed cyclic hierarchies. */
+    private static void close(int id, int[] directSuper, int[][] directIfaces, BitSet[] supers, BitSet[] ifaces, BitSet onStack) {
+        if (supers[id] != null) return;
+        supers[id] = new BitSet();
+        ifaces[id] = new BitSet();
+        if (onStack.get(id)) return;
+        onStack.set(id);
+
+        BitSet sup = new BitSet();
+        BitSet ifs = new BitSet();
+        int parent = directSuper[id];
+        if (parent >= 0) {
+            close(parent, directSuper, directIfaces, supers, ifaces, onStack);
+            sup.set(parent);
+            sup.or(supers[parent]);
+            ifs.or(ifaces[parent]);
+        }
+        for (int i : directIfaces[id]) {
+            close(i, directSuper, directIfaces, supers, ifaces, onStack);
+            ifs.set(i);
+            ifs.or(ifaces[i]);
+        }
+        supers[id] = sup;
+        ifaces[id] = ifs;
+        onStack.clear(id);
+    }
+}
@@ -0,0 +1,189 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.InsnOperands;
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Inverted index from each string literal and numeric constant to the classes, methods and
+ * field access sites using it.
+ *
+ * Literals are keyed by their {@link SymbolTable} id ("s:" / "#:" namespaces of
+ * {@link InsnOperands}), so equality signals are a single map lookup. Numbers cover LDC,
+ * BIPUSH and SIPUSH (ICONST_* are left out as noise). A literal counts for a field site when it
+ * lies inside the 2-before / 4-after window of an access to a field declared in the class.
+ */
+public final class LiteralIndex {
+    public record Postings(Map<String, Integer> classes, Map<String, Integer> methods, Map<String, Integer> fieldSites) {
+        static final Postings EMPTY = new Postings(Map.of(), Map.of(), Map.of());
+
+        public int inClass(String cls) { return classes.getOrDefault(cls, 0); }
+        public int atField(String fieldKey) { return fieldSites.getOrDefault(fieldKey, 0); }
+    }
+
+    private final SymbolTable symbols;
+    private final Map<Integer, Postings> postings;
+    private final List<Integer> stringIds;
+    private final List<String> stringValues;
+    private final int numberCount;
+    private final Map<String, Postings> containsCache = new ConcurrentHashMap<>();
+
+    private LiteralIndex(SymbolTable symbols, Map<Integer, Postings> postings, List<Integer> stringIds, int numberCount) {
+        this.symbols = symbols;
+        this.postings = postings;
+        this.stringIds = stringIds;
+        this.stringValues = stringIds.stream().map(id -> symbols.value(id).substring(2)).toList();
+        this.numberCount = numberCount;
+    }
+
+    public static LiteralIndex empty(SymbolTable symbols) {
+        return new LiteralIndex(symbols, Map.of(), List.of(), 0);
+    }
+
+    public Postings stringEq(String value) {
+        if (value == null) return Postings.EMPTY;
+        return postings.getOrDefault(symbols.find("s:" + value), Postings.EMPTY);
+    }
+
+    /** Numeric constant as written in a rule (decimal, 0x hex, floating point). */
+    public Postings constEq(String value) {
+        Number n = InsnOperands.parseNumber(value);
+        if (n == null) return Postings.EMPTY;
+        return constCanonical(InsnOperands.canonical(n));
+    }
+
+    /** Numeric constant already in {@link InsnOperands#canonical} form. */
+    public Postings constCanonical(String canonical) {
+        if (canonical == null) return Postings.EMPTY;
+        return postings.getOrDefault(symbols.find("#:" + canonical), Postings.EMPTY);
+    }
+
+    /**
+     * Union of postings of every distinct string containing {@code needle}. The vocabulary scan
+     * runs once per distinct needle; later lookups hit the cache.
+     */
+    public Postings stringContains(String needle) {
+        if (needle == null || needle.isEmpty()) return Postings.EMPTY;
+        return containsCache.computeIfAbsent(needle, n -> {
+            Acc acc = new Acc();
+            for (int i = 0; i < stringIds.size(); i++) {
+                if (!stringValues.get(i).contains(n)) continue;
+                Postings p = postings.get(stringIds.get(i));
+                p.classes().forEach((k, v) -> acc.classes.merge(k, v, Integer::sum));
+                p.methods().forEach((k, v) -> acc.methods.merge(k, v, Integer::sum));
+                p.fieldSites().forEach((k, v) -> acc.fieldSites.merge(k, v, Integer::sum));
+            }
+            return acc.freeze();
+        });
+    }
+
+    /** Visits every literal with its symbol ("s:" + string or "#:" + canonical number) and postings. */
+    public void forEach(BiConsumer<String, Postings> visitor) {
+        postings.forEach((id, p) -> visitor.accept(symbols.value(id), p));
+    }
+
+    /** Raw state for {@link FeatureIndexCache}. */
+    Map<Integer, Postings> postings() { return postings; }
+    List<Integer> stringIds() { return stringIds; }
+
+    static LiteralIndex restore(SymbolTable symbols, Map<Integer, Postings> postings, List<Integer> stringIds, int numberCount) {
+        return new LiteralIndex(symbols, postings, stringIds, numberCount);
+    }
+
+    public int distinctStrings() { return stringIds.size(); }
+    public int distinctNumbers() { return numberCount; }
+
+    /** Per-class literal occurrences, produced in parallel and merged by {@link #merge}. */
+    public static final class Partial {
+        private final String owner;
+        private final Map<Integer, Integer> classCounts = new HashMap<>();
+        private final Map<Integer, Map<String, Integer>> methodCounts = new HashMap<>();
+        private final Map<Integer, Map<String, Integer>> fieldCounts = new HashMap<>();
+
+        private Partial(String owner) { this.owner = owner; }
+    }
+
+    public static Partial scan(ClassNode cn, SymbolTable symbols) {
+        return scan(cn, MethodSummary.of(cn, PatternSet.empty(), symbols));
+    }
+
+    /** @param summaries one per method of {@code cn}, with literal ids interned in this index's symbols */
+    public static Partial scan(ClassNode cn, List<MethodSummary> summaries) {
+        Partial part = new Partial(cn.name);
+
+        Set<String> declared = new HashSet<>();
+        for (FieldNode fn : cn.fields) declared.add(fn.name + ":" + fn.desc);
+
+        for (int m = 0; m < cn.methods.size(); m++) {
+            MethodSummary ms = summaries.get(m);
+            if (ms == null || ms.literals().length == 0) continue;
+            MethodNode mn = cn.methods.get(m);
+            String methodKey = cn.name + "." + mn.name + mn.desc;
+
+            for (int lit : ms.literals()) {
+                part.classCounts.merge(lit, 1, Integer::sum);
+                part.methodCounts.computeIfAbsent(lit, k -> new HashMap<>()).merge(methodKey, 1, Integer::sum);
+            }
+            for (MethodSummary.Access a : ms.accesses()) {
+                if (!declared.contains(a.member())) continue;
+                String fieldKey = cn.name + "." + a.member();
+                for (int lit : a.windowLiterals()) {
+                    part.fieldCounts.computeIfAbsent(lit, k -> new HashMap<>()).merge(fieldKey, 1, Integer::sum);
+                }
+            }
+        }
+        return part;
+    }
+
+    public static LiteralIndex merge(SymbolTable symbols, Collection<Partial> parts) {
+        Map<Integer, Acc> accs = new HashMap<>();
+        for (Partial p : parts) {
+            p.classCounts.forEach((id, n) -> accs.computeIfAbsent(id, k -> new Acc()).classes.merge(p.owner, n, Integer::sum));
+            p.methodCounts.forEach((id, m) -> {
+                Acc a = accs.computeIfAbsent(id, k -> new Acc());
+                m.forEach((k, n) -> a.methods.merge(k, n, Integer::sum));
+            });
+            p.fieldCounts.forEach((id, m) -> {
+                Acc a = accs.computeIfAbsent(id, k -> new Acc());
+                m.forEach((k, n) -> a.fieldSites.merge(k, n, Integer::sum));
+            });
+        }
+
+        Map<Integer, Postings> postings = new HashMap<>(accs.size() * 2);
+        List<Integer> stringIds = new ArrayList<>();
+        int numbers = 0;
+        for (var e : accs.entrySet()) {
+            postings.put(e.getKey(), e.getValue().freeze());
+            if (symbols.value(e.getKey()).startsWith("s:")) stringIds.add(e.getKey());
+            else numbers++;
+        }
+        Collections.sort(stringIds);
+        return new LiteralIndex(symbols, postings, List.copyOf(stringIds), numbers);
+    }
+
+    static String literalSymbol(AbstractInsnNode insn) {
+        int op = insn.getOpcode();
+        if (op == Opcodes.LDC) {
+            String s = InsnOperands.symbol(InsnOperands.STR, insn);
+            return (s != null) ? s : InsnOperands.symbol(InsnOperands.NUM, insn);
+        }
+        if (op == Opcodes.BIPUSH || op == Opcodes.SIPUSH) return InsnOperands.symbol(InsnOperands.NUM, insn);
+        return null;
+    }
+
+    private static final class Acc {
+        final Map<String, Integer> classes = new HashMap<>();
+        final Map<String, Integer> methods = new HashMap<>();
+        final Map<String, Integer> fieldSites = new HashMap<>();
+
+        Postings freeze() {
+            return new Postings(Map.copyOf(classes), Map.copyOf(methods), Map.copyOf(fieldSites));
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.InsnOperands;
+import com.betterdeob.bytecode.MultiplierFlow;
+import com.betterdeob.bytecode.OpcodeNames;
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything feature extraction reads from one method body, computed in a single scan.
+ *
+ * {@link ClassFeatures}, {@link FieldFeatures}, {@link LiteralIndex} and {@link CoAccessGraph}
+ * aggregate these per class instead of walking the instructions themselves. References to the
+ * method's own class are recorded as {@link #SELF}, so one summary serves every class with the
+ * same body (see {@link Dedup}); the class-level code decides which of its declared fields an
+ * access refers to.
+ *
+ * @param opcodes      opcode stream (labels, frames and line numbers skipped)
+ * @param ldcStrings   LDC string constants in order
+ * @param ldcNumbers   number of LDC numeric constants
+ * @param accesses     accesses to fields owned by the method's own class, in order
+ * @param literals     literal symbol ids (see {@link LiteralIndex}), one entry per occurrence
+ * @param fieldRefs    distinct fields accessed, as "owner.name:desc" with {@link #SELF} as owner for the own class
+ */
+public record MethodSummary(
+        int[] opcodes,
+        List<String> ldcStrings,
+        int ldcNumbers,
+        List<Access> accesses,
+        int[] literals,
+        List<String> fieldRefs
+) {
+    public static final String SELF = "";
+
+    /**
+     * One access to a field of the own class.
+     *
+     * @param member         "name:desc"
+     * @param window         legacy 7-token window (2 before, anchor, 4 after)
+     * @param patternHits    ids of the compiled fieldPatterns matching at this site
+     * @param imulConstant   decoder constant an int read is multiplied by / encoder constant of an int write
+     *                       (see {@link MultiplierFlow}), or null
+     * @param windowLiterals literal symbol ids inside the window
+     */
+    public record Access(String member, String desc, boolean read, boolean write, String window,
+                         int[] patternHits, Integer imulConstant, int[] windowLiterals) {}
+
+    /**
+     * Scans {@code mn} of class {@code owner}. Literal ids are interned into {@code symbols}
+     * (skipped when null); pattern hits come from {@code patterns}.
+     */
+    public static MethodSummary of(String owner, MethodNode mn, PatternSet patterns, SymbolTable symbols) {
+        List<AbstractInsnNode> opNodes = new ArrayList<>();
+        for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() >= 0) opNodes.add(insn);
+        }
+        int[] ops = new int[opNodes.size()];
+        for (int i = 0; i < ops.length; i++) ops[i] = opNodes.get(i).getOpcode();
+
+        List<String> strings = new ArrayList<>();
+        int numbers = 0;
+        int[] lit = new int[ops.length];
+        int literalCount = 0;
+        Set<String> refs = new LinkedHashSet<>();
+        for (int i = 0; i < ops.length; i++) {
+            AbstractInsnNode insn = opNodes.get(i);
+            if (insn instanceof LdcInsnNode ldc) {
+                if (ldc.cst instanceof String s) strings.add(s);
+                else if (ldc.cst instanceof Number) numbers++;
+            }
+            if (insn instanceof FieldInsnNode fin) {
+                refs.add((owner.equals(fin.owner) ? SELF : fin.owner) + "." + fin.name + ":" + fin.desc);
+            }
+            String sym = (symbols == null) ? null : LiteralIndex.literalSymbol(insn);
+            lit[i] = (sym == null) ? -1 : symbols.intern(sym);
+            if (lit[i] >= 0) literalCount++;
+        }
+        int[] literals = new int[literalCount];
+        for (int i = 0, n = 0; i < lit.length; i++) if (lit[i] >= 0) literals[n++] = lit[i];
+
+        PatternSet.Matcher matcher = patterns.isEmpty() ? null : patterns.matcher();
+        InsnOperands operands = (matcher != null && patterns.hasOperandPatterns())
+                ? new InsnOperands(opNodes, patterns.symbols()) : null;
+        // null: analyzer rejected the method, use the opcode window instead
+        Map<FieldInsnNode, Integer> multipliers = MultiplierFlow.applies(owner, mn)
+                ? MultiplierFlow.analyze(owner, mn) : Map.of();
+        List<Access> accesses = new ArrayList<>();
+        for (int i = 0; i < ops.length; i++) {
+            if (!(opNodes.get(i) instanceof FieldInsnNode fin) || !owner.equals(fin.owner)) continue;
+            boolean read = (fin.getOpcode() == Opcodes.GETFIELD || fin.getOpcode() == Opcodes.GETSTATIC);
+            boolean write = (fin.getOpcode() == Opcodes.PUTFIELD || fin.getOpcode() == Opcodes.PUTSTATIC);
+
+            int[] hits = new int[0];
+            if (matcher != null) {
+                long[] bits = matcher.match(ops, operands, i);
+                int n = 0;
+                for (int id = PatternSet.nextId(bits, 0); id >= 0; id = PatternSet.nextId(bits, id + 1)) n++;
+                hits = new int[n];
+                n = 0;
+                for (int id = PatternSet.nextId(bits, 0); id >= 0; id = PatternSet.nextId(bits, id + 1)) hits[n++] = id;
+            }
+
+            Integer imul = null;
+            if ("I".equals(fin.desc)) {
+                if (multipliers != null) imul = multipliers.get(fin);
+                else if (read) imul = findImulConstAfter(opNodes, i, 6);
+                else if (write) imul = findImulConstBefore(opNodes, i, 6);
+            }
+
+            int from = Math.max(0, i - ClassFeatures.FIELD_WINDOW_BEFORE);
+            int to = Math.min(lit.length - 1, i + ClassFeatures.FIELD_WINDOW_AFTER);
+            int n = 0;
+            for (int j = from; j <= to; j++) if (lit[j] >= 0) n++;
+            int[] windowLiterals = new int[n];
+            n = 0;
+            for (int j = from; j <= to; j++) if (lit[j] >= 0) windowLiterals[n++] = lit[j];
+
+            accesses.add(new Access(fin.name + ":" + fin.desc, fin.desc, read, write, window(ops, i),
+                    hits, imul, windowLiterals));
+        }
+        return new MethodSummary(ops, List.copyOf(strings), numbers, List.copyOf(accesses), literals, List.copyOf(refs));
+    }
+
+    /** Summaries of every method of {@code cn} (null for methods without code), without sharing. */
+    public static List<MethodSummary> of(ClassNode cn, PatternSet patterns, SymbolTable symbols) {
+        List<MethodSummary> out = new ArrayList<>(cn.methods.size());
+        for (MethodNode mn : cn.methods) out.add((mn.instructions == null) ? null : of(cn.name, mn, patterns, symbols));
+        return out;
+    }
+
+    private static String window(int[] ops, int idx) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = idx - ClassFeatures.FIELD_WINDOW_BEFORE; j <= idx + ClassFeatures.FIELD_WINDOW_AFTER; j++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append((j < 0 || j >= ops.length) ? "NONOP" : OpcodeNames.name(ops[j]));
+        }
+        return sb.toString();
+    }
+
+    private static Integer findImulConstAfter(List<AbstractInsnNode> opNodes, int fromIdx, int maxLookahead) {
+        int end = Math.min(opNodes.size(), fromIdx + 1 + maxLookahead);
+        for (int i = fromIdx + 1; i < end; i++) {
+            if (opNodes.get(i).getOpcode() == Opcodes.IMUL) {
+                for (int j = i - 1; j >= Math.max(fromIdx, i - 4); j--) {
+                    Integer c = readIntConst(opNodes.get(j));
+                    if (c != null) return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Integer findImulConstBefore(List<AbstractInsnNode> opNodes, int fieldPutIdx, int maxLookback) {
+        int start = Math.max(0, fieldPutIdx - maxLookback);
+        for (int i = fieldPutIdx - 1; i >= start; i--) {
+            if (opNodes.get(i).getOpcode() == Opcodes.IMUL) {
+                for (int j = i - 1; j >= Math.max(start, i - 4); j--) {
+                    Integer c = readIntConst(opNodes.get(j));
+                    if (c != null) return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Integer readIntConst(AbstractInsnNode insn) {
+        int op = insn.getOpcode();
+        if (op >= Opcodes.ICONST_M1 && op <= Opcodes.ICONST_5) return op - Opcodes.ICONST_0;
+        if (op == Opcodes.BIPUSH || op == Opcodes.SIPUSH) return ((IntInsnNode) insn).operand;
+        if (insn instanceof LdcInsnNode ldc && ldc.cst instanceof Integer i) return i;
+        return null;
+    }
+
+    /**
+     * Shares summaries between methods with the same body across one index build.
+     *
+     * A body is keyed exactly by its opcodes and the operands features can see (field, method and
+     * type references, constants), with references to the own class replaced by {@link #SELF}, plus
+     * local variable slots, branch targets and try/catch ranges since {@link MultiplierFlow}
+     * follows values through them. Targets are instruction indices, so bodies that differ only in
+     * line number placement are not shared. When the pattern set has operand constraints, a
+     * constraint can name the own class, so the class name is kept in the key and sharing is
+     * limited to bodies that are identical including it. Thread-safe.
+     */
+    public static final class Dedup {
+        private final PatternSet patterns;
+        private final SymbolTable symbols;
+        private final boolean perClass;
+        private final Map<Key, MethodSummary> shared = new ConcurrentHashMap<>();
+        private final AtomicInteger methods = new AtomicInteger();
+
+        /** {@code symbols} receives literal ids as in {@link MethodSummary#of}; null leaves literals out. */
+        public Dedup(PatternSet patterns, SymbolTable symbols) {
+            this.patterns = patterns;
+            this.symbols = symbols;
+            this.perClass = patterns.hasOperandPatterns();
+        }
+
+        public List<MethodSummary> of(ClassNode cn) {
+            List<MethodSummary> out = new ArrayList<>(cn.methods.size());
+            for (MethodNode mn : cn.methods) {
+                if (mn.instructions == null) {
+                    out.add(null);
+                    continue;
+                }
+                methods.incrementAndGet();
+                Key key = key(cn.name, mn);
+                MethodSummary ms = shared.get(key);
+                if (ms == null) {
+                    // Racing threads may both compute a summary; they are equal, the first one wins.
+                    ms = MethodSummary.of(cn.name, mn, patterns, symbols);
+                    MethodSummary prev = shared.putIfAbsent(key, ms);
+                    if (prev != null) ms = prev;
+                }
+                out.add(ms);
+            }
+            return out;
+        }
+
+        /** Methods with code seen so far. */
+        public int methods() { return methods.get(); }
+
+        /** Distinct bodies among them, i.e. summaries kept. */
+        public int distinct() { return shared.size(); }
+
+        private Key key(String owner, MethodNode mn) {
+            int size = mn.instructions.size();
+            int[] ints = new int[size + 1];
+            List<Object> refs = new ArrayList<>();
+            int n = 0;
+            if (perClass) refs.add(owner);
+            for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                int op = insn.getOpcode();
+                if (op < 0) continue;
+                ints = ensure(ints, n, 3);
+                ints[n++] = op;
+                // Dispatch on the node type, not a type pattern: this runs for every instruction
+                // of the jar, mostly before the JIT has compiled a pattern switch.
+                switch (insn.getType()) {
+                    case AbstractInsnNode.VAR_INSN -> ints[n++] = ((VarInsnNode) insn).var;
+                    case AbstractInsnNode.IINC_INSN -> {
+                        IincInsnNode i = (IincInsnNode) insn;
+                        ints[n++] = i.var;
+                        ints[n++] = i.incr;
+                    }
+                    case AbstractInsnNode.JUMP_INSN -> ints[n++] = mn.instructions.indexOf(((JumpInsnNode) insn).label);
+                    case AbstractInsnNode.TABLESWITCH_INSN -> {
+                        TableSwitchInsnNode t = (TableSwitchInsnNode) insn;
+                        ints = ensure(ints, n, 3 + t.labels.size());
+                        ints[n++] = t.min;
+                        ints[n++] = mn.instructions.indexOf(t.dflt);
+                        for (LabelNode l : t.labels) ints[n++] = mn.instructions.indexOf(l);
+                    }
+                    case AbstractInsnNode.LOOKUPSWITCH_INSN -> {
+                        LookupSwitchInsnNode l = (LookupSwitchInsnNode) insn;
+                        ints = ensure(ints, n, 1 + 2 * l.keys.size());
+                        ints[n++] = mn.instructions.indexOf(l.dflt);
+                        for (int k = 0; k < l.keys.size(); k++) {
+                            ints[n++] = l.keys.get(k);
+                            ints[n++] = mn.instructions.indexOf(l.labels.get(k));
+                        }
+                    }
+                    case AbstractInsnNode.FIELD_INSN -> {
+                        FieldInsnNode f = (FieldInsnNode) insn;
+                        refs.add(self(owner, f.owner));
+                        refs.add(f.name);
+                        refs.add(f.desc);
+                    }
+                    case AbstractInsnNode.METHOD_INSN -> {
+                        MethodInsnNode m = (MethodInsnNode) insn;
+                        refs.add(self(owner, m.owner));
+                        refs.add(m.name);
+                        refs.add(m.desc);
+                    }
+                    case AbstractInsnNode.TYPE_INSN -> refs.add(self(owner, ((TypeInsnNode) insn).desc));
+                    case AbstractInsnNode.MULTIANEWARRAY_INSN -> {
+                        MultiANewArrayInsnNode m = (MultiANewArrayInsnNode) insn;
+                        refs.add(m.desc);
+                        ints[n++] = m.dims;
+                    }
+                    case AbstractInsnNode.INVOKE_DYNAMIC_INSN -> {
+                        InvokeDynamicInsnNode i = (InvokeDynamicInsnNode) insn;
+                        refs.add(i.name);
+                        refs.add(i.desc);
+                    }
+                    case AbstractInsnNode.INT_INSN -> ints[n++] = ((IntInsnNode) insn).operand;
+                    case AbstractInsnNode.LDC_INSN -> refs.add(((LdcInsnNode) insn).cst);
+                    default -> { }
+                }
+            }
+            for (TryCatchBlockNode tcb : mn.tryCatchBlocks) {
+                ints = ensure(ints, n, 3);
+                ints[n++] = mn.instructions.indexOf(tcb.start);
+                ints[n++] = mn.instructions.indexOf(tcb.end);
+                ints[n++] = mn.instructions.indexOf(tcb.handler);
+                refs.add(tcb.type);   // null for finally
+            }
+            return new Key(Arrays.copyOf(ints, n), refs.toArray());
+        }
+
+        private static int[] ensure(int[] a, int n, int extra) {
+            return (n + extra <= a.length) ? a : Arrays.copyOf(a, Math.max(a.length * 2, n + extra));
+        }
+
+        private static String self(String owner, String ref) {
+            return owner.equals(ref) ? SELF : ref;
+        }
+    }
+
+    /** Opcodes and int operands, plus string / constant operands (LDC constants compare by value and type). */
+    private record Key(int[] ints, Object[] refs, int hash) {
+        Key(int[] ints, Object[] refs) { this(ints, refs, 31 * Arrays.hashCode(ints) + Arrays.hashCode(refs)); }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Key k && hash == k.hash && Arrays.equals(ints, k.ints) && Arrays.equals(refs, k.refs);
+        }
+
+        @Override public int hashCode() { return hash; }
+    }
+}
@@ -0,0 +1,22 @@
+package com.betterdeob.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.betterdeob.ClassExtraction")
+@Label("Class Feature Extraction")
+@Category({"BetterDeob", "Features"})
+@Description("Feature, pattern and literal extraction for one class")
+@StackTrace(false)
+public final class ClassExtractionEvent extends Event {
+    @Label("Class")
+    public String className;
+
+    @Label("Methods")
+    public int methods;
+
+    @Label("Instructions")
+    public int instructions;
+
+    @Label("Fields")
+    public int fields;
+}
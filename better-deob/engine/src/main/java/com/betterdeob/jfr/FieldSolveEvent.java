@@ -0,0 +1,23 @@
+package com.betterdeob.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.betterdeob.FieldSolve")
+@Label("Field Solver Owner")
+@Category({"BetterDeob", "Solver"})
+@Description("Hungarian assignment for one owner class")
+@StackTrace(false)
+public final class FieldSolveEvent extends Event {
+    @Label("Owner")
+    public String owner;
+
+    @Label("Targets")
+    public int targets;
+
+    @Label("Obfuscated Fields")
+    public int obfFields;
+
+    @Label("Matrix Size")
+    @Description("Side of the padded square cost matrix")
+    public int matrixSize;
+}
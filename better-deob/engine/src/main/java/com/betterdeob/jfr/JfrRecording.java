@@ -0,0 +1,56 @@
+package com.betterdeob.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * Flight recording of one run (--jfr): JDK "profile" settings plus all BetterDeob events,
+ * dumped next to the other outputs.
+ *
+ * Without a recording the events stay disabled and cost only the {@code shouldCommit()} check.
+ */
+public final class JfrRecording implements AutoCloseable {
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            PassEvent.class, ClassExtractionEvent.class, RuleBatchEvent.class, FieldSolveEvent.class);
+
+    private final Recording recording;
+    private final Path file;
+
+    private JfrRecording(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static JfrRecording start(Path outDir) throws IOException {
+        Recording r;
+        try {
+            r = new Recording(Configuration.getConfiguration("profile"));
+        } catch (ParseException e) {
+            throw new IOException("Cannot load JFR profile settings", e);
+        }
+        for (Class<? extends Event> e : EVENTS) r.enable(e);
+        r.setName("better-deob");
+        r.setToDisk(true);
+        r.start();
+        Files.createDirectories(outDir);
+        return new JfrRecording(r, outDir.resolve("better-deob.jfr"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            recording.stop();
+            recording.dump(file);
+            System.out.println("Wrote JFR recording: " + file.toAbsolutePath());
+        } finally {
+            recording.close();
+        }
+    }
+}
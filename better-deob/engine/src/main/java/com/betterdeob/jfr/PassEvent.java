@@ -0,0 +1,16 @@
+package com.betterdeob.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.betterdeob.Pass")
+@Label("Pipeline Pass")
+@Category({"BetterDeob", "Pipeline"})
+@Description("One pipeline phase, from start to end")
+@StackTrace(false)
+public final class PassEvent extends Event {
+    @Label("Pass")
+    public String pass;
+
+    @Label("Classes")
+    public int classes;
+}
@@ -0,0 +1,24 @@
+package com.betterdeob.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.betterdeob.RuleBatch")
+@Label("Rule Evaluation Batch")
+@Category({"BetterDeob", "Rules"})
+@Description("All class rules against one class, or one field rule against its owner's fields")
+@StackTrace(false)
+public final class RuleBatchEvent extends Event {
+    @Label("Kind")
+    @Description("class or field")
+    public String kind;
+
+    @Label("Subject")
+    @Description("Obfuscated class for class rules, field rule id for field rules")
+    public String subject;
+
+    @Label("Evaluations")
+    public int evaluations;
+
+    @Label("Candidates")
+    public int candidates;
+}
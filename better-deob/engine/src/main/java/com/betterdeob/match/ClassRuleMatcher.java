@@ -0,0 +1,278 @@
+package com.betterdeob.match;
+
+import com.betterdeob.bytecode.FuzzyPattern;
+import com.betterdeob.bytecode.OpcodePattern;
+import com.betterdeob.bytecode.PatternValue;
+import com.betterdeob.features.ClassFeatures;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.features.HierarchyIndex;
+import com.betterdeob.rules.Rule;
+import com.betterdeob.rules.RuleSet;
+import com.betterdeob.rules.SignalValues;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.*;
+
+public final class ClassRuleMatcher {
+    /** Share of a class confidence earned by signals; the rest comes from structural constraints. */
+    public static final double SIGNAL_SCALE = 0.93;
+
+    private final RuleSet rules;
+    private final RuleProfiler profiler;
+    private final SignalTrace trace;
+
+    public ClassRuleMatcher(RuleSet rules) {
+        this(rules, null);
+    }
+
+    /** @param profiler per-rule/per-signal accounting, or null when profiling is off */
+    public ClassRuleMatcher(RuleSet rules, RuleProfiler profiler) {
+        this(rules, profiler, null);
+    }
+
+    /** @param trace receives every signal outcome and scored candidate, or null */
+    public ClassRuleMatcher(RuleSet rules, RuleProfiler profiler, SignalTrace trace) {
+        this.rules = rules;
+        this.profiler = profiler;
+        this.trace = trace;
+    }
+
+    public List<MatchResult> matchAll(ClassNode cn, FeatureIndex idx) {
+        ClassFeatures f = idx.of(cn);
+        if (f == null) return List.of();
+
+        List<MatchResult> out = new ArrayList<>();
+        for (Rule r : rules.classRules()) {
+            if (!"class".equalsIgnoreCase(r.type)) continue;
+            MatchResult m = match(r, cn, f, idx);
+            if (m != null) out.add(m);
+        }
+
+        return out;
+    }
+
+    /** Scores one class rule against one class; null if the class has no features or fails the constraints. */
+    public MatchResult match(Rule r, ClassNode cn, FeatureIndex idx) {
+        ClassFeatures f = idx.of(cn);
+        return (f == null) ? null : match(r, cn, f, idx);
+    }
+
+    private MatchResult match(Rule r, ClassNode cn, ClassFeatures f, FeatureIndex idx) {
+        RuleProfiler.RuleStat ps = (profiler == null) ? null : profiler.rule(r, "class", r.id, r.signals);
+        long r0 = (ps == null) ? 0L : System.nanoTime();
+
+        List<String> ev = new ArrayList<>();
+        if (!passesConstraints(r, f, idx.hierarchy(), ev)) {
+            if (ps != null) ps.evaluated(System.nanoTime() - r0, false);
+            return null;
+        }
+        if (!idx.analyzed(f.name())) {
+            // An index built on demand of other rule sets: no signal can be read, so score a miss.
+            ev.add("code not analysed: signals not evaluated");
+            if (ps != null) ps.evaluated(System.nanoTime() - r0, true);
+            MatchResult m = new MatchResult(r.id, cn.name, 0.0, ev);
+            if (trace != null) trace.scored(m);
+            return m;
+        }
+
+        double score = 0.0;
+        double max = 0.0;
+        double[] hitWeights = (ps == null || r.signals == null) ? null : new double[r.signals.size()];
+
+        if (r.signals != null) {
+            for (int si = 0; si < r.signals.size(); si++) {
+                Rule.Signal s = r.signals.get(si);
+                double w = (s.weight == null) ? 0.1 : s.weight;
+                max += w;
+                long s0 = (ps == null) ? 0L : System.nanoTime();
+
+                boolean hit = switch (String.valueOf(s.kind)) {
+                    case "minLdcStrings" -> minAtLeast(f.totalLdcStrings(), s.min, "totalLdcStrings", ev);
+                    case "minLdcNumbers" -> minAtLeast(f.totalLdcNumbers(), s.min, "totalLdcNumbers", ev);
+                    case "stringHashEq" -> hashEq64(f.stringLiteralHash64(), s, "stringLiteralHash64", ev);
+                    case "opcode3GramHashEq" -> hashEq64(f.opcode3GramHash64(), s, "opcode3GramHash64", ev);
+                    case "fieldPattern", "fieldPatternFuzzy" -> fieldPatternHit(f, s, idx, ev);
+                    case "ldcStringEq" -> minAtLeast(idx.literals().stringEq(s.value).inClass(f.name()), s.min,
+                            "ldcStringEq \"" + s.value + "\"", ev);
+                    case "ldcStringContains" -> minAtLeast(idx.literals().stringContains(s.value).inClass(f.name()), s.min,
+                            "ldcStringContains \"" + s.value + "\"", ev);
+                    case "constEq" -> minAtLeast((s.canonical != null ? idx.literals().constCanonical(s.canonical)
+                                    : idx.literals().constEq(s.value)).inClass(f.name()), s.min,
+                            "constEq " + s.value, ev);
+                    default -> false;
+                };
+
+                if (hit) score += w;
+                if (trace != null) trace.signal(r.id, cn.name, si, s, w, hit);
+                if (ps != null) {
+                    ps.signal(si, System.nanoTime() - s0, hit);
+                    if (hit) hitWeights[si] = w;
+                }
+            }
+        }
+
+        // Confidence is normalized score; strong constraints help but don't let weak signals pass.
+        double conf = (max <= 0.0) ? 0.90 : clamp01(score / max);
+        conf = clamp01(conf * SIGNAL_SCALE + structuralBonus(r) * (1.0 - SIGNAL_SCALE));
+
+        if (ps != null) {
+            ps.evaluated(System.nanoTime() - r0, true);
+            double thr = (r.threshold != null) ? r.threshold : rules.thresholdDefault();
+            if (conf >= thr) profiler.accepted(ps, cn.name, RuleProfiler.contributions(hitWeights, max, SIGNAL_SCALE));
+        }
+
+        MatchResult m = new MatchResult(r.id, cn.name, conf, ev);
+        if (trace != null) trace.scored(m);
+        return m;
+    }
+
+    /**
+     * fieldPattern signal:
+     * value: "DESC|PATTERN" (see OpcodeRegex for the pattern syntax)
+     * Patterns compiled into the index are answered from precomputed DFA hit counts; anything
+     * else falls back to the fixed 7-token windows used by ClassFeatures
+     * (2 BEFORE + FIELD + 4 AFTER, "*" matches any token).
+     * fieldPatternFuzzy signals are always compiled (as FuzzyPattern keys) and have no fallback.
+     */
+    private boolean fieldPatternHit(ClassFeatures f, Rule.Signal s, FeatureIndex idx, List<String> ev) {
+        if (s.value == null || s.value.isBlank()) return false;
+
+        String desc = s.patternDesc;
+        String patStr = s.pattern;
+        if (patStr == null) {
+            desc = PatternValue.parse(s.value).desc();
+            patStr = SignalValues.patternSource(s);
+        }
+        if (desc == null) return false;
+
+        int min = (s.min == null) ? 1 : s.min;
+
+        int hits = 0;
+        int id = idx.patterns().idOf(patStr);
+        if (id >= 0) {
+            hits = f.patternHitsByDesc().getOrDefault(desc, Map.of()).getOrDefault(id, 0);
+        } else if (!FuzzyPattern.isKey(patStr)) {
+            OpcodePattern pat;
+            try { pat = OpcodePattern.parse(patStr); }
+            catch (Exception ex) { return false; }
+
+            Map<String, Integer> patterns = f.fieldUsagePatternsByDesc().get(desc);
+            if (patterns == null || patterns.isEmpty()) return false;
+
+            for (var e : patterns.entrySet()) {
+                if (pat.matches(e.getKey())) hits += e.getValue();
+            }
+        }
+
+        if (hits >= min) {
+            ev.add(s.kind + " hit desc=" + desc + " pattern=\"" + patStr + "\" hits=" + hits);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code f} meets the rule's structural constraints (supertypes, hierarchy,
+     * descriptor counts). Header features suffice, so this decides which classes need their
+     * code analysed at all.
+     */
+    public static boolean passesConstraints(Rule r, ClassFeatures f, HierarchyIndex h) {
+        return passesConstraints(r, f, h, new ArrayList<>());
+    }
+
+    /**
+     * The constraints that need no hierarchy: true whenever {@link #passesConstraints} is, and
+     * decidable per class while the jar is still being read.
+     */
+    public static boolean mayPassConstraints(Rule r, ClassFeatures f) {
+        return passesConstraints(r, f, null, new ArrayList<>());
+    }
+
+    /** @param h null skips the transitive and subclass constraints */
+    private static boolean passesConstraints(Rule r, ClassFeatures f, HierarchyIndex h, List<String> ev) {
+        if (r.superName != null && !"*".equals(r.superName)) {
+            if (!r.superName.equals(f.superName())) return false;
+            ev.add("superName matches: " + r.superName);
+        }
+
+        if (r.interfaces != null && !r.interfaces.isEmpty()) {
+            for (String i : r.interfaces) {
+                if (!f.interfaces().contains(i)) return false;
+            }
+            ev.add("interfaces contain: " + r.interfaces);
+        }
+
+        if (h != null) {
+            if (r.extendsTransitively != null && !r.extendsTransitively.isBlank()) {
+                if (!h.extendsTransitively(f.name(), r.extendsTransitively)) return false;
+                ev.add("extends transitively: " + r.extendsTransitively);
+            }
+            if (r.implementsTransitively != null && !r.implementsTransitively.isEmpty()) {
+                for (String i : r.implementsTransitively) {
+                    if (!h.implementsTransitively(f.name(), i)) return false;
+                }
+                ev.add("implements transitively: " + r.implementsTransitively);
+            }
+            if (r.hasSubclassCount != null) {
+                int subs = h.subclassCount(f.name());
+                if (subs < r.hasSubclassCount) return false;
+                ev.add("subclasses " + subs + " >= " + r.hasSubclassCount);
+            }
+        }
+
+        if (r.minFieldDescCounts != null) {
+            if (!minCountsOk("field", r.minFieldDescCounts, f.fieldDescCounts(), ev)) return false;
+        }
+        if (r.minMethodDescCounts != null) {
+            if (!minCountsOk("method", r.minMethodDescCounts, f.methodDescCounts(), ev)) return false;
+        }
+        return true;
+    }
+
+    private double structuralBonus(Rule r) {
+        double b = 0.0;
+        if (r.minFieldDescCounts != null && !r.minFieldDescCounts.isEmpty()) b += 0.5;
+        if (r.minMethodDescCounts != null && !r.minMethodDescCounts.isEmpty()) b += 0.5;
+        if (r.interfaces != null && !r.interfaces.isEmpty()) b += 0.5;
+        if (r.superName != null && !"*".equals(r.superName)) b += 0.5;
+        if (r.extendsTransitively != null && !r.extendsTransitively.isBlank()) b += 0.5;
+        if (r.implementsTransitively != null && !r.implementsTransitively.isEmpty()) b += 0.5;
+        if (r.hasSubclassCount != null) b += 0.5;
+        return Math.min(1.0, b / 2.0);
+    }
+
+    private static boolean minCountsOk(String label, Map<String, Integer> req, Map<String, Integer> have, List<String> ev) {
+        for (var e : req.entrySet()) {
+            int got = have.getOrDefault(e.getKey(), 0);
+            if (got < e.getValue()) return false;
+            ev.add(label + " desc count ok: " + e.getKey() + " >= " + e.getValue() + " (got " + got + ")");
+        }
+        return true;
+    }
+
+    private boolean minAtLeast(int got, Integer min, String what, List<String> ev) {
+        int m = (min == null) ? 1 : min;
+        if (got >= m) {
+            ev.add(what + " >= " + m + " (got " + got + ")");
+            return true;
+        }
+        return false;
+    }
+
+    private boolean hashEq64(long actual, Rule.Signal s, String label, List<String> ev) {
+        Long target = (s.constant != null) ? s.constant : SignalValues.parseHash64(s.value);
+        if (target == null) return false;
+
+        if (actual == target) {
+            ev.add(label + " matches: 0x" + Long.toHexString(target));
+            return true;
+        }
+        return false;
+    }
+
+    private double clamp01(double v) {
+        if (v < 0) return 0;
+        if (v > 1) return 1;
+        return v;
+    }
+}
@@ -0,0 +1,190 @@
+package com.betterdeob.match;
+
+import com.betterdeob.rules.Rule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Per-rule and per-signal cost/benefit accounting, enabled by --profile-rules.
+ *
+ * Matchers time every rule evaluation and every signal, count hits, and remember the per-signal
+ * confidence contribution of candidates that cleared their threshold. Once a solver has picked
+ * winners, {@link #creditWinners} attributes the winners' confidence to the signals that earned
+ * it, so expensive signals that never decide a mapping stand out. When profiling is off the
+ * matchers hold a null profiler and skip all of this.
+ */
+public final class RuleProfiler {
+    public static final class SignalStat {
+        final String kind;
+        final String value;
+        long evaluations;
+        long nanos;
+        long hits;
+        long winnerHits;
+        double winnerContribution;
+
+        SignalStat(Rule.Signal s) {
+            this.kind = s.kind;
+            this.value = s.value;
+        }
+    }
+
+    public static final class RuleStat {
+        final String type;
+        final String id;
+        final SignalStat[] signals;
+        long evaluations;
+        long nanos;
+        long passedConstraints;
+        long accepted;
+        long wins;
+
+        RuleStat(String type, String id, List<Rule.Signal> signals) {
+            this.type = type;
+            this.id = id;
+            this.signals = new SignalStat[signals == null ? 0 : signals.size()];
+            for (int i = 0; i < this.signals.length; i++) this.signals[i] = new SignalStat(signals.get(i));
+        }
+
+        /** One signal evaluation. */
+        public void signal(int i, long nanos, boolean hit) {
+            SignalStat s = signals[i];
+            s.evaluations++;
+            s.nanos += nanos;
+            if (hit) s.hits++;
+        }
+
+        /** One rule evaluation against a class or field, including its signals. */
+        public void evaluated(long nanos, boolean passed) {
+            evaluations++;
+            this.nanos += nanos;
+            if (passed) passedConstraints++;
+        }
+    }
+
+    private final Map<Object, RuleStat> rules = new IdentityHashMap<>();
+    private final List<RuleStat> order = new ArrayList<>();
+    private final Map<String, double[]> acceptedContributions = new HashMap<>();
+
+    /** Stats slot for a Rule or FieldRule, created on first use. Not thread-safe, like the matchers. */
+    public RuleStat rule(Object rule, String type, String id, List<Rule.Signal> signals) {
+        RuleStat rs = rules.get(rule);
+        if (rs == null) {
+            rs = new RuleStat(type, id, signals);
+            rules.put(rule, rs);
+            order.add(rs);
+        }
+        return rs;
+    }
+
+    /**
+     * A candidate that cleared its threshold; {@code contributions[i]} is the share of its
+     * confidence earned by signal i (0 when the signal missed).
+     */
+    public void accepted(RuleStat rs, String obf, double[] contributions) {
+        rs.accepted++;
+        acceptedContributions.put(key(rs, obf), contributions);
+    }
+
+    /** Credits winners of a solver run ({@code target id -> obf name}) of the given rule type. */
+    public void creditWinners(String type, Map<String, String> mappings) {
+        Map<String, RuleStat> byId = new HashMap<>();
+        for (RuleStat rs : order) if (rs.type.equals(type)) byId.put(rs.id, rs);
+
+        for (var e : mappings.entrySet()) {
+            RuleStat rs = byId.get(e.getKey());
+            if (rs == null) continue;
+            double[] c = acceptedContributions.get(key(rs, e.getValue()));
+            if (c == null) continue;
+            rs.wins++;
+            for (int i = 0; i < c.length && i < rs.signals.length; i++) {
+                if (c[i] <= 0) continue;
+                rs.signals[i].winnerHits++;
+                rs.signals[i].winnerContribution += c[i];
+            }
+        }
+    }
+
+    /** Share of the confidence each hit signal earned: weight / max weight, times the score scale. */
+    public static double[] contributions(double[] hitWeights, double max, double scale) {
+        if (hitWeights == null) return new double[0];
+        double[] c = new double[hitWeights.length];
+        if (max > 0.0) for (int i = 0; i < c.length; i++) c[i] = hitWeights[i] / max * scale;
+        return c;
+    }
+
+    private static String key(RuleStat rs, String obf) {
+        return rs.type + '\u0000' + rs.id + '\u0000' + obf;
+    }
+
+    public int size() { return order.size(); }
+
+    /**
+     * Writes rule-profile.csv (one row per rule and per signal, sorted by total time, for
+     * spreadsheets and sort(1)) and prints the most expensive signals to {@code log}.
+     */
+    public void write(Path outDir, PrintStream log) throws IOException {
+        record Row(String level, RuleStat rule, int signal, long nanos) {}
+        List<Row> rows = new ArrayList<>();
+        for (RuleStat rs : order) {
+            rows.add(new Row("rule", rs, -1, rs.nanos));
+            for (int i = 0; i < rs.signals.length; i++) rows.add(new Row("signal", rs, i, rs.signals[i].nanos));
+        }
+        rows.sort(Comparator.comparingLong(Row::nanos).reversed()
+                .thenComparing(r -> r.rule().id)
+                .thenComparingInt(Row::signal));
+
+        Files.createDirectories(outDir);
+        try (Writer w = Files.newBufferedWriter(outDir.resolve("rule-profile.csv"), StandardCharsets.UTF_8)) {
+            w.write("level,type,ruleId,signalIndex,signalKind,signalValue,evaluations,totalMillis,avgNanos,hits,hitRate,"
+                    + "passedConstraints,accepted,wins,winnerHits,winnerContribution\n");
+            for (Row r : rows) {
+                RuleStat rs = r.rule();
+                List<Object> c = new ArrayList<>();
+                c.add(r.level());
+                c.add(rs.type);
+                c.add(rs.id);
+                if (r.signal() < 0) {
+                    c.addAll(Arrays.asList("", "", ""));
+                    addCost(c, rs.evaluations, rs.nanos, rs.accepted);
+                    c.addAll(Arrays.asList(rs.passedConstraints, rs.accepted, rs.wins, "", ""));
+                } else {
+                    SignalStat s = rs.signals[r.signal()];
+                    c.addAll(Arrays.asList(r.signal(), s.kind, s.value));
+                    addCost(c, s.evaluations, s.nanos, s.hits);
+                    c.addAll(Arrays.asList("", "", "", s.winnerHits, String.format(Locale.ROOT, "%.4f", s.winnerContribution)));
+                }
+                StringJoiner line = new StringJoiner(",");
+                for (Object o : c) line.add(csv(o));
+                w.write(line + "\n");
+            }
+        }
+
+        log.println("Rule profile: " + order.size() + " rules -> rule-profile.csv. Most expensive signals:");
+        rows.stream().filter(r -> r.signal() >= 0).limit(10).forEach(r -> {
+            SignalStat s = r.rule().signals[r.signal()];
+            log.printf(Locale.ROOT, "   %8.1fms  %-40s %-18s hits=%d/%d winnerHits=%d%n",
+                    s.nanos / 1e6, r.rule().id, s.kind, s.hits, s.evaluations, s.winnerHits);
+        });
+    }
+
+    private static void addCost(List<Object> c, long evaluations, long nanos, long hits) {
+        c.add(evaluations);
+        c.add(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+        c.add(evaluations == 0 ? 0 : nanos / evaluations);
+        c.add(hits);
+        c.add(String.format(Locale.ROOT, "%.4f", evaluations == 0 ? 0.0 : (double) hits / evaluations));
+    }
+
+    private static String csv(Object o) {
+        String s = (o == null) ? "" : o.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
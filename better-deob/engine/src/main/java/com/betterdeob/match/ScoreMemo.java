@@ -0,0 +1,156 @@
+package com.betterdeob.match;
+
+import com.betterdeob.core.CacheFiles;
+import com.betterdeob.features.FeatureIndexCache;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-rule scoring results memoized across runs, one file per FeatureIndex key.
+ *
+ * Entries are keyed by the rule's content hash ({@link com.betterdeob.rules.RuleHash}) plus, for
+ * field rules, a fingerprint of the class mappings the rule depends on (owner, descriptor and
+ * pattern targets). Within one index, a rule whose key is unchanged would produce exactly the
+ * same candidates, so the identify passes reuse them and only score changed rules or rules whose
+ * dependencies mapped differently; the solvers always run on the merged list. Saving keeps only
+ * the entries this run used or produced, so edited rules do not accumulate.
+ */
+public final class ScoreMemo {
+    /**
+     * Bump when scoring logic or MatchResult changes; older memo files are then ignored. Memo
+     * files also record {@link FeatureIndexCache#FORMAT}, so a change to the features the rules
+     * are scored on invalidates them without a bump here.
+     */
+    private static final int FORMAT = 2;
+    private static final int MAGIC = 0x4244534d; // "BDSM"
+    private static final String PREFIX = "scores-";
+    private static final String SUFFIX = ".bin.gz";
+
+    private final Path file;
+    private final int keep;
+    private final Map<String, List<MatchResult>> loaded;
+    private final Map<String, List<MatchResult>> current = new LinkedHashMap<>();
+    private int hits;
+    private int misses;
+
+    private ScoreMemo(Path file, int keep, Map<String, List<MatchResult>> loaded) {
+        this.file = file;
+        this.keep = keep;
+        this.loaded = loaded;
+    }
+
+    /** Opens the memo for {@code featureKey} in {@code dir}; an unreadable file starts empty. */
+    public static ScoreMemo open(Path dir, String featureKey) {
+        return open(dir, featureKey, CacheFiles.KEEP, System.err);
+    }
+
+    /**
+     * Same as {@link #open(Path, String)}, reporting an unreadable file to {@code log};
+     * {@link #save} keeps the {@code keep} newest memo files.
+     */
+    public static ScoreMemo open(Path dir, String featureKey, int keep, PrintStream log) {
+        Path file = dir.resolve(PREFIX + featureKey + SUFFIX);
+        Map<String, List<MatchResult>> loaded = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(file), 1 << 16), 1 << 16))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT && in.readInt() == FeatureIndexCache.FORMAT) read(in, loaded);
+            } catch (IOException | RuntimeException e) {
+                log.println("Ignoring unreadable score memo " + file + ": " + e);
+                loaded.clear();
+            }
+        }
+        return new ScoreMemo(file, keep, loaded);
+    }
+
+    /** Cached candidates for {@code key} (from disk or put earlier in this run), or null if the rule must be scored. */
+    public synchronized List<MatchResult> get(String key) {
+        List<MatchResult> l = current.get(key);
+        if (l == null) l = loaded.get(key);
+        if (l == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        current.put(key, l);
+        return l;
+    }
+
+    public synchronized void put(String key, List<MatchResult> candidates) {
+        current.put(key, List.copyOf(candidates));
+    }
+
+    public synchronized int hits() { return hits; }
+    public synchronized int misses() { return misses; }
+
+    /** Writes the entries used or produced by this run, atomically. */
+    public synchronized void save() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve("." + file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(FeatureIndexCache.FORMAT);
+            out.writeInt(current.size());
+            for (var e : current.entrySet()) {
+                str(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (MatchResult m : e.getValue()) {
+                    str(out, m.targetName());
+                    str(out, m.obfName());
+                    out.writeDouble(m.confidence());
+                    out.writeInt(m.priority());
+                    out.writeInt(m.evidence().size());
+                    for (String ev : m.evidence()) str(out, ev);
+                    out.writeBoolean(m.multiplier() != null);
+                    if (m.multiplier() != null) out.writeInt(m.multiplier());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        CacheFiles.prune(dir, PREFIX + "*" + SUFFIX, keep);
+    }
+
+    private static void read(DataInputStream in, Map<String, List<MatchResult>> out) throws IOException {
+        int entries = in.readInt();
+        for (int i = 0; i < entries; i++) {
+            String key = str(in);
+            int n = in.readInt();
+            List<MatchResult> l = new ArrayList<>(n);
+            for (int j = 0; j < n; j++) {
+                String target = str(in);
+                String obf = str(in);
+                double conf = in.readDouble();
+                int priority = in.readInt();
+                int evCount = in.readInt();
+                List<String> ev = new ArrayList<>(evCount);
+                for (int k = 0; k < evCount; k++) ev.add(str(in));
+                Integer multiplier = in.readBoolean() ? in.readInt() : null;
+                l.add(new MatchResult(target, obf, conf, priority, ev, multiplier));
+            }
+            out.put(key, List.copyOf(l));
+        }
+    }
+
+    private static void str(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String str(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,15 @@
+package com.betterdeob.match;
+
+import com.betterdeob.rules.Rule;
+
+/**
+ * Observer of individual signal outcomes, used by the explain command to show why a candidate
+ * scored the way it did. Matchers hold a null trace during normal runs.
+ */
+public interface SignalTrace {
+    /** One signal of rule {@code targetId} evaluated against {@code obf} (class name or field key). */
+    void signal(String targetId, String obf, int index, Rule.Signal signal, double weight, boolean hit);
+
+    /** A candidate that passed the rule's constraints, after all its signals were reported. */
+    void scored(MatchResult candidate);
+}
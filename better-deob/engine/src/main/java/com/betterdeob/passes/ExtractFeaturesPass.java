@@ -0,0 +1,173 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import com.betterdeob.core.*;
+import com.betterdeob.features.ClassFeatures;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.features.FeatureIndexCache;
+import com.betterdeob.features.FieldFeatures;
+import com.betterdeob.features.HierarchyIndex;
+import com.betterdeob.match.ClassRuleMatcher;
+import com.betterdeob.rules.Rule;
+import com.betterdeob.rules.RuleSet;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds the FeatureIndex in two phases: header features and the hierarchy for every class,
+ * then code analysis (windows, pattern hits, multipliers, literals, 3-grams) only for classes
+ * that pass the structural constraints of some class rule of the primary or a shadow rule set.
+ * Every other class fails all rules before a signal is read, and owners of mapped targets are
+ * winners of those rules, so the mappings are the same as with every class analysed.
+ *
+ * Candidates depend on the hierarchy, known only once the whole jar is read, so while LoadJarPass
+ * streams headers, classes that pass the constraints not involving the hierarchy are analysed as
+ * they arrive and the rest are decided at the end.
+ *
+ * coAccessWith field rules and {@link DeobContext#fullExtraction()} need every class analysed;
+ * the jar is then read with code and extraction streams classes as LoadJarPass adds them. A
+ * cached or caller-held index that lacks the code of a candidate is rebuilt for both its
+ * analysed classes and the new candidates.
+ */
+public final class ExtractFeaturesPass implements Pass {
+    @Override public String name() { return "ExtractFeatures"; }
+    @Override public Set<String> inputs() { return Set.of(CLASSES); }
+    @Override public Set<String> streamedInputs() { return Set.of(CLASSES); }
+    @Override public Set<String> outputs() { return Set.of(FEATURES); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) throws IOException, InterruptedException {
+        Set<String> sources = ctx.rules().fieldPatternSources();
+        for (DeobContext.Shadow s : ctx.shadowRules()) sources.addAll(s.rules().fieldPatternSources());
+        boolean everyClass = analysesEveryClass(ctx);
+        FeatureIndex.Extras extras = extras(ctx);
+        FeatureIndex.Demand demand = everyClass ? FeatureIndex.Demand.ALL : candidates(ctx);
+
+        Path cacheDir = ctx.featureCacheDir();
+        boolean keyed = (cacheDir != null || ctx.scoreMemoDir() != null) && ctx.inputJar() != null;
+        String key = ctx.featureIndexKey();
+        if (key == null && keyed) key = FeatureIndexCache.key(ctx.inputJar(), sources, extras);
+        ctx.setFeatureIndexKey(key);
+        FeatureIndex idx = ctx.featureIndex();
+        boolean cached = false;
+        if (idx == null && key != null && cacheDir != null) cached = (idx = FeatureIndexCache.load(cacheDir, key, sources, ctx.log())) != null;
+        if (idx != null) {
+            Set<String> missing = idx.missing(demand);
+            String what = cached ? "cached FeatureIndex " + FeatureIndexCache.file(cacheDir, key) : "FeatureIndex held by the caller";
+            if (!idx.extras().covers(extras)) {
+                ctx.log().println("Rebuilding " + what + ": built with " + idx.extras() + ", needs " + extras);
+                idx = null;
+            } else if (missing.isEmpty()) {
+                ctx.log().println(cached ? "Loaded " + what : "Reusing " + what);
+                if (cached) ctx.metrics().count("featureCacheHit", 1);
+            } else {
+                ctx.log().println("Rebuilding " + what + ": code of " + missing.size() + " candidate classes was not analysed");
+                FeatureIndex prior = idx;
+                demand = demand.or(FeatureIndex.Demand.named(prior::analyzed));
+                idx = null;
+            }
+        }
+        if (idx == null) {
+            PatternSet patterns = PatternSet.compile(sources, new SymbolTable(), ctx.log());
+            ctx.log().println("Compiled fieldPatterns: " + patterns.size() + " (dfa states=" + patterns.dfaStates() + ")");
+            if (group.isLoading()) {
+                FeatureIndex.Builder builder = everyClass ? FeatureIndex.builder(ctx.scheduler(), patterns, extras)
+                        : FeatureIndex.builder(group, ctx.scheduler(), patterns, extras, demand);
+                group.forEachAdded(builder::add);
+                idx = builder.build(group.all());
+            } else {
+                idx = FeatureIndex.build(group, ctx.scheduler(), patterns, extras, demand);
+            }
+            if (key != null && cacheDir != null) {
+                long bytes = FeatureIndexCache.store(cacheDir, key, idx, ctx.cacheKeep());
+                ctx.log().println("Cached FeatureIndex: " + FeatureIndexCache.file(cacheDir, key) + " (" + bytes + " bytes)");
+                ctx.metrics().count("featureCacheHit", 0);
+            }
+        }
+        group.awaitLoaded();
+        ctx.setFeatureIndex(idx);
+        PatternSet patterns = idx.patterns();
+
+        long fields = 0, windows = 0;
+        for (ClassNode cn : group.all()) {
+            for (FieldFeatures ff : idx.fieldsOf(cn.name)) {
+                fields++;
+                windows += ff.readCount() + ff.writeCount();
+            }
+        }
+        ctx.metrics().count("patternsCompiled", patterns.size());
+        ctx.metrics().count("dfaStates", patterns.dfaStates());
+        ctx.metrics().count("classesIndexed", idx.size());
+        ctx.metrics().count("fieldsIndexed", fields);
+        ctx.metrics().count("windowsExtracted", windows);
+        ctx.metrics().count("distinctStrings", idx.literals().distinctStrings());
+        ctx.metrics().count("distinctNumbers", idx.literals().distinctNumbers());
+        ctx.metrics().count("coAccessFields", idx.coAccess().nodeCount());
+        ctx.metrics().count("coAccessEdges", idx.coAccess().edgeCount());
+        ctx.metrics().count("methodBodies", idx.methodBodies());
+        ctx.metrics().count("distinctMethodBodies", idx.distinctBodies());
+        if (idx.methodBodies() > 0) {
+            ctx.log().println(String.format(Locale.ROOT, "Method bodies: %d (distinct %d, shared %.1f%%)", idx.methodBodies(),
+                    idx.distinctBodies(), 100.0 * (idx.methodBodies() - idx.distinctBodies()) / idx.methodBodies()));
+        }
+        ctx.metrics().count("classesAnalyzed", idx.analyzedCount());
+        ctx.log().println(String.format(Locale.ROOT, "Code analysed for %d of %d classes (%.1f%%)", idx.analyzedCount(),
+                idx.size(), 100.0 * idx.analyzedCount() / Math.max(1, idx.size())));
+        ctx.log().println("FeatureIndex built for classes: " + idx.size() + " (workers=" + ctx.scheduler().parallelism() + ")");
+    }
+
+    /** Whether the run needs every class analysed (the co-access graph spans every method); LoadJarPass then reads the jar with code. */
+    static boolean analysesEveryClass(DeobContext ctx) {
+        return extras(ctx).coAccess();
+    }
+
+    /** The jar-wide indexes some rule set of the run reads; all of them for {@link DeobContext#fullExtraction()}. */
+    public static FeatureIndex.Extras extras(DeobContext ctx) {
+        if (ctx.fullExtraction()) return FeatureIndex.Extras.ALL;
+        boolean literals = false, coAccess = false;
+        for (RuleSet rules : ruleSets(ctx)) {
+            literals |= rules.usesLiteralSignals();
+            coAccess |= rules.usesCoAccessSignals();
+        }
+        return new FeatureIndex.Extras(literals, coAccess);
+    }
+
+    /** Classes that pass the structural constraints of a class rule of any rule set the run scores. */
+    private static FeatureIndex.Demand candidates(DeobContext ctx) {
+        List<Rule> classRules = new ArrayList<>();
+        for (RuleSet rules : ruleSets(ctx)) {
+            for (Rule r : rules.classRules()) {
+                if ("class".equalsIgnoreCase(r.type)) classRules.add(r);
+            }
+        }
+        return new FeatureIndex.Demand() {
+            @Override public boolean needs(ClassFeatures header, HierarchyIndex hierarchy) {
+                for (Rule r : classRules) {
+                    if (ClassRuleMatcher.passesConstraints(r, header, hierarchy)) return true;
+                }
+                return false;
+            }
+
+            @Override public boolean mayNeed(ClassFeatures header) {
+                for (Rule r : classRules) {
+                    if (ClassRuleMatcher.mayPassConstraints(r, header)) return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static List<RuleSet> ruleSets(DeobContext ctx) {
+        List<RuleSet> sets = new ArrayList<>();
+        sets.add(ctx.rules());
+        for (DeobContext.Shadow s : ctx.shadowRules()) sets.add(s.rules());
+        return sets;
+    }
+}
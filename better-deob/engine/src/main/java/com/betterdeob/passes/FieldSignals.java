@@ -0,0 +1,103 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.bytecode.FuzzyPattern;
+import com.betterdeob.bytecode.OpcodePattern;
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.features.CoAccessGraph;
+import com.betterdeob.features.FieldFeatures;
+import com.betterdeob.rules.Rule;
+import com.betterdeob.rules.SignalValues;
+
+import java.util.List;
+import java.util.Map;
+
+public final class FieldSignals {
+    private FieldSignals() {}
+
+    /**
+     * Uses the hit count precomputed by the index DFA when the pattern was compiled into
+     * {@code patterns}; otherwise falls back to comparing legacy 7-token windows
+     * (fieldPatternFuzzy keys have no such fallback).
+     */
+    public static boolean fieldPattern(FieldFeatures ff, Rule.Signal s, PatternSet patterns, List<String> ev) {
+        if (s.value == null || s.value.isBlank()) return false;
+        return fieldPattern(ff, SignalValues.patternSource(s), s.min, patterns, ev);
+    }
+
+    public static boolean fieldPattern(FieldFeatures ff, String patStr, Integer minHits, PatternSet patterns, List<String> ev) {
+        int hits = 0;
+        int id = patterns.idOf(patStr);
+        if (id >= 0) {
+            hits = ff.patternHits().getOrDefault(id, 0);
+        } else if (!FuzzyPattern.isKey(patStr)) {
+            OpcodePattern pat;
+            try { pat = OpcodePattern.parse(patStr); } catch (Exception ex) { return false; }
+            for (var e : ff.usagePatterns().entrySet()) if (pat.matches(e.getKey())) hits += e.getValue();
+        }
+
+        int min = (minHits == null) ? 1 : minHits;
+        if (hits >= min) {
+            ev.add("fieldPattern hit pattern=\"" + patStr + "\" hits=" + hits);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * coAccessWith signal: value is a field target ("Player.y"). Hits when the field and the
+     * field that target is already mapped to are accessed together in at least {@code min}
+     * methods; unmapped targets never hit.
+     */
+    public static boolean coAccess(String fieldKey, Rule.Signal s, Map<String, String> fieldMappings,
+                                   CoAccessGraph graph, List<String> ev) {
+        String partner = (s.value == null) ? null : fieldMappings.get(s.value);
+        if (partner == null || partner.equals(fieldKey)) return false;
+        return minCount(graph.weight(fieldKey, partner), s.min, "coAccessWith " + s.value + " (" + partner + ") methods", ev);
+    }
+
+    public static boolean minCount(int got, Integer min, String label, List<String> ev) {
+        int m = (min == null) ? 1 : min;
+        if (got >= m) {
+            ev.add(label + " >= " + m + " (got " + got + ")");
+            return true;
+        }
+        return false;
+    }
+
+    public static boolean multConstEq(FieldFeatures ff, Rule.Signal s, List<String> ev) {
+        if (s.constant != null) return multConstEq(ff, s.constant.intValue(), ev);
+        return multConstEq(ff, s.value, ev);
+    }
+
+    public static boolean multConstEq(FieldFeatures ff, String hexOrDec, List<String> ev) {
+        Integer target = SignalValues.parseInt32(hexOrDec);
+        if (target == null) return false;
+        return multConstEq(ff, target.intValue(), ev);
+    }
+
+    private static boolean multConstEq(FieldFeatures ff, int target, List<String> ev) {
+
+        int hits = ff.imulConstantsReads().getOrDefault(target, 0) + ff.imulConstantsWrites().getOrDefault(target, 0);
+        if (hits > 0) {
+            ev.add("imulConstEq hit: " + toHex(target) + " hits=" + hits);
+            return true;
+        }
+        return false;
+    }
+
+    public static boolean multConstAny(FieldFeatures ff, Integer min, List<String> ev) {
+        int m = (min == null) ? 1 : min;
+        int total = 0;
+        for (int v : ff.imulConstantsReads().values()) total += v;
+        for (int v : ff.imulConstantsWrites().values()) total += v;
+        if (total >= m) {
+            ev.add("imulConstAny >= " + m + " (got " + total + ")");
+            return true;
+        }
+        return false;
+    }
+
+    private static String toHex(int v) {
+        return "0x" + Integer.toHexString(v);
+    }
+}
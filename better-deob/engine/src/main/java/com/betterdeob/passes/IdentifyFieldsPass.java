@@ -0,0 +1,384 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.bytecode.OpcodeRegex;
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.PatternValue;
+import com.betterdeob.core.*;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.features.FieldFeatures;
+import com.betterdeob.features.LiteralIndex;
+import com.betterdeob.jfr.RuleBatchEvent;
+import com.betterdeob.match.MatchResult;
+import com.betterdeob.match.RuleProfiler;
+import com.betterdeob.match.ScoreMemo;
+import com.betterdeob.match.SignalTrace;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.FieldRule;
+import com.betterdeob.rules.Rule;
+import com.betterdeob.rules.RuleHash;
+import com.betterdeob.rules.SignalValues;
+import com.betterdeob.solve.FieldSolver;
+
+import java.io.PrintStream;
+import java.util.*;
+
+public final class IdentifyFieldsPass implements Pass {
+    /** Share of a field confidence earned by signals; the rest is a fixed base. */
+    public static final double SIGNAL_SCALE = 0.92;
+
+    @Override public String name() { return "IdentifyFields"; }
+    @Override public Set<String> inputs() { return Set.of(CLASSES, FEATURES, CLASS_MAPPINGS); }
+    @Override public Set<String> outputs() { return Set.of(FIELD_MAPPINGS); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) {
+        MappingReport report = ctx.report();
+        var rules = ctx.rules();
+        var idx = ctx.featureIndex();
+
+        if (rules.fieldRules().isEmpty()) {
+            ctx.log().println("No fieldRules; skipping field identification.");
+            return;
+        }
+
+        TargetPatterns targetPatterns = new TargetPatterns(group, rules.fieldRules(), report, idx, ctx.log());
+        if (targetPatterns.size() > 0) ctx.log().println("Resolved target fieldPatterns: " + targetPatterns.size());
+        List<List<FieldRule>> stages = coAccessStages(rules.fieldRules());
+
+        RuleProfiler profiler = ctx.ruleProfiler();
+        SignalTrace trace = ctx.signalTrace();
+        ScoreMemo memo = ctx.scoreMemo();
+        double defaultThr = rules.thresholdDefault();
+        int scored = 0;
+        int memoized = 0;
+
+        Map<String, Double> thr = new HashMap<>();
+        for (FieldRule fr : rules.fieldRules()) thr.put(fr.id, fr.threshold != null ? fr.threshold : defaultThr);
+
+        FieldSolver.Stats stats = null;
+        for (int stage = 0; stage < stages.size(); stage++) {
+            List<MatchResult> candidates = new ArrayList<>();
+            for (FieldRule fr : stages.get(stage)) {
+                String ownerObf = report.classMappings().get(fr.ownerTarget);
+                if (ownerObf == null) continue;
+
+                // Optional owner structural guard
+                if (fr.minOwnerFieldDescCounts != null) {
+                    var ownerCf = idx.of(ownerObf);
+                    if (ownerCf == null) continue;
+                    boolean ok = true;
+                    for (var e : fr.minOwnerFieldDescCounts.entrySet()) {
+                        int got = ownerCf.fieldDescCounts().getOrDefault(e.getKey(), 0);
+                        if (got < e.getValue()) { ok = false; break; }
+                    }
+                    if (!ok) continue;
+                }
+
+                // Translate descriptor if it contains semantic class references
+                String translatedDesc = translateDescriptor(fr.desc, report);
+
+                // The candidates depend on the rule and on the class mappings it reads, so both go into the key.
+                String memoKey = null;
+                if (memo != null) {
+                    memoKey = "field:" + RuleHash.of(fr) + ":" + ownerObf + ":" + translatedDesc + targetPatterns.resolvedFor(fr)
+                            + coAccessPartners(fr, report);
+                    List<MatchResult> cached = memo.get(memoKey);
+                    if (cached != null) {
+                        candidates.addAll(cached);
+                        memoized++;
+                        continue;
+                    }
+                }
+                scored++;
+
+                RuleBatchEvent event = new RuleBatchEvent();
+                event.begin();
+                int evaluated = 0;
+                int candidatesBefore = candidates.size();
+
+                List<FieldFeatures> fields = idx.fieldsOf(ownerObf);
+                for (FieldFeatures ff : fields) {
+                    if (!ff.desc().equals(translatedDesc)) continue;
+
+                    if (fr.isStatic != null && ff.isStatic() != fr.isStatic) continue;
+                    if (fr.accessMaskAll != null && (ff.access() & fr.accessMaskAll) != fr.accessMaskAll) continue;
+                    if (fr.accessMaskNone != null && (ff.access() & fr.accessMaskNone) != 0) continue;
+
+                    evaluated++;
+                    RuleProfiler.RuleStat ps = (profiler == null) ? null : profiler.rule(fr, "field", fr.id, fr.signals);
+                    long r0 = (ps == null) ? 0L : System.nanoTime();
+                    double[] hitWeights = (ps == null) ? null : new double[fr.signals.size()];
+
+                    double hitW = 0.0;
+                    double maxW = 0.0;
+                    List<String> ev = new ArrayList<>();
+                    ev.add("ownerTarget=" + fr.ownerTarget + " ownerObf=" + ownerObf);
+                    String siteKey = ownerObf + "." + ff.name() + ":" + ff.desc();
+
+                    for (int si = 0; si < fr.signals.size(); si++) {
+                        Rule.Signal s = fr.signals.get(si);
+                        double w = (s.weight == null) ? 0.1 : s.weight;
+                        maxW += w;
+                        long s0 = (ps == null) ? 0L : System.nanoTime();
+
+                        boolean hit = switch (String.valueOf(s.kind)) {
+                            case "fieldPattern", "fieldPatternFuzzy" -> targetPatterns.fieldPattern(ff, s, idx, ev);
+                            case "readMin" -> FieldSignals.minCount(ff.readCount(), s.min, "readCount", ev);
+                            case "writeMin" -> FieldSignals.minCount(ff.writeCount(), s.min, "writeCount", ev);
+                            case "intMultiplierConstEq" -> FieldSignals.multConstEq(ff, s, ev);
+                            case "intMultiplierConstAny" -> FieldSignals.multConstAny(ff, s.min, ev);
+                            case "ldcStringEq" -> FieldSignals.minCount(idx.literals().stringEq(s.value).atField(siteKey), s.min,
+                                    "ldcStringEq \"" + s.value + "\" near access", ev);
+                            case "ldcStringContains" -> FieldSignals.minCount(idx.literals().stringContains(s.value).atField(siteKey), s.min,
+                                    "ldcStringContains \"" + s.value + "\" near access", ev);
+                            case "constEq" -> FieldSignals.minCount(constPostings(idx, s).atField(siteKey), s.min,
+                                    "constEq " + s.value + " near access", ev);
+                            case "coAccessWith" -> FieldSignals.coAccess(siteKey, s, report.fieldMappings(), idx.coAccess(), ev);
+                            default -> false;
+                        };
+
+                        if (hit) hitW += w;
+                        if (trace != null) trace.signal(fr.id, siteKey, si, s, w, hit);
+                        if (ps != null) {
+                            ps.signal(si, System.nanoTime() - s0, hit);
+                            if (hit) hitWeights[si] = w;
+                        }
+                    }
+
+                    double score = (maxW <= 0.0) ? 0.90 : Math.min(1.0, hitW / maxW);
+                    score = Math.min(1.0, score * SIGNAL_SCALE + (1.0 - SIGNAL_SCALE)); // small base
+
+                    // Extract decoder multiplier (most common IMUL constant on reads)
+                    Integer multiplier = extractDominantMultiplier(ff);
+
+                    String obfFieldKey = ownerObf + "." + ff.name() + ":" + ff.desc();
+                    if (ps != null) {
+                        ps.evaluated(System.nanoTime() - r0, true);
+                        double thrFr = (fr.threshold != null) ? fr.threshold : defaultThr;
+                        if (score >= thrFr) profiler.accepted(ps, obfFieldKey, RuleProfiler.contributions(hitWeights, maxW, SIGNAL_SCALE));
+                    }
+                    int priority = (fr.priority != null) ? fr.priority : 0;
+                    MatchResult m = new MatchResult(fr.id, obfFieldKey, score, priority, ev, multiplier);
+                    if (trace != null) trace.scored(m);
+                    candidates.add(m);
+                }
+                if (memoKey != null) memo.put(memoKey, candidates.subList(candidatesBefore, candidates.size()));
+
+                if (event.shouldCommit()) {
+                    event.kind = "field";
+                    event.subject = fr.id;
+                    event.evaluations = evaluated;
+                    event.candidates = candidates.size() - candidatesBefore;
+                    event.commit();
+                }
+            }
+
+            if (stage > 0) {
+                // Later stages only compete for fields the earlier ones left unmapped.
+                Set<String> taken = new HashSet<>(report.fieldMappings().values());
+                candidates.removeIf(m -> taken.contains(m.obfName()));
+            }
+            FieldSolver.Stats st = FieldSolver.apply(report, candidates, thr);
+            stats = (stats == null) ? st : stats.plus(st);
+        }
+
+        if (profiler != null) profiler.creditWinners("field", report.fieldMappings());
+
+        ctx.metrics().count("candidatesScored", stats.candidates());
+        ctx.metrics().count("fieldRulesScored", scored);
+        ctx.metrics().count("fieldRulesMemoized", memoized);
+        ctx.metrics().count("solverOwners", stats.owners());
+        ctx.metrics().count("solverMaxMatrix", stats.maxMatrix());
+        ctx.metrics().count("solverCells", stats.cells());
+        ctx.metrics().count("fieldStages", stages.size());
+        ctx.metrics().count("fieldsMapped", report.fieldMappings().size());
+        ctx.metrics().count("fieldsUnresolved", report.unresolvedFieldTargets().size());
+
+        if (memo != null) ctx.log().println("Field rules scored: " + scored + " (memoized: " + memoized + ")");
+        ctx.log().println("Identified fields: " + report.fieldMappings().size());
+        ctx.log().println("Unresolved fields: " + report.unresolvedFieldTargets().size());
+    }
+
+    /**
+     * Groups field rules into solving stages for coAccessWith signals, which read the mappings of
+     * other field targets. A rule id runs one stage after the latest stage of the ids its
+     * coAccessWith signals refer to; ids without such signals (or referring only to targets no
+     * field rule maps) run in stage 0. All rules of one id share a stage, so alternatives still
+     * compete in one solve. Cycles are cut where they are first entered.
+     */
+    static List<List<FieldRule>> coAccessStages(List<FieldRule> fieldRules) {
+        Map<String, Set<String>> deps = new LinkedHashMap<>();
+        for (FieldRule fr : fieldRules) deps.computeIfAbsent(fr.id, k -> new LinkedHashSet<>());
+        for (FieldRule fr : fieldRules) {
+            for (Rule.Signal s : fr.signals) {
+                if ("coAccessWith".equals(s.kind) && deps.containsKey(s.value) && !fr.id.equals(s.value)) deps.get(fr.id).add(s.value);
+            }
+        }
+        Map<String, Integer> stageOf = new HashMap<>();
+        for (String id : deps.keySet()) stageOf(id, deps, stageOf, new HashSet<>());
+
+        List<List<FieldRule>> stages = new ArrayList<>();
+        for (FieldRule fr : fieldRules) {
+            int st = stageOf.get(fr.id);
+            while (stages.size() <= st) stages.add(new ArrayList<>());
+            stages.get(st).add(fr);
+        }
+        stages.removeIf(List::isEmpty);
+        return stages;
+    }
+
+    private static int stageOf(String id, Map<String, Set<String>> deps, Map<String, Integer> stageOf, Set<String> visiting) {
+        Integer known = stageOf.get(id);
+        if (known != null) return known;
+        if (!visiting.add(id)) return -1;
+        int st = 0;
+        for (String d : deps.get(id)) st = Math.max(st, stageOf(d, deps, stageOf, visiting) + 1);
+        visiting.remove(id);
+        stageOf.put(id, st);
+        return st;
+    }
+
+    /** Current mappings of the targets {@code fr}'s coAccessWith signals read, for the score memo key. */
+    private static String coAccessPartners(FieldRule fr, MappingReport report) {
+        StringBuilder sb = new StringBuilder();
+        for (Rule.Signal s : fr.signals) {
+            if ("coAccessWith".equals(s.kind)) sb.append('|').append(s.value).append('=').append(report.fieldMappings().get(s.value));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * fieldPatterns whose operand constraints reference mapped targets ("owner=@Player") cannot be
+     * compiled before class identification. They are resolved here, compiled into their own set,
+     * and evaluated by rescanning only the owner classes whose rules use them.
+     */
+    private static final class TargetPatterns {
+        private final ClassGroup group;
+        private final Map<String, String> resolved = new HashMap<>();
+        private final PatternSet patterns;
+        private final Map<String, Map<String, FieldFeatures>> rescanned = new HashMap<>();
+
+        TargetPatterns(ClassGroup group, List<FieldRule> fieldRules, MappingReport report, FeatureIndex idx, PrintStream log) {
+            this.group = group;
+            for (FieldRule fr : fieldRules) {
+                for (Rule.Signal s : fr.signals) {
+                    if (!"fieldPattern".equals(s.kind) || s.value == null) continue;
+                    String p = (s.pattern != null) ? s.pattern : PatternValue.parse(s.value).pattern();
+                    if (!OpcodeRegex.hasTargetRefs(p) || resolved.containsKey(p)) continue;
+                    String r = OpcodeRegex.resolveTargets(p, t -> report.classMappings().get(t));
+                    if (r != null) resolved.put(p, r);
+                }
+            }
+            this.patterns = PatternSet.compile(resolved.values(), idx.symbols(), log);
+        }
+
+        /** Number of resolved patterns; 0 if no rule references mapped targets. */
+        int size() { return resolved.isEmpty() ? 0 : patterns.size(); }
+
+        /** The resolved form of every target-referencing fieldPattern of {@code fr}, in signal order. */
+        String resolvedFor(FieldRule fr) {
+            StringBuilder sb = new StringBuilder();
+            for (Rule.Signal s : fr.signals) {
+                if (!"fieldPattern".equals(s.kind) || s.value == null) continue;
+                String p = (s.pattern != null) ? s.pattern : PatternValue.parse(s.value).pattern();
+                if (OpcodeRegex.hasTargetRefs(p)) sb.append('|').append(resolved.get(p));
+            }
+            return sb.toString();
+        }
+
+        boolean fieldPattern(FieldFeatures ff, Rule.Signal s, FeatureIndex idx, List<String> ev) {
+            if (s.value == null || s.value.isBlank()) return false;
+            String p = SignalValues.patternSource(s);
+            if (!OpcodeRegex.hasTargetRefs(p)) return FieldSignals.fieldPattern(ff, p, s.min, idx.patterns(), ev);
+
+            String r = resolved.get(p);
+            if (r == null) return false;
+            FieldFeatures rescan = rescanned
+                    .computeIfAbsent(ff.owner(), this::rescan)
+                    .get(ff.name() + ":" + ff.desc());
+            return rescan != null && FieldSignals.fieldPattern(rescan, r, s.min, patterns, ev);
+        }
+
+        private Map<String, FieldFeatures> rescan(String owner) {
+            Map<String, FieldFeatures> out = new HashMap<>();
+            var cn = group.withCode(owner);
+            if (cn == null) return out;
+            for (FieldFeatures f : FieldFeatures.extractAll(cn, patterns)) out.put(f.name() + ":" + f.desc(), f);
+            return out;
+        }
+    }
+
+    private static LiteralIndex.Postings constPostings(FeatureIndex idx, Rule.Signal s) {
+        return (s.canonical != null) ? idx.literals().constCanonical(s.canonical) : idx.literals().constEq(s.value);
+    }
+
+    /**
+     * Translates semantic class names in descriptors to their obfuscated equivalents.
+     * Examples:
+     *   "Lclient/Player;" -> "Labc;" (if Player maps to abc)
+     *   "[Lclient/Player;" -> "[Labc;"
+     *   "[[Lclient/Player;" -> "[[Labc;"
+     *   "I" -> "I" (primitives unchanged)
+     */
+    private static String translateDescriptor(String desc, MappingReport report) {
+        if (desc == null || desc.isEmpty()) return desc;
+
+        // Count leading array brackets
+        int arrayDepth = 0;
+        while (arrayDepth < desc.length() && desc.charAt(arrayDepth) == '[') {
+            arrayDepth++;
+        }
+
+        String rest = desc.substring(arrayDepth);
+
+        // Check if it's an object type (L...;)
+        if (rest.startsWith("L") && rest.endsWith(";")) {
+            String className = rest.substring(1, rest.length() - 1);
+
+            // Try to find a mapping for this class
+            // First, try direct lookup (e.g., "Player")
+            String obf = report.classMappings().get(className);
+
+            // If not found, try stripping common prefixes (e.g., "client/Player" -> "Player")
+            if (obf == null && className.contains("/")) {
+                String simpleClassName = className.substring(className.lastIndexOf('/') + 1);
+                obf = report.classMappings().get(simpleClassName);
+            }
+
+            if (obf != null) {
+                // Build translated descriptor with array brackets
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < arrayDepth; i++) sb.append('[');
+                sb.append('L').append(obf).append(';');
+                return sb.toString();
+            }
+        }
+
+        // No translation needed or mapping not found
+        return desc;
+    }
+
+    /**
+     * Extract the most commonly used IMUL constant for reading this field.
+     * This is the "decoder" multiplier used to get the real value.
+     * Returns null if no multiplier is detected or field is not an int.
+     */
+    private static Integer extractDominantMultiplier(FieldFeatures ff) {
+        if (!"I".equals(ff.desc())) return null;
+
+        Map<Integer, Integer> readMults = ff.imulConstantsReads();
+        if (readMults == null || readMults.isEmpty()) return null;
+
+        // Find the most frequently used multiplier
+        Integer dominant = null;
+        int maxCount = 0;
+        for (var entry : readMults.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                dominant = entry.getKey();
+            }
+        }
+
+        return dominant;
+    }
+}
@@ -0,0 +1,100 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.core.*;
+import com.betterdeob.jfr.RuleBatchEvent;
+import com.betterdeob.match.ClassRuleMatcher;
+import com.betterdeob.match.MatchResult;
+import com.betterdeob.match.ScoreMemo;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.Rule;
+import com.betterdeob.rules.RuleHash;
+import com.betterdeob.solve.Solver;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public final class IdentifyPass implements Pass {
+    @Override public String name() { return "Identify"; }
+    @Override public Set<String> inputs() { return Set.of(CLASSES, FEATURES); }
+    @Override public Set<String> outputs() { return Set.of(CLASS_MAPPINGS); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) {
+        var idx = ctx.featureIndex();
+        var rules = ctx.rules();
+
+        ScoreMemo memo = openMemo(ctx);
+        List<MatchResult> all = new ArrayList<>(group.size() * Math.max(1, rules.classRules().size()));
+
+        // Rules with memoized candidates skip scoring; the rest are scored class by class below.
+        List<Rule> fresh = new ArrayList<>();
+        List<String> freshKeys = new ArrayList<>();
+        for (Rule r : rules.classRules()) {
+            if (!"class".equalsIgnoreCase(r.type)) continue;
+            String key = (memo == null) ? null : "class:" + RuleHash.of(r);
+            List<MatchResult> cached = (memo == null) ? null : memo.get(key);
+            if (cached != null) {
+                all.addAll(cached);
+            } else {
+                fresh.add(r);
+                freshKeys.add(key);
+            }
+        }
+
+        ClassRuleMatcher matcher = new ClassRuleMatcher(rules, ctx.ruleProfiler(), ctx.signalTrace());
+        List<List<MatchResult>> perRule = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) perRule.add(new ArrayList<>());
+
+        for (ClassNode cn : group.all()) {
+            RuleBatchEvent event = new RuleBatchEvent();
+            event.begin();
+            int found = 0;
+            for (int i = 0; i < fresh.size(); i++) {
+                MatchResult m = matcher.match(fresh.get(i), cn, idx);
+                if (m == null) continue;
+                perRule.get(i).add(m);
+                found++;
+            }
+            if (event.shouldCommit()) {
+                event.kind = "class";
+                event.subject = cn.name;
+                event.evaluations = fresh.size();
+                event.candidates = found;
+                event.commit();
+            }
+        }
+        for (int i = 0; i < fresh.size(); i++) {
+            all.addAll(perRule.get(i));
+            if (memo != null) memo.put(freshKeys.get(i), perRule.get(i));
+        }
+
+        MappingReport report = Solver.solve(all, rules.thresholdDefault(), rules, ctx.report());
+        ctx.setReport(report);
+        if (ctx.ruleProfiler() != null) ctx.ruleProfiler().creditWinners("class", report.classMappings());
+
+        ctx.metrics().count("rulesEvaluated", (long) group.size() * fresh.size());
+        ctx.metrics().count("rulesMemoized", rules.classRules().size() - fresh.size());
+        ctx.metrics().count("candidatesScored", all.size());
+        ctx.metrics().count("classesMapped", report.classMappings().size());
+        ctx.metrics().count("classesUnresolved", report.unresolvedTargets().size());
+
+        if (memo != null) ctx.log().println("Class rules scored: " + fresh.size() + " (memoized: " + (rules.classRules().size() - fresh.size()) + ")");
+        ctx.log().println("Identified targets: " + report.classMappings().size());
+        ctx.log().println("Unresolved targets: " + report.unresolvedTargets().size());
+    }
+
+    /** Memoization needs the index key and is skipped while profiling, which has to see every evaluation. */
+    private static ScoreMemo openMemo(DeobContext ctx) {
+        if (ctx.scoreMemo() != null) return ctx.scoreMemo();
+        if (ctx.scoreMemoDir() == null || ctx.featureIndexKey() == null) return null;
+        if (ctx.ruleProfiler() != null) {
+            ctx.log().println("Score memo disabled while --profile-rules is on.");
+            return null;
+        }
+        ScoreMemo memo = ScoreMemo.open(ctx.scoreMemoDir(), ctx.featureIndexKey(), ctx.cacheKeep(), ctx.log());
+        ctx.setScoreMemo(memo);
+        return memo;
+    }
+}
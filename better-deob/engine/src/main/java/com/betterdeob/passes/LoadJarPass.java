@@ -0,0 +1,40 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.core.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Reads the jar into the group. Classes are read as headers only (no method bodies) unless the
+ * run analyses every class; ExtractFeaturesPass then streams the classes as they are added, so
+ * extraction overlaps reading and decompressing the jar.
+ */
+public final class LoadJarPass implements Pass {
+    private final Path jar;
+    private final ByteBuffer bytes;
+
+    public LoadJarPass(Path jar) {
+        this.jar = jar;
+        this.bytes = null;
+    }
+
+    /** A jar held in memory (the buffer's remaining bytes; its position is left unchanged). */
+    public LoadJarPass(ByteBuffer jar) {
+        this.jar = null;
+        this.bytes = jar;
+    }
+
+    @Override public String name() { return "LoadJar"; }
+    @Override public Set<String> outputs() { return Set.of(CLASSES); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) throws Exception {
+        boolean code = ExtractFeaturesPass.analysesEveryClass(ctx);
+        if (jar != null) JarLoader.read(jar, group, code);
+        else JarLoader.read(bytes, group, code);
+        ctx.log().println("Loaded classes: " + group.size() + (code ? "" : " (headers only)"));
+        ctx.metrics().count("classesLoaded", group.size());
+    }
+}
@@ -2,13 +2,17 @@ package com.betterdeob.passes;
 
 import com.betterdeob.core.*;
 
+import java.util.Set;
+
 public final class NormalizePass implements Pass {
     @Override public String name() { return "Normalize"; }
+    // Rewrites nothing yet, so it outputs nothing; a transform added here must output CLASSES.
+    @Override public Set<String> inputs() { return Set.of(CLASSES); }
 
     @Override
     public void run(ClassGroup group, DeobContext ctx) {
         // Conservative starter: no bytecode rewriting.
         // Add transforms later (dead code removal, constant folding, etc.).
-        System.out.println("Normalize: no-op (starter).");
+        ctx.log().println("Normalize: no-op (starter).");
     }
 }
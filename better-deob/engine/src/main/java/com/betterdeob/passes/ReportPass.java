@@ -0,0 +1,109 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.core.*;
+import com.betterdeob.report.HooksDelta;
+import com.betterdeob.report.HooksWriter;
+import com.betterdeob.report.MappingReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Set;
+
+public final class ReportPass implements Pass {
+    @Override public String name() { return "Report"; }
+    @Override public Set<String> inputs() { return Set.of(CLASSES, CLASS_MAPPINGS, FIELD_MAPPINGS); }
+    @Override public Set<String> outputs() { return Set.of(HOOKS); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) throws Exception {
+        Path out = ctx.outDir();
+        Files.createDirectories(out);
+
+        MappingReport report = ctx.report();
+
+        ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        om.writeValue(out.resolve("mapping_classes.json").toFile(), report.classMappings());
+        om.writeValue(out.resolve("mapping_fields.json").toFile(), report.fieldMappings());
+        om.writeValue(out.resolve("mapping_multipliers.json").toFile(), report.fieldMultipliers());
+        report.evidence().close();
+
+        // Read the previously published revision before it is replaced, then publish full + delta.
+        Path hooksDir = ctx.hooksDir();
+        HooksDelta.Revision prev = HooksDelta.read(hooksDir.resolve(HooksWriter.FILE));
+        HooksDelta.Revision next = HooksDelta.of(report, System.currentTimeMillis());
+        HooksWriter.Stats hooks = HooksWriter.write(report, next, hooksDir);
+        HooksWriter.Stats delta = null;
+        if (prev == null) Files.deleteIfExists(hooksDir.resolve(HooksDelta.FILE));
+        else if (!prev.hash().equals(next.hash())) delta = HooksDelta.write(prev, next, hooksDir);
+        // Same revision: the existing delta (into this revision) stays valid for clients one behind.
+
+        var summary = new java.util.LinkedHashMap<String, Object>();
+        summary.put("classesInJar", group.size());
+        summary.put("mappedClasses", report.classMappings().size());
+        summary.put("mappedFields", report.fieldMappings().size());
+        summary.put("mappedMultipliers", report.fieldMultipliers().size());
+        summary.put("unresolvedClasses", report.unresolvedTargets().size());
+        summary.put("unresolvedFields", report.unresolvedFieldTargets().size());
+        summary.put("fieldConflicts", report.conflictCount());
+        summary.put("evidenceRecords", report.evidence().records());
+        summary.put("inputJar", ctx.inputJar() == null ? null : ctx.inputJar().toString());
+        if (ctx.inputJar() != null) summary.put("inputJarSha256", sha256Hex(Files.readAllBytes(ctx.inputJar())));
+
+        var hooksSummary = new java.util.LinkedHashMap<String, Object>();
+        hooksSummary.put("path", hooksDir.resolve(HooksWriter.FILE).toString());
+        hooksSummary.put("classes", hooks.classes());
+        hooksSummary.put("fields", hooks.fields());
+        hooksSummary.put("multipliers", hooks.multipliers());
+        hooksSummary.put("bytes", hooks.bytes());
+        hooksSummary.put("gzBytes", hooks.gzBytes());
+        hooksSummary.put("sha256", hooks.sha256());
+        hooksSummary.put("revisionHash", next.hash());
+        summary.put("hooks", hooksSummary);
+
+        if (delta != null) {
+            var deltaSummary = new java.util.LinkedHashMap<String, Object>();
+            deltaSummary.put("path", hooksDir.resolve(HooksDelta.FILE).toString());
+            deltaSummary.put("from", prev.hash());
+            deltaSummary.put("to", next.hash());
+            deltaSummary.put("classesChanged", delta.classes());
+            deltaSummary.put("fieldsChanged", delta.fields());
+            deltaSummary.put("multipliersChanged", delta.multipliers());
+            deltaSummary.put("bytes", delta.bytes());
+            deltaSummary.put("gzBytes", delta.gzBytes());
+            summary.put("hooksDelta", deltaSummary);
+        }
+        om.writeValue(out.resolve("summary.json").toFile(), summary);
+
+        ctx.metrics().count("hooksBytes", hooks.bytes());
+        ctx.metrics().count("hooksGzBytes", hooks.gzBytes());
+
+        ctx.log().println("Wrote mapping_classes.json, mapping_fields.json, mapping_multipliers.json, summary.json (evidence records: "
+                + report.evidence().records() + ")");
+        ctx.log().println("Wrote " + hooksDir.resolve(HooksWriter.FILE) + " (+.gz): classes=" + hooks.classes()
+                + " fields=" + hooks.fields() + " multipliers=" + hooks.multipliers() + " bytes=" + hooks.bytes());
+        if (delta != null) {
+            ctx.log().println("Wrote " + HooksDelta.FILE + " " + prev.hash().substring(0, 12) + " -> " + next.hash().substring(0, 12)
+                    + ": classes=" + delta.classes() + " fields=" + delta.fields() + " multipliers=" + delta.multipliers()
+                    + " bytes=" + delta.bytes());
+        }
+
+        if (ctx.ruleProfiler() != null) ctx.ruleProfiler().write(out, ctx.log());
+        if (ctx.scoreMemo() != null) {
+            ctx.scoreMemo().save();
+            ctx.metrics().count("memoHits", ctx.scoreMemo().hits());
+            ctx.metrics().count("memoMisses", ctx.scoreMemo().misses());
+        }
+    }
+
+    private static String sha256Hex(byte[] data) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] dig = md.digest(data);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : dig) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
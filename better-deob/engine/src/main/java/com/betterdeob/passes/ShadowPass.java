@@ -0,0 +1,94 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.core.*;
+import com.betterdeob.report.MappingDiff;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.RuleSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Runs class and field identification for every --shadow-rules set on the primary run's
+ * FeatureIndex and writes shadow-diff.json against the primary mappings.
+ *
+ * The shadow sets run concurrently, each in its own context with its own report, so the only
+ * extra cost over a single run is scoring and solving. ExtractFeaturesPass already compiled the
+ * shadow sets' fieldPatterns into the shared index. With --score-memo the shadows share the
+ * primary run's memo, so rules that did not change between the sets are not scored again.
+ * It runs next to ReportPass, which may save the memo first, so it saves the memo again.
+ */
+public final class ShadowPass implements Pass {
+    public static final String FILE = "shadow-diff.json";
+
+    @Override public String name() { return "Shadow"; }
+    @Override public Set<String> inputs() { return Set.of(CLASSES, FEATURES, CLASS_MAPPINGS, FIELD_MAPPINGS); }
+    @Override public Set<String> outputs() { return Set.of(SHADOW_DIFF); }
+
+    @Override
+    public void run(ClassGroup group, DeobContext ctx) throws Exception {
+        List<DeobContext.Shadow> shadows = ctx.shadowRules();
+        if (shadows.isEmpty()) return;
+
+        // Each set scores and solves on its own; weighted by rule count so the largest starts first.
+        MappingReport[] reports = new MappingReport[shadows.size()];
+        List<Integer> sets = new ArrayList<>();
+        for (int i = 0; i < shadows.size(); i++) sets.add(i);
+        ctx.scheduler().forEach(sets,
+                i -> shadows.get(i).rules().classRules().size() + shadows.get(i).rules().fieldRules().size(),
+                i -> reports[i] = identify(group, ctx, shadows.get(i).rules()));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("baselineClasses", ctx.report().classMappings().size());
+        out.put("baselineFields", ctx.report().fieldMappings().size());
+        List<Map<String, Object>> entries = new ArrayList<>();
+        long totalChanges = 0;
+        for (int i = 0; i < shadows.size(); i++) {
+            MappingReport report = reports[i];
+            MappingDiff.Result diff = MappingDiff.of(ctx.report(), report);
+            totalChanges += diff.size();
+
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("rules", shadows.get(i).path().toString());
+            e.put("classesMapped", report.classMappings().size());
+            e.put("fieldsMapped", report.fieldMappings().size());
+            e.put("differences", diff.size());
+            e.put("classes", diff.classes());
+            e.put("fields", diff.fields());
+            e.put("multipliers", diff.multipliers());
+            entries.add(e);
+
+            ctx.log().println("Shadow " + shadows.get(i).path() + ": classes=" + report.classMappings().size()
+                    + " fields=" + report.fieldMappings().size() + " differences=" + diff.size()
+                    + " (classes " + diff.classes().size() + ", fields " + diff.fields().size()
+                    + ", multipliers " + diff.multipliers().size() + ")");
+        }
+        out.put("shadows", entries);
+
+        Files.createDirectories(ctx.outDir());
+        Path file = ctx.outDir().resolve(FILE);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), out);
+        ctx.log().println("Wrote " + file);
+
+        if (ctx.scoreMemo() != null) ctx.scoreMemo().save();
+        ctx.metrics().count("shadowRuleSets", shadows.size());
+        ctx.metrics().count("shadowDifferences", totalChanges);
+    }
+
+    private static MappingReport identify(ClassGroup group, DeobContext primary, RuleSet rules) throws Exception {
+        DeobContext ctx = new DeobContext(primary.outDir(), rules);
+        ctx.setInputJar(primary.inputJar());
+        ctx.setThreads(1);
+        ctx.setScheduler(primary.scheduler());
+        ctx.setLog(primary.log());
+        ctx.setFeatureIndex(primary.featureIndex());
+        ctx.setFeatureIndexKey(primary.featureIndexKey());
+        ctx.setScoreMemo(primary.scoreMemo());
+        new IdentifyPass().run(group, ctx);
+        new IdentifyFieldsPass().run(group, ctx);
+        return ctx.report();
+    }
+}
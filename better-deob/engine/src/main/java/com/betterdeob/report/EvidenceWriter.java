@@ -0,0 +1,151 @@
+package com.betterdeob.report;
+
+import com.betterdeob.match.MatchResult;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams match evidence as gzip-compressed newline-delimited JSON while the solvers run.
+ *
+ * One record per line, each with a {@code type}:
+ * class / field (winners: target, obf, confidence, evidence[, multiplier]),
+ * rejected (target, obf, confidence, reason, evidence), conflict (obfField, competingTargets,
+ * winner, reason), unresolvedClass / unresolvedField (target).
+ *
+ * Nothing is kept in memory. An optional target filter (regex, find semantics) drops records
+ * whose targets do not match; conflicts are kept if any competing target matches.
+ */
+public final class EvidenceWriter implements Closeable {
+    public static final String FILE = "evidence.ndjson.gz";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final JsonGenerator gen;
+    private final Pattern filter;
+    private long records;
+    private boolean closed;
+
+    private EvidenceWriter(JsonGenerator gen, Pattern filter) {
+        this.gen = gen;
+        this.filter = filter;
+    }
+
+    /** Writer that drops everything (benchmarks, tools that only need mappings). */
+    public static EvidenceWriter discard() {
+        return new EvidenceWriter(null, null);
+    }
+
+    /** @param filter regex over target names, or null to keep every record */
+    public static EvidenceWriter open(Path file, Pattern filter) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), 1 << 16);
+        JsonGenerator gen = JSON.createGenerator(out, JsonEncoding.UTF8);
+        gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        return new EvidenceWriter(gen, filter);
+    }
+
+    public long records() { return records; }
+
+    public synchronized void winner(String type, String target, String obf, double confidence, List<String> evidence,
+                                    Integer multiplier) {
+        if (!keep(target)) return;
+        try {
+            begin(type);
+            gen.writeStringField("target", target);
+            gen.writeStringField("obf", obf);
+            gen.writeNumberField("confidence", confidence);
+            if (multiplier != null) gen.writeNumberField("multiplier", multiplier);
+            strings("evidence", evidence);
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void rejected(MatchResult m, String reason) {
+        if (!keep(m.targetName())) return;
+        try {
+            begin("rejected");
+            gen.writeStringField("target", m.targetName());
+            gen.writeStringField("obf", m.obfName());
+            gen.writeNumberField("confidence", m.confidence());
+            gen.writeStringField("reason", reason);
+            strings("evidence", m.evidence());
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void conflict(String obfField, List<MatchResult> candidates, MatchResult winner, String reason) {
+        if (gen == null) return;
+        if (filter != null && candidates.stream().noneMatch(c -> filter.matcher(c.targetName()).find())) return;
+        try {
+            begin("conflict");
+            gen.writeStringField("obfField", obfField);
+            gen.writeArrayFieldStart("competingTargets");
+            for (MatchResult m : candidates) {
+                gen.writeStartObject();
+                gen.writeStringField("target", m.targetName());
+                gen.writeNumberField("confidence", m.confidence());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeStringField("winner", winner != null ? winner.targetName() : null);
+            gen.writeStringField("reason", reason);
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void unresolved(String type, String target) {
+        if (!keep(target)) return;
+        try {
+            begin(type);
+            gen.writeStringField("target", target);
+            end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (gen == null || closed) return;
+        closed = true;
+        gen.close();
+    }
+
+    private boolean keep(String target) {
+        return gen != null && (filter == null || (target != null && filter.matcher(target).find()));
+    }
+
+    private void begin(String type) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", type);
+    }
+
+    private void end() throws IOException {
+        gen.writeEndObject();
+        records++;
+    }
+
+    private void strings(String field, List<String> values) throws IOException {
+        gen.writeArrayFieldStart(field);
+        if (values != null) for (String v : values) gen.writeString(v);
+        gen.writeEndArray();
+    }
+}
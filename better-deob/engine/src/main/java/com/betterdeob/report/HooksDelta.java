@@ -0,0 +1,138 @@
+package com.betterdeob.report;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Compact patch between the previously published hooks.json and the new one.
+ *
+ * Revisions are identified by {@link #revisionHash}, a SHA-256 over the sorted class, field and
+ * multiplier entries (timestamps excluded), so an unchanged mapping keeps its hash. A client
+ * holding revision {@code from} applies the delta to reach {@code to}; any other client fetches
+ * the full file.
+ */
+public final class HooksDelta {
+    public static final String FILE = "hooks.delta.json";
+
+    /** Mapping content of a published hooks.json. */
+    public record Revision(String hash, long timestamp, Map<String, String> classes, Map<String, String> fields,
+                           Map<String, Long> multipliers) {}
+
+    private HooksDelta() {}
+
+    public static Revision of(MappingReport report, long timestamp) {
+        Map<String, Long> mults = new TreeMap<>();
+        report.fieldMultipliers().forEach((k, v) -> mults.put(k, v.longValue()));
+        Map<String, String> classes = report.classMappings();
+        Map<String, String> fields = report.fieldMappings();
+        return new Revision(revisionHash(classes, fields, mults), timestamp, classes, fields, mults);
+    }
+
+    /** Reads a published hooks.json; null if it does not exist or cannot be parsed. */
+    public static Revision read(Path hooksFile) {
+        if (!Files.isRegularFile(hooksFile)) return null;
+        try {
+            JsonNode root = new ObjectMapper().readTree(hooksFile.toFile());
+            Map<String, String> classes = strings(root.get("classes"));
+            Map<String, String> fields = strings(root.get("fields"));
+            Map<String, Long> mults = new TreeMap<>();
+            JsonNode m = root.get("multipliers");
+            if (m != null) m.fields().forEachRemaining(e -> mults.put(e.getKey(), e.getValue().asLong()));
+            return new Revision(revisionHash(classes, fields, mults), root.path("timestamp").asLong(0), classes, fields, mults);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable previous " + hooksFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static String revisionHash(Map<String, String> classes, Map<String, String> fields, Map<String, Long> multipliers) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest(md, 'c', classes);
+        digest(md, 'f', fields);
+        digest(md, 'm', multipliers);
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /** Writes hooks.delta.json (+ .gz) from {@code prev} to {@code next}; counts in the stats are changed entries. */
+    public static HooksWriter.Stats write(Revision prev, Revision next, Path dir) throws IOException {
+        int[] counts = new int[3];
+        return HooksWriter.write(dir, FILE, gen -> {
+            gen.writeStringField("from", prev.hash());
+            gen.writeStringField("to", next.hash());
+            gen.writeNumberField("fromTimestamp", prev.timestamp());
+            gen.writeNumberField("timestamp", next.timestamp());
+            counts[0] = section(gen, "classes", prev.classes(), next.classes());
+            counts[1] = section(gen, "fields", prev.fields(), next.fields());
+            counts[2] = section(gen, "multipliers", prev.multipliers(), next.multipliers());
+        }, counts);
+    }
+
+    /** {"added": {k: v}, "removed": [k], "changed": {k: newValue}}; returns the number of entries listed. */
+    private static <V> int section(JsonGenerator gen, String name, Map<String, V> before, Map<String, V> after) throws IOException {
+        int n = 0;
+        gen.writeObjectFieldStart(name);
+
+        gen.writeObjectFieldStart("added");
+        for (var e : sorted(after).entrySet()) {
+            if (before.containsKey(e.getKey())) continue;
+            writeValue(gen, e.getKey(), e.getValue());
+            n++;
+        }
+        gen.writeEndObject();
+
+        gen.writeArrayFieldStart("removed");
+        for (String k : sorted(before).keySet()) {
+            if (after.containsKey(k)) continue;
+            gen.writeString(k);
+            n++;
+        }
+        gen.writeEndArray();
+
+        gen.writeObjectFieldStart("changed");
+        for (var e : sorted(after).entrySet()) {
+            V old = before.get(e.getKey());
+            if (old == null || old.equals(e.getValue())) continue;
+            writeValue(gen, e.getKey(), e.getValue());
+            n++;
+        }
+        gen.writeEndObject();
+
+        gen.writeEndObject();
+        return n;
+    }
+
+    private static void writeValue(JsonGenerator gen, String key, Object v) throws IOException {
+        if (v instanceof Number num) gen.writeNumberField(key, num.longValue());
+        else gen.writeStringField(key, String.valueOf(v));
+    }
+
+    private static <V> SortedMap<String, V> sorted(Map<String, V> m) {
+        return (m instanceof SortedMap<String, V> s) ? s : new TreeMap<>(m);
+    }
+
+    private static void digest(MessageDigest md, char section, Map<String, ?> map) {
+        for (var e : sorted(map).entrySet()) {
+            md.update((section + "\t" + e.getKey() + "\t" + e.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> strings(JsonNode node) {
+        Map<String, String> out = new TreeMap<>();
+        if (node != null) node.fields().forEachRemaining(e -> out.put(e.getKey(), e.getValue().asText()));
+        return out;
+    }
+}
@@ -0,0 +1,107 @@
+package com.betterdeob.report;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams hooks.json (the document served to clients) straight from the {@link MappingReport}.
+ *
+ * The JSON is generated once and teed into the plain file and a precompressed .gz twin
+ * (for nginx gzip_static). Both are written to temp files and renamed into place, so readers
+ * never see a partial document.
+ */
+public final class HooksWriter {
+    public static final String FILE = "hooks.json";
+    public static final String DISCOVERED_BY = "BetterDeob-Container";
+
+    private static final JsonFactory JSON = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public record Stats(int classes, int fields, int multipliers, long bytes, long gzBytes, String sha256) {}
+
+    private HooksWriter() {}
+
+    /** @param revision content hash and timestamp of this report (see {@link HooksDelta#of}) */
+    public static Stats write(MappingReport report, HooksDelta.Revision revision, Path dir) throws IOException {
+        return write(dir, FILE, gen -> {
+            gen.writeNumberField("revision", 0);
+            gen.writeStringField("revisionHash", revision.hash());
+            gen.writeNumberField("timestamp", revision.timestamp());
+            gen.writeStringField("discoveredBy", DISCOVERED_BY);
+            writeStrings(gen, "classes", report.classMappings());
+            writeStrings(gen, "fields", report.fieldMappings());
+            gen.writeObjectFieldStart("multipliers");
+            for (var e : report.fieldMultipliers().entrySet()) gen.writeNumberField(e.getKey(), e.getValue());
+            gen.writeEndObject();
+        }, new int[] {report.classMappings().size(), report.fieldMappings().size(), report.fieldMultipliers().size()});
+    }
+
+    interface Body { void write(JsonGenerator gen) throws IOException; }
+
+    /**
+     * Writes one JSON object document as {@code name} and {@code name.gz} in {@code dir}, atomically.
+     * {@code counts} (classes, fields, multipliers) is read after the body ran, so bodies may fill it in.
+     */
+    static Stats write(Path dir, String name, Body body, int[] counts) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(name);
+        Path targetGz = dir.resolve(name + ".gz");
+        Path tmp = dir.resolve("." + name + ".tmp");
+        Path tmpGz = dir.resolve("." + name + ".gz.tmp");
+
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (OutputStream plain = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), sha);
+             OutputStream gz = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpGz)), 1 << 16);
+             JsonGenerator gen = JSON.createGenerator(new Tee(plain, gz), JsonEncoding.UTF8)) {
+            // Generator closes first (flushing into the tee), then the streams.
+            gen.writeStartObject();
+            body.write(gen);
+            gen.writeEndObject();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            Files.deleteIfExists(tmpGz);
+            throw e;
+        }
+
+        long bytes = Files.size(tmp);
+        long gzBytes = Files.size(tmpGz);
+        // Plain file last: pollers keyed on hooks.json never see it ahead of its .gz twin.
+        Files.move(tmpGz, targetGz, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Stats(counts[0], counts[1], counts[2], bytes, gzBytes, HexFormat.of().formatHex(sha.digest()));
+    }
+
+    static void writeStrings(JsonGenerator gen, String field, Map<String, String> map) throws IOException {
+        gen.writeObjectFieldStart(field);
+        for (var e : map.entrySet()) gen.writeStringField(e.getKey(), e.getValue());
+        gen.writeEndObject();
+    }
+
+    /** Duplicates every write into two streams. */
+    private static final class Tee extends OutputStream {
+        private final OutputStream a, b;
+
+        Tee(OutputStream a, OutputStream b) { this.a = a; this.b = b; }
+
+        @Override public void write(int v) throws IOException { a.write(v); b.write(v); }
+        @Override public void write(byte[] buf, int off, int len) throws IOException { a.write(buf, off, len); b.write(buf, off, len); }
+        @Override public void flush() throws IOException { a.flush(); b.flush(); }
+    }
+}
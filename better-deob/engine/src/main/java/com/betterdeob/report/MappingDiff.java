@@ -0,0 +1,49 @@
+package com.betterdeob.report;
+
+import java.util.*;
+
+/**
+ * Difference between the mappings of two rule sets run on the same jar.
+ *
+ * Each section lists targets only the baseline mapped (removed), targets only the other rule set
+ * mapped (added) and targets both mapped to different obfuscated names (changed, as from/to).
+ */
+public final class MappingDiff {
+    public record Section(Map<String, Object> removed, Map<String, Object> added, Map<String, Map<String, Object>> changed) {
+        public int size() { return removed.size() + added.size() + changed.size(); }
+    }
+
+    public record Result(Section classes, Section fields, Section multipliers) {
+        public int size() { return classes.size() + fields.size() + multipliers.size(); }
+    }
+
+    private MappingDiff() {}
+
+    public static Result of(MappingReport base, MappingReport other) {
+        return new Result(
+                section(base.classMappings(), other.classMappings()),
+                section(base.fieldMappings(), other.fieldMappings()),
+                section(base.fieldMultipliers(), other.fieldMultipliers()));
+    }
+
+    private static Section section(Map<String, ?> base, Map<String, ?> other) {
+        Map<String, Object> removed = new TreeMap<>();
+        Map<String, Object> added = new TreeMap<>();
+        Map<String, Map<String, Object>> changed = new TreeMap<>();
+        for (var e : base.entrySet()) {
+            Object o = other.get(e.getKey());
+            if (o == null) {
+                removed.put(e.getKey(), e.getValue());
+            } else if (!o.equals(e.getValue())) {
+                Map<String, Object> c = new LinkedHashMap<>();
+                c.put("from", e.getValue());
+                c.put("to", o);
+                changed.put(e.getKey(), c);
+            }
+        }
+        for (var e : other.entrySet()) {
+            if (!base.containsKey(e.getKey())) added.put(e.getKey(), e.getValue());
+        }
+        return new Section(removed, added, changed);
+    }
+}
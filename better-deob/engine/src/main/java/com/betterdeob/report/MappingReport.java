@@ -0,0 +1,63 @@
+package com.betterdeob.report;
+
+import com.betterdeob.match.MatchResult;
+
+import java.util.*;
+
+public final class MappingReport {
+    private final Map<String, String> classMappings = new TreeMap<>();
+    private final Map<String, String> fieldMappings = new TreeMap<>();
+    private final Map<String, Integer> fieldMultipliers = new TreeMap<>();
+    private final List<String> unresolvedTargets = new ArrayList<>();
+    private final List<String> unresolvedFieldTargets = new ArrayList<>();
+    private EvidenceWriter evidence = EvidenceWriter.discard();
+    private int conflicts;
+
+    public Map<String, String> classMappings() { return classMappings; }
+    public Map<String, String> fieldMappings() { return fieldMappings; }
+    public Map<String, Integer> fieldMultipliers() { return fieldMultipliers; }
+    public List<String> unresolvedTargets() { return unresolvedTargets; }
+    public List<String> unresolvedFieldTargets() { return unresolvedFieldTargets; }
+    public int conflictCount() { return conflicts; }
+
+    /** Evidence is streamed to this writer as mappings are decided; nothing is kept here. */
+    public EvidenceWriter evidence() { return evidence; }
+    public void setEvidence(EvidenceWriter evidence) { this.evidence = evidence; }
+
+    public void putClass(String target, String obf, double confidence, List<String> ev) {
+        classMappings.put(target, obf);
+        evidence.winner("class", target, obf, confidence, ev, null);
+    }
+
+    public void putField(String targetField, String obfField, double confidence, List<String> ev) {
+        fieldMappings.put(targetField, obfField);
+        evidence.winner("field", targetField, obfField, confidence, ev, null);
+    }
+
+    public void putFieldWithMultiplier(String targetField, String obfField, double confidence, List<String> ev, Integer multiplier) {
+        fieldMappings.put(targetField, obfField);
+        if (multiplier != null) {
+            fieldMultipliers.put(targetField, multiplier);
+        }
+        evidence.winner("field", targetField, obfField, confidence, ev, multiplier);
+    }
+
+    public void addUnresolved(String target) {
+        unresolvedTargets.add(target);
+        evidence.unresolved("unresolvedClass", target);
+    }
+
+    public void addUnresolvedField(String target) {
+        unresolvedFieldTargets.add(target);
+        evidence.unresolved("unresolvedField", target);
+    }
+
+    public void addRejected(MatchResult m, String reason) {
+        evidence.rejected(m, reason);
+    }
+
+    public void addConflict(String obfField, List<MatchResult> candidates, MatchResult winner, String reason) {
+        conflicts++;
+        evidence.conflict(obfField, candidates, winner, reason);
+    }
+}
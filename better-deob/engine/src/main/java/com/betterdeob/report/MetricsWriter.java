@@ -0,0 +1,128 @@
+package com.betterdeob.report;
+
+import com.betterdeob.core.RunMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Writes {@link RunMetrics} as metrics.json and as a Prometheus textfile
+ * (node_exporter textfile collector format).
+ */
+public final class MetricsWriter {
+    private static final String PREFIX = "better_deob_";
+
+    private MetricsWriter() {}
+
+    public static void writeJson(RunMetrics metrics, Path file) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("startedAtMillis", metrics.startedAtMillis());
+        root.put("success", metrics.success());
+        root.put("totalWallMillis", metrics.elapsedNanos() / 1_000_000.0);
+        root.put("peakHeapBytes", metrics.peakHeapBytes());
+
+        List<Map<String, Object>> phases = new ArrayList<>();
+        for (RunMetrics.PhaseMetrics p : metrics.phases()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", p.name());
+            m.put("wallMillis", p.wallNanos() / 1_000_000.0);
+            m.put("cpuMillis", p.cpuNanos() < 0 ? null : p.cpuNanos() / 1_000_000.0);
+            m.put("allocatedBytes", p.allocatedBytes() < 0 ? null : p.allocatedBytes());
+            m.put("gcCount", p.gcCount());
+            m.put("gcMillis", p.gcMillis());
+            m.put("peakHeapBytes", p.peakHeapBytes() < 0 ? null : p.peakHeapBytes());
+            m.put("counters", new TreeMap<>(p.counters()));
+            phases.add(m);
+        }
+        root.put("phases", phases);
+
+        List<Map<String, Object>> path = new ArrayList<>();
+        long pathNanos = 0;
+        for (RunMetrics.PathStep s : metrics.criticalPath()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("phase", s.phase());
+            m.put("millis", s.nanos() / 1_000_000.0);
+            path.add(m);
+            pathNanos += s.nanos();
+        }
+        root.put("criticalPathMillis", pathNanos / 1_000_000.0);
+        root.put("criticalPath", path);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), root);
+    }
+
+    /** Written to a temp file and renamed, so the collector never scrapes a partial file. */
+    public static void writePrometheus(RunMetrics metrics, Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        List<RunMetrics.PhaseMetrics> phases = metrics.phases();
+
+        gauge(sb, "run_success", "1 if the last run completed, 0 if it failed.");
+        sample(sb, "run_success", null, metrics.success() ? 1 : 0);
+        gauge(sb, "run_timestamp_seconds", "Start time of the last run.");
+        sample(sb, "run_timestamp_seconds", null, metrics.startedAtMillis() / 1000.0);
+        gauge(sb, "run_wall_seconds", "Wall time of the last run, jar load to hooks written.");
+        sample(sb, "run_wall_seconds", null, metrics.elapsedNanos() / 1e9);
+        gauge(sb, "run_peak_heap_bytes", "Peak heap usage of the last run.");
+        sample(sb, "run_peak_heap_bytes", null, metrics.peakHeapBytes());
+
+        phaseGauge(sb, phases, "phase_wall_seconds", "Wall time per phase.", p -> p.wallNanos() / 1e9);
+        phaseGauge(sb, phases, "phase_cpu_seconds", "Process CPU time per phase.", p -> p.cpuNanos() < 0 ? Double.NaN : p.cpuNanos() / 1e9);
+        phaseGauge(sb, phases, "phase_allocated_bytes", "Bytes allocated by all threads per phase.",
+                p -> p.allocatedBytes() < 0 ? Double.NaN : p.allocatedBytes());
+        phaseGauge(sb, phases, "phase_gc_count", "GC collections per phase.", p -> p.gcCount());
+        phaseGauge(sb, phases, "phase_gc_seconds", "GC time per phase.", p -> p.gcMillis() / 1000.0);
+        phaseGauge(sb, phases, "phase_peak_heap_bytes", "Peak heap usage per phase; NaN if it overlapped another phase.",
+                p -> p.peakHeapBytes() < 0 ? Double.NaN : p.peakHeapBytes());
+
+        gauge(sb, "phase_critical_path_seconds", "Time each pass on the critical path added to the run.");
+        for (RunMetrics.PathStep s : metrics.criticalPath()) {
+            sample(sb, "phase_critical_path_seconds", "phase=\"" + escape(s.phase()) + "\"", s.nanos() / 1e9);
+        }
+
+        gauge(sb, "phase_counter", "Domain counters per phase (classes loaded, windows extracted, candidates scored, ...).");
+        for (RunMetrics.PhaseMetrics p : phases) {
+            for (var e : new TreeMap<>(p.counters()).entrySet()) {
+                sample(sb, "phase_counter", "phase=\"" + escape(p.name()) + "\",counter=\"" + escape(e.getKey()) + "\"", e.getValue());
+            }
+        }
+
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private interface PhaseValue { double of(RunMetrics.PhaseMetrics p); }
+
+    private static void phaseGauge(StringBuilder sb, List<RunMetrics.PhaseMetrics> phases, String name, String help, PhaseValue v) {
+        gauge(sb, name, help);
+        for (RunMetrics.PhaseMetrics p : phases) sample(sb, name, "phase=\"" + escape(p.name()) + "\"", v.of(p));
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(PREFIX).append(name);
+        if (labels != null) sb.append('{').append(labels).append('}');
+        sb.append(' ');
+        if (Double.isNaN(value)) sb.append("NaN");
+        else if (value == Math.rint(value) && Math.abs(value) < 1e15) sb.append((long) value);
+        else sb.append(value);
+        sb.append('\n');
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -16,10 +16,11 @@ import java.util.Map;
  * - accessMaskNone: bits that must be absent (optional)
  *
  * Signals (reuse Rule.Signal):
- * - fieldPattern: value = "DESC|PATTERN" or "PATTERN" (7-token window), min occurrences (default 1)
+ * - fieldPattern: value = "DESC|PATTERN" or "PATTERN" (see OpcodeRegex), min occurrences (default 1)
  * - intMultiplierConstEq: value = "0xDEADBEEF" (unsigned 32-bit) matches if observed IMUL constant equals value
  * - intMultiplierConstAny: min = required occurrences of any IMUL constant seen with reads/writes
  * - readMin / writeMin (min counts)
+ * - ldcStringEq / ldcStringContains / constEq: literal within the 7-token window of an access, min occurrences
  */
 public final class FieldRule {
     public String id;             // e.g., "Client.localPlayer"
@@ -0,0 +1,60 @@
+package com.betterdeob.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rule model for identification.
+ *
+ * Class signals supported:
+ * - minLdcStrings (min)
+ * - minLdcNumbers (min)
+ * - stringHashEq (value = 0x... 64-bit)
+ * - opcode3GramHashEq (value = 0x... 64-bit)
+ * - fieldPattern (value = "DESC|PATTERN", min=occurrences, see OpcodeRegex for the syntax)
+ * - ldcStringEq / ldcStringContains (value = string, min=occurrences in the class)
+ * - constEq (value = decimal/0x hex/float constant, min=occurrences in the class)
+ *
+ * Class constraints: superName / interfaces compare against the direct supertypes;
+ * extendsTransitively / implementsTransitively / hasSubclassCount see the whole hierarchy.
+ *
+ * Field rules (FieldRule) reuse Signal and support:
+ * - fieldPattern
+ * - readMin / writeMin
+ * - intMultiplierConstEq / intMultiplierConstAny
+ * - ldcStringEq / ldcStringContains / constEq (counted near the field's access sites)
+ */
+public final class Rule {
+    public String id;
+    public String type = "class";
+    public Double threshold;
+
+    public String superName = "*";
+    public List<String> interfaces = new ArrayList<>();
+
+    // Transitive hierarchy constraints (answered from HierarchyIndex bitsets).
+    public String extendsTransitively;
+    public List<String> implementsTransitively = new ArrayList<>();
+    public Integer hasSubclassCount; // minimum number of direct + indirect subclasses in the jar
+
+    public Map<String, Integer> minFieldDescCounts;
+    public Map<String, Integer> minMethodDescCounts;
+
+    public List<Signal> signals = new ArrayList<>();
+
+    public static final class Signal {
+        public String kind;
+        public String value;
+        public Double weight;
+        public Integer min;
+        public Integer distance;    // fieldPatternFuzzy: allowed opcode edits (default 1)
+
+        // Pre-parsed forms of value, filled in by RuleLoader / RuleBundle. Matchers fall back to
+        // parsing value when these are null (e.g. signals built in code).
+        public String patternDesc;  // fieldPattern(Fuzzy): descriptor of "DESC|PATTERN" (null if absent)
+        public String pattern;      // fieldPattern: opcode pattern, fieldPatternFuzzy: its FuzzyPattern key
+        public Long constant;       // stringHashEq / opcode3GramHashEq hash, intMultiplierConstEq multiplier
+        public String canonical;    // constEq: canonical constant text as keyed in LiteralIndex
+    }
+}
@@ -0,0 +1,310 @@
+package com.betterdeob.rules;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Binary rule bundle compiled from a rules YAML, keyed by the YAML's SHA-256.
+ *
+ * Compiling validates the YAML ({@link RuleValidator}), parses it once and writes every rule with
+ * its pre-parsed signal values (pattern halves, hash / multiplier constants, canonical numbers).
+ * All strings go through one table, so descriptors, kinds and owner names are stored once and
+ * shared by every rule that uses them after loading. The validation problems are kept in the
+ * bundle and re-reported on every load. Later runs with the same YAML memory-map the bundle
+ * instead of running SnakeYAML.
+ */
+public final class RuleBundle {
+    public static final String SUFFIX = ".bundle";
+    private static final int MAGIC = 0x42445242; // "BDRB"
+    /** Bump when Rule / FieldRule / Signal fields or the encoding change. */
+    private static final int FORMAT = 2;
+
+    /** @param fromBundle true if the rules came from an existing bundle rather than the YAML */
+    public record Result(RuleSet rules, List<RuleValidator.Problem> problems, Path bundle, boolean fromBundle) {}
+
+    private RuleBundle() {}
+
+    public static Path file(Path dir, String yamlSha) {
+        return dir.resolve("rules-" + yamlSha.substring(0, 16) + SUFFIX);
+    }
+
+    /** Loads the bundle for {@code yaml} from {@code dir}, compiling (and writing) it on a miss. */
+    public static Result loadOrCompile(Path yaml, Path dir) throws IOException {
+        byte[] bytes = Files.readAllBytes(yaml);
+        String sha = sha256(bytes);
+        Path file = file(dir, sha);
+        if (Files.isRegularFile(file)) {
+            try {
+                Result r = load(file, sha);
+                if (r != null) return r;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable rule bundle " + file + ": " + e);
+            }
+        }
+        return compile(bytes, sha, file);
+    }
+
+    /** Validates and compiles {@code yaml} into {@code dir} unconditionally. */
+    public static Result compile(Path yaml, Path dir) throws IOException {
+        byte[] bytes = Files.readAllBytes(yaml);
+        String sha = sha256(bytes);
+        return compile(bytes, sha, file(dir, sha));
+    }
+
+    private static Result compile(byte[] yaml, String sha, Path file) throws IOException {
+        List<RuleValidator.Problem> problems = RuleValidator.validate(new String(yaml, StandardCharsets.UTF_8));
+        RuleSet rules;
+        try {
+            rules = RuleLoader.parse(new ByteArrayInputStream(yaml));
+        } catch (RuntimeException e) {
+            RuleValidator.print(problems);
+            throw new IllegalArgumentException("rules YAML cannot be loaded (" + problems.size() + " problems): " + e, e);
+        }
+        write(rules, problems, sha, file);
+        return new Result(rules, problems, file, false);
+    }
+
+    /** Null if {@code file} was compiled from a different YAML or by a different format version. */
+    public static Result load(Path file, String expectedSha) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.getInt() != MAGIC || buf.getInt() != FORMAT) return null;
+        In in = new In(buf);
+        String sha = in.utf8();
+        if (expectedSha != null && !expectedSha.equals(sha)) return null;
+
+        String[] strings = new String[buf.getInt()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.utf8();
+        in.strings = strings;
+
+        int problemCount = buf.getInt();
+        List<RuleValidator.Problem> problems = new ArrayList<>(problemCount);
+        for (int i = 0; i < problemCount; i++) problems.add(new RuleValidator.Problem(buf.getInt(), buf.get() != 0, in.str()));
+
+        RuleSet set = new RuleSet();
+        set.setThresholdDefault(buf.getDouble());
+
+        int classCount = buf.getInt();
+        for (int i = 0; i < classCount; i++) {
+            Rule r = new Rule();
+            r.id = in.str();
+            r.type = in.str();
+            r.threshold = in.dbl();
+            r.superName = in.str();
+            r.interfaces = in.strList();
+            r.extendsTransitively = in.str();
+            r.implementsTransitively = in.strList();
+            r.hasSubclassCount = in.integer();
+            r.minFieldDescCounts = in.counts();
+            r.minMethodDescCounts = in.counts();
+            r.signals = in.signals();
+            set.classRules().add(r);
+        }
+
+        int fieldCount = buf.getInt();
+        for (int i = 0; i < fieldCount; i++) {
+            FieldRule fr = new FieldRule();
+            fr.id = in.str();
+            fr.ownerTarget = in.str();
+            fr.desc = in.str();
+            fr.threshold = in.dbl();
+            fr.priority = in.integer();
+            byte st = buf.get();
+            fr.isStatic = (st == 2) ? null : (st == 1);
+            fr.accessMaskAll = in.integer();
+            fr.accessMaskNone = in.integer();
+            fr.minOwnerFieldDescCounts = in.counts();
+            fr.signals = in.signals();
+            set.fieldRules().add(fr);
+        }
+        return new Result(set, problems, file, true);
+    }
+
+    private static void write(RuleSet set, List<RuleValidator.Problem> problems, String sha, Path file) throws IOException {
+        // Body first, so the string table is complete before it is written ahead of it.
+        Out out = new Out();
+        out.d.writeInt(problems.size());
+        for (RuleValidator.Problem p : problems) {
+            out.d.writeInt(p.line());
+            out.d.writeByte(p.error() ? 1 : 0);
+            out.str(p.message());
+        }
+        out.d.writeDouble(set.thresholdDefault());
+
+        out.d.writeInt(set.classRules().size());
+        for (Rule r : set.classRules()) {
+            out.str(r.id);
+            out.str(r.type);
+            out.dbl(r.threshold);
+            out.str(r.superName);
+            out.strList(r.interfaces);
+            out.str(r.extendsTransitively);
+            out.strList(r.implementsTransitively);
+            out.integer(r.hasSubclassCount);
+            out.counts(r.minFieldDescCounts);
+            out.counts(r.minMethodDescCounts);
+            out.signals(r.signals);
+        }
+
+        out.d.writeInt(set.fieldRules().size());
+        for (FieldRule fr : set.fieldRules()) {
+            out.str(fr.id);
+            out.str(fr.ownerTarget);
+            out.str(fr.desc);
+            out.dbl(fr.threshold);
+            out.integer(fr.priority);
+            out.d.writeByte(fr.isStatic == null ? 2 : fr.isStatic ? 1 : 0);
+            out.integer(fr.accessMaskAll);
+            out.integer(fr.accessMaskNone);
+            out.counts(fr.minOwnerFieldDescCounts);
+            out.signals(fr.signals);
+        }
+        out.d.flush();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling("." + file.getFileName() + ".tmp");
+        try (DataOutputStream d = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            d.writeInt(MAGIC);
+            d.writeInt(FORMAT);
+            writeUtf8(d, sha);
+            d.writeInt(out.table.size());
+            for (String s : out.table.keySet()) writeUtf8(d, s);
+            out.body.writeTo(d);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Out {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 16);
+        final DataOutputStream d = new DataOutputStream(body);
+        final Map<String, Integer> table = new LinkedHashMap<>();
+
+        void str(String s) throws IOException {
+            d.writeInt((s == null) ? -1 : table.computeIfAbsent(s, k -> table.size()));
+        }
+
+        void dbl(Double v) throws IOException {
+            d.writeBoolean(v != null);
+            if (v != null) d.writeDouble(v);
+        }
+
+        void integer(Integer v) throws IOException {
+            d.writeBoolean(v != null);
+            if (v != null) d.writeInt(v);
+        }
+
+        void strList(List<String> l) throws IOException {
+            d.writeInt((l == null) ? -1 : l.size());
+            if (l != null) for (String s : l) str(s);
+        }
+
+        void counts(Map<String, Integer> m) throws IOException {
+            d.writeInt((m == null) ? -1 : m.size());
+            if (m == null) return;
+            for (var e : m.entrySet()) {
+                str(e.getKey());
+                d.writeInt(e.getValue());
+            }
+        }
+
+        void signals(List<Rule.Signal> signals) throws IOException {
+            d.writeInt((signals == null) ? -1 : signals.size());
+            if (signals == null) return;
+            for (Rule.Signal s : signals) {
+                str(s.kind);
+                str(s.value);
+                dbl(s.weight);
+                integer(s.min);
+                integer(s.distance);
+                str(s.patternDesc);
+                str(s.pattern);
+                d.writeBoolean(s.constant != null);
+                if (s.constant != null) d.writeLong(s.constant);
+                str(s.canonical);
+            }
+        }
+    }
+
+    private static final class In {
+        final ByteBuffer buf;
+        String[] strings;
+
+        In(ByteBuffer buf) { this.buf = buf; }
+
+        String utf8() {
+            byte[] b = new byte[buf.getInt()];
+            buf.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        String str() {
+            int id = buf.getInt();
+            return (id < 0) ? null : strings[id];
+        }
+
+        Double dbl() { return (buf.get() != 0) ? buf.getDouble() : null; }
+        Integer integer() { return (buf.get() != 0) ? buf.getInt() : null; }
+
+        List<String> strList() {
+            int n = buf.getInt();
+            if (n < 0) return null;
+            List<String> l = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) l.add(str());
+            return l;
+        }
+
+        Map<String, Integer> counts() {
+            int n = buf.getInt();
+            if (n < 0) return null;
+            Map<String, Integer> m = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) m.put(str(), buf.getInt());
+            return m;
+        }
+
+        List<Rule.Signal> signals() {
+            int n = buf.getInt();
+            if (n < 0) return null;
+            List<Rule.Signal> l = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Rule.Signal s = new Rule.Signal();
+                s.kind = str();
+                s.value = str();
+                s.weight = dbl();
+                s.min = integer();
+                s.distance = integer();
+                s.patternDesc = str();
+                s.pattern = str();
+                s.constant = (buf.get() != 0) ? buf.getLong() : null;
+                s.canonical = str();
+                l.add(s);
+            }
+            return l;
+        }
+    }
+
+    private static void writeUtf8(DataOutputStream d, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        d.writeInt(b.length);
+        d.write(b);
+    }
+
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.betterdeob.rules;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Content hash of a single rule: every field the matchers read, maps in key order, signals in
+ * declaration order. Two rules with the same hash score every candidate identically, which is
+ * what lets scoring results be memoized across runs. Thresholds are left out: they only matter
+ * to the solvers, which always rerun.
+ */
+public final class RuleHash {
+    private RuleHash() {}
+
+    public static String of(Rule r) {
+        StringBuilder sb = new StringBuilder("class\n");
+        line(sb, "id", r.id);
+        line(sb, "type", r.type);
+        line(sb, "superName", r.superName);
+        line(sb, "interfaces", r.interfaces);
+        line(sb, "extendsTransitively", r.extendsTransitively);
+        line(sb, "implementsTransitively", r.implementsTransitively);
+        line(sb, "hasSubclassCount", r.hasSubclassCount);
+        line(sb, "minFieldDescCounts", sorted(r.minFieldDescCounts));
+        line(sb, "minMethodDescCounts", sorted(r.minMethodDescCounts));
+        signals(sb, r.signals);
+        return sha256(sb);
+    }
+
+    public static String of(FieldRule fr) {
+        StringBuilder sb = new StringBuilder("field\n");
+        line(sb, "id", fr.id);
+        line(sb, "ownerTarget", fr.ownerTarget);
+        line(sb, "desc", fr.desc);
+        line(sb, "priority", fr.priority);
+        line(sb, "isStatic", fr.isStatic);
+        line(sb, "accessMaskAll", fr.accessMaskAll);
+        line(sb, "accessMaskNone", fr.accessMaskNone);
+        line(sb, "minOwnerFieldDescCounts", sorted(fr.minOwnerFieldDescCounts));
+        signals(sb, fr.signals);
+        return sha256(sb);
+    }
+
+    private static void signals(StringBuilder sb, List<Rule.Signal> signals) {
+        if (signals == null) return;
+        for (Rule.Signal s : signals) {
+            sb.append("signal\t").append(s.kind).append('\t').append(s.value).append('\t')
+              .append(s.weight).append('\t').append(s.min).append('\t').append(s.distance).append('\n');
+        }
+    }
+
+    private static Map<String, Integer> sorted(Map<String, Integer> m) {
+        return (m == null) ? null : new TreeMap<>(m);
+    }
+
+    private static void line(StringBuilder sb, String key, Object value) {
+        sb.append(key).append('\t').append(value).append('\n');
+    }
+
+    private static String sha256(StringBuilder sb) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -25,7 +25,7 @@ public final class RuleLoader {
     }
 
     @SuppressWarnings("unchecked")
-    private static RuleSet parse(InputStream in) {
+    static RuleSet parse(InputStream in) {
         Yaml yaml = new Yaml();
         Map<String, Object> root = yaml.load(in);
 
@@ -49,6 +49,12 @@ public final class RuleLoader {
                 Object ifs = m.get("interfaces");
                 if (ifs instanceof List<?> l) r.interfaces = (List<String>) l;
 
+                r.extendsTransitively = (String) m.get("extendsTransitively");
+                Object tifs = m.get("implementsTransitively");
+                if (tifs instanceof List<?> l) r.implementsTransitively = (List<String>) l;
+                Object subs = m.get("hasSubclassCount");
+                if (subs instanceof Number n) r.hasSubclassCount = n.intValue();
+
                 r.minFieldDescCounts = (Map<String, Integer>) m.get("minFieldDescCounts");
                 r.minMethodDescCounts = (Map<String, Integer>) m.get("minMethodDescCounts");
 
@@ -107,6 +113,9 @@ public final class RuleLoader {
         if (w instanceof Number n) s.weight = n.doubleValue();
         Object min = sm.get("min");
         if (min instanceof Number n) s.min = n.intValue();
+        Object distance = sm.get("distance");
+        if (distance instanceof Number n) s.distance = n.intValue();
+        SignalValues.prepare(s);
         return s;
     }
 }
@@ -0,0 +1,65 @@
+package com.betterdeob.rules;
+
+import com.betterdeob.bytecode.OpcodeRegex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class RuleSet {
+    private static final Set<String> LITERAL_KINDS = Set.of("ldcStringEq", "ldcStringContains", "constEq");
+
+    private double thresholdDefault = 0.90;
+    private final List<Rule> classRules = new ArrayList<>();
+    private final List<FieldRule> fieldRules = new ArrayList<>();
+
+    public double thresholdDefault() { return thresholdDefault; }
+    public void setThresholdDefault(double v) { thresholdDefault = v; }
+
+    public List<Rule> classRules() { return classRules; }
+    public List<FieldRule> fieldRules() { return fieldRules; }
+
+    /**
+     * Distinct opcode patterns (without the "DESC|" prefix) used by fieldPattern signals, and the
+     * FuzzyPattern keys of fieldPatternFuzzy signals.
+     * Patterns referring to mapped targets are left out; they are resolved after class identification.
+     */
+    public Set<String> fieldPatternSources() {
+        Set<String> out = new LinkedHashSet<>();
+        for (Rule r : classRules) collectPatterns(r.signals, out);
+        for (FieldRule fr : fieldRules) collectPatterns(fr.signals, out);
+        return out;
+    }
+
+    /**
+     * True if a class or field rule reads the literal index (ldcStringEq, ldcStringContains,
+     * constEq). Without such a rule the index is not built.
+     */
+    public boolean usesLiteralSignals() {
+        for (Rule r : classRules) if (hasKind(r.signals, LITERAL_KINDS)) return true;
+        for (FieldRule fr : fieldRules) if (hasKind(fr.signals, LITERAL_KINDS)) return true;
+        return false;
+    }
+
+    /** True if a field rule has a coAccessWith signal; the co-access graph is only built then. */
+    public boolean usesCoAccessSignals() {
+        for (FieldRule fr : fieldRules) if (hasKind(fr.signals, Set.of("coAccessWith"))) return true;
+        return false;
+    }
+
+    private static boolean hasKind(List<Rule.Signal> signals, Set<String> kinds) {
+        if (signals == null) return false;
+        for (Rule.Signal s : signals) if (kinds.contains(s.kind)) return true;
+        return false;
+    }
+
+    private static void collectPatterns(List<Rule.Signal> signals, Set<String> out) {
+        if (signals == null) return;
+        for (Rule.Signal s : signals) {
+            if (!SignalValues.isPattern(s) || s.value == null || s.value.isBlank()) continue;
+            String p = SignalValues.patternSource(s);
+            if (!OpcodeRegex.hasTargetRefs(p)) out.add(p);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.betterdeob.rules;
+
+import com.betterdeob.bytecode.FuzzyPattern;
+import com.betterdeob.bytecode.OpcodePattern;
+import com.betterdeob.bytecode.OpcodeRegex;
+import com.betterdeob.bytecode.InsnOperands;
+import com.betterdeob.bytecode.PatternValue;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.*;
+
+import java.io.StringReader;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Checks a rules YAML against what RuleLoader and the matchers actually understand, reporting
+ * problems with their line numbers.
+ *
+ * Errors are things that would make the loader throw or make a signal/rule silently never fire:
+ * wrong value types (e.g. an unquoted 0x hash, which YAML reads as a number), unknown signal
+ * kinds, unparsable patterns or constants, field rules whose ownerTarget has no class rule.
+ * Unknown keys, duplicate keys and repeated rule ids are warnings: the loader ignores, overrides
+ * or keeps them as competing alternatives respectively.
+ */
+public final class RuleValidator {
+    public record Problem(int line, boolean error, String message) {
+        @Override public String toString() {
+            return "line " + line + ": " + (error ? "error: " : "warning: ") + message;
+        }
+    }
+
+    private static final Set<String> ROOT_KEYS = Set.of("thresholdDefault", "classRules", "fieldRules");
+    private static final Set<String> CLASS_KEYS = Set.of("id", "type", "threshold", "superName", "interfaces",
+            "extendsTransitively", "implementsTransitively", "hasSubclassCount", "minFieldDescCounts",
+            "minMethodDescCounts", "signals");
+    private static final Set<String> FIELD_KEYS = Set.of("id", "ownerTarget", "desc", "threshold", "priority", "isStatic",
+            "accessMaskAll", "accessMaskNone", "minOwnerFieldDescCounts", "signals");
+    private static final Set<String> SIGNAL_KEYS = Set.of("kind", "value", "weight", "min", "distance");
+    private static final Set<String> CLASS_KINDS = Set.of("minLdcStrings", "minLdcNumbers", "stringHashEq",
+            "opcode3GramHashEq", "fieldPattern", "fieldPatternFuzzy", "ldcStringEq", "ldcStringContains", "constEq");
+    private static final Set<String> FIELD_KINDS = Set.of("fieldPattern", "fieldPatternFuzzy", "readMin", "writeMin", "intMultiplierConstEq",
+            "intMultiplierConstAny", "ldcStringEq", "ldcStringContains", "constEq", "coAccessWith");
+    private static final Set<String> VALUE_KINDS = Set.of("stringHashEq", "opcode3GramHashEq", "fieldPattern", "fieldPatternFuzzy",
+            "ldcStringEq", "ldcStringContains", "constEq", "intMultiplierConstEq", "coAccessWith");
+    // Like PatternValue's descriptor check, but semantic names ("Lclient/Player;") are fine here.
+    private static final Pattern FIELD_DESC = Pattern.compile("\\[*([BCDFIJSZ]|L[^;\\s()|]+;)");
+
+    private static final int MAX_WARNINGS = 20;
+
+    private final List<Problem> problems = new ArrayList<>();
+    private final Map<String, Integer> coAccessRefs = new LinkedHashMap<>(); // field target -> first line
+
+    private RuleValidator() {}
+
+    public static List<Problem> validate(String yamlText) {
+        RuleValidator v = new RuleValidator();
+        Node root;
+        try {
+            root = new Yaml().compose(new StringReader(yamlText));
+        } catch (YAMLException e) {
+            int line = (e instanceof org.yaml.snakeyaml.error.MarkedYAMLException me && me.getProblemMark() != null)
+                    ? me.getProblemMark().getLine() + 1 : 1;
+            v.error(line, "YAML syntax: " + e.getMessage().lines().findFirst().orElse(""));
+            return v.problems;
+        }
+        if (root == null) {
+            v.error(1, "empty rules file");
+            return v.problems;
+        }
+        v.root(root);
+        v.problems.sort(Comparator.comparingInt(Problem::line));
+        return v.problems;
+    }
+
+    public static boolean hasErrors(List<Problem> problems) {
+        return problems.stream().anyMatch(Problem::error);
+    }
+
+    /** Prints every error and the first {@value #MAX_WARNINGS} warnings to stderr. */
+    public static void print(List<Problem> problems) {
+        if (problems.isEmpty()) return;
+        long errors = problems.stream().filter(Problem::error).count();
+        System.err.println("Rules validation: " + errors + " errors, " + (problems.size() - errors) + " warnings");
+        int warnings = 0;
+        for (Problem p : problems) {
+            if (!p.error() && ++warnings > MAX_WARNINGS) continue;
+            System.err.println("  " + p);
+        }
+        if (warnings > MAX_WARNINGS) System.err.println("  ... " + (warnings - MAX_WARNINGS) + " more warnings");
+    }
+
+    private void root(Node root) {
+        Map<String, NodeTuple> m = mapping(root, "rules root", ROOT_KEYS);
+        if (m == null) return;
+        NodeTuple td = m.get("thresholdDefault");
+        if (td != null) probability(td.getValueNode(), "thresholdDefault");
+
+        Set<String> classIds = new HashSet<>();
+        NodeTuple cr = m.get("classRules");
+        if (cr != null) {
+            for (Node n : sequence(cr.getValueNode(), "classRules")) classRule(n, classIds);
+        }
+        NodeTuple fr = m.get("fieldRules");
+        if (fr != null) {
+            Set<String> fieldIds = new HashSet<>();
+            for (Node n : sequence(fr.getValueNode(), "fieldRules")) fieldRule(n, fieldIds, classIds);
+            coAccessRefs.forEach((target, line) -> {
+                if (!fieldIds.contains(target)) warning(line, "coAccessWith " + target + ": no field rule maps it, so the signal never hits");
+            });
+        }
+    }
+
+    private void classRule(Node node, Set<String> ids) {
+        Map<String, NodeTuple> m = mapping(node, "class rule", CLASS_KEYS);
+        if (m == null) return;
+        String id = id(node, m, ids, "class rule");
+        String where = "class rule " + id;
+
+        String type = optString(m, "type", where);
+        if (type != null && !"class".equalsIgnoreCase(type)) {
+            warning(line(m.get("type")), where + ": type '" + type + "' is skipped by the class matcher");
+        }
+        if (m.containsKey("threshold")) probability(m.get("threshold").getValueNode(), where + " threshold");
+        optString(m, "superName", where);
+        optString(m, "extendsTransitively", where);
+        stringList(m, "interfaces", where);
+        stringList(m, "implementsTransitively", where);
+        optInt(m, "hasSubclassCount", where);
+        descCounts(m, "minFieldDescCounts", where);
+        descCounts(m, "minMethodDescCounts", where);
+        signals(m, where, CLASS_KINDS, true);
+    }
+
+    private void fieldRule(Node node, Set<String> ids, Set<String> classIds) {
+        Map<String, NodeTuple> m = mapping(node, "field rule", FIELD_KEYS);
+        if (m == null) return;
+        String id = id(node, m, ids, "field rule");
+        String where = "field rule " + id;
+
+        String owner = optString(m, "ownerTarget", where);
+        if (owner == null) {
+            error(line(node), where + ": missing ownerTarget");
+        } else if (!classIds.contains(owner)) {
+            error(line(m.get("ownerTarget")), where + ": ownerTarget '" + owner + "' has no class rule, so the rule never runs");
+        }
+        String desc = optString(m, "desc", where);
+        if (desc == null) {
+            error(line(node), where + ": missing desc");
+        } else if (!FIELD_DESC.matcher(desc).matches()) {
+            error(line(m.get("desc")), where + ": '" + desc + "' is not a field descriptor");
+        }
+        if (m.containsKey("threshold")) probability(m.get("threshold").getValueNode(), where + " threshold");
+        optInt(m, "priority", where);
+        optInt(m, "accessMaskAll", where);
+        optInt(m, "accessMaskNone", where);
+        NodeTuple st = m.get("isStatic");
+        if (st != null && !scalarOf(st.getValueNode(), Tag.BOOL)) error(line(st), where + ": isStatic must be true/false");
+        descCounts(m, "minOwnerFieldDescCounts", where);
+        signals(m, where, FIELD_KINDS, false);
+    }
+
+    private void signals(Map<String, NodeTuple> rule, String where, Set<String> kinds, boolean classRule) {
+        NodeTuple t = rule.get("signals");
+        if (t == null) return;
+        int i = 0;
+        for (Node n : sequence(t.getValueNode(), where + " signals")) {
+            String sw = where + " signal #" + (++i);
+            Map<String, NodeTuple> m = mapping(n, sw, SIGNAL_KEYS);
+            if (m == null) continue;
+
+            String kind = optString(m, "kind", sw);
+            if (kind == null) {
+                error(line(n), sw + ": missing kind");
+                continue;
+            }
+            sw = where + " signal " + kind;
+            if (!kinds.contains(kind)) {
+                error(line(m.get("kind")), sw + ": unknown kind for a " + (classRule ? "class" : "field") + " rule (always false)");
+            }
+            NodeTuple w = m.get("weight");
+            if (w != null && !(scalarOf(w.getValueNode(), Tag.INT) || scalarOf(w.getValueNode(), Tag.FLOAT))) {
+                error(line(w), sw + ": weight must be a number");
+            }
+            optInt(m, "min", sw);
+            Integer distance = optInt(m, "distance", sw);
+            if (m.containsKey("distance") && !"fieldPatternFuzzy".equals(kind)) {
+                warning(line(m.get("distance")), sw + ": distance is only used by fieldPatternFuzzy");
+            } else if (distance != null && (distance < 0 || distance > FuzzyPattern.MAX_DISTANCE)) {
+                error(line(m.get("distance")), sw + ": distance must be 0.." + FuzzyPattern.MAX_DISTANCE);
+                continue;
+            }
+
+            String value = optString(m, "value", sw);
+            if (!VALUE_KINDS.contains(kind)) continue;
+            if (value == null || value.isBlank()) {
+                if (!m.containsKey("value")) error(line(n), sw + ": missing value");
+                else if (value != null) error(line(m.get("value")), sw + ": blank value");
+                continue;
+            }
+            value(kind, value, (distance == null) ? 1 : distance, line(m.get("value")), sw, classRule);
+        }
+    }
+
+    private void value(String kind, String value, int distance, int line, String where, boolean classRule) {
+        switch (kind) {
+            case "stringHashEq", "opcode3GramHashEq" -> {
+                if (SignalValues.parseHash64(value) == null) error(line, where + ": '" + value + "' is not a 64-bit hex hash");
+            }
+            case "intMultiplierConstEq" -> {
+                if (SignalValues.parseInt32(value) == null) error(line, where + ": '" + value + "' is not an int constant");
+            }
+            case "constEq" -> {
+                if (InsnOperands.parseNumber(value) == null) error(line, where + ": '" + value + "' is not a numeric constant");
+            }
+            case "fieldPattern" -> {
+                PatternValue pv = PatternValue.parse(value);
+                if (classRule && pv.desc() == null) {
+                    error(line, where + ": class fieldPattern needs a \"DESC|PATTERN\" value");
+                }
+                String p = pv.pattern();
+                // Target references are resolved after class identification; check the shape with a placeholder.
+                if (OpcodeRegex.hasTargetRefs(p)) p = OpcodeRegex.resolveTargets(p, t -> "x");
+                try {
+                    OpcodeRegex.parse(p);
+                } catch (IllegalArgumentException ex) {
+                    try {
+                        OpcodePattern.parse(p);
+                        warning(line, where + ": only usable as a legacy window pattern (" + ex.getMessage() + ")");
+                    } catch (Exception legacy) {
+                        error(line, where + ": " + ex.getMessage());
+                    }
+                }
+            }
+            case "fieldPatternFuzzy" -> {
+                PatternValue pv = PatternValue.parse(value);
+                if (classRule && pv.desc() == null) {
+                    error(line, where + ": class fieldPatternFuzzy needs a \"DESC|PATTERN\" value");
+                }
+                try {
+                    FuzzyPattern.parse(FuzzyPattern.key(pv.pattern(), distance));
+                } catch (IllegalArgumentException ex) {
+                    error(line, where + ": " + ex.getMessage());
+                }
+            }
+            case "coAccessWith" -> {
+                if (value.indexOf('.') <= 0 || value.endsWith(".")) {
+                    error(line, where + ": '" + value + "' is not a field target (Owner.field)");
+                } else {
+                    coAccessRefs.putIfAbsent(value, line);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    // ---- node helpers ----
+
+    private String id(Node node, Map<String, NodeTuple> m, Set<String> ids, String what) {
+        String id = optString(m, "id", what);
+        if (id == null || id.isBlank()) {
+            error(line(node), what + " without id");
+            return "<line " + line(node) + ">";
+        }
+        if (!ids.add(id)) warning(line(m.get("id")), what + " " + id + ": repeated id (alternatives competing for one mapping)");
+        return id;
+    }
+
+    private Map<String, NodeTuple> mapping(Node node, String what, Set<String> known) {
+        if (!(node instanceof MappingNode mn)) {
+            error(line(node), what + ": expected a mapping");
+            return null;
+        }
+        Map<String, NodeTuple> out = new LinkedHashMap<>();
+        for (NodeTuple t : mn.getValue()) {
+            String key = (t.getKeyNode() instanceof ScalarNode s) ? s.getValue() : null;
+            if (key == null) {
+                error(line(t.getKeyNode()), what + ": non-scalar key");
+                continue;
+            }
+            if (out.put(key, t) != null) warning(line(t), what + ": duplicate key '" + key + "', the last one wins");
+            if (!known.contains(key)) warning(line(t), what + ": unknown key '" + key + "' is ignored");
+        }
+        return out;
+    }
+
+    private List<Node> sequence(Node node, String what) {
+        if (node instanceof SequenceNode sn) return sn.getValue();
+        if (!scalarOf(node, Tag.NULL)) error(line(node), what + ": expected a list");
+        return List.of();
+    }
+
+    private String optString(Map<String, NodeTuple> m, String key, String where) {
+        NodeTuple t = m.get(key);
+        if (t == null || scalarOf(t.getValueNode(), Tag.NULL)) return null;
+        if (!scalarOf(t.getValueNode(), Tag.STR)) {
+            String raw = (t.getValueNode() instanceof ScalarNode s) ? s.getValue() : "";
+            error(line(t), where + ": " + key + " must be a string" + (raw.isEmpty() ? "" : " (quote '" + raw + "')"));
+            return null;
+        }
+        return ((ScalarNode) t.getValueNode()).getValue();
+    }
+
+    private Integer optInt(Map<String, NodeTuple> m, String key, String where) {
+        NodeTuple t = m.get(key);
+        if (t == null) return null;
+        if (!scalarOf(t.getValueNode(), Tag.INT)) {
+            error(line(t), where + ": " + key + " must be an integer");
+            return null;
+        }
+        try { return Integer.decode(((ScalarNode) t.getValueNode()).getValue()); }
+        catch (NumberFormatException e) { return null; }
+    }
+
+    private void probability(Node n, String what) {
+        if (!(scalarOf(n, Tag.INT) || scalarOf(n, Tag.FLOAT))) {
+            error(line(n), what + " must be a number");
+            return;
+        }
+        double v;
+        try { v = Double.parseDouble(((ScalarNode) n).getValue()); }
+        catch (NumberFormatException e) { return; }
+        if (v < 0.0 || v > 1.0) error(line(n), what + " " + v + " is outside [0, 1]");
+    }
+
+    private void stringList(Map<String, NodeTuple> m, String key, String where) {
+        NodeTuple t = m.get(key);
+        if (t == null) return;
+        for (Node n : sequence(t.getValueNode(), where + " " + key)) {
+            if (!scalarOf(n, Tag.STR)) error(line(n), where + ": " + key + " entries must be strings");
+        }
+    }
+
+    private void descCounts(Map<String, NodeTuple> m, String key, String where) {
+        NodeTuple t = m.get(key);
+        if (t == null) return;
+        if (!(t.getValueNode() instanceof MappingNode mn)) {
+            error(line(t), where + ": " + key + " must map descriptors to counts");
+            return;
+        }
+        for (NodeTuple e : mn.getValue()) {
+            if (!scalarOf(e.getValueNode(), Tag.INT)) error(line(e), where + ": " + key + " counts must be integers");
+        }
+    }
+
+    private static boolean scalarOf(Node n, Tag tag) {
+        return n instanceof ScalarNode && tag.equals(n.getTag());
+    }
+
+    private static int line(NodeTuple t) { return line(t.getKeyNode()); }
+
+    private static int line(Node n) {
+        return (n == null || n.getStartMark() == null) ? 1 : n.getStartMark().getLine() + 1;
+    }
+
+    private void error(int line, String msg) { problems.add(new Problem(line, true, msg)); }
+    private void warning(int line, String msg) { problems.add(new Problem(line, false, msg)); }
+}
@@ -0,0 +1,406 @@
+package com.betterdeob.rules;
+
+import com.betterdeob.core.Scheduler;
+import com.betterdeob.features.ClassFeatures;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.features.FieldFeatures;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Mines candidate signals for mapped targets from a FeatureIndex.
+ *
+ * For a field target the rivals are the other fields of its owner with the same descriptor (the
+ * candidates its rule competes with); for a class target, every other class. Candidates are
+ * fieldPattern slices of the 7-token access windows (each contiguous run that contains the anchor,
+ * without padding) and string / small numeric literals (at the field's access sites for fields).
+ * Multipliers and other large constants are left out: the obfuscator re-rolls them every revision,
+ * so they would separate perfectly once and never match again. A candidate is kept when the
+ * target's count beats every rival's: with no rival hitting at all it gets {@code min: 1},
+ * otherwise {@code min = rival max + 1} at a lower weight. All counts come from the index's count
+ * maps and the literal postings, so no class is rescanned.
+ */
+public final class SignalMiner {
+    /** @param rivalMax highest count among the rivals; 0 means the signal alone separates the target */
+    public record Candidate(String kind, String value, int min, double weight, int count, int rivalMax) {
+        public boolean separates() { return rivalMax == 0; }
+    }
+
+    /**
+     * @param rivals      number of competing fields / classes the signals were mined against
+     * @param ownerTarget field targets: the owner's target id
+     * @param desc        field targets: the descriptor with mapped classes written as their target ids
+     */
+    public record Mined(String target, boolean field, String obf, int rivals, List<Candidate> signals,
+                        Map<String, Integer> minFieldDescCounts, Map<String, Integer> descCompetitors,
+                        String ownerTarget, String desc, Boolean isStatic) {}
+
+    private static final int ANCHOR = ClassFeatures.FIELD_WINDOW_BEFORE;
+    private static final long MAX_CONST = Short.MAX_VALUE;
+
+    private SignalMiner() {}
+
+    /**
+     * @param classes target -> obfuscated class name
+     * @param fields  target -> "owner.name:desc"
+     * @param top     signals kept per target
+     */
+    public static List<Mined> mine(FeatureIndex idx, Map<String, String> classes, Map<String, String> fields,
+                                   int top, Scheduler scheduler) throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = scheduler.pool();
+        Map<String, Map<String, Integer>> fieldLiterals = fieldSiteLiterals(idx, fields);
+        Map<String, List<Candidate>> classLiterals = classLiterals(idx, classes);
+        Map<String, Top2> classSlices = pool.submit(() -> classSliceRivals(idx, classes)).get();
+
+        List<Callable<Mined>> jobs = new ArrayList<>();
+        classes.forEach((t, obf) -> jobs.add(() -> mineClass(idx, t, obf, classLiterals, classSlices, top)));
+        Map<String, String> targetOf = new HashMap<>();
+        classes.forEach((t, obf) -> targetOf.put(obf, t));
+        fields.forEach((t, site) -> jobs.add(() -> mineField(idx, t, site, targetOf, fieldLiterals, top)));
+
+        List<Mined> out = new ArrayList<>();
+        for (Future<Mined> f : pool.invokeAll(jobs)) {
+            Mined m = f.get();
+            if (m != null) out.add(m);
+        }
+        return out;
+    }
+
+    // ---------------------------------------------------------------- fields
+
+    private static Mined mineField(FeatureIndex idx, String target, String site, Map<String, String> targetOf,
+                                   Map<String, Map<String, Integer>> literals, int top) {
+        String[] parts = splitSite(site);
+        if (parts == null) return null;
+        FieldFeatures self = null;
+        List<FieldFeatures> rivals = new ArrayList<>();
+        for (FieldFeatures ff : idx.fieldsOf(parts[0])) {
+            if (!ff.desc().equals(parts[2])) continue;
+            if (ff.name().equals(parts[1])) self = ff;
+            else rivals.add(ff);
+        }
+        if (self == null) return null;
+
+        List<Candidate> cands = new ArrayList<>();
+        String desc = self.desc();
+
+        Map<String, Integer> mine = slices(self.usagePatterns());
+        List<Map<String, Integer>> theirs = new ArrayList<>(rivals.size());
+        for (FieldFeatures r : rivals) theirs.add(slices(r.usagePatterns()));
+        for (var e : mine.entrySet()) {
+            int rivalMax = 0;
+            for (Map<String, Integer> t : theirs) rivalMax = Math.max(rivalMax, t.getOrDefault(e.getKey(), 0));
+            add(cands, "fieldPattern", desc + "|" + e.getKey(), e.getValue(), rivalMax);
+        }
+
+        Map<String, Integer> lits = literals.getOrDefault(site, Map.of());
+        for (var e : lits.entrySet()) {
+            int rivalMax = 0;
+            for (FieldFeatures r : rivals) {
+                Map<String, Integer> rl = literals.get(r.owner() + "." + r.name() + ":" + r.desc());
+                if (rl != null) rivalMax = Math.max(rivalMax, rl.getOrDefault(e.getKey(), 0));
+            }
+            addLiteral(cands, e.getKey(), e.getValue(), rivalMax);
+        }
+
+        String ownerTarget = targetOf.getOrDefault(parts[0], target.contains(".") ? target.substring(0, target.indexOf('.')) : parts[0]);
+        return new Mined(target, true, site, rivals.size(), best(cands, top), null, null,
+                ownerTarget, semanticDesc(desc, targetOf), self.isStatic());
+    }
+
+    /** Every site's literal counts, restricted to the targets' sites and their rivals' sites. */
+    private static Map<String, Map<String, Integer>> fieldSiteLiterals(FeatureIndex idx, Map<String, String> fields) {
+        Set<String> sites = new HashSet<>();
+        for (String site : fields.values()) {
+            String[] p = splitSite(site);
+            if (p == null) continue;
+            for (FieldFeatures ff : idx.fieldsOf(p[0])) {
+                if (ff.desc().equals(p[2])) sites.add(ff.owner() + "." + ff.name() + ":" + ff.desc());
+            }
+        }
+        Map<String, Map<String, Integer>> out = new HashMap<>();
+        idx.literals().forEach((symbol, postings) -> postings.fieldSites().forEach((site, n) -> {
+            if (sites.contains(site)) out.computeIfAbsent(site, k -> new HashMap<>()).put(symbol, n);
+        }));
+        return out;
+    }
+
+    // ---------------------------------------------------------------- classes
+
+    private static Mined mineClass(FeatureIndex idx, String target, String obf, Map<String, List<Candidate>> literals,
+                                   Map<String, Top2> sliceRivals, int top) {
+        ClassFeatures cf = idx.of(obf);
+        if (cf == null) return null;
+
+        List<Candidate> cands = new ArrayList<>(literals.getOrDefault(obf, List.of()));
+        for (var d : cf.fieldUsagePatternsByDesc().entrySet()) {
+            for (var e : slices(d.getValue()).entrySet()) {
+                String key = d.getKey() + "|" + e.getKey();
+                Top2 t = sliceRivals.get(key);
+                add(cands, "fieldPattern", key, e.getValue(), (t == null) ? 0 : t.maxExcluding(obf));
+            }
+        }
+
+        // Structural constraints: the descriptors whose count in the target the fewest other classes reach.
+        Map<String, Integer> competitors = new HashMap<>();
+        for (var e : cf.fieldDescCounts().entrySet()) competitors.put(e.getKey(), 0);
+        for (String other : idx.classNames()) {
+            if (other.equals(obf)) continue;
+            ClassFeatures o = idx.of(other);
+            for (var e : cf.fieldDescCounts().entrySet()) {
+                if (o.fieldDescCounts().getOrDefault(e.getKey(), 0) >= e.getValue()) competitors.merge(e.getKey(), 1, Integer::sum);
+            }
+        }
+        Map<String, Integer> minDesc = new LinkedHashMap<>();
+        Map<String, Integer> descCompetitors = new LinkedHashMap<>();
+        competitors.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .limit(3)
+                .forEach(e -> {
+                    minDesc.put(e.getKey(), cf.fieldDescCounts().get(e.getKey()));
+                    descCompetitors.put(e.getKey(), e.getValue());
+                });
+
+        return new Mined(target, false, obf, idx.size() - 1, best(cands, top), minDesc, descCompetitors, null, null, null);
+    }
+
+    /** One pass over the literal postings: each target class's literals with the highest count in any other class. */
+    private static Map<String, List<Candidate>> classLiterals(FeatureIndex idx, Map<String, String> classes) {
+        Set<String> targets = new HashSet<>(classes.values());
+        Map<String, List<Candidate>> out = new HashMap<>();
+        idx.literals().forEach((symbol, postings) -> {
+            Top2 t = null;
+            for (var e : postings.classes().entrySet()) {
+                if (!targets.contains(e.getKey())) continue;
+                if (t == null) {
+                    t = new Top2();
+                    for (var c : postings.classes().entrySet()) t.offer(c.getKey(), c.getValue());
+                }
+                List<Candidate> l = out.computeIfAbsent(e.getKey(), k -> new ArrayList<>());
+                addLiteral(l, symbol, e.getValue(), t.maxExcluding(e.getKey()));
+            }
+        });
+        return out;
+    }
+
+    /** Top-2 counts over all classes for every slice key that occurs in a target class. */
+    private static Map<String, Top2> classSliceRivals(FeatureIndex idx, Map<String, String> classes) {
+        Set<String> keys = new HashSet<>();
+        for (String obf : classes.values()) {
+            ClassFeatures cf = idx.of(obf);
+            if (cf == null) continue;
+            cf.fieldUsagePatternsByDesc().forEach((desc, windows) -> slices(windows).keySet().forEach(s -> keys.add(desc + "|" + s)));
+        }
+        return idx.classNames().parallelStream().collect(() -> new HashMap<String, Top2>(), (acc, name) -> {
+            idx.of(name).fieldUsagePatternsByDesc().forEach((desc, windows) -> slices(windows).forEach((s, n) -> {
+                String key = desc + "|" + s;
+                if (keys.contains(key)) acc.computeIfAbsent(key, k -> new Top2()).offer(name, n);
+            }));
+        }, (a, b) -> b.forEach((k, t) -> {
+            Top2 into = a.computeIfAbsent(k, x -> new Top2());
+            into.offer(t.c1, t.n1);
+            into.offer(t.c2, t.n2);
+        }));
+    }
+
+    // ---------------------------------------------------------------- shared
+
+    /** Slice counts of a window -> count map: every contiguous run through the anchor, '@' marking it. */
+    static Map<String, Integer> slices(Map<String, Integer> windows) {
+        Map<String, Integer> out = new HashMap<>();
+        for (var e : windows.entrySet()) {
+            String[] tok = e.getKey().split(" ");
+            if (tok.length != ClassFeatures.FIELD_WINDOW_LEN) continue;
+            for (int b = 0; b <= ANCHOR; b++) {
+                for (int a = 0; a < tok.length - ANCHOR; a++) {
+                    if (a + b == 0) continue;
+                    StringBuilder sb = new StringBuilder();
+                    boolean pad = false;
+                    for (int i = ANCHOR - b; i <= ANCHOR + a && !pad; i++) {
+                        if ("NONOP".equals(tok[i])) pad = true;
+                        if (sb.length() > 0) sb.append(' ');
+                        if (i == ANCHOR) sb.append('@');
+                        sb.append(tok[i]);
+                    }
+                    if (!pad) out.merge(sb.toString(), e.getValue(), Integer::sum);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void addLiteral(List<Candidate> out, String symbol, int count, int rivalMax) {
+        if (symbol.startsWith("s:")) {
+            add(out, "ldcStringEq", symbol.substring(2), count, rivalMax);
+        } else if (symbol.startsWith("#:")) {
+            // Integers within the SIPUSH range only: floats round-trip through their canonical text
+            // less reliably, and larger ints are mostly per-revision multipliers and keys.
+            long n;
+            try {
+                n = Long.parseLong(symbol.substring(2));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            if (Math.abs(n) <= MAX_CONST) add(out, "constEq", symbol.substring(2), count, rivalMax);
+        }
+    }
+
+    /** Keeps a candidate only if its count clears every rival with some margin. */
+    private static void add(List<Candidate> out, String kind, String value, int count, int rivalMax) {
+        if (count <= 0 || count < 2 * rivalMax || count <= rivalMax) return;
+        double weight = (rivalMax > 0) ? 0.5 : "constEq".equals(kind) ? 0.8 : 1.0;
+        out.add(new Candidate(kind, value, rivalMax + 1, weight, count, rivalMax));
+    }
+
+    /**
+     * Separating signals first, then strings over patterns over numbers, shorter patterns over
+     * longer ones, and higher counts. At most half of the picks (rounded up) share a kind, so one
+     * feature family cannot fill the list, and a pattern containing an already chosen one adds
+     * nothing and is skipped.
+     */
+    private static List<Candidate> best(List<Candidate> cands, int top) {
+        cands.sort(Comparator.comparing((Candidate c) -> !c.separates())
+                .thenComparingInt(SignalMiner::kindRank)
+                .thenComparingInt(c -> "fieldPattern".equals(c.kind()) ? c.value().split(" ").length : 0)
+                .thenComparing(Comparator.comparingInt(Candidate::count).reversed())
+                .thenComparing(Candidate::value));
+        List<Candidate> out = new ArrayList<>();
+        Map<String, Integer> perKind = new HashMap<>();
+        int kindCap = (top + 1) / 2;
+        for (Candidate c : cands) {
+            if (out.size() >= top) break;
+            if (perKind.getOrDefault(c.kind(), 0) >= kindCap) continue;
+            boolean redundant = false;
+            if ("fieldPattern".equals(c.kind())) {
+                for (Candidate o : out) {
+                    if ("fieldPattern".equals(o.kind()) && containsPattern(c.value(), o.value())) {
+                        redundant = true;
+                        break;
+                    }
+                }
+            }
+            if (redundant) continue;
+            out.add(c);
+            perKind.merge(c.kind(), 1, Integer::sum);
+        }
+        return out;
+    }
+
+    /** True if both are "DESC|PATTERN" values with the same descriptor and {@code inner}'s tokens occur in {@code outer}'s. */
+    private static boolean containsPattern(String outer, String inner) {
+        int bo = outer.indexOf('|');
+        int bi = inner.indexOf('|');
+        if (!outer.substring(0, bo).equals(inner.substring(0, bi))) return false;
+        return (" " + outer.substring(bo + 1) + " ").contains(" " + inner.substring(bi + 1) + " ");
+    }
+
+    private static int kindRank(Candidate c) {
+        return switch (c.kind()) {
+            case "ldcStringEq" -> 0;
+            case "fieldPattern" -> 1;
+            default -> 2;
+        };
+    }
+
+    /** "[Labc;" -> "[LPlayer;" when abc is mapped as Player (the form IdentifyFieldsPass translates back). */
+    private static String semanticDesc(String desc, Map<String, String> targetOf) {
+        int dims = 0;
+        while (dims < desc.length() && desc.charAt(dims) == '[') dims++;
+        if (!desc.startsWith("L", dims) || !desc.endsWith(";")) return desc;
+        String t = targetOf.get(desc.substring(dims + 1, desc.length() - 1));
+        return (t == null) ? desc : desc.substring(0, dims) + "L" + t + ";";
+    }
+
+    /** "owner.name:desc" -> {owner, name, desc}; null if malformed. */
+    private static String[] splitSite(String site) {
+        int dot = site.indexOf('.');
+        int colon = site.indexOf(':', dot + 1);
+        if (dot <= 0 || colon < 0) return null;
+        return new String[] { site.substring(0, dot), site.substring(dot + 1, colon), site.substring(colon + 1) };
+    }
+
+    /** Highest and second highest count with their class, so the best rival of any class is known. */
+    private static final class Top2 {
+        String c1, c2;
+        int n1, n2;
+
+        void offer(String c, int n) {
+            if (c == null) return;
+            if (n > n1) {
+                c2 = c1; n2 = n1;
+                c1 = c; n1 = n;
+            } else if (n > n2) {
+                c2 = c; n2 = n;
+            }
+        }
+
+        int maxExcluding(String c) { return c.equals(c1) ? n2 : n1; }
+    }
+
+    // ---------------------------------------------------------------- output
+
+    /** Writes the mined signals as a rules YAML fragment (one entry per target, merged by hand). */
+    public static void writeYaml(List<Mined> mined, Path file) throws IOException {
+        List<Mined> sorted = new ArrayList<>(mined);
+        sorted.sort(Comparator.comparing(Mined::target));
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("# Mined by better-deob; review before merging into the rules file.\n");
+            w.write("classRules:\n");
+            for (Mined m : sorted) if (!m.field()) writeEntry(w, m);
+            w.write("\nfieldRules:\n");
+            for (Mined m : sorted) if (m.field()) writeEntry(w, m);
+        }
+    }
+
+    private static void writeEntry(Writer w, Mined m) throws IOException {
+        long separating = m.signals().stream().filter(Candidate::separates).count();
+        w.write("  # " + m.obf() + ": " + m.signals().size() + " signals (" + separating + " separating alone) vs "
+                + m.rivals() + (m.field() ? " sibling fields" : " other classes") + "\n");
+        w.write("  - id: " + quote(m.target()) + "\n");
+        if (m.field()) {
+            w.write("    ownerTarget: " + quote(m.ownerTarget()) + "\n");
+            w.write("    desc: " + quote(m.desc()) + "\n");
+            w.write("    isStatic: " + m.isStatic() + "\n");
+        }
+        if (m.minFieldDescCounts() != null && !m.minFieldDescCounts().isEmpty()) {
+            w.write("    minFieldDescCounts:\n");
+            for (var e : m.minFieldDescCounts().entrySet()) {
+                w.write("      " + quote(e.getKey()) + ": " + e.getValue() + "   # reached by "
+                        + m.descCompetitors().get(e.getKey()) + " other classes\n");
+            }
+        }
+        w.write(m.signals().isEmpty() ? "    signals: []\n" : "    signals:\n");
+        for (Candidate c : m.signals()) {
+            w.write("      - kind: " + c.kind() + "\n");
+            w.write("        value: " + quote(c.value()) + "\n");
+            w.write("        min: " + c.min() + "\n");
+            w.write("        weight: " + c.weight() + "   # count " + c.count() + ", best rival " + c.rivalMax() + "\n");
+        }
+    }
+
+    /** YAML double-quoted scalar. */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20 || (ch >= 0x7f && ch < 0xa0)) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.betterdeob.rules;
+
+import com.betterdeob.bytecode.FuzzyPattern;
+import com.betterdeob.bytecode.InsnOperands;
+import com.betterdeob.bytecode.PatternValue;
+
+/**
+ * Parsing of signal values, shared by the loader (pre-parsing), the validator and the matchers'
+ * fallback path so all three agree on what a value means.
+ */
+public final class SignalValues {
+    private SignalValues() {}
+
+    /** Fills the pre-parsed fields of {@code s} from its value; unparsable values leave them null. */
+    public static void prepare(Rule.Signal s) {
+        if (s.value == null) return;
+        switch (String.valueOf(s.kind)) {
+            case "fieldPattern" -> {
+                PatternValue pv = PatternValue.parse(s.value);
+                s.patternDesc = pv.desc();
+                s.pattern = pv.pattern();
+            }
+            case "fieldPatternFuzzy" -> {
+                PatternValue pv = PatternValue.parse(s.value);
+                s.patternDesc = pv.desc();
+                s.pattern = FuzzyPattern.key(pv.pattern(), distance(s));
+            }
+            case "stringHashEq", "opcode3GramHashEq" -> s.constant = parseHash64(s.value);
+            case "intMultiplierConstEq" -> {
+                Integer v = parseInt32(s.value);
+                s.constant = (v == null) ? null : v.longValue();
+            }
+            case "constEq" -> {
+                Number n = InsnOperands.parseNumber(s.value);
+                s.canonical = (n == null) ? null : InsnOperands.canonical(n);
+            }
+            default -> { }
+        }
+    }
+
+    public static boolean isPattern(Rule.Signal s) {
+        return "fieldPattern".equals(s.kind) || "fieldPatternFuzzy".equals(s.kind);
+    }
+
+    /**
+     * The {@link com.betterdeob.bytecode.PatternSet} source of a fieldPattern or fieldPatternFuzzy
+     * signal: the opcode pattern without its "DESC|" prefix, keyed with the edit distance for fuzzy ones.
+     */
+    public static String patternSource(Rule.Signal s) {
+        if (s.pattern != null) return s.pattern;
+        String p = PatternValue.parse(s.value).pattern();
+        return "fieldPatternFuzzy".equals(s.kind) ? FuzzyPattern.key(p, distance(s)) : p;
+    }
+
+    public static int distance(Rule.Signal s) {
+        return (s.distance == null) ? 1 : s.distance;
+    }
+
+    /** 64-bit hash as hex digits, optionally prefixed with "0x"; null if malformed. */
+    public static Long parseHash64(String hex) {
+        if (hex == null || hex.isBlank()) return null;
+        try {
+            String h = hex.startsWith("0x") ? hex.substring(2) : hex;
+            return Long.parseUnsignedLong(h, 16);
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    /** Decimal or 0x-hex int, truncated to 32 bits like IMUL operands; null if malformed. */
+    public static Integer parseInt32(String s) {
+        if (s == null || s.isBlank()) return null;
+        try {
+            String t = s.trim().toLowerCase();
+            long v = t.startsWith("0x") ? Long.parseUnsignedLong(t.substring(2), 16) : Long.parseLong(t);
+            return (int) v;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
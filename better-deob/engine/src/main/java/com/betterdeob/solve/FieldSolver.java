@@ -1,5 +1,6 @@
 package com.betterdeob.solve;
 
+import com.betterdeob.jfr.FieldSolveEvent;
 import com.betterdeob.match.MatchResult;
 import com.betterdeob.report.MappingReport;
 
@@ -12,7 +13,14 @@ import java.util.*;
 public final class FieldSolver {
     private FieldSolver() {}
 
-    public static void apply(MappingReport report, List<MatchResult> matches, Map<String, Double> perTargetThreshold) {
+    /** Size of the assignment problems solved by one {@link #apply} call. */
+    public record Stats(int candidates, int owners, int maxMatrix, long cells) {
+        public Stats plus(Stats o) {
+            return new Stats(candidates + o.candidates, owners + o.owners, Math.max(maxMatrix, o.maxMatrix), cells + o.cells);
+        }
+    }
+
+    public static Stats apply(MappingReport report, List<MatchResult> matches, Map<String, Double> perTargetThreshold) {
         // Phase 1: Filter by threshold and group by owner class
         Map<String, List<MatchResult>> ownerToMatches = new LinkedHashMap<>();
         Map<String, List<MatchResult>> obfToCandidates = new LinkedHashMap<>();
@@ -29,6 +37,8 @@ public final class FieldSolver {
 
         Map<String, MatchResult> obfToWinner = new HashMap<>();
         Set<String> allTargets = new HashSet<>();
+        int solvedOwners = 0, maxMatrix = 0;
+        long cells = 0;
 
         // Phase 2: Run Hungarian algorithm for each owner class
         for (Map.Entry<String, List<MatchResult>> entry : ownerToMatches.entrySet()) {
@@ -55,6 +65,11 @@ public final class FieldSolver {
 
             if (numTargets == 0 || numObf == 0) continue;
 
+            int size = Math.max(numTargets, numObf);
+            solvedOwners++;
+            maxMatrix = Math.max(maxMatrix, size);
+            cells += (long) size * size;
+
             // Build cost matrix: cost[i][j] = cost of assigning target i to obf j
             // We want max confidence, so cost = 1.0 - confidence
             // Priority is incorporated as a small bonus (higher priority = lower cost)
@@ -79,7 +94,16 @@ public final class FieldSolver {
             }
 
             // Run Hungarian algorithm
+            FieldSolveEvent event = new FieldSolveEvent();
+            event.begin();
             int[] assignment = hungarian(cost, numTargets, numObf);
+            if (event.shouldCommit()) {
+                event.owner = owner;
+                event.targets = numTargets;
+                event.obfFields = numObf;
+                event.matrixSize = size;
+                event.commit();
+            }
 
             // Process assignments
             for (int i = 0; i < numTargets; i++) {
@@ -113,6 +137,7 @@ public final class FieldSolver {
                 report.addUnresolvedField(t);
             }
         }
+        return new Stats(matches.size(), solvedOwners, maxMatrix, cells);
     }
 
     /**
@@ -17,6 +17,11 @@ public final class Solver {
      * - Respects per-rule threshold override if provided
      */
     public static MappingReport solve(List<MatchResult> matches, double defaultThreshold, RuleSet rules) {
+        return solve(matches, defaultThreshold, rules, new MappingReport());
+    }
+
+    /** Solves into {@code report}, whose evidence writer receives winners, rejections and unresolved targets. */
+    public static MappingReport solve(List<MatchResult> matches, double defaultThreshold, RuleSet rules, MappingReport report) {
         Map<String, Double> thresholds = new HashMap<>();
         for (Rule r : rules.classRules()) {
             thresholds.put(r.id, (r.threshold != null) ? r.threshold : defaultThreshold);
@@ -28,8 +33,6 @@ public final class Solver {
                 .thenComparing(MatchResult::obfName)
         );
 
-        MappingReport report = new MappingReport();
-
         Map<String, MatchResult> bestByTarget = new HashMap<>();
         Map<String, MatchResult> usedByObf = new HashMap<>();
 
@@ -0,0 +1,72 @@
+package com.betterdeob;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/** Hand-built ClassNodes for engine tests. */
+public final class TestClasses {
+    private TestClasses() {}
+
+    public static ClassNode cls(String name, String superName, String... interfaces) {
+        ClassNode cn = new ClassNode();
+        cn.version = Opcodes.V1_8;
+        cn.access = Opcodes.ACC_PUBLIC;
+        cn.name = name;
+        cn.superName = superName;
+        cn.interfaces.addAll(List.of(interfaces));
+        return cn;
+    }
+
+    public static ClassNode field(ClassNode cn, String name, String desc) {
+        cn.fields.add(new FieldNode(Opcodes.ACC_PUBLIC, name, desc, null, null));
+        return cn;
+    }
+
+    /** Adds a method with {@code insns} followed by RETURN. */
+    public static MethodNode method(ClassNode cn, String name, String desc, AbstractInsnNode... insns) {
+        MethodNode mn = new MethodNode(Opcodes.ACC_PUBLIC, name, desc, null, null);
+        for (AbstractInsnNode insn : insns) mn.instructions.add(insn);
+        mn.instructions.add(new InsnNode(Opcodes.RETURN));
+        mn.maxStack = 8;
+        mn.maxLocals = 8;
+        cn.methods.add(mn);
+        return mn;
+    }
+
+    public static FieldInsnNode get(String owner, String name, String desc) {
+        return new FieldInsnNode(Opcodes.GETFIELD, owner, name, desc);
+    }
+
+    public static FieldInsnNode put(String owner, String name, String desc) {
+        return new FieldInsnNode(Opcodes.PUTFIELD, owner, name, desc);
+    }
+
+    public static VarInsnNode var(int opcode, int index) { return new VarInsnNode(opcode, index); }
+
+    public static InsnNode op(int opcode) { return new InsnNode(opcode); }
+
+    public static LdcInsnNode ldc(Object cst) { return new LdcInsnNode(cst); }
+
+    /** A jar of {@code classes} held in memory. */
+    public static ByteBuffer jar(List<ClassNode> classes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(bytes)) {
+            for (ClassNode cn : classes) {
+                ClassWriter cw = new ClassWriter(0);
+                cn.accept(cw);
+                out.putNextEntry(new JarEntry(cn.name + ".class"));
+                out.write(cw.toByteArray());
+                out.closeEntry();
+            }
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+}
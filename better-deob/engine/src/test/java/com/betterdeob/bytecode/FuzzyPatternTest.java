@@ -0,0 +1,126 @@
+package com.betterdeob.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyPatternTest {
+    private static final int[] ALPHABET = {
+            Opcodes.ALOAD, Opcodes.ILOAD, Opcodes.LDC, Opcodes.DUP, Opcodes.IMUL, Opcodes.IADD, Opcodes.GETFIELD, Opcodes.ISTORE
+    };
+
+    @Test
+    void matchesWithinTheEditDistance() {
+        String pattern = "ALOAD @GETFIELD LDC IMUL ISTORE";
+        PatternSet.Matcher exact = matcher(pattern, 0);
+        PatternSet.Matcher one = matcher(pattern, 1);
+        PatternSet.Matcher two = matcher(pattern, 2);
+
+        int[] same = {Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.LDC, Opcodes.IMUL, Opcodes.ISTORE};
+        assertTrue(hit(exact.match(same, 1)));
+
+        int[] substituted = {Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.LDC, Opcodes.IADD, Opcodes.ISTORE};
+        assertFalse(hit(exact.match(substituted, 1)));
+        assertTrue(hit(one.match(substituted, 1)));
+
+        int[] inserted = {Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.DUP, Opcodes.LDC, Opcodes.IMUL, Opcodes.ISTORE};
+        assertTrue(hit(one.match(inserted, 1)));
+
+        int[] deleted = {Opcodes.GETFIELD, Opcodes.LDC, Opcodes.ISTORE};
+        assertTrue(hit(two.match(deleted, 0)), "ALOAD and IMUL deleted");
+        assertFalse(hit(one.match(deleted, 0)));
+
+        int[] wrongAnchor = {Opcodes.ALOAD, Opcodes.PUTFIELD, Opcodes.LDC, Opcodes.IMUL, Opcodes.ISTORE};
+        assertFalse(hit(two.match(wrongAnchor, 1)), "the anchor must match exactly");
+    }
+
+    @Test
+    void agreesWithLevenshteinOnRandomCode() {
+        Random random = new Random(7);
+        int sites = 0;
+        for (int round = 0; round < 300; round++) {
+            int[] before = randomOps(random, random.nextInt(4));
+            int[] after = randomOps(random, random.nextInt(4));
+            int distance = random.nextInt(3);
+            String pattern = source(before, after);
+            PatternSet.Matcher matcher = matcher(pattern, distance);
+            for (int text = 0; text < 20; text++) {
+                int[] ops = randomOps(random, 1 + random.nextInt(10));
+                for (int idx = 0; idx < ops.length; idx++) {
+                    boolean expected = ops[idx] == Opcodes.GETFIELD
+                            && edits(reversed(before), ops, idx - 1, -1, distance) + edits(after, ops, idx + 1, 1, distance) <= distance;
+                    int at = idx;
+                    assertEquals(expected, hit(matcher.match(ops, idx)), () -> "~" + distance + " " + pattern + " at " + at + " of " + names(ops));
+                    if (expected) sites++;
+                }
+            }
+        }
+        assertTrue(sites > 200, "too few matching sites to compare: " + sites);
+    }
+
+    @Test
+    void rejectsWhatCannotBeMatchedFuzzily() {
+        for (String bad : List.of("~9 @GETFIELD IMUL", "~1 @GETFIELD<name=x> IMUL", "~1 @GETFIELD IMUL{1,2}", "~x @GETFIELD", "@GETFIELD IMUL")) {
+            assertThrows(IllegalArgumentException.class, () -> FuzzyPattern.parse(bad), bad);
+        }
+        assertEquals(FuzzyPattern.key("ALOAD @GETFIELD", 2), FuzzyPattern.parse(" ~2 ALOAD @GETFIELD ").source());
+    }
+
+    /** Fewest edits turning {@code pattern} into a prefix of the opcodes read from {@code start}, outside the method reading as NONOP. */
+    private static int edits(int[] pattern, int[] ops, int start, int dir, int k) {
+        int n = pattern.length + k;
+        int[] text = new int[n];
+        for (int i = 0, pos = start; i < n; i++, pos += dir) text[i] = (pos >= 0 && pos < ops.length) ? ops[pos] : OpcodeRegex.NONOP;
+        int[][] d = new int[pattern.length + 1][n + 1];
+        for (int i = 0; i <= pattern.length; i++) d[i][0] = i;
+        for (int j = 0; j <= n; j++) d[0][j] = j;
+        for (int i = 1; i <= pattern.length; i++) {
+            for (int j = 1; j <= n; j++) {
+                int sub = d[i - 1][j - 1] + (pattern[i - 1] == text[j - 1] ? 0 : 1);
+                d[i][j] = Math.min(sub, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= n; j++) best = Math.min(best, d[pattern.length][j]);
+        return best;
+    }
+
+    private static PatternSet.Matcher matcher(String pattern, int distance) {
+        PatternSet set = PatternSet.compile(List.of(FuzzyPattern.key(pattern, distance)), new SymbolTable());
+        assertEquals(1, set.fuzzySize());
+        return set.matcher();
+    }
+
+    private static String source(int[] before, int[] after) {
+        List<String> tokens = new ArrayList<>();
+        for (int op : before) tokens.add(OpcodeNames.name(op));
+        tokens.add("@GETFIELD");
+        for (int op : after) tokens.add(OpcodeNames.name(op));
+        return String.join(" ", tokens);
+    }
+
+    private static int[] randomOps(Random random, int n) {
+        int[] ops = new int[n];
+        for (int i = 0; i < n; i++) ops[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        return ops;
+    }
+
+    private static int[] reversed(int[] a) {
+        int[] r = new int[a.length];
+        for (int i = 0; i < a.length; i++) r[i] = a[a.length - 1 - i];
+        return r;
+    }
+
+    private static String names(int[] ops) {
+        List<String> l = new ArrayList<>();
+        for (int op : ops) l.add(OpcodeNames.name(op));
+        return l.toString();
+    }
+
+    private static boolean hit(long[] bits) { return (bits[0] & 1L) != 0; }
+}
@@ -0,0 +1,72 @@
+package com.betterdeob.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.*;
+
+import java.util.Map;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class MultiplierFlowTest {
+    private static final ClassNode OWNER = field(cls("a", "java/lang/Object"), "x", "I");
+
+    @Test
+    void readMultiplierFollowsStoreAndLoad() {
+        FieldInsnNode read = get("a", "x", "I");
+        MethodNode mn = method(OWNER, "m", "()I",
+                var(ALOAD, 0), read, var(ISTORE, 3),
+                op(NOP), op(NOP),
+                var(ILOAD, 3), ldc(1234567), op(IMUL), op(IRETURN));
+        assertTrue(MultiplierFlow.applies("a", mn));
+        assertEquals(Map.of(read, 1234567), MultiplierFlow.analyze("a", mn));
+    }
+
+    @Test
+    void writeMultiplierFollowsDup() {
+        FieldInsnNode write = put("a", "x", "I");
+        MethodNode mn = method(OWNER, "m", "(I)I",
+                var(ALOAD, 0), ldc(-7654321), var(ILOAD, 1), op(IMUL), op(DUP_X1), write, op(IRETURN));
+        assertEquals(Map.of(write, -7654321), MultiplierFlow.analyze("a", mn));
+    }
+
+    @Test
+    void constantFoldedFactorsMultiply() {
+        FieldInsnNode write = put("a", "x", "I");
+        MethodNode mn = method(OWNER, "m", "(I)V",
+                var(ALOAD, 0), var(ILOAD, 1), new IntInsnNode(BIPUSH, 3), ldc(5), op(IMUL), op(IMUL), write);
+        assertEquals(Map.of(write, 15), MultiplierFlow.analyze("a", mn));
+    }
+
+    @Test
+    void pathsThatDisagreeLoseTheMultiplier() {
+        FieldInsnNode write = put("a", "x", "I");
+        LabelNode other = new LabelNode();
+        LabelNode join = new LabelNode();
+        MethodNode mn = method(OWNER, "m", "(I)V",
+                var(ILOAD, 1), new JumpInsnNode(IFEQ, other),
+                var(ILOAD, 1), ldc(11), op(IMUL), var(ISTORE, 2), new JumpInsnNode(GOTO, join),
+                other, new FrameNode(F_SAME, 0, null, 0, null), var(ILOAD, 1), ldc(13), op(IMUL), var(ISTORE, 2),
+                join, new FrameNode(F_APPEND, 1, new Object[]{INTEGER}, 0, null),
+                var(ALOAD, 0), var(ILOAD, 2), write);
+        assertEquals(Map.of(), MultiplierFlow.analyze("a", mn));
+    }
+
+    @Test
+    void onlyOwnIntFieldsNearAnImulApply() {
+        MethodNode otherOwner = method(OWNER, "m", "()I", var(ALOAD, 0), get("b", "x", "I"), ldc(3), op(IMUL), op(IRETURN));
+        assertFalse(MultiplierFlow.applies("a", otherOwner));
+        assertEquals(Map.of(), MultiplierFlow.analyze("a", otherOwner));
+
+        AbstractInsnNode[] far = new AbstractInsnNode[MultiplierFlow.NEAR + 6];
+        far[0] = var(ALOAD, 0);
+        far[1] = get("a", "x", "I");
+        far[2] = var(ISTORE, 3);
+        for (int i = 3; i < far.length - 3; i++) far[i] = op(NOP);
+        far[far.length - 3] = ldc(3);
+        far[far.length - 2] = ldc(5);
+        far[far.length - 1] = op(IMUL);
+        assertFalse(MultiplierFlow.applies("a", method(OWNER, "n", "()V", far)));
+    }
+}
@@ -0,0 +1,114 @@
+package com.betterdeob.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpcodeRegexTest {
+    private static final String PATTERN = "ALOAD @GETFIELD<owner=a,name=x> LDC<num=1234567> IMUL";
+
+    @Test
+    void operandConstraintsAreVerifiedAfterTheDfa() {
+        SymbolTable symbols = new SymbolTable();
+        PatternSet set = PatternSet.compile(List.of(PATTERN, "ALOAD @GETFIELD LDC IMUL"), symbols);
+        int constrained = set.idOf(PATTERN);
+        int plain = set.idOf("ALOAD @GETFIELD LDC IMUL");
+        assertTrue(set.hasOperandPatterns());
+
+        List<AbstractInsnNode> same = access("a", "x", 1234567);
+        assertTrue(hit(set, symbols, same, constrained));
+        assertTrue(hit(set, symbols, same, plain));
+        for (List<AbstractInsnNode> other : List.of(access("b", "x", 1234567), access("a", "y", 1234567), access("a", "x", 7))) {
+            assertFalse(hit(set, symbols, other, constrained));
+            assertTrue(hit(set, symbols, other, plain));
+        }
+    }
+
+    @Test
+    void constraintsNeverMatchWithoutOperands() {
+        SymbolTable symbols = new SymbolTable();
+        PatternSet set = PatternSet.compile(List.of(PATTERN), symbols);
+        long[] hits = set.matcher().match(ops(access("a", "x", 1234567)), 1);
+        assertEquals(-1, PatternSet.nextId(hits, 0));
+    }
+
+    @Test
+    void stringConstraintsTakeQuotedValues() {
+        SymbolTable symbols = new SymbolTable();
+        String src = "@GETSTATIC<desc=\"Ljava/lang/String;\"> LDC<str=\"a, b\"> INVOKEVIRTUAL";
+        PatternSet set = PatternSet.compile(List.of(src), symbols);
+        List<AbstractInsnNode> insns = List.of(
+                new FieldInsnNode(Opcodes.GETSTATIC, "c", "s", "Ljava/lang/String;"),
+                new LdcInsnNode("a, b"),
+                new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;"));
+        assertTrue(hit(set, symbols, insns, 0, 0));
+        List<AbstractInsnNode> other = new ArrayList<>(insns);
+        other.set(1, new LdcInsnNode("a,b"));
+        assertFalse(hit(set, symbols, other, 0, 0));
+    }
+
+    @Test
+    void targetReferencesResolveThroughTheClassMapping() {
+        String src = "@GETFIELD<owner=@Player,desc=\"[@Npc\"> ARRAYLENGTH";
+        assertTrue(OpcodeRegex.hasTargetRefs(src));
+        assertThrows(IllegalArgumentException.class, () -> OpcodeRegex.parse(src));
+        Map<String, String> mapping = Map.of("Player", "ab", "Npc", "cd");
+        assertEquals("@GETFIELD<owner=ab,desc=\"[Lcd;\"> ARRAYLENGTH", OpcodeRegex.resolveTargets(src, mapping::get));
+        assertNull(OpcodeRegex.resolveTargets(src, Map.of("Player", "ab")::get));
+    }
+
+    @Test
+    void typeInstructionsMatchDescriptorsLikeClassConstants() {
+        Map<String, String> mapping = Map.of("T", "ab");
+        String newT = OpcodeRegex.resolveTargets("@GETFIELD NEW<desc=@T>", mapping::get);
+        String castT = OpcodeRegex.resolveTargets("@GETFIELD CHECKCAST<desc=@T>", mapping::get);
+        String ldcT = OpcodeRegex.resolveTargets("@GETFIELD LDC<desc=@T>", mapping::get);
+        SymbolTable symbols = new SymbolTable();
+        PatternSet set = PatternSet.compile(List.of(newT, castT, ldcT), symbols);
+        FieldInsnNode get = new FieldInsnNode(Opcodes.GETFIELD, "c", "f", "Ljava/lang/Object;");
+
+        assertTrue(hit(set, symbols, List.of(get, new TypeInsnNode(Opcodes.NEW, "ab")), 0, set.idOf(newT)));
+        assertFalse(hit(set, symbols, List.of(get, new TypeInsnNode(Opcodes.NEW, "cd")), 0, set.idOf(newT)));
+        assertTrue(hit(set, symbols, List.of(get, new TypeInsnNode(Opcodes.CHECKCAST, "ab")), 0, set.idOf(castT)));
+        assertTrue(hit(set, symbols, List.of(get, new LdcInsnNode(Type.getObjectType("ab"))), 0, set.idOf(ldcT)));
+
+        String array = "@GETFIELD CHECKCAST<desc=\"[Lab;\">";
+        set = PatternSet.compile(List.of(array), symbols);
+        assertTrue(hit(set, symbols, List.of(get, new TypeInsnNode(Opcodes.CHECKCAST, "[Lab;")), 0, 0));
+    }
+
+    @Test
+    void rejectsMalformedPatterns() {
+        for (String bad : List.of("", "IMUL IADD", "@GETFIELD @PUTFIELD", "@(GETFIELD IMUL)", "GETFIELD IMUL{1,99}")) {
+            assertThrows(IllegalArgumentException.class, () -> OpcodeRegex.parse(bad), bad);
+        }
+    }
+
+    private static List<AbstractInsnNode> access(String owner, String name, int constant) {
+        return List.of(
+                new VarInsnNode(Opcodes.ALOAD, 0),
+                new FieldInsnNode(Opcodes.GETFIELD, owner, name, "I"),
+                new LdcInsnNode(constant),
+                new InsnNode(Opcodes.IMUL));
+    }
+
+    private static boolean hit(PatternSet set, SymbolTable symbols, List<AbstractInsnNode> insns, int id) {
+        return hit(set, symbols, insns, 1, id);
+    }
+
+    private static boolean hit(PatternSet set, SymbolTable symbols, List<AbstractInsnNode> insns, int anchor, int id) {
+        long[] hits = set.matcher().match(ops(insns), new InsnOperands(insns, symbols), anchor);
+        return (hits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private static int[] ops(List<AbstractInsnNode> insns) {
+        return insns.stream().mapToInt(AbstractInsnNode::getOpcode).toArray();
+    }
+}
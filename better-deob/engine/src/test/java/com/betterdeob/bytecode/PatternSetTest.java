@@ -0,0 +1,81 @@
+package com.betterdeob.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternSetTest {
+    private static final int[] ALPHABET = {
+            Opcodes.ALOAD, Opcodes.ILOAD, Opcodes.ICONST_1, Opcodes.LDC, Opcodes.DUP, Opcodes.IMUL, Opcodes.IADD,
+            Opcodes.GETFIELD, Opcodes.PUTFIELD, Opcodes.GETSTATIC, Opcodes.ISTORE, Opcodes.IRETURN, Opcodes.INVOKEVIRTUAL
+    };
+
+    /** Legacy 7-token patterns, as the old fixed windows matched them. */
+    private static final List<String> LEGACY = List.of(
+            "ALOAD * GETFIELD * IMUL * *",
+            "* * GETFIELD LDC IMUL * *",
+            "NONOP NONOP GETSTATIC * * * *",
+            "* ALOAD PUTFIELD * * * NONOP",
+            "* * GETFIELD LDC IMUL ISTORE *");
+
+    @Test
+    void legacyPatternsMatchLikeTheirWindow() {
+        PatternSet set = PatternSet.compile(LEGACY, new SymbolTable());
+        assertEquals(LEGACY.size(), set.size());
+        PatternSet.Matcher matcher = set.matcher();
+        Random random = new Random(42);
+        int sites = 0;
+        for (int round = 0; round < 2000; round++) {
+            int[] ops = new int[1 + random.nextInt(12)];
+            for (int i = 0; i < ops.length; i++) ops[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            for (int idx = 0; idx < ops.length; idx++) {
+                long[] hits = matcher.match(ops, idx);
+                String window = window(ops, idx);
+                for (String src : LEGACY) {
+                    boolean legacy = OpcodePattern.parse(src).matches(window);
+                    boolean dfa = (hits[set.idOf(src) >>> 6] & (1L << set.idOf(src))) != 0;
+                    assertEquals(legacy, dfa, () -> src + " at " + window);
+                    if (legacy) sites++;
+                }
+            }
+        }
+        assertTrue(sites > 100, "too few matching sites to compare: " + sites);
+    }
+
+    @Test
+    void regexSyntaxWidensTheWindow() {
+        String src = "ALOAD @GETFIELD [LDC ICONST]? IMUL{1,2} STORE";
+        PatternSet set = PatternSet.compile(List.of(src), new SymbolTable());
+        PatternSet.Matcher matcher = set.matcher();
+        assertTrue(hit(matcher.match(ops(Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.IMUL, Opcodes.ISTORE), 1), 0));
+        assertTrue(hit(matcher.match(ops(Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.LDC, Opcodes.IMUL, Opcodes.IMUL,
+                Opcodes.ASTORE), 1), 0));
+        assertFalse(hit(matcher.match(ops(Opcodes.ALOAD, Opcodes.GETFIELD, Opcodes.LDC, Opcodes.IRETURN), 1), 0));
+        assertFalse(hit(matcher.match(ops(Opcodes.ILOAD, Opcodes.GETFIELD, Opcodes.IMUL, Opcodes.ISTORE), 1), 0));
+    }
+
+    @Test
+    void invalidSourcesAreLeftOut() {
+        PatternSet set = PatternSet.compile(List.of("GETFIELD IMUL", "IMUL IADD", "(GETFIELD"), new SymbolTable());
+        assertEquals(1, set.size());
+        assertEquals(0, set.idOf("GETFIELD IMUL"));
+        assertEquals(-1, set.idOf("IMUL IADD"));
+    }
+
+    private static String window(int[] ops, int idx) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = idx - 2; j <= idx + 4; j++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append((j < 0 || j >= ops.length) ? "NONOP" : OpcodeNames.name(ops[j]));
+        }
+        return sb.toString();
+    }
+
+    private static int[] ops(int... ops) { return ops; }
+
+    private static boolean hit(long[] bits, int id) { return (bits[id >>> 6] & (1L << id)) != 0; }
+}
@@ -0,0 +1,140 @@
+package com.betterdeob.core;
+
+import com.betterdeob.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static com.betterdeob.TestClasses.cls;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineTest {
+    @TempDir Path dir;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private interface Body {
+        void run(ClassGroup group) throws Exception;
+    }
+
+    /** A pass that logs "+name" when it starts and "-name" when it ends. */
+    private Pass step(String name, Set<String> inputs, Set<String> outputs, Set<String> streamed, Body body) {
+        return new Pass() {
+            @Override public String name() { return name; }
+            @Override public Set<String> inputs() { return inputs; }
+            @Override public Set<String> outputs() { return outputs; }
+            @Override public Set<String> streamedInputs() { return streamed; }
+            @Override public void run(ClassGroup group, DeobContext ctx) throws Exception {
+                events.add("+" + name);
+                body.run(group);
+                events.add("-" + name);
+            }
+        };
+    }
+
+    private Pass step(String name, Set<String> inputs, Set<String> outputs, Body body) {
+        return step(name, inputs, outputs, Set.of(), body);
+    }
+
+    private Pass step(String name, Set<String> inputs, Set<String> outputs) {
+        return step(name, inputs, outputs, g -> {});
+    }
+
+    private void run(Pipeline pipeline, ClassGroup group, DeobContext ctx) throws Exception {
+        try (Scheduler scheduler = new Scheduler(1)) {
+            ctx.setScheduler(scheduler);
+            ctx.setLog(new PrintStream(OutputStream.nullOutputStream()));
+            pipeline.run(group, ctx);
+        }
+    }
+
+    private DeobContext context() {
+        return new DeobContext(dir, new RuleSet());
+    }
+
+    private void assertBefore(String first, String then) {
+        assertTrue(events.indexOf(first) >= 0 && events.indexOf(first) < events.indexOf(then), () -> first + " before " + then + " in " + events);
+    }
+
+    @Test
+    void passesWaitForTheirInputsAndIndependentOnesOverlap() throws Exception {
+        CyclicBarrier both = new CyclicBarrier(2);
+        Body meet = g -> both.await(10, TimeUnit.SECONDS);
+        Pipeline pipeline = new Pipeline()
+                .add(step("features", Set.of(), Set.of(Pass.FEATURES)))
+                .add(step("identify", Set.of(Pass.FEATURES), Set.of(Pass.CLASS_MAPPINGS)))
+                .add(step("shadow", Set.of(Pass.FEATURES, Pass.CLASS_MAPPINGS), Set.of(Pass.SHADOW_DIFF), meet))
+                .add(step("report", Set.of(Pass.CLASS_MAPPINGS), Set.of(Pass.HOOKS), meet));
+        DeobContext ctx = context();
+        run(pipeline, new ClassGroup(), ctx);
+
+        assertBefore("-features", "+identify");
+        assertBefore("-identify", "+shadow");
+        assertBefore("-identify", "+report");
+        assertEquals(8, events.size());
+        List<String> path = ctx.metrics().criticalPath().stream().map(RunMetrics.PathStep::phase).toList();
+        assertEquals(List.of("features", "identify"), path.subList(0, 2));
+        assertEquals(3, path.size());
+    }
+
+    @Test
+    void aPassWritingAnArtifactWaitsForEarlierReaders() throws Exception {
+        Pipeline pipeline = new Pipeline()
+                .add(step("read", Set.of(Pass.FEATURES), Set.of(Pass.HOOKS), g -> Thread.sleep(50)))
+                .add(step("rewrite", Set.of(), Set.of(Pass.FEATURES)));
+        run(pipeline, new ClassGroup(), context());
+        assertBefore("-read", "+rewrite");
+    }
+
+    @Test
+    void barriersRunAlone() throws Exception {
+        Pipeline pipeline = new Pipeline()
+                .add(step("a", Set.of(), Set.of("x"), g -> Thread.sleep(30)))
+                .add(step("b", Set.of(), Set.of("y")))
+                .add(step("barrier", Set.of(), Set.of()))
+                .add(step("c", Set.of(), Set.of("z")));
+        run(pipeline, new ClassGroup(), context());
+        assertBefore("-a", "+barrier");
+        assertBefore("-b", "+barrier");
+        assertBefore("-barrier", "+c");
+    }
+
+    @Test
+    void streamedClassesAreConsumedWhileTheProducerRuns() throws Exception {
+        CountDownLatch consumerStarted = new CountDownLatch(1);
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        Pipeline pipeline = new Pipeline()
+                .add(step("load", Set.of(), Set.of(Pass.CLASSES), g -> {
+                    g.add(cls("a", "java/lang/Object"));
+                    assertTrue(consumerStarted.await(10, TimeUnit.SECONDS), "consumer did not start while loading");
+                    g.add(cls("b", "java/lang/Object"));
+                }))
+                .add(step("extract", Set.of(Pass.CLASSES), Set.of(Pass.FEATURES), Set.of(Pass.CLASSES), g -> {
+                    assertTrue(g.isLoading());
+                    consumerStarted.countDown();
+                    g.forEachAdded(cn -> seen.add(cn.name));
+                }));
+        ClassGroup group = new ClassGroup();
+        run(pipeline, group, context());
+        assertEquals(List.of("a", "b"), seen);
+        assertFalse(group.isLoading());
+    }
+
+    @Test
+    void aFailingPassFailsTheRunAndStopsItsDependents() {
+        Pipeline pipeline = new Pipeline()
+                .add(step("broken", Set.of(), Set.of(Pass.FEATURES), g -> { throw new IOException("boom"); }))
+                .add(step("identify", Set.of(Pass.FEATURES), Set.of(Pass.CLASS_MAPPINGS)));
+        IOException e = assertThrows(IOException.class, () -> run(pipeline, new ClassGroup(), context()));
+        assertEquals("boom", e.getMessage());
+        assertFalse(events.contains("+identify"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.betterdeob.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulerTest {
+    @TempDir Path dir;
+
+    private static List<Integer> range(int n) {
+        List<Integer> l = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) l.add(i);
+        return l;
+    }
+
+    @Test
+    void everyItemRunsExactlyOnce() throws Exception {
+        try (Scheduler scheduler = new Scheduler(4)) {
+            AtomicIntegerArray runs = new AtomicIntegerArray(1000);
+            scheduler.forEach(range(1000), i -> (i % 7 == 0) ? 1000 : i, i -> runs.incrementAndGet(i));
+            for (int i = 0; i < runs.length(); i++) assertEquals(1, runs.get(i), "item " + i);
+
+            AtomicIntegerArray fed = new AtomicIntegerArray(200);
+            Scheduler.Feed<Integer> feed = scheduler.feed(i -> fed.incrementAndGet(i));
+            for (int i : range(200)) feed.add(i);
+            feed.finish();
+            for (int i = 0; i < fed.length(); i++) assertEquals(1, fed.get(i), "fed item " + i);
+
+            scheduler.forEach(List.of(), i -> 1, i -> fail("no items"));
+        }
+    }
+
+    @Test
+    void firstFailureIsRethrownAfterRunningChunksFinish() throws Exception {
+        try (Scheduler scheduler = new Scheduler(2)) {
+            CountDownLatch slowStarted = new CountDownLatch(1);
+            AtomicBoolean slowDone = new AtomicBoolean();
+            // Two equally expensive items, one chunk each: the slow one keeps running after the other fails.
+            IOException e = assertThrows(IOException.class, () -> scheduler.forEach(List.of("fail", "slow"), s -> 100, s -> {
+                if (s.equals("slow")) {
+                    slowStarted.countDown();
+                    Thread.sleep(100);
+                    slowDone.set(true);
+                } else {
+                    assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+                    throw new IOException("first");
+                }
+            }));
+            assertEquals("first", e.getMessage());
+            assertTrue(slowDone.get(), "forEach returned while a chunk was still running");
+        }
+    }
+
+    @Test
+    void itemsNotStartedAfterAFailureAreSkipped() {
+        try (Scheduler scheduler = new Scheduler(1)) {
+            AtomicInteger ran = new AtomicInteger();
+            List<Integer> items = range(100);
+            assertThrows(IllegalStateException.class, () -> scheduler.forEach(items, i -> (i == 0) ? 1_000_000 : 1, i -> {
+                if (i == 0) throw new IllegalStateException("largest item runs first");
+                ran.incrementAndGet();
+            }));
+            assertEquals(0, ran.get());
+        }
+    }
+
+    @Test
+    void workIsChargedToTheSubmittingAccount() throws Exception {
+        try (Scheduler scheduler = new Scheduler(3)) {
+            Scheduler.Account account = new Scheduler.Account();
+            Scheduler.Account other = new Scheduler.Account();
+            assertNull(scheduler.charge(account));
+            try {
+                scheduler.forEach(range(10), i -> 1, i -> scheduler.forEach(range(3), j -> 1, j -> Thread.sleep(1)));
+                Scheduler.Feed<Integer> feed = scheduler.feed(i -> {});
+                feed.add(1);
+                feed.add(2);
+                feed.finish();
+            } finally {
+                assertSame(account, scheduler.charge(null));
+            }
+            Scheduler.Usage used = account.usage();
+            assertEquals(10 + 10 * 3 + 2, used.items(), "nested submissions are charged to the same account");
+            assertTrue(used.busyNanos() >= TimeUnit.MILLISECONDS.toNanos(30), "busy " + used.busyNanos());
+            assertEquals(0, other.usage().items());
+
+            scheduler.forEach(range(5), i -> 1, i -> {});
+            assertEquals(used.items(), account.usage().items(), "work after the account was released");
+            assertEquals(used.items() + 5, scheduler.usage().items());
+        }
+    }
+
+    @Test
+    void cgroupQuotaIsParsed() throws IOException {
+        Path v2 = Files.createDirectories(dir.resolve("v2"));
+        Files.writeString(v2.resolve("cpu.max"), "150000 100000\n");
+        assertEquals(1.5, Scheduler.cgroupCpuQuota(v2), 1e-9);
+        Files.writeString(v2.resolve("cpu.max"), "max 100000\n");
+        assertEquals(-1, Scheduler.cgroupCpuQuota(v2));
+
+        Path v1 = Files.createDirectories(dir.resolve("v1").resolve("cpu,cpuacct"));
+        Files.writeString(v1.resolve("cpu.cfs_quota_us"), "250000\n");
+        Files.writeString(v1.resolve("cpu.cfs_period_us"), "100000\n");
+        assertEquals(2.5, Scheduler.cgroupCpuQuota(dir.resolve("v1")), 1e-9);
+        Files.writeString(v1.resolve("cpu.cfs_quota_us"), "-1\n");
+        assertEquals(-1, Scheduler.cgroupCpuQuota(dir.resolve("v1")));
+
+        assertEquals(-1, Scheduler.cgroupCpuQuota(dir.resolve("none")));
+        Files.writeString(v2.resolve("cpu.max"), "garbage");
+        assertEquals(-1, Scheduler.cgroupCpuQuota(v2));
+
+        int cpus = Scheduler.availableCpus();
+        assertTrue(cpus >= 1 && cpus <= Runtime.getRuntime().availableProcessors());
+    }
+}
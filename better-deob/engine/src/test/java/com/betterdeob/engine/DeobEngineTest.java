@@ -0,0 +1,99 @@
+package com.betterdeob.engine;
+
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.RuleLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class DeobEngineTest {
+    @TempDir Path dir;
+
+    private static final String RULES = """
+            thresholdDefault: 0.5
+            classRules:
+              - id: Client
+                superName: java/applet/Applet
+                signals:
+                  - kind: minLdcStrings
+                    min: 1
+                    weight: 1.0
+            fieldRules:
+              - id: Client.cycle
+                ownerTarget: Client
+                desc: I
+                signals:
+                  - kind: intMultiplierConstEq
+                    value: "1234567"
+                    weight: 0.5
+                  - kind: fieldPattern
+                    value: "IMUL IADD"
+                    weight: 0.5
+            """;
+
+    private static ByteBuffer gamepack() throws Exception {
+        ClassNode client = field(cls("aa", "java/applet/Applet"), "b", "I");
+        method(client, "tick", "()I", ldc("login"), op(POP), var(ALOAD, 0), get("aa", "b", "I"), ldc(1234567), op(IMUL), op(IRETURN));
+        return jar(List.of(client, cls("ab", "java/lang/Object")));
+    }
+
+    private DeobEngine engine() throws Exception {
+        Path yaml = dir.resolve("rules.yaml");
+        Files.writeString(yaml, RULES);
+        return new DeobEngine(RuleLoader.load(yaml), 2);
+    }
+
+    @Test
+    void secondCallReusesTheIndexAndMapsTheSame() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream stderr = System.err;
+        ByteBuffer jar = gamepack();
+        MappingReport first, second;
+        System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+        try (DeobEngine engine = engine()) {
+            engine.setLog(new PrintStream(log, true, StandardCharsets.UTF_8));
+            first = engine.identify(jar);
+            assertFalse(log.toString(StandardCharsets.UTF_8).contains("Reusing FeatureIndex"));
+            second = engine.identify(jar);
+        } finally {
+            System.setErr(stderr);
+        }
+        String out = log.toString(StandardCharsets.UTF_8);
+        assertTrue(out.contains("Reusing FeatureIndex held by the caller"), out);
+        assertTrue(out.contains("Ignoring invalid fieldPattern"), "pattern warnings go to the engine log");
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+        assertEquals(0, jar.position(), "the buffer's position is left unchanged");
+
+        assertEquals("aa", first.classMappings().get("Client"));
+        assertEquals("aa.b:I", first.fieldMappings().get("Client.cycle"));
+        assertEquals(first.classMappings(), second.classMappings());
+        assertEquals(first.fieldMappings(), second.fieldMappings());
+        assertEquals(first.fieldMultipliers(), second.fieldMultipliers());
+    }
+
+    @Test
+    void indexesBeyondTheCacheSizeAreRebuilt() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        try (DeobEngine engine = engine()) {
+            engine.setCachedIndexes(0);
+            engine.setLog(new PrintStream(log, true, StandardCharsets.UTF_8));
+            MappingReport first = engine.identify(gamepack());
+            MappingReport second = engine.identify(gamepack());
+            assertEquals(first.fieldMappings(), second.fieldMappings());
+        }
+        assertFalse(log.toString(StandardCharsets.UTF_8).contains("Reusing FeatureIndex"));
+    }
+}
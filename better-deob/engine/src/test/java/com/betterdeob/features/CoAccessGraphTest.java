@@ -0,0 +1,77 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.core.Scheduler;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class CoAccessGraphTest {
+    private static List<ClassNode> classes() {
+        ClassNode a = field(field(field(cls("a", "java/lang/Object"), "x", "I"), "y", "I"), "z", "I");
+        ClassNode b = cls("b", "a");
+        ClassNode c = cls("c", "java/lang/Object");
+        method(a, "move", "()V", var(ALOAD, 0), get("a", "x", "I"), op(POP), var(ALOAD, 0), get("a", "y", "I"), op(POP));
+        method(a, "reset", "()V", var(ALOAD, 0), op(ICONST_0), put("a", "x", "I"), var(ALOAD, 0), op(ICONST_0), put("a", "y", "I"));
+        // through the subclass: resolves to a.x / a.z
+        method(c, "m", "(Lb;)V", var(ALOAD, 1), get("b", "x", "I"), op(POP), var(ALOAD, 1), get("b", "z", "I"), op(POP),
+                var(ALOAD, 1), get("b", "x", "I"), op(POP));
+        // a single field, or a field not declared in the jar, makes no edge
+        method(c, "n", "(La;)V", var(ALOAD, 1), get("a", "z", "I"), op(POP), var(ALOAD, 1), get("d", "w", "I"), op(POP));
+        return List.of(a, b, c);
+    }
+
+    private static FeatureIndex build(List<ClassNode> classes, FeatureIndex.Extras extras) {
+        try (Scheduler scheduler = new Scheduler(2)) {
+            return FeatureIndex.build(classes, scheduler, PatternSet.empty(), extras);
+        }
+    }
+
+    @Test
+    void edgesCountMethodsAccessingBothFields() {
+        CoAccessGraph g = build(classes(), FeatureIndex.Extras.ALL).coAccess();
+        assertEquals(2, g.weight("a.x:I", "a.y:I"));
+        assertEquals(2, g.weight("a.y:I", "a.x:I"));
+        assertEquals(1, g.weight("a.x:I", "a.z:I"), "accesses through b resolve to the declaring class");
+        assertEquals(0, g.weight("a.y:I", "a.z:I"));
+        assertEquals(0, g.weight("a.x:I", "d.w:I"));
+        assertEquals(0, g.weight("b.x:I", "a.z:I"));
+        assertEquals(2, g.degree("a.x:I"));
+        assertEquals(1, g.degree("a.y:I"));
+        assertEquals(0, g.degree("d.w:I"));
+        assertEquals(3, g.nodeCount());
+        assertEquals(2, g.edgeCount());
+    }
+
+    @Test
+    void methodsTouchingTooManyFieldsAreLeftOut() {
+        ClassNode big = cls("big", "java/lang/Object");
+        List<AbstractInsnNode> insns = new ArrayList<>();
+        for (int i = 0; i <= CoAccessGraph.MAX_FIELDS_PER_METHOD; i++) {
+            field(big, "f" + i, "I");
+            insns.addAll(List.of(var(ALOAD, 0), get("big", "f" + i, "I"), op(POP)));
+        }
+        method(big, "<clinit>", "()V", insns.toArray(new AbstractInsnNode[0]));
+        method(big, "pair", "()V", var(ALOAD, 0), get("big", "f0", "I"), op(POP), var(ALOAD, 0), get("big", "f1", "I"), op(POP));
+
+        CoAccessGraph g = build(List.of(big), FeatureIndex.Extras.ALL).coAccess();
+        assertEquals(1, g.weight("big.f0:I", "big.f1:I"));
+        assertEquals(0, g.weight("big.f0:I", "big.f2:I"));
+        assertEquals(1, g.edgeCount());
+    }
+
+    @Test
+    void emptyWithoutCoAccessExtras() {
+        FeatureIndex idx = build(classes(), new FeatureIndex.Extras(true, false));
+        assertFalse(idx.extras().coAccess());
+        assertEquals(0, idx.coAccess().nodeCount());
+        assertEquals(0, idx.coAccess().weight("a.x:I", "a.y:I"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.betterdeob.features;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.List;
+
+import static com.betterdeob.TestClasses.cls;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchyIndexTest {
+    private static final List<ClassNode> JAR = List.of(
+            cls("a", "java/awt/Canvas"),
+            cls("b", "a", "i"),
+            cls("c", "b"),
+            cls("d", "a"),
+            cls("i", "java/lang/Object", "j"),
+            cls("j", "java/lang/Object", "java/lang/Runnable"));
+
+    @Test
+    void superclassClosure() {
+        HierarchyIndex h = HierarchyIndex.build(JAR);
+        assertTrue(h.extendsTransitively("c", "b"));
+        assertTrue(h.extendsTransitively("c", "a"));
+        assertTrue(h.extendsTransitively("c", "java/awt/Canvas"));
+        assertFalse(h.extendsTransitively("a", "c"));
+        assertFalse(h.extendsTransitively("c", "c"));
+        assertFalse(h.extendsTransitively("c", "d"));
+        assertFalse(h.extendsTransitively("c", "unknown"));
+    }
+
+    @Test
+    void interfacesAreInheritedThroughSuperclassesAndSuperinterfaces() {
+        HierarchyIndex h = HierarchyIndex.build(JAR);
+        assertTrue(h.implementsTransitively("b", "i"));
+        assertTrue(h.implementsTransitively("b", "j"));
+        assertTrue(h.implementsTransitively("c", "i"));
+        assertTrue(h.implementsTransitively("c", "java/lang/Runnable"));
+        assertFalse(h.implementsTransitively("a", "i"));
+        assertFalse(h.implementsTransitively("d", "i"));
+    }
+
+    @Test
+    void subclassesCountTransitively() {
+        HierarchyIndex h = HierarchyIndex.build(JAR);
+        assertEquals(3, h.subclassCount("a"));
+        assertEquals(1, h.subclassCount("b"));
+        assertEquals(0, h.subclassCount("c"));
+        assertEquals(4, h.subclassCount("java/awt/Canvas"));
+        assertEquals(0, h.subclassCount("unknown"));
+    }
+
+    @Test
+    void cyclicHierarchiesTerminate() {
+        HierarchyIndex h = HierarchyIndex.build(List.of(cls("x", "y"), cls("y", "x")));
+        assertTrue(h.extendsTransitively("x", "y"));
+        assertEquals(2, h.size());
+    }
+}
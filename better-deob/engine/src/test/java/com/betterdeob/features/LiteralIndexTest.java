@@ -0,0 +1,73 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.core.Scheduler;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.IntInsnNode;
+
+import java.util.List;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class LiteralIndexTest {
+    private static List<ClassNode> classes() {
+        ClassNode a = field(cls("a", "java/lang/Object"), "x", "I");
+        method(a, "m", "()V",
+                ldc("hello world"), op(POP),
+                op(NOP), op(NOP), op(NOP),
+                var(ALOAD, 0), var(ALOAD, 0), get("a", "x", "I"), ldc(1234567), op(IMUL), put("a", "x", "I"),
+                new IntInsnNode(BIPUSH, 100), op(POP), op(ICONST_1), op(POP));
+        method(a, "n", "()V", ldc("hello world"), op(POP));
+        ClassNode b = cls("b", "java/lang/Object");
+        method(b, "m", "()V", ldc("hello"), op(POP), ldc(2.5d), op(POP2));
+        return List.of(a, b);
+    }
+
+    @Test
+    void stringLookups() {
+        LiteralIndex lit = FeatureIndex.build(classes(), 1, PatternSet.empty()).literals();
+        assertEquals(2, lit.stringEq("hello world").inClass("a"));
+        assertEquals(0, lit.stringEq("hello world").inClass("b"));
+        assertEquals(1, lit.stringEq("hello world").methods().get("a.m()V"));
+        assertEquals(0, lit.stringEq("hello").inClass("a"));
+        assertEquals(0, lit.stringEq("nope").inClass("a"));
+
+        LiteralIndex.Postings contains = lit.stringContains("hello");
+        assertEquals(2, contains.inClass("a"));
+        assertEquals(1, contains.inClass("b"));
+        assertSame(contains, lit.stringContains("hello"));
+        assertEquals(2, lit.distinctStrings());
+    }
+
+    @Test
+    void numbersCompareByValue() {
+        LiteralIndex lit = FeatureIndex.build(classes(), 1, PatternSet.empty()).literals();
+        assertEquals(1, lit.constEq("1234567").inClass("a"));
+        assertEquals(1, lit.constEq("0x12D687").inClass("a"));
+        assertEquals(1, lit.constEq("100").inClass("a"));
+        assertEquals(1, lit.constEq("2.5").inClass("b"));
+        assertEquals(0, lit.constEq("1").inClass("a"), "ICONST_* is left out");
+        assertEquals(0, lit.constEq("not a number").inClass("a"));
+    }
+
+    @Test
+    void fieldSitesCountLiteralsInTheAccessWindow() {
+        LiteralIndex lit = FeatureIndex.build(classes(), 1, PatternSet.empty()).literals();
+        assertEquals(2, lit.constEq("1234567").atField("a.x:I"), "after the GETFIELD and before the PUTFIELD");
+        assertEquals(0, lit.stringEq("hello world").atField("a.x:I"));
+    }
+
+    @Test
+    void leftOutWithoutLiteralExtras() {
+        try (Scheduler scheduler = new Scheduler(1)) {
+            FeatureIndex idx = FeatureIndex.build(classes(), scheduler, PatternSet.empty(), FeatureIndex.Extras.NONE);
+            assertFalse(idx.extras().literals());
+            assertEquals(0, idx.literals().distinctStrings());
+            assertEquals(0, idx.literals().stringEq("hello world").inClass("a"));
+            assertEquals(2, idx.of("a").totalLdcStrings(), "class totals do not need the index");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.betterdeob.features;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.*;
+
+import java.util.List;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class MethodSummaryTest {
+    /** A class whose method {@code m} reads its own field x, multiplies it and stores it in {@code slot}. */
+    private static ClassNode withBody(String name, int constant, int slot) {
+        ClassNode cn = field(cls(name, "java/lang/Object"), "x", "I");
+        method(cn, "m", "()V", var(ALOAD, 0), get(name, "x", "I"), ldc(constant), op(IMUL), var(ISTORE, slot));
+        return cn;
+    }
+
+    @Test
+    void identicalBodiesShareOneSummary() {
+        MethodSummary.Dedup dedup = new MethodSummary.Dedup(PatternSet.empty(), new SymbolTable());
+        MethodSummary a = dedup.of(withBody("a", 1234567, 1)).get(0);
+        MethodSummary b = dedup.of(withBody("b", 1234567, 1)).get(0);
+        assertSame(a, b, "references to the own class compare as SELF");
+        assertEquals(List.of(MethodSummary.SELF + ".x:I"), a.fieldRefs());
+        assertEquals(2, dedup.methods());
+        assertEquals(1, dedup.distinct());
+    }
+
+    @Test
+    void differentOperandsAreNotShared() {
+        MethodSummary.Dedup dedup = new MethodSummary.Dedup(PatternSet.empty(), new SymbolTable());
+        MethodSummary base = dedup.of(withBody("a", 1234567, 1)).get(0);
+        assertNotSame(base, dedup.of(withBody("b", 7654321, 1)).get(0), "constant");
+        assertNotSame(base, dedup.of(withBody("c", 1234567, 2)).get(0), "local slot");
+
+        ClassNode other = field(cls("d", "java/lang/Object"), "x", "I");
+        method(other, "m", "()V", var(ALOAD, 0), get("a", "x", "I"), ldc(1234567), op(IMUL), var(ISTORE, 1));
+        assertNotSame(base, dedup.of(other).get(0), "field of another class");
+        assertEquals(4, dedup.distinct());
+    }
+
+    @Test
+    void branchTargetsAreKeyed() {
+        MethodSummary.Dedup dedup = new MethodSummary.Dedup(PatternSet.empty(), new SymbolTable());
+        MethodSummary first = dedup.of(branching("a", true)).get(0);
+        assertSame(first, dedup.of(branching("b", true)).get(0));
+        assertNotSame(first, dedup.of(branching("c", false)).get(0));
+    }
+
+    @Test
+    void operandPatternsKeepSharingWithinTheClass() {
+        PatternSet patterns = PatternSet.compile(List.of("@GETFIELD<owner=a> LDC IMUL"), new SymbolTable());
+        assertTrue(patterns.hasOperandPatterns());
+        MethodSummary.Dedup dedup = new MethodSummary.Dedup(patterns, new SymbolTable());
+        ClassNode a = withBody("a", 1234567, 1);
+        method(a, "n", "()V", var(ALOAD, 0), get("a", "x", "I"), ldc(1234567), op(IMUL), var(ISTORE, 1));
+        List<MethodSummary> inA = dedup.of(a);
+        assertSame(inA.get(0), inA.get(1));
+        MethodSummary inB = dedup.of(withBody("b", 1234567, 1)).get(0);
+        assertNotSame(inA.get(0), inB);
+        assertNotEquals(inA.get(0).accesses().get(0).patternHits().length, inB.accesses().get(0).patternHits().length);
+    }
+
+    @Test
+    void methodsWithoutCodeHaveNoSummary() {
+        ClassNode cn = cls("a", "java/lang/Object");
+        MethodNode abs = new MethodNode(ACC_PUBLIC | ACC_ABSTRACT, "m", "()V", null, null);
+        abs.instructions = null;
+        cn.methods.add(abs);
+        MethodSummary.Dedup dedup = new MethodSummary.Dedup(PatternSet.empty(), null);
+        assertNull(dedup.of(cn).get(0));
+        assertEquals(0, dedup.methods());
+    }
+
+    /** {@code if (x == 0) return; x = 1;} with the jump to the return, or to the assignment. */
+    private static ClassNode branching(String name, boolean toReturn) {
+        ClassNode cn = field(cls(name, "java/lang/Object"), "x", "I");
+        LabelNode assign = new LabelNode();
+        LabelNode end = new LabelNode();
+        method(cn, "m", "()V", var(ALOAD, 0), get(name, "x", "I"), new JumpInsnNode(IFEQ, toReturn ? end : assign),
+                assign, var(ALOAD, 0), op(ICONST_1), put(name, "x", "I"), end);
+        return cn;
+    }
+}
@@ -0,0 +1,93 @@
+package com.betterdeob.match;
+
+import com.betterdeob.features.FeatureIndexCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreMemoTest {
+    @TempDir Path dir;
+
+    private static final List<MatchResult> CANDIDATES = List.of(
+            new MatchResult("Client.cycle", "aa.b", 0.95, 2, List.of("readMin 4"), -1234567),
+            new MatchResult("Client.cycle", "aa.c", 0.5, List.of()));
+
+    @Test
+    void savedEntriesAreHitsInTheNextRun() throws IOException {
+        ScoreMemo memo = ScoreMemo.open(dir, "k1");
+        assertNull(memo.get("rule"));
+        memo.put("rule", CANDIDATES);
+        memo.save();
+
+        ScoreMemo next = ScoreMemo.open(dir, "k1");
+        assertEquals(CANDIDATES, next.get("rule"));
+        assertNull(next.get("other"));
+        assertEquals(1, next.hits());
+        assertEquals(1, next.misses());
+        assertNull(ScoreMemo.open(dir, "k2").get("rule"), "memos are per feature index key");
+    }
+
+    @Test
+    void savingDropsEntriesThisRunDidNotUse() throws IOException {
+        ScoreMemo memo = ScoreMemo.open(dir, "k1");
+        memo.put("edited", CANDIDATES);
+        memo.put("kept", CANDIDATES);
+        memo.save();
+
+        ScoreMemo second = ScoreMemo.open(dir, "k1");
+        assertNotNull(second.get("kept"));
+        second.save();
+
+        ScoreMemo third = ScoreMemo.open(dir, "k1");
+        assertNotNull(third.get("kept"));
+        assertNull(third.get("edited"));
+    }
+
+    @Test
+    void memoFromAnotherFeatureFormatIsIgnored() throws IOException {
+        ScoreMemo memo = ScoreMemo.open(dir, "k1");
+        memo.put("rule", CANDIDATES);
+        memo.save();
+
+        Path file = dir.resolve("scores-k1.bin.gz");
+        byte[] body;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            body = in.readAllBytes();
+        }
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(body));
+        header.readInt();
+        header.readInt();
+        assertEquals(FeatureIndexCache.FORMAT, header.readInt());
+
+        body[8] ^= 0x7f; // third int: the feature format the candidates were scored on
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(body);
+        }
+        assertNull(ScoreMemo.open(dir, "k1").get("rule"));
+    }
+
+    @Test
+    void saveKeepsTheNewestMemoFiles() throws IOException {
+        Path oldest = Files.createFile(dir.resolve("scores-old1.bin.gz"));
+        Path older = Files.createFile(dir.resolve("scores-old2.bin.gz"));
+        Files.setLastModifiedTime(oldest, FileTime.fromMillis(1_000_000L));
+        Files.setLastModifiedTime(older, FileTime.fromMillis(2_000_000L));
+
+        ScoreMemo memo = ScoreMemo.open(dir, "new", 2, System.err);
+        memo.put("rule", CANDIDATES);
+        memo.save();
+
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(dir.resolve("scores-new.bin.gz")));
+    }
+}
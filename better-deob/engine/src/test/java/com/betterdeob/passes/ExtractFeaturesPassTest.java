@@ -0,0 +1,142 @@
+package com.betterdeob.passes;
+
+import com.betterdeob.TestClasses;
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.core.*;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.match.ClassRuleMatcher;
+import com.betterdeob.match.MatchResult;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.RuleLoader;
+import com.betterdeob.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.betterdeob.TestClasses.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class ExtractFeaturesPassTest {
+    @TempDir Path dir;
+
+    private static final String RULES = """
+            thresholdDefault: 0.5
+            classRules:
+              - id: Client
+                superName: java/applet/Applet
+                signals:
+                  - kind: minLdcStrings
+                    min: 2
+                    weight: 0.5
+                  - kind: fieldPattern
+                    value: "I|ALOAD @GETFIELD LDC IMUL"
+                    min: 1
+                    weight: 0.5
+              - id: Node
+                superName: java/lang/Object
+                minFieldDescCounts:
+                  "J": 1
+                signals:
+                  - kind: minLdcNumbers
+                    min: 1
+                    weight: 1.0
+            fieldRules:
+              - id: Client.cycle
+                ownerTarget: Client
+                desc: I
+                signals:
+                  - kind: readMin
+                    min: 1
+                    weight: 0.5
+                  - kind: intMultiplierConstEq
+                    value: "1234567"
+                    weight: 0.5
+            """;
+
+    private static List<ClassNode> classes() {
+        ClassNode client = field(field(cls("aa", "java/applet/Applet"), "b", "I"), "c", "Ljava/lang/String;");
+        method(client, "tick", "()I", ldc("login"), op(POP), ldc("world"), op(POP),
+                var(ALOAD, 0), get("aa", "b", "I"), ldc(1234567), op(IMUL), op(IRETURN));
+        ClassNode node = field(cls("ab", "java/lang/Object"), "key", "J");
+        method(node, "hash", "()J", ldc(99L), op(LRETURN));
+        ClassNode other = field(cls("ac", "java/lang/Object"), "x", "I");
+        method(other, "m", "()V", ldc("login"), op(POP), ldc("world"), op(POP));
+        ClassNode noise = cls("ad", "java/util/AbstractList");
+        method(noise, "m", "()V", ldc(5L), op(POP2));
+        return List.of(client, node, other, noise);
+    }
+
+    private static ByteBuffer jar() throws IOException {
+        return TestClasses.jar(classes());
+    }
+
+    private RuleSet rules() throws Exception {
+        Path yaml = dir.resolve("rules.yaml");
+        Files.writeString(yaml, RULES);
+        return RuleLoader.load(yaml);
+    }
+
+    private DeobContext run(boolean fullExtraction) throws Exception {
+        DeobContext ctx = new DeobContext(dir, rules());
+        ctx.setFullExtraction(fullExtraction);
+        ctx.setLog(new PrintStream(OutputStream.nullOutputStream()));
+        try (Scheduler scheduler = new Scheduler(2)) {
+            ctx.setScheduler(scheduler);
+            new Pipeline()
+                    .add(new LoadJarPass(jar()))
+                    .add(new ExtractFeaturesPass())
+                    .add(new IdentifyPass())
+                    .add(new IdentifyFieldsPass())
+                    .run(new ClassGroup(), ctx);
+        }
+        return ctx;
+    }
+
+    @Test
+    void onDemandIndexMapsLikeTheFullIndex() throws Exception {
+        DeobContext full = run(true);
+        DeobContext demand = run(false);
+
+        assertEquals(4, full.featureIndex().analyzedCount());
+        assertTrue(demand.featureIndex().analyzedCount() < 4, "only candidates are analysed");
+        assertFalse(demand.featureIndex().analyzed("ad"));
+
+        MappingReport expected = full.report();
+        MappingReport actual = demand.report();
+        assertEquals("aa", expected.classMappings().get("Client"));
+        assertEquals("ab", expected.classMappings().get("Node"));
+        assertEquals("aa.b:I", expected.fieldMappings().get("Client.cycle"));
+        assertEquals(expected.classMappings(), actual.classMappings());
+        assertEquals(expected.fieldMappings(), actual.fieldMappings());
+        assertEquals(expected.fieldMultipliers(), actual.fieldMultipliers());
+    }
+
+    @Test
+    void unanalysedCandidatesScoreAMiss() throws Exception {
+        ClassGroup group = new ClassGroup();
+        JarLoader.read(jar(), group, false);
+        RuleSet rules = rules();
+        FeatureIndex idx;
+        try (Scheduler scheduler = new Scheduler(1)) {
+            idx = FeatureIndex.build(group, scheduler, PatternSet.empty(), FeatureIndex.Extras.NONE,
+                    FeatureIndex.Demand.named("aa"::equals));
+        }
+        assertTrue(idx.analyzed("aa"));
+        assertFalse(idx.analyzed("ab"));
+
+        MatchResult m = new ClassRuleMatcher(rules).match(rules.classRules().get(1), group.get("ab"), idx);
+        assertNotNull(m, "ab passes Node's constraints on its header");
+        assertEquals(0.0, m.confidence());
+        assertTrue(m.evidence().contains("code not analysed: signals not evaluated"), m.evidence()::toString);
+        assertNull(new ClassRuleMatcher(rules).match(rules.classRules().get(0), group.get("ab"), idx));
+    }
+}
@@ -0,0 +1,74 @@
+package com.betterdeob.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HooksDeltaTest {
+    @TempDir Path dir;
+
+    private static MappingReport report(String clientObf, String fieldObf, int multiplier) {
+        MappingReport r = new MappingReport();
+        r.putClass("Client", clientObf, 1.0, List.of());
+        r.putClass("Npc", "ab", 1.0, List.of());
+        r.putFieldWithMultiplier("Client.cycle", fieldObf, 1.0, List.of(), multiplier);
+        return r;
+    }
+
+    @Test
+    void deltaListsAddedRemovedAndChangedEntries() throws Exception {
+        HooksDelta.Revision prev = HooksDelta.of(report("aa", "aa.b:I", 7), 1);
+        MappingReport next = new MappingReport();
+        next.putClass("Client", "aa", 1.0, List.of());
+        next.putClass("Player", "ac", 1.0, List.of());
+        next.putFieldWithMultiplier("Client.cycle", "aa.c:I", 1.0, List.of(), 9);
+        HooksDelta.Revision to = HooksDelta.of(next, 2);
+
+        HooksWriter.Stats stats = HooksDelta.write(prev, to, dir);
+        assertEquals(2, stats.classes());
+        assertEquals(1, stats.fields());
+        assertEquals(1, stats.multipliers());
+
+        JsonNode delta = new ObjectMapper().readTree(dir.resolve(HooksDelta.FILE).toFile());
+        assertEquals(prev.hash(), delta.get("from").asText());
+        assertEquals(to.hash(), delta.get("to").asText());
+        JsonNode classes = delta.get("classes");
+        assertEquals("ac", classes.get("added").get("Player").asText());
+        assertEquals("Npc", classes.get("removed").get(0).asText());
+        assertEquals(0, classes.get("changed").size());
+        assertEquals("aa.c:I", delta.get("fields").get("changed").get("Client.cycle").asText());
+        assertEquals(9, delta.get("multipliers").get("changed").get("Client.cycle").asLong());
+        assertTrue(dir.resolve(HooksDelta.FILE + ".gz").toFile().isFile());
+    }
+
+    @Test
+    void hashIgnoresTimestampAndOrder() {
+        HooksDelta.Revision a = HooksDelta.of(report("aa", "aa.b:I", 7), 1);
+        HooksDelta.Revision b = HooksDelta.of(report("aa", "aa.b:I", 7), 99);
+        assertEquals(a.hash(), b.hash());
+        assertNotEquals(a.hash(), HooksDelta.of(report("aa", "aa.b:I", 8), 1).hash());
+        assertEquals(HooksDelta.revisionHash(Map.of("x", "1", "y", "2"), Map.of(), Map.of()),
+                HooksDelta.revisionHash(new TreeMap<>(Map.of("y", "2", "x", "1")), Map.of(), Map.of()));
+    }
+
+    @Test
+    void publishedHooksReadBackAsTheSameRevision() throws Exception {
+        MappingReport r = report("aa", "aa.b:I", -1234567);
+        HooksDelta.Revision rev = HooksDelta.of(r, 5);
+        HooksWriter.write(r, rev, dir);
+        HooksDelta.Revision read = HooksDelta.read(dir.resolve(HooksWriter.FILE));
+        assertNotNull(read);
+        assertEquals(rev.hash(), read.hash());
+        assertEquals(5, read.timestamp());
+        assertEquals(-1234567L, read.multipliers().get("Client.cycle"));
+        assertNull(HooksDelta.read(dir.resolve("missing.json")));
+    }
+}
@@ -0,0 +1,137 @@
+package com.betterdeob.rules;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleBundleTest {
+    @TempDir Path dir;
+
+    private static final String YAML = """
+            thresholdDefault: 0.85
+            classRules:
+              - id: Client
+                superName: java/applet/Applet
+                interfaces: [java/lang/Runnable]
+                hasSubclassCount: 2
+                minFieldDescCounts:
+                  "I": 3
+                signals:
+                  - kind: stringHashEq
+                    value: "0x1234abcd"
+                    weight: 0.5
+                  - kind: fieldPattern
+                    value: "I|ALOAD GETFIELD LDC IMUL"
+                    min: 1
+                    weight: 0.25
+                  - kind: fieldPatternFuzzy
+                    value: "I|ALOAD GETFIELD LDC IMUL"
+                    distance: 1
+                    weight: 0.25
+            fieldRules:
+              - id: Client.cycle
+                ownerTarget: Client
+                desc: I
+                priority: 3
+                isStatic: true
+                signals:
+                  - kind: intMultiplierConstEq
+                    value: "-1234567"
+                    weight: 1.0
+            """;
+
+    @Test
+    void bundleLoadsTheSameRulesAsTheYaml() throws Exception {
+        Path yaml = dir.resolve("rules.yaml");
+        Files.writeString(yaml, YAML);
+
+        RuleBundle.Result compiled = RuleBundle.loadOrCompile(yaml, dir);
+        assertFalse(compiled.fromBundle());
+        assertTrue(Files.isRegularFile(compiled.bundle()));
+
+        RuleBundle.Result loaded = RuleBundle.loadOrCompile(yaml, dir);
+        assertTrue(loaded.fromBundle());
+        assertEquals(compiled.rules().thresholdDefault(), loaded.rules().thresholdDefault());
+        assertEquals(dump(compiled.rules().classRules()), dump(loaded.rules().classRules()));
+        assertEquals(dump(compiled.rules().fieldRules()), dump(loaded.rules().fieldRules()));
+        assertEquals(compiled.problems(), loaded.problems());
+        assertEquals(0x1234abcdL, loaded.rules().classRules().get(0).signals.get(0).constant);
+        assertEquals(Boolean.TRUE, loaded.rules().fieldRules().get(0).isStatic);
+    }
+
+    @Test
+    void bundleForAnotherYamlIsRejected() throws Exception {
+        Path yaml = dir.resolve("rules.yaml");
+        Files.writeString(yaml, YAML);
+        RuleBundle.Result compiled = RuleBundle.compile(yaml, dir);
+        assertNull(RuleBundle.load(compiled.bundle(), RuleBundle.sha256("other".getBytes())));
+        assertNotNull(RuleBundle.load(compiled.bundle(), null));
+    }
+
+    @Test
+    void validatorReportsProblemsOnTheirLines() {
+        List<RuleValidator.Problem> problems = RuleValidator.validate("""
+                thresholdDefault: 1.5
+                classRules:
+                  - id: Client
+                    colour: red
+                    signals:
+                      - kind: noSuchKind
+                        weight: 0.5
+                fieldRules:
+                  - id: Npc.x
+                    ownerTarget: Npc
+                    desc: Q
+                """);
+        assertTrue(RuleValidator.hasErrors(problems));
+        assertProblem(problems, 1, true, "outside [0, 1]");
+        assertProblem(problems, 4, false, "unknown key 'colour'");
+        assertProblem(problems, 6, true, "unknown kind");
+        assertProblem(problems, 10, true, "has no class rule");
+        assertProblem(problems, 11, true, "not a field descriptor");
+        for (int i = 1; i < problems.size(); i++) {
+            assertTrue(problems.get(i - 1).line() <= problems.get(i).line(), "problems are sorted by line");
+        }
+    }
+
+    @Test
+    void syntaxErrorsCarryTheirLine() {
+        List<RuleValidator.Problem> problems = RuleValidator.validate("classRules:\n  - id: A\n  bad: [\n");
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).error());
+        assertTrue(problems.get(0).message().startsWith("YAML syntax"));
+        assertTrue(problems.get(0).line() >= 3, "line " + problems.get(0).line());
+    }
+
+    private static void assertProblem(List<RuleValidator.Problem> problems, int line, boolean error, String text) {
+        assertTrue(problems.stream().anyMatch(p -> p.line() == line && p.error() == error && p.message().contains(text)),
+                () -> "no problem on line " + line + " containing '" + text + "' in " + problems);
+    }
+
+    /** Public instance fields of each rule, with signals expanded, so two rule lists compare by value. */
+    private static List<Object> dump(List<?> rules) throws IllegalAccessException {
+        List<Object> out = new ArrayList<>();
+        for (Object r : rules) out.add(fields(r));
+        return out;
+    }
+
+    private static Map<String, Object> fields(Object o) throws IllegalAccessException {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (Field f : o.getClass().getFields()) {
+            if (Modifier.isStatic(f.getModifiers())) continue;
+            Object v = f.get(o);
+            m.put(f.getName(), "signals".equals(f.getName()) && v != null ? dump((List<?>) v) : v);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,42 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.match.ClassRuleMatcher;
+import com.betterdeob.rules.RuleSet;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassRuleMatcherBench {
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    private ClassGroup group;
+    private FeatureIndex idx;
+    private ClassRuleMatcher matcher;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = Fixture.load(classes);
+        RuleSet rules = Fixture.rules();
+        idx = FeatureIndex.build(group.all(), Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                Fixture.patterns(rules));
+        matcher = new ClassRuleMatcher(rules);
+    }
+
+    /** Matches every class against every class rule, as IdentifyPass does. */
+    @Benchmark
+    public int matchAll() {
+        int n = 0;
+        for (ClassNode cn : group.all()) n += matcher.matchAll(cn, idx).size();
+        return n;
+    }
+}
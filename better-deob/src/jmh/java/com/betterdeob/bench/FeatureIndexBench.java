@@ -0,0 +1,58 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.core.Scheduler;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.rules.RuleSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FeatureIndexBench {
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    /** 0 = availableProcessors - 1, like the CLI default. */
+    @Param({"0"})
+    public int threads;
+
+    /** Jar-wide indexes: "rules" = those the benchmark rules read (as the CLI builds), "all" or "none". */
+    @Param({"rules"})
+    public String extras;
+
+    private ClassGroup group;
+    private PatternSet patterns;
+    private FeatureIndex.Extras built;
+    private Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = Fixture.load(classes);
+        RuleSet rules = Fixture.rules();
+        patterns = Fixture.patterns(rules);
+        built = switch (extras) {
+            case "all" -> FeatureIndex.Extras.ALL;
+            case "none" -> FeatureIndex.Extras.NONE;
+            default -> Fixture.extras(rules);
+        };
+        if (threads <= 0) threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        scheduler = new Scheduler(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Benchmark
+    public FeatureIndex build() {
+        return FeatureIndex.build(group.all(), scheduler, patterns, built);
+    }
+}
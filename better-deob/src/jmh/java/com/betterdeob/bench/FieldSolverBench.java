@@ -0,0 +1,67 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.match.MatchResult;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.solve.FieldSolver;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FieldSolver over candidates shaped like IdentifyFieldsPass output: per owner, a few targets
+ * per field descriptor, each competing for every same-descriptor field of that owner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FieldSolverBench {
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    /** Targets per (owner, descriptor); the client class always gets 64. */
+    @Param({"4"})
+    public int targetsPerDesc;
+
+    private List<MatchResult> candidates;
+    private Map<String, Double> thresholds;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ClassGroup group = Fixture.load(classes);
+        Random rnd = new Random(Fixture.SEED);
+        candidates = new ArrayList<>();
+        thresholds = new HashMap<>();
+
+        for (ClassNode cn : group.all()) {
+            Map<String, List<FieldNode>> byDesc = new TreeMap<>();
+            for (FieldNode fn : cn.fields) byDesc.computeIfAbsent(fn.desc, k -> new ArrayList<>()).add(fn);
+
+            int targets = SyntheticGamepack.CLIENT.equals(cn.name) ? 64 : targetsPerDesc;
+            for (var e : byDesc.entrySet()) {
+                for (int t = 0; t < Math.min(targets, e.getValue().size()); t++) {
+                    String target = "T_" + cn.name + "." + e.getKey() + "#" + t;
+                    thresholds.put(target, 0.90);
+                    for (FieldNode fn : e.getValue()) {
+                        double conf = 0.80 + rnd.nextDouble() * 0.20;
+                        candidates.add(new MatchResult(target, cn.name + "." + fn.name + ":" + fn.desc, conf,
+                                rnd.nextInt(3), List.of(), rnd.nextInt() | 1));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public MappingReport apply() {
+        MappingReport report = new MappingReport();
+        FieldSolver.apply(report, candidates, thresholds);
+        return report;
+    }
+}
@@ -0,0 +1,62 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.bytecode.PatternSet;
+import com.betterdeob.bytecode.SymbolTable;
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.core.JarLoader;
+import com.betterdeob.features.FeatureIndex;
+import com.betterdeob.rules.RuleLoader;
+import com.betterdeob.rules.RuleSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Shared setup for the benchmarks: generated jars and the benchmark rule file live under
+ * {@code -Dbench.dir} (default: java.io.tmpdir/better-deob-bench) and are reused across forks.
+ */
+final class Fixture {
+    static final long SEED = 0x5EEDL;
+    static final String RULES_RESOURCE = "/bench-rules.yaml";
+
+    private Fixture() {}
+
+    static Path dir() {
+        String d = System.getProperty("bench.dir");
+        return (d != null) ? Path.of(d) : Path.of(System.getProperty("java.io.tmpdir"), "better-deob-bench");
+    }
+
+    static Path jar(int classes) throws IOException {
+        return SyntheticGamepack.jar(dir(), classes, SEED);
+    }
+
+    static ClassGroup load(int classes) throws Exception {
+        return JarLoader.load(jar(classes));
+    }
+
+    static Path rulesFile() throws IOException {
+        Path p = dir().resolve("bench-rules.yaml");
+        Files.createDirectories(p.getParent());
+        try (InputStream in = Fixture.class.getResourceAsStream(RULES_RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Missing resource: " + RULES_RESOURCE);
+            Files.copy(in, p, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return p;
+    }
+
+    static RuleSet rules() throws Exception {
+        return RuleLoader.load(rulesFile());
+    }
+
+    static PatternSet patterns(RuleSet rules) {
+        return PatternSet.compile(rules.fieldPatternSources(), new SymbolTable());
+    }
+
+    /** The jar-wide indexes ExtractFeaturesPass builds for {@code rules}. */
+    static FeatureIndex.Extras extras(RuleSet rules) {
+        return new FeatureIndex.Extras(rules.usesLiteralSignals(), rules.usesCoAccessSignals());
+    }
+}
@@ -0,0 +1,31 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.core.ClassGroup;
+import com.betterdeob.core.JarLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JarLoaderBench {
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    private Path jar;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        jar = Fixture.jar(classes);
+    }
+
+    @Benchmark
+    public ClassGroup load() throws Exception {
+        return JarLoader.load(jar);
+    }
+}
@@ -0,0 +1,39 @@
+package com.betterdeob.bench;
+
+import com.betterdeob.rules.RuleBundle;
+import com.betterdeob.rules.RuleLoader;
+import com.betterdeob.rules.RuleSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuleLoaderBench {
+    private Path rules;
+    private Path bundle;
+    private String sha;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        rules = Fixture.rulesFile();
+        bundle = RuleBundle.compile(rules, Fixture.dir().resolve("bundles")).bundle();
+        sha = RuleBundle.sha256(Files.readAllBytes(rules));
+    }
+
+    @Benchmark
+    public RuleSet load() throws Exception {
+        return RuleLoader.load(rules);
+    }
+
+    @Benchmark
+    public RuleSet loadBundle() throws Exception {
+        return RuleBundle.load(bundle, sha).rules();
+    }
+}
@@ -0,0 +1,329 @@
+package com.betterdeob.bench;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates obfuscator-like jars for the benchmarks, so they never need the real gamepack.
+ *
+ * Shape (deterministic for a given class count and seed):
+ * - a large static "client" class (extends java/applet/Applet) holding hundreds of static ints
+ * - a Node -> DualNode -> Renderable chain, with Actor-like families hanging off Renderable
+ *   (family root + subclasses up to two levels deep)
+ * - filler classes making up the rest of the count
+ *
+ * Every int field is IMUL-encoded: writes multiply by an odd constant, reads by its modular
+ * inverse, and other classes read client statics with the same decoder, like a real gamepack.
+ * Method bodies are straight-line, so no stack map frames are needed.
+ */
+public final class SyntheticGamepack {
+    public static final String CLIENT = "client";
+    public static final String NODE = "gz";
+    public static final String DUAL_NODE = "hn";
+    public static final String RENDERABLE = "ik";
+
+    // Bump whenever the generated shape changes, so cached jars are regenerated.
+    private static final int VERSION = 1;
+
+    private static final String[] STRINGS = {
+            "Loading...", "Please wait", "Connection lost", "Walk here", "Take", "Drop", "Examine",
+            "Cancel", "Use", "Attack", "Talk-to", "Trade with", "Follow", "level-", "skill: ", "null",
+            "Login: ", "Password: ", "Error connecting to server.", "Welcome to RuneScape"};
+
+    private SyntheticGamepack() {}
+
+    /** Jar with {@code classCount} classes under {@code dir}, generated on first use and reused afterwards. */
+    public static Path jar(Path dir, int classCount, long seed) throws IOException {
+        Path jar = dir.resolve("synthetic-v" + VERSION + "-" + classCount + "-" + seed + ".jar");
+        if (Files.exists(jar)) return jar;
+
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "synthetic-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp);
+             JarOutputStream jos = new JarOutputStream(out)) {
+            for (var e : generate(classCount, seed).entrySet()) {
+                jos.putNextEntry(new JarEntry(e.getKey() + ".class"));
+                jos.write(e.getValue());
+                jos.closeEntry();
+            }
+        }
+        Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return jar;
+    }
+
+    /** Internal name -> class bytes, in generation order. */
+    public static Map<String, byte[]> generate(int classCount, long seed) {
+        Layout layout = new Layout(Math.max(8, classCount), new Random(seed));
+        Map<String, byte[]> out = new LinkedHashMap<>();
+        for (Cls c : layout.classes) out.put(c.name, layout.emit(c));
+        return out;
+    }
+
+    private record Field(String name, String desc, boolean isStatic, int encoder, int decoder) {}
+
+    private static final class Cls {
+        final String name;
+        final String superName;
+        final boolean isAbstract;
+        final List<Field> fields = new ArrayList<>();
+
+        Cls(String name, String superName, boolean isAbstract) {
+            this.name = name;
+            this.superName = superName;
+            this.isAbstract = isAbstract;
+        }
+    }
+
+    private static final class Layout {
+        final Random rnd;
+        final List<Cls> classes = new ArrayList<>();
+        final List<Field> clientInts = new ArrayList<>();
+        final Set<String> reserved = new HashSet<>(List.of(CLIENT, NODE, DUAL_NODE, RENDERABLE));
+        int nextName = 0;
+
+        Layout(int classCount, Random rnd) {
+            this.rnd = rnd;
+
+            Cls client = new Cls(CLIENT, "java/applet/Applet", false);
+            int statics = Math.min(2000, Math.max(64, classCount / 20));
+            for (int i = 0; i < statics; i++) {
+                Field f = field(fieldName(i), pickDesc(0.75), true);
+                client.fields.add(f);
+                if (f.desc.equals("I")) clientInts.add(f);
+            }
+            classes.add(client);
+
+            Cls node = new Cls(NODE, "java/lang/Object", false);
+            node.fields.add(new Field("cm", "J", false, 0, 0));
+            node.fields.add(new Field("cr", "L" + NODE + ";", false, 0, 0));
+            node.fields.add(new Field("cp", "L" + NODE + ";", false, 0, 0));
+            Cls dual = new Cls(DUAL_NODE, NODE, false);
+            dual.fields.add(new Field("dp", "L" + DUAL_NODE + ";", false, 0, 0));
+            dual.fields.add(new Field("dk", "L" + DUAL_NODE + ";", false, 0, 0));
+            Cls renderable = new Cls(RENDERABLE, DUAL_NODE, true);
+            renderable.fields.add(field("ct", "I", false));
+            classes.add(node);
+            classes.add(dual);
+            classes.add(renderable);
+
+            // Roughly a fifth of the jar lives in Actor-like families.
+            int familyBudget = Math.max(4, classCount / 5);
+            while (familyBudget > 0 && classes.size() < classCount) {
+                Cls root = new Cls(nextClassName(), RENDERABLE, true);
+                addInstanceFields(root, 8 + rnd.nextInt(24));
+                classes.add(root);
+                familyBudget--;
+
+                int kids = 2 + rnd.nextInt(5);
+                for (int k = 0; k < kids && familyBudget > 0 && classes.size() < classCount; k++) {
+                    Cls kid = new Cls(nextClassName(), root.name, false);
+                    addInstanceFields(kid, 2 + rnd.nextInt(10));
+                    classes.add(kid);
+                    familyBudget--;
+                    if (rnd.nextInt(3) == 0 && familyBudget > 0 && classes.size() < classCount) {
+                        Cls grandKid = new Cls(nextClassName(), kid.name, false);
+                        addInstanceFields(grandKid, 1 + rnd.nextInt(4));
+                        classes.add(grandKid);
+                        familyBudget--;
+                    }
+                }
+            }
+
+            while (classes.size() < classCount) {
+                String sup = rnd.nextInt(4) == 0 ? (rnd.nextBoolean() ? NODE : DUAL_NODE) : "java/lang/Object";
+                Cls c = new Cls(nextClassName(), sup, false);
+                addInstanceFields(c, rnd.nextInt(12));
+                int s = rnd.nextInt(3);
+                for (int i = 0; i < s; i++) c.fields.add(field(fieldName(c.fields.size()), pickDesc(0.6), true));
+                classes.add(c);
+            }
+        }
+
+        private void addInstanceFields(Cls c, int n) {
+            for (int i = 0; i < n; i++) c.fields.add(field(fieldName(c.fields.size()), pickDesc(0.6), false));
+        }
+
+        private Field field(String name, String desc, boolean isStatic) {
+            if (!desc.equals("I")) return new Field(name, desc, isStatic, 0, 0);
+            int enc = rnd.nextInt() | 1;
+            return new Field(name, desc, isStatic, enc, inverse(enc));
+        }
+
+        private String pickDesc(double intShare) {
+            if (rnd.nextDouble() < intShare) return "I";
+            return switch (rnd.nextInt(5)) {
+                case 0 -> "Z";
+                case 1 -> "Ljava/lang/String;";
+                case 2 -> "[I";
+                case 3 -> "J";
+                default -> "L" + NODE + ";";
+            };
+        }
+
+        private String nextClassName() {
+            while (true) {
+                String n = obfName(nextName++, 2);
+                if (!reserved.contains(n)) return n;
+            }
+        }
+
+        private static String fieldName(int i) { return obfName(i, 1); }
+
+        /** Obfuscator-style names: a..z, then aa..zz, ... with at least {@code minLen} letters. */
+        private static String obfName(int i, int minLen) {
+            int len = minLen;
+            int span = pow26(len);
+            while (i >= span) { i -= span; span = pow26(++len); }
+            char[] c = new char[len];
+            for (int k = len - 1; k >= 0; k--) { c[k] = (char) ('a' + i % 26); i /= 26; }
+            return new String(c);
+        }
+
+        private static int pow26(int n) {
+            int v = 1;
+            for (int i = 0; i < n; i++) v = (v > Integer.MAX_VALUE / 26) ? Integer.MAX_VALUE : v * 26;
+            return v;
+        }
+
+        byte[] emit(Cls c) {
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            int access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | (c.isAbstract ? Opcodes.ACC_ABSTRACT : 0);
+            cw.visit(Opcodes.V1_8, access, c.name, null, c.superName, null);
+
+            for (Field f : c.fields) {
+                cw.visitField(Opcodes.ACC_PUBLIC | (f.isStatic ? Opcodes.ACC_STATIC : 0), f.name, f.desc, null, null).visitEnd();
+            }
+
+            MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+            init.visitCode();
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitMethodInsn(Opcodes.INVOKESPECIAL, c.superName, "<init>", "()V", false);
+            for (Field f : c.fields) {
+                if (f.isStatic || f.encoder == 0) continue;
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                init.visitLdcInsn(rnd.nextInt(1000) * f.encoder);
+                init.visitFieldInsn(Opcodes.PUTFIELD, c.name, f.name, f.desc);
+            }
+            init.visitInsn(Opcodes.RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+
+            int method = 0;
+            List<Field> ints = c.fields.stream().filter(f -> f.encoder != 0).toList();
+            for (Field f : ints) {
+                emitGetter(cw, c, f, methodName(method++));
+                emitSetter(cw, c, f, methodName(method++));
+            }
+
+            // Large classes get several mixing methods, small ones one or two.
+            int work = 1 + Math.min(32, c.fields.size() / 8) + rnd.nextInt(2);
+            for (int w = 0; w < work; w++) emitWork(cw, c, ints, methodName(method++));
+
+            cw.visitEnd();
+            return cw.toByteArray();
+        }
+
+        private static String methodName(int i) { return obfName(i, 1); }
+
+        private void emitGetter(ClassWriter cw, Cls c, Field f, String name) {
+            int acc = Opcodes.ACC_PUBLIC | (f.isStatic ? Opcodes.ACC_STATIC : 0);
+            MethodVisitor mv = cw.visitMethod(acc, name, "()I", null, null);
+            mv.visitCode();
+            if (!f.isStatic) mv.visitVarInsn(Opcodes.ALOAD, 0);
+            readInt(mv, c.name, f);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        private void emitSetter(ClassWriter cw, Cls c, Field f, String name) {
+            int acc = Opcodes.ACC_PUBLIC | (f.isStatic ? Opcodes.ACC_STATIC : 0);
+            MethodVisitor mv = cw.visitMethod(acc, name, "(I)V", null, null);
+            mv.visitCode();
+            if (!f.isStatic) mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ILOAD, f.isStatic ? 0 : 1);
+            mv.visitLdcInsn(f.encoder);
+            mv.visitInsn(Opcodes.IMUL);
+            mv.visitFieldInsn(f.isStatic ? Opcodes.PUTSTATIC : Opcodes.PUTFIELD, c.name, f.name, f.desc);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        /** Reads a few own and client ints, mixes them with literals, and writes one back encoded. */
+        private void emitWork(ClassWriter cw, Cls c, List<Field> ints, String name) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, "(L" + c.name + ";I)I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+
+            int terms = 2 + rnd.nextInt(6);
+            for (int t = 0; t < terms; t++) {
+                Field own = ints.isEmpty() ? null : ints.get(rnd.nextInt(ints.size()));
+                if (own != null && rnd.nextBoolean()) {
+                    if (!own.isStatic) mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    readInt(mv, c.name, own);
+                } else {
+                    readInt(mv, CLIENT, clientInts.get(rnd.nextInt(clientInts.size())));
+                }
+                switch (rnd.nextInt(4)) {
+                    case 0 -> { mv.visitIntInsn(Opcodes.SIPUSH, 128 + rnd.nextInt(4000)); mv.visitInsn(Opcodes.IMUL); }
+                    case 1 -> { mv.visitIntInsn(Opcodes.BIPUSH, 1 + rnd.nextInt(30)); mv.visitInsn(Opcodes.ISHR); }
+                    default -> { }
+                }
+                mv.visitInsn(rnd.nextBoolean() ? Opcodes.IADD : Opcodes.ISUB);
+            }
+
+            if (rnd.nextInt(3) == 0) {
+                mv.visitLdcInsn(STRINGS[rnd.nextInt(STRINGS.length)]);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+                mv.visitInsn(Opcodes.IADD);
+            }
+
+            mv.visitInsn(Opcodes.DUP);
+            Field target = clientInts.get(rnd.nextInt(clientInts.size()));
+            if (!ints.isEmpty() && rnd.nextBoolean()) target = ints.get(rnd.nextInt(ints.size()));
+            if (target.isStatic) {
+                mv.visitLdcInsn(target.encoder);
+                mv.visitInsn(Opcodes.IMUL);
+                mv.visitFieldInsn(Opcodes.PUTSTATIC, owner(c, target), target.name, target.desc);
+            } else {
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+                mv.visitInsn(Opcodes.SWAP);
+                mv.visitLdcInsn(target.encoder);
+                mv.visitInsn(Opcodes.IMUL);
+                mv.visitFieldInsn(Opcodes.PUTFIELD, c.name, target.name, target.desc);
+            }
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        private static String owner(Cls c, Field f) {
+            return c.fields.contains(f) ? c.name : CLIENT;
+        }
+
+        /** Emits the decode sequence; the caller has pushed the receiver for instance fields. */
+        private static void readInt(MethodVisitor mv, String owner, Field f) {
+            mv.visitFieldInsn(f.isStatic ? Opcodes.GETSTATIC : Opcodes.GETFIELD, owner, f.name, f.desc);
+            mv.visitLdcInsn(f.decoder);
+            mv.visitInsn(Opcodes.IMUL);
+        }
+    }
+
+    /** Multiplicative inverse of an odd int modulo 2^32 (Newton iteration). */
+    static int inverse(int a) {
+        int x = a;
+        for (int i = 0; i < 5; i++) x *= 2 - a * x;
+        return x;
+    }
+}
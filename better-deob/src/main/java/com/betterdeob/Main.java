@@ -1,38 +1,120 @@
 package com.betterdeob;
 
+import com.betterdeob.cli.BatchCommand;
 import com.betterdeob.cli.CliArgs;
+import com.betterdeob.cli.CompileRulesCommand;
+import com.betterdeob.cli.ExplainCommand;
+import com.betterdeob.cli.MineCommand;
 import com.betterdeob.core.*;
+import com.betterdeob.jfr.JfrRecording;
+import com.betterdeob.match.RuleProfiler;
 import com.betterdeob.passes.*;
+import com.betterdeob.report.EvidenceWriter;
+import com.betterdeob.report.MetricsWriter;
 import com.betterdeob.rules.*;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public final class Main {
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "explain".equals(args[0])) {
+            ExplainCommand.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "mine".equals(args[0])) {
+            MineCommand.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "batch".equals(args[0])) {
+            BatchCommand.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "compile-rules".equals(args[0])) {
+            CompileRulesCommand.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         CliArgs cli = CliArgs.parse(args);
 
+        Path outDir = cli.outputDir();
+
+        RunMetrics metrics = new RunMetrics();
+        JfrRecording jfr = cli.jfr() ? JfrRecording.start(outDir) : null;
+        try {
+            run(cli, metrics);
+            metrics.setSuccess(true);
+        } finally {
+            if (jfr != null) jfr.close();
+            MetricsWriter.writeJson(metrics, outDir.resolve("metrics.json"));
+            if (cli.metricsTextfile() != null) MetricsWriter.writePrometheus(metrics, cli.metricsTextfile());
+        }
+
+        System.out.println("Done. Output in: " + outDir.toAbsolutePath());
+    }
+
+    private static void run(CliArgs cli, RunMetrics metrics) throws Exception {
         Path jarPath = cli.inputJar();
         Path outDir  = cli.outputDir();
 
-        RuleSet ruleSet = (cli.rulesPath() != null)
-                ? RuleLoader.load(cli.rulesPath())
-                : RuleLoader.loadFromResource("/default-rules.yaml");
-
-        ClassGroup group = JarLoader.load(jarPath);
+        RuleSet ruleSet = metrics.measure("LoadRules", () -> {
+            RuleSet rs = (cli.rulesPath() == null)
+                    ? RuleLoader.loadFromResource("/default-rules.yaml")
+                    : loadRules(cli.rulesPath(), cli.ruleBundleDir(), metrics);
+            metrics.count("classRules", rs.classRules().size());
+            metrics.count("fieldRules", rs.fieldRules().size());
+            return rs;
+        });
+        List<DeobContext.Shadow> shadows = new ArrayList<>();
+        if (!cli.shadowRules().isEmpty()) metrics.measure("LoadShadowRules", () -> {
+            for (Path p : cli.shadowRules()) shadows.add(new DeobContext.Shadow(p, loadRules(p, cli.ruleBundleDir(), null)));
+            return null;
+        });
 
         DeobContext ctx = new DeobContext(outDir, ruleSet);
         ctx.setInputJar(jarPath);
         ctx.setThreads(cli.threads());
+        ctx.setMetrics(metrics);
+        ctx.setHooksDir(cli.hooksDir());
+        ctx.setFeatureCacheDir(cli.featureCache());
+        ctx.setScoreMemoDir(cli.scoreMemo());
+        ctx.setShadowRules(shadows);
+
+        // With --no-evidence a previous run's file would no longer match the mappings.
+        if (cli.noEvidence()) Files.deleteIfExists(outDir.resolve(EvidenceWriter.FILE));
+        EvidenceWriter evidence = cli.noEvidence()
+                ? EvidenceWriter.discard()
+                : EvidenceWriter.open(outDir.resolve(EvidenceWriter.FILE), cli.evidenceFilter());
+        ctx.report().setEvidence(evidence);
+        if (cli.profileRules()) ctx.setRuleProfiler(new RuleProfiler());
 
         Pipeline pipeline = new Pipeline()
+                .add(new LoadJarPass(jarPath))
                 .add(new NormalizePass())
                 .add(new ExtractFeaturesPass())
                 .add(new IdentifyPass())
-                .add(new IdentifyFieldsPass())
-                .add(new ReportPass());
+                .add(new IdentifyFieldsPass());
+        if (!shadows.isEmpty()) pipeline.add(new ShadowPass());
+        pipeline.add(new ReportPass());
 
-        pipeline.run(group, ctx);
+        try (evidence) {
+            pipeline.run(new ClassGroup(), ctx);
+        }
+    }
 
-        System.out.println("Done. Output in: " + outDir.toAbsolutePath());
+    /** Loads a rules YAML, through the bundle directory when one is given; {@code metrics} may be null. */
+    private static RuleSet loadRules(Path yaml, Path bundleDir, RunMetrics metrics) throws Exception {
+        if (bundleDir == null) return RuleLoader.load(yaml);
+        RuleBundle.Result b = RuleBundle.loadOrCompile(yaml, bundleDir);
+        RuleValidator.print(b.problems());
+        System.out.println((b.fromBundle() ? "Loaded rule bundle: " : "Compiled rule bundle: ") + b.bundle());
+        if (metrics != null) {
+            metrics.count("ruleBundleHit", b.fromBundle() ? 1 : 0);
+            metrics.count("ruleProblems", b.problems().size());
+        }
+        return b.rules();
     }
 }
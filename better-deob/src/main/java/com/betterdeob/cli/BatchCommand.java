@@ -0,0 +1,340 @@
+package com.betterdeob.cli;
+
+import com.betterdeob.core.*;
+import com.betterdeob.passes.*;
+import com.betterdeob.report.HooksDelta;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * {@code batch --jars DIR [--expected DIR]}: runs identification over many gamepack revisions in
+ * one JVM and reports accuracy and timing per revision.
+ *
+ * Rules are loaded (or their bundle mapped) once and shared by every job; --feature-cache and
+ * --score-memo work as in a normal run, except that the caches keep an entry per jar. All jobs
+ * extract on one shared work-stealing {@link Scheduler} with a worker per CPU, so a job stuck on
+ * its giant class leaves the other workers to the next jobs. Jobs run with bounded parallelism and
+ * additionally take a share of a heap budget sized from each jar's uncompressed class bytes, so a
+ * directory of large revisions queues instead of running out of memory. Expected mappings are
+ * hooks.json files named after the jar ({@code <expected>/<jar name without .jar>.json}); revisions
+ * without one only get timings. Results go to {@code out/batch.csv} and {@code out/batch.json}
+ * (with the wrong and missing targets per revision).
+ */
+public final class BatchCommand {
+    /** Heap bytes per uncompressed class byte for ClassNodes plus the FeatureIndex; a rough upper bound. */
+    private static final int HEAP_PER_CLASS_BYTE = 16;
+    private static final long MB = 1024 * 1024;
+
+    /** Agreement of one mapping section with the expected mappings. */
+    record Accuracy(int expected, int correct, List<String> wrong, List<String> missing, int extra) {
+        double precision() {
+            int decided = correct + wrong.size();
+            return (decided == 0) ? 1.0 : (double) correct / decided;
+        }
+
+        double recall() { return (expected == 0) ? 1.0 : (double) correct / expected; }
+
+        static Accuracy of(Map<String, ?> expected, Map<String, ?> actual) {
+            int correct = 0;
+            List<String> wrong = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+            for (var e : expected.entrySet()) {
+                Object got = actual.get(e.getKey());
+                if (got == null) missing.add(e.getKey());
+                else if (String.valueOf(got).equals(String.valueOf(e.getValue()))) correct++;
+                else wrong.add(e.getKey());
+            }
+            int extra = 0;
+            for (String k : actual.keySet()) if (!expected.containsKey(k)) extra++;
+            return new Accuracy(expected.size(), correct, wrong, missing, extra);
+        }
+    }
+
+    record Row(String revision, int classes, long loadMs, long extractMs, long identifyMs, long totalMs,
+               int classesMapped, int fieldsMapped, Accuracy classAcc, Accuracy fieldAcc, Accuracy multAcc, String error) {}
+
+    private BatchCommand() {}
+
+    public static void main(String[] args) throws Exception {
+        Path jarsDir = null;
+        Path expectedDir = null;
+        Path out = Paths.get("out-batch");
+        Path rulesPath = null;
+        Path ruleBundleDir = null;
+        Path featureCache = null;
+        Path scoreMemo = null;
+        int cpus = Scheduler.availableCpus();
+        int parallel = Math.max(1, cpus / 2);
+        long budgetMb = Runtime.getRuntime().maxMemory() * 3 / 4 / MB;
+        boolean verbose = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--jars" -> jarsDir = Paths.get(requireNext(args, ++i, "--jars requires a directory"));
+                case "--expected" -> expectedDir = Paths.get(requireNext(args, ++i, "--expected requires a directory"));
+                case "--out" -> out = Paths.get(requireNext(args, ++i, "--out requires a path"));
+                case "--rules" -> rulesPath = Paths.get(requireNext(args, ++i, "--rules requires a path"));
+                case "--rule-bundle-dir" -> ruleBundleDir = Paths.get(requireNext(args, ++i, "--rule-bundle-dir requires a path"));
+                case "--feature-cache" -> featureCache = Paths.get(requireNext(args, ++i, "--feature-cache requires a path"));
+                case "--score-memo" -> scoreMemo = Paths.get(requireNext(args, ++i, "--score-memo requires a path"));
+                case "--parallel" -> parallel = Integer.parseInt(requireNext(args, ++i, "--parallel requires a number"));
+                case "--memory-mb" -> budgetMb = Long.parseLong(requireNext(args, ++i, "--memory-mb requires a number"));
+                case "--verbose" -> verbose = true;
+                default -> {
+                    System.err.println("Unknown batch arg: " + a);
+                    System.exit(2);
+                }
+            }
+        }
+        if (jarsDir == null) {
+            System.err.println("Usage: batch --jars DIR [--expected DIR] [--out DIR] [--rules rules.yaml] [--rule-bundle-dir DIR]"
+                    + " [--feature-cache DIR] [--score-memo DIR] [--parallel N] [--memory-mb N] [--verbose]");
+            System.exit(2);
+        }
+
+        List<Path> jars;
+        try (var s = Files.list(jarsDir)) {
+            jars = s.filter(p -> p.getFileName().toString().endsWith(".jar")).sorted().toList();
+        }
+        if (jars.isEmpty()) {
+            System.err.println("No jars in " + jarsDir);
+            System.exit(2);
+        }
+
+        RuleSet rules;
+        if (rulesPath == null) {
+            rules = RuleLoader.loadFromResource("/default-rules.yaml");
+        } else if (ruleBundleDir != null) {
+            RuleBundle.Result b = RuleBundle.loadOrCompile(rulesPath, ruleBundleDir);
+            RuleValidator.print(b.problems());
+            rules = b.rules();
+        } else {
+            rules = RuleLoader.load(rulesPath);
+        }
+
+        parallel = Math.max(1, Math.min(parallel, jars.size()));
+        int budget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetMb));
+        Semaphore memory = new Semaphore(budget, true);
+        System.out.println("Batch: " + jars.size() + " jars, parallel=" + parallel + " workers=" + cpus
+                + " memory budget=" + budget + "MB");
+
+        long t0 = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(parallel);
+        Scheduler scheduler = new Scheduler(cpus);
+        List<Future<Row>> futures = new ArrayList<>();
+        List<Row> rows = new ArrayList<>();
+        try {
+            for (Path jar : jars) {
+                Path expected = (expectedDir == null) ? null : expectedDir.resolve(stem(jar) + ".json");
+                Path fc = featureCache;
+                Path sm = scoreMemo;
+                boolean keepLog = verbose;
+                futures.add(pool.submit(() -> {
+                    int permits = (int) Math.min(budget, Math.max(1, estimateHeapBytes(jar) / MB));
+                    memory.acquire(permits);
+                    try {
+                        // Pass output of concurrent jobs would interleave, so each job logs on its
+                        // own and --verbose prints the whole log with the job's progress line.
+                        ByteArrayOutputStream jobLog = new ByteArrayOutputStream();
+                        PrintStream log = keepLog ? new PrintStream(jobLog, true, StandardCharsets.UTF_8)
+                                : new PrintStream(OutputStream.nullOutputStream());
+                        Row r = runOne(jar, expected, rules, scheduler, fc, sm, jars.size(), log);
+                        synchronized (System.out) {
+                            System.out.print(jobLog.toString(StandardCharsets.UTF_8));
+                            System.out.println(progress(r));
+                        }
+                        return r;
+                    } finally {
+                        memory.release(permits);
+                    }
+                }));
+            }
+            for (Future<Row> f : futures) rows.add(f.get());
+        } finally {
+            pool.shutdownNow();
+            scheduler.close();
+        }
+        long totalMs = (System.nanoTime() - t0) / 1_000_000;
+
+        Files.createDirectories(out);
+        writeCsv(rows, out.resolve("batch.csv"));
+        writeJson(rows, out.resolve("batch.json"));
+        printTable(rows);
+        System.out.println("Batch done in " + totalMs + "ms -> " + out.resolve("batch.csv"));
+    }
+
+    private static Row runOne(Path jar, Path expectedFile, RuleSet rules, Scheduler scheduler, Path featureCache, Path scoreMemo,
+                              int jars, PrintStream log) {
+        String revision = stem(jar);
+        long t0 = System.nanoTime();
+        try {
+            ClassGroup group = new ClassGroup();
+            DeobContext ctx = new DeobContext(null, rules);
+            ctx.setInputJar(jar);
+            ctx.setLog(log);
+            ctx.setScheduler(scheduler);
+            ctx.setFeatureCacheDir(featureCache);
+            ctx.setCacheKeep(Math.max(CacheFiles.KEEP, jars));
+            ctx.setScoreMemoDir(scoreMemo);
+            new Pipeline()
+                    .add(new LoadJarPass(jar))
+                    .add(new NormalizePass())
+                    .add(new ExtractFeaturesPass())
+                    .add(new IdentifyPass())
+                    .add(new IdentifyFieldsPass())
+                    .run(group, ctx);
+            if (ctx.scoreMemo() != null) ctx.scoreMemo().save();
+
+            long loadMs = 0, extractMs = 0, identifyMs = 0;
+            for (RunMetrics.PhaseMetrics p : ctx.metrics().phases()) {
+                long ms = p.wallNanos() / 1_000_000;
+                if (p.name().startsWith("Identify")) identifyMs += ms;
+                else if (p.name().equals("LoadJar")) loadMs += ms;
+                else if (p.name().equals("ExtractFeatures")) extractMs += ms;
+            }
+
+            MappingReport report = ctx.report();
+            Accuracy cls = null, fld = null, mult = null;
+            HooksDelta.Revision expected = (expectedFile == null) ? null : HooksDelta.read(expectedFile);
+            if (expected != null) {
+                cls = Accuracy.of(expected.classes(), report.classMappings());
+                fld = Accuracy.of(expected.fields(), report.fieldMappings());
+                mult = Accuracy.of(expected.multipliers(), report.fieldMultipliers());
+            }
+            return new Row(revision, group.size(), loadMs, extractMs, identifyMs, (System.nanoTime() - t0) / 1_000_000,
+                    report.classMappings().size(), report.fieldMappings().size(), cls, fld, mult, null);
+        } catch (Exception | OutOfMemoryError e) {
+            return new Row(revision, 0, 0, 0, 0, (System.nanoTime() - t0) / 1_000_000, 0, 0, null, null, null, e.toString());
+        }
+    }
+
+    /** Uncompressed class bytes of {@code jar} times {@link #HEAP_PER_CLASS_BYTE}. */
+    private static long estimateHeapBytes(Path jar) throws IOException {
+        long raw = 0;
+        try (JarFile jf = new JarFile(jar.toFile())) {
+            for (Enumeration<JarEntry> en = jf.entries(); en.hasMoreElements(); ) {
+                JarEntry e = en.nextElement();
+                if (e.getName().endsWith(".class")) raw += Math.max(0, e.getSize());
+            }
+        }
+        return raw * HEAP_PER_CLASS_BYTE;
+    }
+
+    private static String progress(Row r) {
+        if (r.error() != null) return "  " + r.revision() + ": FAILED " + r.error();
+        return "  " + r.revision() + ": " + r.totalMs() + "ms classes=" + r.classesMapped() + " fields=" + r.fieldsMapped()
+                + (r.classAcc() != null ? " class recall=" + pct(r.classAcc().recall()) + " field recall=" + pct(r.fieldAcc().recall()) : "");
+    }
+
+    private static void printTable(List<Row> rows) {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-28s %6s %7s %7s %7s %7s %9s %9s %9s %9s %9s",
+                "revision", "classes", "loadMs", "extrMs", "identMs", "totalMs", "clsPrec", "clsRecall", "fldPrec", "fldRecall", "multAcc"));
+        for (Row r : rows) {
+            if (r.error() != null) {
+                System.out.println(String.format(Locale.ROOT, "%-28s FAILED %s", r.revision(), r.error()));
+                continue;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-28s %6d %7d %7d %7d %7d %9s %9s %9s %9s %9s",
+                    r.revision(), r.classes(), r.loadMs(), r.extractMs(), r.identifyMs(), r.totalMs(),
+                    r.classAcc() == null ? "-" : pct(r.classAcc().precision()),
+                    r.classAcc() == null ? "-" : pct(r.classAcc().recall()),
+                    r.fieldAcc() == null ? "-" : pct(r.fieldAcc().precision()),
+                    r.fieldAcc() == null ? "-" : pct(r.fieldAcc().recall()),
+                    r.multAcc() == null ? "-" : pct(r.multAcc().recall())));
+        }
+    }
+
+    private static void writeCsv(List<Row> rows, Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("revision,classes,loadMs,extractMs,identifyMs,totalMs,classesMapped,fieldsMapped,"
+                    + "classExpected,classCorrect,classWrong,classMissing,classPrecision,classRecall,"
+                    + "fieldExpected,fieldCorrect,fieldWrong,fieldMissing,fieldPrecision,fieldRecall,"
+                    + "multExpected,multCorrect,multWrong,multMissing,error\n");
+            for (Row r : rows) {
+                StringJoiner line = new StringJoiner(",");
+                line.add(r.revision()).add(String.valueOf(r.classes())).add(String.valueOf(r.loadMs()))
+                        .add(String.valueOf(r.extractMs())).add(String.valueOf(r.identifyMs())).add(String.valueOf(r.totalMs()))
+                        .add(String.valueOf(r.classesMapped())).add(String.valueOf(r.fieldsMapped()));
+                accuracyColumns(line, r.classAcc(), true);
+                accuracyColumns(line, r.fieldAcc(), true);
+                accuracyColumns(line, r.multAcc(), false);
+                line.add(r.error() == null ? "" : "\"" + r.error().replace("\"", "\"\"") + "\"");
+                w.write(line + "\n");
+            }
+        }
+    }
+
+    private static void accuracyColumns(StringJoiner line, Accuracy a, boolean rates) {
+        int n = rates ? 6 : 4;
+        if (a == null) {
+            for (int i = 0; i < n; i++) line.add("");
+            return;
+        }
+        line.add(String.valueOf(a.expected())).add(String.valueOf(a.correct()))
+                .add(String.valueOf(a.wrong().size())).add(String.valueOf(a.missing().size()));
+        if (rates) line.add(fmt(a.precision())).add(fmt(a.recall()));
+    }
+
+    private static void writeJson(List<Row> rows, Path file) throws IOException {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Row r : rows) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("revision", r.revision());
+            m.put("totalMs", r.totalMs());
+            if (r.error() != null) m.put("error", r.error());
+            if (r.classAcc() != null) {
+                m.put("classes", json(r.classAcc()));
+                m.put("fields", json(r.fieldAcc()));
+                m.put("multipliers", json(r.multAcc()));
+            }
+            out.add(m);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), out);
+    }
+
+    private static Map<String, Object> json(Accuracy a) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("expected", a.expected());
+        m.put("correct", a.correct());
+        m.put("precision", a.precision());
+        m.put("recall", a.recall());
+        m.put("extra", a.extra());
+        m.put("wrong", a.wrong());
+        m.put("missing", a.missing());
+        return m;
+    }
+
+    private static String stem(Path jar) {
+        String n = jar.getFileName().toString();
+        return n.endsWith(".jar") ? n.substring(0, n.length() - 4) : n;
+    }
+
+    private static String pct(double v) {
+        return String.format(Locale.ROOT, "%.1f%%", v * 100.0);
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    private static String requireNext(String[] args, int idx, String err) {
+        if (idx >= args.length) throw new IllegalArgumentException(err);
+        return args[idx];
+    }
+}
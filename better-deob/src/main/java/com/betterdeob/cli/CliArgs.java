@@ -1,31 +1,78 @@
 package com.betterdeob.cli;
 
+import com.betterdeob.core.Scheduler;
+
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 public final class CliArgs {
     private final Path inputJar;
     private final Path outputDir;
     private final Path rulesPath;
     private final int threads;
+    private final Path metricsTextfile;
+    private final boolean profileRules;
+    private final boolean jfr;
+    private final Path hooksDir;
+    private final Pattern evidenceFilter;
+    private final boolean noEvidence;
+    private final Path featureCache;
+    private final Path ruleBundleDir;
+    private final Path scoreMemo;
+    private final List<Path> shadowRules;
 
-    private CliArgs(Path inputJar, Path outputDir, Path rulesPath, int threads) {
+    private CliArgs(Path inputJar, Path outputDir, Path rulesPath, int threads, Path metricsTextfile, boolean profileRules,
+                    boolean jfr, Path hooksDir, Pattern evidenceFilter, boolean noEvidence, Path featureCache,
+                    Path ruleBundleDir, Path scoreMemo, List<Path> shadowRules) {
         this.inputJar = inputJar;
         this.outputDir = outputDir;
         this.rulesPath = rulesPath;
         this.threads = threads;
+        this.metricsTextfile = metricsTextfile;
+        this.profileRules = profileRules;
+        this.jfr = jfr;
+        this.hooksDir = hooksDir;
+        this.evidenceFilter = evidenceFilter;
+        this.noEvidence = noEvidence;
+        this.featureCache = featureCache;
+        this.ruleBundleDir = ruleBundleDir;
+        this.scoreMemo = scoreMemo;
+        this.shadowRules = List.copyOf(shadowRules);
     }
 
     public Path inputJar() { return inputJar; }
     public Path outputDir() { return outputDir; }
     public Path rulesPath() { return rulesPath; }
     public int threads() { return threads; }
+    public Path metricsTextfile() { return metricsTextfile; }
+    public boolean profileRules() { return profileRules; }
+    public boolean jfr() { return jfr; }
+    public Path hooksDir() { return hooksDir; }
+    public Pattern evidenceFilter() { return evidenceFilter; }
+    public boolean noEvidence() { return noEvidence; }
+    public Path featureCache() { return featureCache; }
+    public Path ruleBundleDir() { return ruleBundleDir; }
+    public Path scoreMemo() { return scoreMemo; }
+    public List<Path> shadowRules() { return shadowRules; }
 
     public static CliArgs parse(String[] args) {
         Path in = null;
         Path out = Paths.get("out");
         Path rules = null;
-        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int threads = Math.max(1, Scheduler.availableCpus() - 1);
+        Path metrics = null;
+        boolean profileRules = false;
+        boolean jfr = false;
+        Path hooksDir = null;
+        Pattern evidenceFilter = null;
+        boolean noEvidence = false;
+        Path featureCache = null;
+        Path ruleBundleDir = null;
+        Path scoreMemo = null;
+        List<Path> shadowRules = new ArrayList<>();
 
         for (int i = 0; i < args.length; i++) {
             String a = args[i];
@@ -34,6 +81,16 @@ public final class CliArgs {
                 case "--out" -> out = Paths.get(requireNext(args, ++i, "--out requires a path"));
                 case "--rules" -> rules = Paths.get(requireNext(args, ++i, "--rules requires a path"));
                 case "--threads" -> threads = Integer.parseInt(requireNext(args, ++i, "--threads requires a number"));
+                case "--metrics-textfile" -> metrics = Paths.get(requireNext(args, ++i, "--metrics-textfile requires a path"));
+                case "--profile-rules" -> profileRules = true;
+                case "--jfr" -> jfr = true;
+                case "--hooks-dir" -> hooksDir = Paths.get(requireNext(args, ++i, "--hooks-dir requires a path"));
+                case "--evidence-filter" -> evidenceFilter = Pattern.compile(requireNext(args, ++i, "--evidence-filter requires a regex"));
+                case "--no-evidence" -> noEvidence = true;
+                case "--feature-cache" -> featureCache = Paths.get(requireNext(args, ++i, "--feature-cache requires a path"));
+                case "--rule-bundle-dir" -> ruleBundleDir = Paths.get(requireNext(args, ++i, "--rule-bundle-dir requires a path"));
+                case "--score-memo" -> scoreMemo = Paths.get(requireNext(args, ++i, "--score-memo requires a path"));
+                case "--shadow-rules" -> shadowRules.add(Paths.get(requireNext(args, ++i, "--shadow-rules requires a path")));
                 case "--help" -> { printHelpAndExit(); return null; }
                 default -> { System.err.println("Unknown arg: " + a); printHelpAndExit(); return null; }
             }
@@ -45,7 +102,8 @@ public final class CliArgs {
         }
 
         if (threads < 1) threads = 1;
-        return new CliArgs(in, out, rules, threads);
+        return new CliArgs(in, out, rules, threads, metrics, profileRules, jfr, hooksDir, evidenceFilter, noEvidence, featureCache,
+                ruleBundleDir, scoreMemo, shadowRules);
     }
 
     private static String requireNext(String[] args, int idx, String err) {
@@ -58,12 +116,51 @@ public final class CliArgs {
                 better-deob (starter)
 
                 Usage:
-                  gradle run --args="--in gamepack.jar [--out outDir] [--rules rules.yaml] [--threads N]"
+                  gradle run --args="--in gamepack.jar [--out outDir] [--rules rules.yaml] [--threads N]
+                                    [--metrics-textfile better_deob.prom] [--profile-rules] [--jfr]
+                                    [--hooks-dir /app/data] [--evidence-filter REGEX | --no-evidence]
+                                    [--feature-cache DIR] [--rule-bundle-dir DIR] [--score-memo DIR]
+                                    [--shadow-rules other-rules.yaml ...]"
+                  gradle run --args="batch --jars DIR [--expected DIR] [--out DIR] [--rules rules.yaml]
+                                    [--parallel N] [--memory-mb N] [--feature-cache DIR] [--score-memo DIR]"
+                  gradle run --args="mine --in gamepack.jar --mapping hooks.json [--out mined-rules.yaml] [--targets REGEX] [--top N]"
+                  gradle run --args="compile-rules --rules rules.yaml [--bundle-dir DIR]"
+                  gradle run --args="explain --in gamepack.jar --target Client.gameState [--rules rules.yaml]
+                                    [--feature-cache DIR] [--top N]"
 
                 Output:
-                  out/mapping.json
-                  out/evidence.json
+                  out/mapping_classes.json     (target -> obfuscated class)
+                  out/mapping_fields.json      (Class.field target -> owner.field:desc)
+                  out/mapping_multipliers.json (Class.field target -> multiplier)
+                  out/evidence.ndjson.gz (streamed; --evidence-filter keeps only matching targets)
                   out/summary.json
+                  out/hooks.json + hooks.json.gz (or in --hooks-dir; written atomically)
+                  out/metrics.json   (per-pass time, CPU, allocation, GC, heap, counters)
+                  --metrics-textfile (same metrics in Prometheus textfile format)
+                  out/shadow-diff.json (with --shadow-rules: mapping differences of each extra rule set)
+                  out/rule-profile.csv (with --profile-rules: time/hits/winner contribution per rule and signal)
+                  out/better-deob.jfr  (with --jfr: flight recording incl. pass/extraction/rule/solver events)
+                  --feature-cache      (FeatureIndex snapshot per jar + fieldPatterns, reused by later runs and explain)
+                  --score-memo         (per-rule candidates per FeatureIndex; reruns only score changed rules
+                                        and field rules whose owner/descriptor/pattern mappings changed)
+
+                compile-rules:
+                  Validates the YAML (problems with line numbers, exit 1 on errors) and writes
+                  DIR/rules-<sha>.bundle. Runs given --rule-bundle-dir load the bundle for the
+                  YAML's SHA-256 instead of parsing it, compiling it first on a miss.
+
+                batch:
+                  Runs every DIR/*.jar in one JVM with shared rules; --expected DIR/<jar name>.json
+                  (hooks.json format) adds precision/recall. Writes batch.csv and batch.json.
+
+                mine:
+                  For each target of a known mapping of the same jar, suggests fieldPattern / literal /
+                  multiplier signals (and minFieldDescCounts for classes) that separate it from its
+                  rivals, with min counts and weights, as a rules YAML fragment.
+
+                explain:
+                  Re-scores one class or field rule (from the cached FeatureIndex when available) and prints
+                  the top candidates with per-signal contributions and the solver's decision.
 
                 Notes:
                   - This is a conservative static analysis / mapping foundation.
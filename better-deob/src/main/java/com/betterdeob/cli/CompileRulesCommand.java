@@ -0,0 +1,48 @@
+package com.betterdeob.cli;
+
+import com.betterdeob.rules.RuleBundle;
+import com.betterdeob.rules.RuleValidator;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * {@code compile-rules --rules rules.yaml [--bundle-dir DIR]}: validates the YAML and writes its
+ * binary bundle. Exits 1 when validation found errors (the bundle is still written, matching
+ * what a run would load), so it can gate rule updates before they reach a deob run.
+ */
+public final class CompileRulesCommand {
+    private CompileRulesCommand() {}
+
+    public static void main(String[] args) throws Exception {
+        Path rules = null;
+        Path dir = Paths.get("rule-bundles");
+
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--rules" -> rules = Paths.get(requireNext(args, ++i, "--rules requires a path"));
+                case "--bundle-dir" -> dir = Paths.get(requireNext(args, ++i, "--bundle-dir requires a path"));
+                default -> {
+                    System.err.println("Unknown compile-rules arg: " + a);
+                    System.exit(2);
+                }
+            }
+        }
+        if (rules == null) {
+            System.err.println("Usage: compile-rules --rules rules.yaml [--bundle-dir DIR]");
+            System.exit(2);
+        }
+
+        RuleBundle.Result r = RuleBundle.compile(rules, dir);
+        RuleValidator.print(r.problems());
+        System.out.println("Compiled " + r.rules().classRules().size() + " class rules, " + r.rules().fieldRules().size()
+                + " field rules -> " + r.bundle());
+        if (RuleValidator.hasErrors(r.problems())) System.exit(1);
+    }
+
+    private static String requireNext(String[] args, int idx, String err) {
+        if (idx >= args.length) throw new IllegalArgumentException(err);
+        return args[idx];
+    }
+}
@@ -0,0 +1,198 @@
+package com.betterdeob.cli;
+
+import com.betterdeob.core.*;
+import com.betterdeob.match.ClassRuleMatcher;
+import com.betterdeob.match.MatchResult;
+import com.betterdeob.match.SignalTrace;
+import com.betterdeob.passes.*;
+import com.betterdeob.report.MappingReport;
+import com.betterdeob.rules.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * {@code explain --in jar --target Client.gameState}: why one class or field target mapped the way it did.
+ *
+ * Runs feature extraction (from the --feature-cache snapshot when one exists for the jar and
+ * rules), class identification and, for field targets, field identification, with a
+ * {@link SignalTrace} recording every signal of the target rule. Other rules are scored too,
+ * since the solver's decision depends on the competing targets. Nothing is written to disk
+ * except a new cache snapshot, so production runs can use --no-evidence and still be debugged.
+ */
+public final class ExplainCommand {
+    private ExplainCommand() {}
+
+    /** Signal outcomes of the target rule, per candidate. */
+    private static final class Trace implements SignalTrace {
+        final String target;
+        final int signalCount;
+        final Map<String, double[]> weights = new HashMap<>();
+        final Map<String, boolean[]> hits = new HashMap<>();
+        final List<MatchResult> candidates = new ArrayList<>();
+
+        Trace(String target, int signalCount) {
+            this.target = target;
+            this.signalCount = signalCount;
+        }
+
+        @Override
+        public void signal(String targetId, String obf, int index, Rule.Signal signal, double weight, boolean hit) {
+            if (!target.equals(targetId)) return;
+            weights.computeIfAbsent(obf, k -> new double[signalCount])[index] = weight;
+            hits.computeIfAbsent(obf, k -> new boolean[signalCount])[index] = hit;
+        }
+
+        @Override
+        public void scored(MatchResult candidate) {
+            if (target.equals(candidate.targetName())) candidates.add(candidate);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path in = null;
+        Path rulesPath = null;
+        String target = null;
+        int top = 5;
+        Path featureCache = null;
+        int threads = Math.max(1, Scheduler.availableCpus() - 1);
+
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--in" -> in = Paths.get(requireNext(args, ++i, "--in requires a path"));
+                case "--rules" -> rulesPath = Paths.get(requireNext(args, ++i, "--rules requires a path"));
+                case "--target" -> target = requireNext(args, ++i, "--target requires a rule id");
+                case "--top" -> top = Integer.parseInt(requireNext(args, ++i, "--top requires a number"));
+                case "--feature-cache" -> featureCache = Paths.get(requireNext(args, ++i, "--feature-cache requires a path"));
+                case "--threads" -> threads = Integer.parseInt(requireNext(args, ++i, "--threads requires a number"));
+                default -> {
+                    System.err.println("Unknown explain arg: " + a);
+                    System.exit(2);
+                }
+            }
+        }
+        if (in == null || target == null) {
+            System.err.println("Usage: explain --in gamepack.jar --target <rule id> [--rules rules.yaml] [--feature-cache DIR] [--top N]");
+            System.exit(2);
+        }
+
+        RuleSet rules = (rulesPath != null) ? RuleLoader.load(rulesPath) : RuleLoader.loadFromResource("/default-rules.yaml");
+        Rule classRule = null;
+        FieldRule fieldRule = null;
+        for (Rule r : rules.classRules()) if (target.equals(r.id)) classRule = r;
+        for (FieldRule fr : rules.fieldRules()) if (target.equals(fr.id)) fieldRule = fr;
+        if (classRule == null && fieldRule == null) {
+            System.err.println("No class or field rule with id " + target);
+            System.exit(2);
+        }
+
+        List<Rule.Signal> signals = (classRule != null) ? classRule.signals : fieldRule.signals;
+        if (signals == null) signals = List.of();
+        Trace trace = new Trace(target, signals.size());
+
+        ClassGroup group = new ClassGroup();
+        DeobContext ctx = new DeobContext(null, rules);
+        ctx.setInputJar(in);
+        ctx.setThreads(threads);
+        ctx.setFeatureCacheDir(featureCache);
+        ctx.setSignalTrace(trace);
+
+        // LoadJarPass reads headers only, so a feature-cache hit parses no method body.
+        Pipeline pipeline = new Pipeline()
+                .add(new LoadJarPass(in))
+                .add(new NormalizePass())
+                .add(new ExtractFeaturesPass())
+                .add(new IdentifyPass());
+        if (fieldRule != null) pipeline.add(new IdentifyFieldsPass());
+        pipeline.run(group, ctx);
+
+        MappingReport report = ctx.report();
+        System.out.println();
+        double thr;
+        double scale;
+        Map<String, String> mappings;
+        if (classRule != null) {
+            thr = (classRule.threshold != null) ? classRule.threshold : rules.thresholdDefault();
+            scale = ClassRuleMatcher.SIGNAL_SCALE;
+            mappings = report.classMappings();
+            System.out.println("Target " + target + " (class rule, threshold " + fmt(thr) + ")");
+        } else {
+            thr = (fieldRule.threshold != null) ? fieldRule.threshold : rules.thresholdDefault();
+            scale = IdentifyFieldsPass.SIGNAL_SCALE;
+            mappings = report.fieldMappings();
+            String owner = report.classMappings().get(fieldRule.ownerTarget);
+            System.out.println("Target " + target + " (field rule, owner " + fieldRule.ownerTarget + " -> "
+                    + (owner != null ? owner : "UNRESOLVED") + ", desc " + fieldRule.desc + ", threshold " + fmt(thr) + ")");
+            if (owner == null) {
+                System.out.println("Owner class is unresolved; explain " + fieldRule.ownerTarget + " first.");
+                return;
+            }
+        }
+
+        double max = 0.0;
+        for (Rule.Signal s : signals) max += (s.weight == null) ? 0.1 : s.weight;
+
+        List<MatchResult> candidates = new ArrayList<>(trace.candidates);
+        candidates.sort(Comparator.comparingDouble(MatchResult::confidence).reversed().thenComparing(MatchResult::obfName));
+        int shown = Math.min(Math.max(0, top), candidates.size());
+        System.out.println("Candidates: " + candidates.size() + " passed constraints, showing top " + shown);
+
+        String winner = mappings.get(target);
+        Map<String, String> byObf = new HashMap<>();
+        mappings.forEach((t, o) -> byObf.put(o, t));
+
+        for (int i = 0; i < shown; i++) {
+            MatchResult m = candidates.get(i);
+            System.out.println();
+            System.out.println("#" + (i + 1) + " " + m.obfName() + "  conf=" + fmt(m.confidence())
+                    + (m.multiplier() != null ? "  multiplier=" + m.multiplier() : "")
+                    + "  -> " + decision(m, winner, thr, byObf));
+
+            double[] w = trace.weights.getOrDefault(m.obfName(), new double[signals.size()]);
+            boolean[] h = trace.hits.getOrDefault(m.obfName(), new boolean[signals.size()]);
+            double earned = 0.0;
+            for (int si = 0; si < signals.size(); si++) {
+                double c = (h[si] && max > 0.0) ? w[si] / max * scale : 0.0;
+                earned += c;
+                System.out.println("    " + (h[si] ? "hit " : "miss") + "  +" + fmt(c) + "  " + label(signals.get(si)) + "  (w=" + w[si] + ")");
+            }
+            System.out.println("    base  +" + fmt(Math.max(0.0, m.confidence() - earned)) + "  (constraints / fixed base)");
+            for (String ev : m.evidence()) System.out.println("      " + ev);
+        }
+
+        System.out.println();
+        if (winner != null) {
+            System.out.println("Decision: " + target + " -> " + winner);
+        } else {
+            System.out.println("Decision: " + target + " is UNRESOLVED"
+                    + (candidates.isEmpty() ? " (no candidate passed the rule's constraints)" : ""));
+        }
+    }
+
+    private static String decision(MatchResult m, String winner, double thr, Map<String, String> byObf) {
+        if (m.obfName().equals(winner)) return "WINNER";
+        if (m.confidence() < thr) return "below threshold";
+        String other = byObf.get(m.obfName());
+        if (other != null) return "assigned to " + other;
+        if (winner != null) return "lost to " + winner;
+        return "not assigned";
+    }
+
+    private static String label(Rule.Signal s) {
+        StringBuilder sb = new StringBuilder(String.valueOf(s.kind));
+        if (s.value != null) sb.append(' ').append(s.value);
+        if (s.min != null) sb.append(" min=").append(s.min);
+        return sb.toString();
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    private static String requireNext(String[] args, int idx, String err) {
+        if (idx >= args.length) throw new IllegalArgumentException(err);
+        return args[idx];
+    }
+}
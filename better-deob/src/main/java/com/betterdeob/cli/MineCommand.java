@@ -0,0 +1,103 @@
+package com.betterdeob.cli;
+
+import com.betterdeob.core.*;
+import com.betterdeob.passes.ExtractFeaturesPass;
+import com.betterdeob.passes.NormalizePass;
+import com.betterdeob.report.HooksDelta;
+import com.betterdeob.rules.RuleSet;
+import com.betterdeob.rules.SignalMiner;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * {@code mine --in gamepack.jar --mapping hooks.json}: suggests signals for every mapped target.
+ *
+ * The mapping is a hooks.json of the same revision (class and field sections). Extraction runs
+ * with no rule patterns, so the index holds only the raw access windows, literals and counts the
+ * miner reads ({@link SignalMiner}). The result is a rules YAML fragment with per-target signals,
+ * suggested min counts and weights, and comments with the counts they were derived from.
+ */
+public final class MineCommand {
+    private MineCommand() {}
+
+    public static void main(String[] args) throws Exception {
+        Path in = null;
+        Path mapping = null;
+        Path out = Paths.get("mined-rules.yaml");
+        Pattern targets = null;
+        int top = 4;
+        Path featureCache = null;
+        int threads = Math.max(1, Scheduler.availableCpus() - 1);
+
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--in" -> in = Paths.get(requireNext(args, ++i, "--in requires a path"));
+                case "--mapping" -> mapping = Paths.get(requireNext(args, ++i, "--mapping requires a path"));
+                case "--out" -> out = Paths.get(requireNext(args, ++i, "--out requires a path"));
+                case "--targets" -> targets = Pattern.compile(requireNext(args, ++i, "--targets requires a regex"));
+                case "--top" -> top = Integer.parseInt(requireNext(args, ++i, "--top requires a number"));
+                case "--feature-cache" -> featureCache = Paths.get(requireNext(args, ++i, "--feature-cache requires a path"));
+                case "--threads" -> threads = Integer.parseInt(requireNext(args, ++i, "--threads requires a number"));
+                default -> {
+                    System.err.println("Unknown mine arg: " + a);
+                    System.exit(2);
+                }
+            }
+        }
+        if (in == null || mapping == null) {
+            System.err.println("Usage: mine --in gamepack.jar --mapping hooks.json [--out mined-rules.yaml] [--targets REGEX]"
+                    + " [--top N] [--feature-cache DIR] [--threads N]");
+            System.exit(2);
+        }
+
+        HooksDelta.Revision known = HooksDelta.read(mapping);
+        if (known == null) {
+            System.err.println("Cannot read mapping " + mapping);
+            System.exit(2);
+        }
+        Map<String, String> classes = filter(known.classes(), targets);
+        Map<String, String> fields = filter(known.fields(), targets);
+
+        ClassGroup group = JarLoader.load(in);
+        DeobContext ctx = new DeobContext(null, new RuleSet());
+        ctx.setInputJar(in);
+        ctx.setThreads(threads);
+        ctx.setFeatureCacheDir(featureCache);
+        ctx.setFullExtraction(true);   // every class is a mining candidate
+        new Pipeline()
+                .add(new NormalizePass())
+                .add(new ExtractFeaturesPass())
+                .run(group, ctx);
+
+        long t0 = System.nanoTime();
+        List<SignalMiner.Mined> mined = SignalMiner.mine(ctx.featureIndex(), classes, fields, top, ctx.scheduler());
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        SignalMiner.writeYaml(mined, out);
+
+        int none = 0, separated = 0;
+        for (SignalMiner.Mined m : mined) {
+            if (m.signals().isEmpty()) none++;
+            else if (m.signals().get(0).separates()) separated++;
+        }
+        int missing = classes.size() + fields.size() - mined.size();
+        System.out.println("Mined " + mined.size() + " targets (" + classes.size() + " classes, " + fields.size() + " fields) in " + ms
+                + "ms: " + separated + " with a separating signal, " + none + " without candidates"
+                + (missing > 0 ? ", " + missing + " not found in the jar" : "") + " -> " + out);
+    }
+
+    private static Map<String, String> filter(Map<String, String> m, Pattern targets) {
+        if (targets == null) return m;
+        Map<String, String> out = new TreeMap<>();
+        m.forEach((k, v) -> { if (targets.matcher(k).find()) out.put(k, v); });
+        return out;
+    }
+
+    private static String requireNext(String[] args, int idx, String err) {
+        if (idx >= args.length) throw new IllegalArgumentException(err);
+        return args[idx];
+    }
+}
@@ -28,8 +28,9 @@ fi
 cd /app/github-repo
 git pull origin main || git pull origin master
 
-# Copy hooks.json only (no backups)
+# Copy hooks.json and the delta from the previous revision (no backups)
 cp /app/data/hooks.json .
+[ -f /app/data/hooks.delta.json ] && cp /app/data/hooks.delta.json .
 
 # Check if there are changes
 if git diff --quiet && git diff --staged --quiet; then
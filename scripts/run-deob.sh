@@ -10,19 +10,34 @@ echo "[DEOB] Output: /app/output"
 # Rules file (already downloaded by entrypoint.sh)
 RULES_FILE="/app/data/osrs-rules.yaml"
 
+# Prometheus textfile for node_exporter's textfile collector (per-pass time/CPU/alloc/GC/heap + counters)
+METRICS_FILE="/app/data/metrics/better_deob.prom"
+
+# hooks.json (+ .gz) is streamed by ReportPass and renamed into place here
+HOOKS_DIR="/app/data"
+
+# FeatureIndex snapshots per jar; reused by reruns and by `explain`
+FEATURE_CACHE="/app/data/feature-cache"
+
+# Compiled rule bundles keyed by the rules YAML SHA-256 (validated once per rules update)
+RULE_BUNDLES="/app/data/rule-bundles"
+
+# Per-rule scoring results per FeatureIndex; reruns only score changed rules
+SCORE_MEMO="/app/data/score-memo"
+
 if [ -f "$RULES_FILE" ] && [ -s "$RULES_FILE" ]; then
     RULES_LINES=$(wc -l < "$RULES_FILE")
     RULES_SHA=$(sha256sum "$RULES_FILE" | cut -d' ' -f1)
     echo "[DEOB] Using rules file: $RULES_FILE ($RULES_LINES lines, SHA: ${RULES_SHA:0:16}...)"
-    ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output --rules $RULES_FILE" 2>&1
+    ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output --rules $RULES_FILE --metrics-textfile $METRICS_FILE --hooks-dir $HOOKS_DIR --feature-cache $FEATURE_CACHE --rule-bundle-dir $RULE_BUNDLES --score-memo $SCORE_MEMO" 2>&1
 else
     echo "[DEOB] WARNING: No rules file at $RULES_FILE, trying local fallback..."
     if [ -f "src/main/resources/osrs-rules.yaml" ]; then
         echo "[DEOB] Using local rules file: src/main/resources/osrs-rules.yaml"
-        ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output --rules src/main/resources/osrs-rules.yaml" 2>&1
+        ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output --rules src/main/resources/osrs-rules.yaml --metrics-textfile $METRICS_FILE --hooks-dir $HOOKS_DIR --feature-cache $FEATURE_CACHE --rule-bundle-dir $RULE_BUNDLES --score-memo $SCORE_MEMO" 2>&1
     else
         echo "[DEOB] No rules file found, running without rules"
-        ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output" 2>&1
+        ./gradlew run --no-daemon --args="--in /app/data/gamepack.jar --out /app/output --metrics-textfile $METRICS_FILE --hooks-dir $HOOKS_DIR --feature-cache $FEATURE_CACHE --rule-bundle-dir $RULE_BUNDLES --score-memo $SCORE_MEMO" 2>&1
     fi
 fi
 